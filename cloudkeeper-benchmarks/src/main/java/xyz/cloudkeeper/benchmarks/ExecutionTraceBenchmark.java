@@ -0,0 +1,114 @@
+package xyz.cloudkeeper.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import xyz.cloudkeeper.examples.modules.Fibonacci;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.immutable.element.Index;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for parsing, formatting, and copying execution traces.
+ *
+ * <p>Benchmarks {@link #valueOf()} and {@link #toStringOf()} measure the conversion between an execution trace and its
+ * string representation. The execution trace consists of {@code depth} nested loop iterations, followed by a module
+ * and an in-port element (for instance, {@code loop0/0/loop1/1/child:in:value} for depth 2).
+ *
+ * <p>Benchmark {@link #copyOf(AnnotatedTrace)} measures
+ * {@link ExecutionTrace#copyOf(xyz.cloudkeeper.model.bare.execution.BareExecutionTrace)} for an in-port of a module
+ * within a loop of the {@link Fibonacci} workflow, as done whenever an annotated execution trace needs to be sent to
+ * another actor or node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ExecutionTraceBenchmark {
+    @Param({ "1", "8" })
+    private int depth;
+
+    private ExecutionTrace executionTrace;
+    private String string;
+
+    @Setup
+    public void setup() {
+        ExecutionTrace newExecutionTrace = ExecutionTrace.empty();
+        for (int i = 0; i < depth; ++i) {
+            newExecutionTrace = newExecutionTrace
+                .resolveModule(SimpleName.identifier("loop" + i))
+                .resolveContent()
+                .resolveIteration(Index.index(i))
+                .resolveContent();
+        }
+        executionTrace = newExecutionTrace
+            .resolveModule(SimpleName.identifier("child"))
+            .resolveInPort(SimpleName.identifier("value"));
+        string = executionTrace.toString();
+    }
+
+    /**
+     * Annotated execution trace, which is expensive to create and therefore kept in a separate state object.
+     */
+    @State(Scope.Benchmark)
+    public static class AnnotatedTrace {
+        private ExecutorService executorService;
+        private RuntimeAnnotatedExecutionTrace annotatedTrace;
+
+        @Setup
+        public void setup() throws Exception {
+            executorService = Executors.newSingleThreadExecutor();
+            RuntimeContext runtimeContext = Fixtures.newRuntimeContext(Fibonacci.class, executorService);
+            annotatedTrace = Fixtures.newRootTrace(runtimeContext, Fibonacci.class)
+                .resolveExecutionTrace(ExecutionTrace.valueOf("loop/3/sum:in:num1"));
+        }
+
+        @TearDown
+        public void tearDown() {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public ExecutionTrace valueOf() {
+        return ExecutionTrace.valueOf(string);
+    }
+
+    @Benchmark
+    public String toStringOf() {
+        return executionTrace.toString();
+    }
+
+    @Benchmark
+    public ExecutionTrace copyOf(AnnotatedTrace state) {
+        return ExecutionTrace.copyOf(state.annotatedTrace);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(ExecutionTraceBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,47 @@
+package xyz.cloudkeeper.benchmarks;
+
+import xyz.cloudkeeper.dsl.Module;
+import xyz.cloudkeeper.dsl.ModuleFactory;
+import xyz.cloudkeeper.model.LinkerException;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+import xyz.cloudkeeper.simple.DSLRuntimeContextFactory;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Static helper methods for setting up benchmark state.
+ */
+final class Fixtures {
+    private Fixtures() {
+        throw new AssertionError(String.format("No %s instances for you!", getClass().getName()));
+    }
+
+    /**
+     * Returns a new runtime context for the given DSL module and its dependencies.
+     */
+    static RuntimeContext newRuntimeContext(Class<? extends Module<?>> moduleClass, Executor executor)
+            throws URISyntaxException, ExecutionException, InterruptedException {
+        return new DSLRuntimeContextFactory.Builder(executor).build()
+            .newRuntimeContext(Collections.singletonList(new URI(Module.URI_SCHEME, moduleClass.getName(), null)))
+            .get();
+    }
+
+    /**
+     * Returns a new absolute annotated execution trace for the given DSL module.
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends Module<T>> RuntimeAnnotatedExecutionTrace newRootTrace(RuntimeContext runtimeContext,
+            Class<? extends Module<?>> moduleClass) throws LinkerException {
+        return runtimeContext.newAnnotatedExecutionTrace(
+            ExecutionTrace.empty(),
+            ModuleFactory.getDefault().create((Class<T>) moduleClass),
+            Collections.emptyList()
+        );
+    }
+}
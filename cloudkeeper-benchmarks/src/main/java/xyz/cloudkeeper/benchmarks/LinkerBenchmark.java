@@ -0,0 +1,148 @@
+package xyz.cloudkeeper.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import xyz.cloudkeeper.linker.Linker;
+import xyz.cloudkeeper.linker.LinkerOptions;
+import xyz.cloudkeeper.model.LinkerException;
+import xyz.cloudkeeper.model.beans.element.MutableBundle;
+import xyz.cloudkeeper.model.beans.element.MutablePackage;
+import xyz.cloudkeeper.model.beans.element.MutablePluginDeclaration;
+import xyz.cloudkeeper.model.beans.element.module.MutableChildOutToParentOutConnection;
+import xyz.cloudkeeper.model.beans.element.module.MutableCompositeModule;
+import xyz.cloudkeeper.model.beans.element.module.MutableCompositeModuleDeclaration;
+import xyz.cloudkeeper.model.beans.element.module.MutableConnection;
+import xyz.cloudkeeper.model.beans.element.module.MutableInPort;
+import xyz.cloudkeeper.model.beans.element.module.MutableModule;
+import xyz.cloudkeeper.model.beans.element.module.MutableOutPort;
+import xyz.cloudkeeper.model.beans.element.module.MutableParentInToChildInConnection;
+import xyz.cloudkeeper.model.beans.element.module.MutablePort;
+import xyz.cloudkeeper.model.beans.element.module.MutableProxyModule;
+import xyz.cloudkeeper.model.beans.element.module.MutableSiblingConnection;
+import xyz.cloudkeeper.model.beans.element.module.MutableSimpleModuleDeclaration;
+import xyz.cloudkeeper.model.beans.type.MutableDeclaredType;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.element.RuntimeRepository;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for linking large bundles.
+ *
+ * <p>The bundle is synthetic: It contains {@code numDeclarations} simple-module declarations, each with one in-port and
+ * one out-port, and a composite-module declaration whose template chains a child module of each simple-module
+ * declaration. Benchmark {@link #createRepository()} measures {@link Linker#createRepository(List, LinkerOptions)}
+ * for this bundle, and {@link #createAnnotatedExecutionTrace()} measures linking a proxy module for the
+ * composite-module declaration against the (previously created) repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LinkerBenchmark {
+    private static final String PACKAGE_NAME = LinkerBenchmark.class.getPackage().getName() + ".synthetic";
+    private static final String CHAIN_NAME = PACKAGE_NAME + ".Chain";
+
+    @Param({ "100", "1000" })
+    private int numDeclarations;
+
+    private LinkerOptions linkerOptions;
+    private List<MutableBundle> bundles;
+    private RuntimeRepository repository;
+    private MutableProxyModule chainModule;
+
+    @Setup
+    public void setup() throws LinkerException {
+        linkerOptions = LinkerOptions.nonExecutable();
+        bundles = Collections.singletonList(syntheticBundle(numDeclarations));
+        repository = createRepository();
+        chainModule = new MutableProxyModule().setDeclaration(CHAIN_NAME);
+    }
+
+    private static List<MutablePort<?>> ports() {
+        MutableDeclaredType integer = MutableDeclaredType.fromType(Integer.class);
+        return Arrays.<MutablePort<?>>asList(
+            new MutableInPort().setSimpleName("in").setType(integer),
+            new MutableOutPort().setSimpleName("out").setType(integer)
+        );
+    }
+
+    private static MutableBundle syntheticBundle(int numDeclarations) {
+        List<MutablePluginDeclaration<?>> declarations = new ArrayList<>(numDeclarations + 1);
+        List<MutableModule<?>> modules = new ArrayList<>(numDeclarations);
+        List<MutableConnection<?>> connections = new ArrayList<>(numDeclarations + 1);
+        for (int i = 0; i < numDeclarations; ++i) {
+            String simpleName = "Simple" + i;
+            declarations.add(new MutableSimpleModuleDeclaration().setSimpleName(simpleName).setPorts(ports()));
+            modules.add(
+                new MutableProxyModule().setSimpleName("m" + i).setDeclaration(PACKAGE_NAME + '.' + simpleName)
+            );
+            connections.add(i == 0
+                ? new MutableParentInToChildInConnection().setFromPort("in").setToModule("m0").setToPort("in")
+                : new MutableSiblingConnection()
+                    .setFromModule("m" + (i - 1)).setFromPort("out")
+                    .setToModule("m" + i).setToPort("in")
+            );
+        }
+        connections.add(new MutableChildOutToParentOutConnection()
+            .setFromModule("m" + (numDeclarations - 1)).setFromPort("out")
+            .setToPort("out"));
+        declarations.add(
+            new MutableCompositeModuleDeclaration()
+                .setSimpleName("Chain")
+                .setTemplate(
+                    new MutableCompositeModule()
+                        .setDeclaredPorts(ports())
+                        .setModules(modules)
+                        .setConnections(connections)
+                )
+        );
+
+        return new MutableBundle()
+            .setBundleIdentifier(URI.create("x-benchmark:" + LinkerBenchmark.class.getName()))
+            .setPackages(Collections.singletonList(
+                new MutablePackage()
+                    .setQualifiedName(PACKAGE_NAME)
+                    .setDeclarations(declarations)
+            ));
+    }
+
+    @Benchmark
+    public RuntimeRepository createRepository() throws LinkerException {
+        return Linker.createRepository(bundles, linkerOptions);
+    }
+
+    @Benchmark
+    public RuntimeAnnotatedExecutionTrace createAnnotatedExecutionTrace() throws LinkerException {
+        return Linker.createAnnotatedExecutionTrace(
+            ExecutionTrace.empty(), chainModule, Collections.emptyList(), repository, linkerOptions);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(LinkerBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,108 @@
+package xyz.cloudkeeper.benchmarks;
+
+import cloudkeeper.serialization.ByteSequenceMarshaler;
+import cloudkeeper.serialization.CollectionMarshaler;
+import cloudkeeper.serialization.IntegerMarshaler;
+import cloudkeeper.serialization.SerializableMarshaler;
+import cloudkeeper.serialization.StringMarshaler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import xyz.cloudkeeper.marshaling.DelegatingMarshalContext;
+import xyz.cloudkeeper.marshaling.DelegatingUnmarshalContext;
+import xyz.cloudkeeper.marshaling.MarshalingTreeBuilder;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeUnmarshalSource;
+import xyz.cloudkeeper.model.api.Marshaler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for marshaling and unmarshaling nested collections.
+ *
+ * <p>Benchmark {@link #marshal()} measures marshaling a nested collection into a marshaling tree (which uses
+ * {@link DelegatingMarshalContext} for every object in the collection), and {@link #unmarshal()} measures the reverse
+ * (which uses {@link DelegatingUnmarshalContext} for every node of the tree). The collection is a balanced tree of
+ * lists with {@code breadth} elements each, nested {@code depth} times. The leaves are alternately integers and
+ * strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MarshalingBenchmark {
+    @Param({ "2", "4" })
+    private int depth;
+
+    @Param({ "10" })
+    private int breadth;
+
+    private List<Marshaler<?>> marshalers;
+    private ClassLoader classLoader;
+    private List<Object> collection;
+    private ObjectNode tree;
+
+    @Setup
+    public void setup() throws IOException {
+        marshalers = Arrays.asList(
+            new ByteSequenceMarshaler(),
+            new StringMarshaler(),
+            new IntegerMarshaler(),
+            new CollectionMarshaler(),
+            new SerializableMarshaler()
+        );
+        classLoader = getClass().getClassLoader();
+        collection = nestedCollection(depth, 0);
+        tree = marshal();
+    }
+
+    private List<Object> nestedCollection(int remainingDepth, int offset) {
+        List<Object> list = new ArrayList<>(breadth);
+        for (int i = 0; i < breadth; ++i) {
+            int value = offset * breadth + i;
+            if (remainingDepth > 1) {
+                list.add(nestedCollection(remainingDepth - 1, value));
+            } else if (value % 2 == 0) {
+                list.add(value);
+            } else {
+                list.add(String.valueOf(value));
+            }
+        }
+        return list;
+    }
+
+    @Benchmark
+    public ObjectNode marshal() throws IOException {
+        return MarshalingTreeBuilder.marshal(collection, marshalers, (path, marshaler, object) -> true);
+    }
+
+    @Benchmark
+    public Object unmarshal() throws IOException {
+        return MarshalingTreeUnmarshalSource.unmarshal(tree, classLoader);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(MarshalingBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
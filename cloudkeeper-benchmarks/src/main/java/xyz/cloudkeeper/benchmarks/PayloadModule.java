@@ -0,0 +1,15 @@
+package xyz.cloudkeeper.benchmarks;
+
+import xyz.cloudkeeper.dsl.SimpleModule;
+import xyz.cloudkeeper.dsl.SimpleModulePlugin;
+
+@SimpleModulePlugin("Passes its input through to its output. Only used for staging-area benchmarks.")
+public abstract class PayloadModule extends SimpleModule<PayloadModule> {
+    public abstract InPort<String> input();
+    public abstract OutPort<String> output();
+
+    @Override
+    public void run() {
+        output().set(input().get());
+    }
+}
@@ -0,0 +1,171 @@
+package xyz.cloudkeeper.benchmarks;
+
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.S3ClientOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import xyz.cloudkeeper.filesystem.FileStagingArea;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.api.staging.StagingArea;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+import xyz.cloudkeeper.s3.S3StagingArea;
+import xyz.cloudkeeper.s3.io.S3ConnectionBuilder;
+import xyz.cloudkeeper.staging.MapStagingArea;
+
+import javax.annotation.Nullable;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for the basic operations of the staging-area implementations.
+ *
+ * <p>Parameter {@code backend} selects the staging-area implementation: {@code map} for {@link MapStagingArea},
+ * {@code file} for {@link FileStagingArea} (in a temporary directory), and {@code s3} for {@link S3StagingArea}. The
+ * latter is not benchmarked by default, because it needs an S3-compatible endpoint (typically a local stand-in for
+ * Amazon S3). Its endpoint and bucket are given by system properties {@value #S3_ENDPOINT_PROPERTY} and
+ * {@value #S3_BUCKET_PROPERTY}, and credentials are retrieved with {@link DefaultAWSCredentialsProviderChain}.
+ * Path-style access is used, as most stand-ins do not support virtual-host-style access. For instance:
+ * {@code java -Dxyz.cloudkeeper.benchmarks.s3.endpoint=http://localhost:9000
+ * -Dxyz.cloudkeeper.benchmarks.s3.bucket=benchmarks -jar benchmarks.jar StagingAreaBenchmark -p backend=s3}
+ *
+ * <p>Each benchmark waits for the future returned by the staging area, so the scores are for operations executed one
+ * at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StagingAreaBenchmark {
+    public static final String S3_ENDPOINT_PROPERTY = "xyz.cloudkeeper.benchmarks.s3.endpoint";
+    public static final String S3_BUCKET_PROPERTY = "xyz.cloudkeeper.benchmarks.s3.bucket";
+
+    private static final int NUM_THREADS = 4;
+
+    @Param({ "map", "file" })
+    private String backend;
+
+    /**
+     * Number of characters of the string stored in the staging area.
+     */
+    @Param({ "100", "100000" })
+    private int payloadSize;
+
+    private ScheduledExecutorService executorService;
+    @Nullable private Path tempDir;
+    private StagingArea stagingArea;
+    private ExecutionTrace inPort;
+    private ExecutionTrace outPort;
+    private String payload;
+
+    @Setup
+    public void setup() throws Exception {
+        executorService = Executors.newScheduledThreadPool(NUM_THREADS);
+        RuntimeContext runtimeContext = Fixtures.newRuntimeContext(PayloadModule.class, executorService);
+        RuntimeAnnotatedExecutionTrace rootTrace = Fixtures.newRootTrace(runtimeContext, PayloadModule.class);
+        switch (backend) {
+            case "map":
+                stagingArea = new MapStagingArea(runtimeContext, rootTrace);
+                break;
+            case "file":
+                tempDir = Files.createTempDirectory(getClass().getSimpleName());
+                stagingArea = new FileStagingArea.Builder(runtimeContext, rootTrace, tempDir, executorService).build();
+                break;
+            case "s3":
+                stagingArea = newS3StagingArea(runtimeContext, rootTrace);
+                break;
+            default:
+                throw new IllegalArgumentException(String.format(
+                    "Expected one of 'map', 'file', or 's3' as backend, but got '%s'.", backend
+                ));
+        }
+
+        inPort = ExecutionTrace.empty().resolveInPort(SimpleName.identifier("input"));
+        outPort = ExecutionTrace.empty().resolveOutPort(SimpleName.identifier("output"));
+        char[] characters = new char[payloadSize];
+        Arrays.fill(characters, 'x');
+        payload = new String(characters);
+        stagingArea.putObject(inPort, payload).get();
+    }
+
+    private StagingArea newS3StagingArea(RuntimeContext runtimeContext, RuntimeAnnotatedExecutionTrace rootTrace) {
+        @Nullable String endpoint = System.getProperty(S3_ENDPOINT_PROPERTY);
+        @Nullable String bucket = System.getProperty(S3_BUCKET_PROPERTY);
+        if (endpoint == null || bucket == null) {
+            throw new IllegalStateException(String.format(
+                "Expected system properties '%s' and '%s' for backend 's3', but at least one is missing.",
+                S3_ENDPOINT_PROPERTY, S3_BUCKET_PROPERTY
+            ));
+        }
+
+        AmazonS3Client s3Client = new AmazonS3Client(new DefaultAWSCredentialsProviderChain());
+        s3Client.setEndpoint(endpoint);
+        s3Client.setS3ClientOptions(S3ClientOptions.builder().setPathStyleAccess(true).build());
+        return new S3StagingArea.Builder(
+                rootTrace, new S3ConnectionBuilder(s3Client, executorService).build(), bucket, executorService,
+                runtimeContext)
+            .setKeyPrefix(getClass().getName() + '/' + UUID.randomUUID() + '/')
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        stagingArea.delete(inPort).get();
+        stagingArea.delete(outPort).get();
+        executorService.shutdownNow();
+        if (tempDir != null) {
+            Files.walkFileTree(tempDir, RecursiveDeleteVisitor.getInstance());
+        }
+    }
+
+    @Benchmark
+    public Object putObject() throws Exception {
+        return stagingArea.putObject(outPort, payload).get();
+    }
+
+    @Benchmark
+    public Object getObject() throws Exception {
+        return stagingArea.getObject(inPort).get();
+    }
+
+    @Benchmark
+    public Object copy() throws Exception {
+        return stagingArea.copy(inPort, outPort).get();
+    }
+
+    @Benchmark
+    public boolean exists() throws Exception {
+        return stagingArea.exists(inPort).get();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(StagingAreaBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,128 @@
+package xyz.cloudkeeper.benchmarks;
+
+import akka.actor.ActorSystem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+import xyz.cloudkeeper.dsl.ModuleFactory;
+import xyz.cloudkeeper.examples.modules.Fibonacci;
+import xyz.cloudkeeper.examples.modules.PascalTriangle;
+import xyz.cloudkeeper.examples.repositories.SimpleRepository;
+import xyz.cloudkeeper.examples.repositories.TestKitRuntimeContextFactory;
+import xyz.cloudkeeper.model.api.CloudKeeperEnvironment;
+import xyz.cloudkeeper.model.api.WorkflowExecution;
+import xyz.cloudkeeper.model.api.staging.InstanceProvider;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+import xyz.cloudkeeper.model.bare.element.module.BareModule;
+import xyz.cloudkeeper.simple.SimpleInstanceProvider;
+import xyz.cloudkeeper.simple.SingleVMCloudKeeper;
+import xyz.cloudkeeper.simple.WorkflowExecutions;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for end-to-end workflow executions with {@link SingleVMCloudKeeper}.
+ *
+ * <p>Benchmark {@link #fibonacci()} runs the {@link Fibonacci} workflow of the test kit (a loop with {@code n - 1}
+ * iterations of three simple modules), and {@link #pascalTriangle()} runs the workflow created by
+ * {@link PascalTriangle#createCompositeModule(int)} (a composite module with {@code O(n^2)} simple modules, most of
+ * which can run in parallel). Both benchmarks measure the time from starting the workflow execution until it has
+ * finished, which includes interpretation, staging of all intermediate results, and cleaning up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class WorkflowBenchmark {
+    private static final long AWAIT_DURATION_SECONDS = 60;
+    private static final List<URI> BUNDLE_IDENTIFIERS = Collections.singletonList(SimpleRepository.BUNDLE_ID);
+
+    @Param({ "5", "10" })
+    private int n;
+
+    private Path workspaceBasePath;
+    private ActorSystem actorSystem;
+    private SingleVMCloudKeeper cloudKeeper;
+    private CloudKeeperEnvironment cloudKeeperEnvironment;
+    private Fibonacci fibonacciModule;
+    private BareModule pascalTriangleModule;
+
+    @Setup
+    public void setup() throws Exception {
+        workspaceBasePath = Files.createTempDirectory(getClass().getSimpleName());
+        actorSystem = ActorSystem.create(getClass().getSimpleName());
+        InstanceProvider instanceProvider = new SimpleInstanceProvider.Builder(actorSystem.dispatcher())
+            .setRuntimeContextFactory(new TestKitRuntimeContextFactory())
+            .build();
+        cloudKeeper = new SingleVMCloudKeeper.Builder()
+            .setActorSystem(actorSystem)
+            .setWorkspaceBasePath(workspaceBasePath)
+            .setInstanceProvider(instanceProvider)
+            .build();
+        cloudKeeperEnvironment = cloudKeeper.newCloudKeeperEnvironmentBuilder()
+            .setCleaningRequested(true)
+            .build();
+
+        fibonacciModule = ModuleFactory.getDefault().create(Fibonacci.class)
+            .n().fromValue(n);
+        pascalTriangleModule = PascalTriangle.createCompositeModule(n);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        cloudKeeper.shutdown().awaitTermination();
+        Await.result(actorSystem.terminate(), Duration.Inf());
+        Files.walkFileTree(workspaceBasePath, RecursiveDeleteVisitor.getInstance());
+    }
+
+    @Benchmark
+    public int fibonacci() throws Exception {
+        WorkflowExecution workflowExecution = fibonacciModule
+            .newPreconfiguredWorkflowExecutionBuilder(cloudKeeperEnvironment)
+            .setBundleIdentifiers(BUNDLE_IDENTIFIERS)
+            .start();
+        int result = WorkflowExecutions.getOutputValue(
+            workflowExecution, fibonacciModule.result(), AWAIT_DURATION_SECONDS, TimeUnit.SECONDS);
+        workflowExecution.toCompletableFuture().get(AWAIT_DURATION_SECONDS, TimeUnit.SECONDS);
+        return result;
+    }
+
+    @Benchmark
+    public Object pascalTriangle() throws Exception {
+        WorkflowExecution workflowExecution = cloudKeeperEnvironment.newWorkflowExecutionBuilder(pascalTriangleModule)
+            .setBundleIdentifiers(BUNDLE_IDENTIFIERS)
+            .start();
+        Object result = workflowExecution.getOutput("coef_0").get(AWAIT_DURATION_SECONDS, TimeUnit.SECONDS);
+        workflowExecution.toCompletableFuture().get(AWAIT_DURATION_SECONDS, TimeUnit.SECONDS);
+        return result;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(WorkflowBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * JMH benchmarks for staging, marshaling, linking, and interpretation.
+ *
+ * <p>The benchmarks in this package are meant to track the throughput of the hot paths of CloudKeeper across changes.
+ * Each benchmark class has a {@code main} method that runs only the benchmarks of that class. Alternatively, all
+ * benchmarks can be run with {@code java -jar target/benchmarks.jar} after building this module with Maven profile
+ * {@code jmh}.
+ */
+@NonNullByDefault
+package xyz.cloudkeeper.benchmarks;
+
+import xyz.cloudkeeper.model.util.NonNullByDefault;
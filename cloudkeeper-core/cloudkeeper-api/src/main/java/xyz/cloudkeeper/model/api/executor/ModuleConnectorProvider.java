@@ -16,7 +16,9 @@ public interface ModuleConnectorProvider {
      * @param stagingArea staging area (the absolute execution trace returned by
      *     {@link StagingArea#getAnnotatedExecutionTrace()} must be of type
      *     {@link xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace.Type#MODULE} and must represent a
-     *     simple module)
+     *     simple module; or it must be of type
+     *     {@link xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace.Type#ITERATION} and represent a single
+     *     element of an apply-to-all simple module)
      * @return future that will be completed with an {@link ExtendedModuleConnector} instance on success and an
      *     {@link xyz.cloudkeeper.model.api.staging.StagingException} on failure.
      * @throws NullPointerException if the argument is null
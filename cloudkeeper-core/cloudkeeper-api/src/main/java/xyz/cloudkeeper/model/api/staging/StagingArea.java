@@ -7,6 +7,8 @@ import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace;
 
 import javax.annotation.Nullable;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 
@@ -86,6 +88,31 @@ public interface StagingArea {
      */
     CompletableFuture<Void> copy(RuntimeExecutionTrace source, RuntimeExecutionTrace target);
 
+    /**
+     * Makes the object for the given source execution trace available also as object for the given target execution
+     * trace, possibly without duplicating any data.
+     *
+     * <p>This method is similar to {@link #copy(RuntimeExecutionTrace, RuntimeExecutionTrace)}, but with weaker
+     * guarantees: Implementations may store only a reference to the source (for instance, a redirect in the metadata of
+     * the target) instead of the object itself. All read operations, including those on staging areas returned by
+     * {@link #resolveDescendant(RuntimeExecutionTrace)} and on array indices following the target, behave as if the
+     * object had been copied. However, if the object for the source execution trace is subsequently deleted or
+     * overwritten, the object for the target execution trace becomes undefined. Callers should therefore use this
+     * method only if the source is known to outlive the target. Deleting or overwriting the target, on the other hand,
+     * never affects the source.
+     *
+     * <p>Implementations that do not support references may implement this method by performing a copy.
+     *
+     * @param source source execution trace, {@link RuntimeExecutionTrace#getReference()} must be non-empty
+     * @param target target execution trace, {@link RuntimeExecutionTrace#getReference()} must be non-empty
+     * @return Future that will normally be completed once the operation has succeeded, or that will exceptionally be
+     *     completed with a {@link StagingException}.
+     * @throws IllegalArgumentException if the arguments do not satisfy the constraints described above
+     * @throws xyz.cloudkeeper.model.runtime.execution.IllegalExecutionTraceException if any of the two given
+     *     execution traces is not valid relative to the absolute execution trace represented by this staging area
+     */
+    CompletableFuture<Void> link(RuntimeExecutionTrace source, RuntimeExecutionTrace target);
+
     /**
      * Writes an object for the given execution trace.
      *
@@ -158,6 +185,25 @@ public interface StagingArea {
      */
     CompletableFuture<Boolean> exists(RuntimeExecutionTrace source);
 
+    /**
+     * Returns which of the given execution traces have a value.
+     *
+     * <p>This method is equivalent to calling {@link #exists(RuntimeExecutionTrace)} for each of the given execution
+     * traces. However, implementations may answer the query with fewer (and fewer round trips to) storage operations;
+     * for instance, with a single listing of the common prefix of all execution traces. Callers that need to know the
+     * existence of many related execution traces (such as all ports of a composite module and its submodules) should
+     * therefore prefer this method.
+     *
+     * @param sources list of source execution traces, {@link RuntimeExecutionTrace#getReference()} must be non-empty
+     *     for each element
+     * @return Future that will normally be completed with a set that contains index {@code i} if and only if a value
+     *     exists at {@code sources.get(i)}, or that will exceptionally be completed with a {@link StagingException}.
+     * @throws IllegalArgumentException if an element of the list does not satisfy the constraints described above
+     * @throws xyz.cloudkeeper.model.runtime.execution.IllegalExecutionTraceException if one of the given execution
+     *     traces is not valid relative to the absolute execution trace represented by this staging area
+     */
+    CompletableFuture<BitSet> checkExistence(List<? extends RuntimeExecutionTrace> sources);
+
     /**
      * Returns the maximum index present at the given execution trace that is smaller than or equal to the given upper
      * bound.
@@ -205,13 +251,18 @@ public interface StagingArea {
      *     the absolute execution trace represented by this staging area is empty, or
      * </li><li>
      *     the the execution trace has type {@link RuntimeExecutionTrace.Type#MODULE} and
-     *     {@link RuntimeAnnotatedExecutionTrace#getModule()} references a simple module.
+     *     {@link RuntimeAnnotatedExecutionTrace#getModule()} references a simple module, or
+     * </li><li>
+     *     the the execution trace has type {@link RuntimeExecutionTrace.Type#ITERATION} and
+     *     {@link RuntimeAnnotatedExecutionTrace#getModule()} references a simple module that is applied to all elements
+     *     of a collection (in which case the execution trace represents the execution for a single element).
      * </li></ul>
      *
      * @return staging provider instance
      * @throws IllegalStateException if the absolute execution trace represented by this staging area is neither
-     *     (a) empty nor (b) of type {@link RuntimeExecutionTrace.Type#MODULE} and
-     *     {@link RuntimeAnnotatedExecutionTrace#getModule()} references a simple module.
+     *     (a) empty nor (b) of type {@link RuntimeExecutionTrace.Type#MODULE} or
+     *     {@link RuntimeExecutionTrace.Type#ITERATION} and {@link RuntimeAnnotatedExecutionTrace#getModule()}
+     *     references a simple module as described above.
      * @throws UnsupportedOperationException if this staging area does not support use from different JVMs
      */
     StagingAreaProvider getStagingAreaProvider();
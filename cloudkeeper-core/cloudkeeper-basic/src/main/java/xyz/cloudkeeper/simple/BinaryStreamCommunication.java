@@ -0,0 +1,263 @@
+package xyz.cloudkeeper.simple;
+
+import xyz.cloudkeeper.simple.CharacterStreamCommunication.Splitter;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.zip.CRC32;
+
+/**
+ * This class consists of static methods for writing and reading binary streams that contain framed
+ * {@link Serializable} instances.
+ *
+ * <p>Unlike {@link CharacterStreamCommunication}, which embeds a base64-encoded object into a character stream, this
+ * class writes the serialized object as is. This avoids the overhead of base64 encoding (which increases the size by
+ * a third) and of character decoding. However, the stream must be dedicated to the framed objects; that is, no other
+ * content may be written to the same stream.
+ *
+ * <p>Each frame has the following format (all numbers are big-endian, as written by {@link DataOutputStream}):
+ * magic number {@link #MAGIC} ({@code int}), length of the serialized object in bytes ({@code int}), CRC-32 checksum
+ * of the serialized object ({@code int}), and finally the object serialized with {@link ObjectOutputStream}.
+ */
+public final class BinaryStreamCommunication {
+    /**
+     * Magic number at the beginning of each frame ({@code "CKBF"} in ASCII).
+     *
+     * <p>Output of {@link CharacterStreamCommunication} typically starts with a boundary line written by
+     * {@link CharacterStreamCommunication#writeBoundary(String, Appendable)}. Readers may therefore use the first four
+     * bytes of a stream in order to decide which of the two forms of communication was used.
+     */
+    public static final int MAGIC = 0x434b4246;
+
+    /**
+     * Default maximum length of the serialized object in a frame, in bytes.
+     *
+     * @see #readObject(Class, InputStream, int)
+     */
+    public static final int DEFAULT_MAXIMUM_FRAME_LENGTH = 64 * 1024 * 1024;
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final int MAGIC_LENGTH = Integer.BYTES;
+
+    private BinaryStreamCommunication() {
+        throw new AssertionError(String.format("No %s instances for you!", getClass().getName()));
+    }
+
+    /**
+     * Signals that a frame was read completely and its checksum matched, but the contained object could not be
+     * deserialized.
+     *
+     * <p>Unlike other {@link IOException} instances thrown by {@link #readObject(Class, InputStream)}, this exception
+     * leaves the input stream positioned immediately after the frame. The reading side may therefore continue with the
+     * next frame.
+     */
+    public static final class DeserializationException extends IOException {
+        private static final long serialVersionUID = 4310986411062218851L;
+
+        private DeserializationException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    /**
+     * Byte-array output stream that gives access to its internal buffer in order to avoid copying it.
+     */
+    private static final class ExposedByteArrayOutputStream extends ByteArrayOutputStream {
+        private ExposedByteArrayOutputStream() {
+            super(BUFFER_SIZE);
+        }
+
+        private void writeFrame(DataOutputStream dataOutputStream) throws IOException {
+            CRC32 crc32 = new CRC32();
+            crc32.update(buf, 0, count);
+            dataOutputStream.writeInt(MAGIC);
+            dataOutputStream.writeInt(count);
+            dataOutputStream.writeInt((int) crc32.getValue());
+            dataOutputStream.write(buf, 0, count);
+        }
+    }
+
+    /**
+     * Writes the given {@link Serializable} object as a frame to the given output stream, and flushes the stream.
+     *
+     * <p>The output stream is not closed.
+     *
+     * @param serializable object to serialize
+     * @param outputStream destination for the frame
+     * @throws IOException if a serialization or I/O error occurs
+     *
+     * @see #readObject(Class, InputStream)
+     */
+    public static void writeObject(Serializable serializable, OutputStream outputStream) throws IOException {
+        ExposedByteArrayOutputStream byteArrayOutputStream = new ExposedByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(serializable);
+        }
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        byteArrayOutputStream.writeFrame(dataOutputStream);
+        dataOutputStream.flush();
+    }
+
+    /**
+     * Reads (and returns) a {@link Serializable} object from a frame in the given input stream, provided the frame
+     * length does not exceed {@link #DEFAULT_MAXIMUM_FRAME_LENGTH}.
+     *
+     * <p>This method is equivalent to {@link #readObject(Class, InputStream, int)} with
+     * {@link #DEFAULT_MAXIMUM_FRAME_LENGTH} as last argument.
+     *
+     * @param clazz class of the object returned by this method
+     * @param inputStream input stream that this method will deserialize from
+     * @param <T> type of the object returned by this method
+     * @return object deserialized from the given input stream
+     * @throws DeserializationException if the frame was read completely, but the object could not be deserialized
+     * @throws IOException if a parsing or I/O error occurs, including if the checksum does not match
+     */
+    public static <T extends Serializable> T readObject(Class<T> clazz, InputStream inputStream) throws IOException {
+        return readObject(clazz, inputStream, DEFAULT_MAXIMUM_FRAME_LENGTH);
+    }
+
+    /**
+     * Reads (and returns) a {@link Serializable} object from a frame in the given input stream.
+     *
+     * <p>This method is meant to be used on the receiving side of a channel that was previously written to using
+     * {@link #writeObject(Serializable, OutputStream)}. Upon successful return, the input stream will be positioned
+     * immediately after the frame. The input stream is not closed.
+     *
+     * <p>The frame length is verified before any buffer is allocated for the frame. A corrupted stream therefore causes
+     * an {@link IOException} instead of an excessive allocation.
+     *
+     * @param clazz class of the object returned by this method
+     * @param inputStream input stream that this method will deserialize from
+     * @param maximumFrameLength maximum length of the serialized object in bytes, must be positive
+     * @param <T> type of the object returned by this method
+     * @return object deserialized from the given input stream
+     * @throws DeserializationException if the frame was read completely, but the object could not be deserialized
+     * @throws IOException if a parsing or I/O error occurs, including if the checksum does not match or the frame
+     *     length is negative or exceeds the maximum
+     */
+    public static <T extends Serializable> T readObject(Class<T> clazz, InputStream inputStream,
+            int maximumFrameLength) throws IOException {
+        requirePositiveMaximumFrameLength(maximumFrameLength);
+        DataInputStream dataInputStream = new DataInputStream(inputStream);
+        int magic = dataInputStream.readInt();
+        if (magic != MAGIC) {
+            throw new IOException(String.format("Expected magic number %08x, but found %08x.", MAGIC, magic));
+        }
+        return readObjectAfterMagic(clazz, dataInputStream, maximumFrameLength);
+    }
+
+    private static void requirePositiveMaximumFrameLength(int maximumFrameLength) {
+        if (maximumFrameLength <= 0) {
+            throw new IllegalArgumentException(String.format(
+                "Expected positive maximum frame length, but got %d.", maximumFrameLength
+            ));
+        }
+    }
+
+    private static <T extends Serializable> T readObjectAfterMagic(Class<T> clazz, DataInputStream dataInputStream,
+            int maximumFrameLength) throws IOException {
+        int length = dataInputStream.readInt();
+        int expectedChecksum = dataInputStream.readInt();
+        if (length < 0) {
+            throw new IOException(String.format("Invalid frame length %d.", length));
+        } else if (length > maximumFrameLength) {
+            throw new IOException(String.format(
+                "Frame length %d exceeds maximum frame length %d.", length, maximumFrameLength
+            ));
+        }
+
+        byte[] bytes = new byte[length];
+        dataInputStream.readFully(bytes);
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        if ((int) crc32.getValue() != expectedChecksum) {
+            throw new IOException("Invalid CRC-32 checksum detected.");
+        }
+
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return clazz.cast(objectInputStream.readObject());
+        } catch (ClassNotFoundException | ClassCastException | IOException exception) {
+            throw new DeserializationException(
+                String.format("Invalid serialization of instance of %s.", clazz), exception);
+        }
+    }
+
+    /**
+     * Reads (and returns) a {@link Serializable} object from the given input stream, which may either contain a frame
+     * written by {@link #writeObject(Serializable, OutputStream)}, or a character stream with an embedded object
+     * written by {@link CharacterStreamCommunication#writeObject(Serializable, Appendable, String)}.
+     *
+     * <p>This method is equivalent to {@link #readFramedOrEmbeddedObject(Class, InputStream, int)} with
+     * {@link #DEFAULT_MAXIMUM_FRAME_LENGTH} as last argument.
+     *
+     * @param clazz class of the object returned by this method
+     * @param inputStream input stream that this method will deserialize from
+     * @param <T> type of the object returned by this method
+     * @return object deserialized from the given input stream
+     * @throws IOException if a parsing or I/O error occurs
+     */
+    public static <T extends Serializable> T readFramedOrEmbeddedObject(Class<T> clazz, InputStream inputStream)
+            throws IOException {
+        return readFramedOrEmbeddedObject(clazz, inputStream, DEFAULT_MAXIMUM_FRAME_LENGTH);
+    }
+
+    /**
+     * Reads (and returns) a {@link Serializable} object from the given input stream, which may either contain a frame
+     * written by {@link #writeObject(Serializable, OutputStream)}, or a character stream with an embedded object
+     * written by {@link CharacterStreamCommunication#writeObject(Serializable, Appendable, String)}.
+     *
+     * <p>The form of communication is determined by the first four bytes of the stream. In either case, the entire
+     * input stream is consumed (any content after the frame or any lines surrounding the embedded object are
+     * skipped). This method is meant to be used on the receiving side of a process whose output is known to contain
+     * exactly one object, but where it is not known which form of communication the process uses. The input stream is
+     * not closed.
+     *
+     * @param clazz class of the object returned by this method
+     * @param inputStream input stream that this method will deserialize from
+     * @param maximumFrameLength maximum length of the serialized object in a frame, in bytes, must be positive
+     * @param <T> type of the object returned by this method
+     * @return object deserialized from the given input stream
+     * @throws IOException if a parsing or I/O error occurs
+     */
+    public static <T extends Serializable> T readFramedOrEmbeddedObject(Class<T> clazz, InputStream inputStream,
+            int maximumFrameLength) throws IOException {
+        requirePositiveMaximumFrameLength(maximumFrameLength);
+        BufferedInputStream bufferedInputStream = new BufferedInputStream(inputStream);
+        bufferedInputStream.mark(MAGIC_LENGTH);
+        DataInputStream dataInputStream = new DataInputStream(bufferedInputStream);
+        boolean framed;
+        try {
+            framed = dataInputStream.readInt() == MAGIC;
+        } catch (EOFException ignored) {
+            framed = false;
+        }
+
+        if (framed) {
+            T object = readObjectAfterMagic(clazz, dataInputStream, maximumFrameLength);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (bufferedInputStream.read(buffer) >= 0) {
+                // Skip any remaining content, so that the writing side is never blocked.
+                continue;
+            }
+            return object;
+        } else {
+            bufferedInputStream.reset();
+            Splitter<T> splitter
+                = new Splitter<>(clazz, new BufferedReader(new InputStreamReader(bufferedInputStream)));
+            splitter.consumeAll();
+            return splitter.getResult();
+        }
+    }
+}
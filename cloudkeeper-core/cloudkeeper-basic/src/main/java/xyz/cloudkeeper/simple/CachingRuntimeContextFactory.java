@@ -0,0 +1,420 @@
+package xyz.cloudkeeper.simple;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import xyz.cloudkeeper.model.LinkerException;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.api.RuntimeContextFactory;
+import xyz.cloudkeeper.model.api.RuntimeStateProvisionException;
+import xyz.cloudkeeper.model.bare.element.module.BareModule;
+import xyz.cloudkeeper.model.bare.execution.BareExecutionTrace;
+import xyz.cloudkeeper.model.bare.execution.BareOverride;
+import xyz.cloudkeeper.model.runtime.element.RuntimeRepository;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+import xyz.cloudkeeper.model.util.ImmutableList;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runtime-context factory that caches the runtime contexts created by another runtime-context factory.
+ *
+ * <p>Loading and linking bundles is expensive: For instance, {@code MavenRuntimeContextFactory} resolves artifacts,
+ * unmarshals each bundle, creates a new class loader, and runs the linker. This class avoids repeating this work for
+ * runtime contexts that are requested repeatedly within the same JVM (for instance, for every execution of a simple
+ * module). Runtime contexts are cached by the list of bundle identifiers that was passed to
+ * {@link #newRuntimeContext(List)}.
+ *
+ * <p>The runtime contexts returned by this factory are reference-counted handles to a shared runtime context. Calling
+ * {@link RuntimeContext#close()} on a handle only releases the reference (calling it more than once has no effect).
+ * A shared runtime context becomes <em>idle</em> once all handles have been closed. Idle runtime contexts remain in the
+ * cache until they are evicted, which happens when the number of cached runtime contexts exceeds the maximum size (in
+ * which case the least-recently used idle runtime contexts are evicted first), or when a runtime context has been idle
+ * for longer than the idle timeout. Eviction is performed whenever a runtime context is requested or released. Evicted
+ * runtime contexts are closed. Runtime contexts that are in use are never evicted; that is, the maximum size is
+ * exceeded while more runtime contexts are in use.
+ *
+ * <p>If the future returned by the underlying factory completes exceptionally, the failure is not cached. All callers
+ * that requested the same runtime context in the meantime will receive the same failure, though.
+ *
+ * <p>Instances of this class are thread-safe.
+ */
+public final class CachingRuntimeContextFactory implements RuntimeContextFactory, AutoCloseable {
+    /**
+     * Default maximum number of cached runtime contexts.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 8;
+
+    /**
+     * Default idle timeout in milliseconds.
+     */
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final RuntimeContextFactory delegate;
+    private final int maximumSize;
+    private final long idleTimeoutNanos;
+
+    /**
+     * Monitor guarding {@link #entries} and {@link #closed}, as well as the mutable fields of all {@link Entry}
+     * instances.
+     */
+    private final Object monitor = new Object();
+
+    /**
+     * Map from bundle-identifier list to cache entry, in least-recently accessed order.
+     */
+    private final LinkedHashMap<ImmutableList<URI>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private boolean closed = false;
+
+    private CachingRuntimeContextFactory(Builder builder) {
+        delegate = builder.delegate;
+        maximumSize = builder.maximumSize;
+        idleTimeoutNanos = builder.idleTimeoutNanos;
+    }
+
+    /**
+     * This class is used to create caching runtime-context factories.
+     */
+    public static final class Builder {
+        private final RuntimeContextFactory delegate;
+        private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+        private long idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_MILLIS);
+
+        /**
+         * Constructor.
+         *
+         * @param delegate runtime-context factory that will be used for creating runtime contexts that are not in the
+         *     cache
+         */
+        public Builder(RuntimeContextFactory delegate) {
+            this.delegate = Objects.requireNonNull(delegate);
+        }
+
+        /**
+         * Sets the maximum number of cached runtime contexts.
+         *
+         * <p>By default, the maximum size is {@link #DEFAULT_MAXIMUM_SIZE}.
+         *
+         * @param maximumSize maximum number of cached runtime contexts, must be non-negative
+         * @return this builder
+         */
+        public Builder setMaximumSize(int maximumSize) {
+            if (maximumSize < 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected non-negative size, but got %d.", maximumSize
+                ));
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        /**
+         * Sets the time after which an idle runtime context will be evicted.
+         *
+         * <p>By default, the idle timeout is {@link #DEFAULT_IDLE_TIMEOUT_MILLIS} milliseconds.
+         *
+         * @param idleTimeout idle timeout, must be non-negative
+         * @param timeUnit time unit of {@code idleTimeout}
+         * @return this builder
+         */
+        public Builder setIdleTimeout(long idleTimeout, TimeUnit timeUnit) {
+            Objects.requireNonNull(timeUnit);
+            if (idleTimeout < 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected non-negative timeout, but got %d.", idleTimeout
+                ));
+            }
+            idleTimeoutNanos = timeUnit.toNanos(idleTimeout);
+            return this;
+        }
+
+        public CachingRuntimeContextFactory build() {
+            return new CachingRuntimeContextFactory(this);
+        }
+    }
+
+    private static final class Entry {
+        private final ImmutableList<URI> bundleIdentifiers;
+        private final CompletableFuture<RuntimeContext> future;
+
+        /**
+         * Number of handles that have not yet been closed, including those handles that have not been created yet
+         * because {@link #future} is not yet completed.
+         */
+        private int referenceCount = 0;
+
+        /**
+         * Value of {@link System#nanoTime()} when {@link #referenceCount} dropped to zero.
+         */
+        private long idleSinceNanos;
+
+        /**
+         * Whether this entry has been removed from the cache, in which case the runtime context must be closed once
+         * it becomes idle.
+         */
+        private boolean evicted = false;
+
+        private Entry(ImmutableList<URI> bundleIdentifiers, CompletableFuture<RuntimeContext> future) {
+            this.bundleIdentifiers = bundleIdentifiers;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Returns the number of runtime contexts that are currently cached (both idle and in use).
+     *
+     * @return the number of cached runtime contexts
+     */
+    public int size() {
+        synchronized (monitor) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned future will be completed with a handle to a shared runtime context. Callers are required to call
+     * {@link RuntimeContext#close()} on the handle when it is no longer needed, as otherwise the shared runtime
+     * context will never be closed.
+     *
+     * @throws IllegalStateException if this factory has been closed
+     */
+    @Override
+    public CompletableFuture<RuntimeContext> newRuntimeContext(List<URI> bundleIdentifiers) {
+        ImmutableList<URI> key = ImmutableList.copyOf(Objects.requireNonNull(bundleIdentifiers));
+        Entry entry;
+        boolean isNewEntry = false;
+        List<Entry> evictedEntries;
+        synchronized (monitor) {
+            if (closed) {
+                throw new IllegalStateException(String.format("%s has been closed.", this));
+            }
+
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key, new CompletableFuture<>());
+                entries.put(key, entry);
+                isNewEntry = true;
+            }
+            ++entry.referenceCount;
+            evictedEntries = evictIfNecessary();
+        }
+        closeAll(evictedEntries);
+
+        if (isNewEntry) {
+            createRuntimeContext(entry);
+        }
+        return newHandleFuture(entry);
+    }
+
+    /**
+     * Returns a future that will be completed with a new handle to the runtime context of the given entry.
+     *
+     * <p>The caller must already have incremented the reference count of the given entry. This method guarantees that
+     * the reference is released if the returned future is not completed with a handle, which is the case if the
+     * runtime context could not be created or if the returned future was completed (typically, cancelled) by the
+     * caller before.
+     */
+    private CompletableFuture<RuntimeContext> newHandleFuture(Entry entry) {
+        CompletableFuture<RuntimeContext> handleFuture = new CompletableFuture<>();
+        entry.future.whenComplete((runtimeContext, throwable) -> {
+            if (throwable != null) {
+                handleFuture.completeExceptionally(throwable);
+                releaseFailed(entry);
+            } else {
+                Handle handle = new Handle(entry, runtimeContext);
+                if (!handleFuture.complete(handle)) {
+                    try {
+                        handle.close();
+                    } catch (IOException exception) {
+                        log.warn(String.format("Failed to close runtime context for bundles %s.",
+                            entry.bundleIdentifiers), exception);
+                    }
+                }
+            }
+        });
+        return handleFuture;
+    }
+
+    /**
+     * Requests a new runtime context from the underlying factory and completes the future of the given entry once
+     * the runtime context is available.
+     *
+     * <p>This method must not be called while holding the lock on {@link #monitor}, because the underlying factory is
+     * alien code.
+     */
+    private void createRuntimeContext(Entry entry) {
+        CompletableFuture<RuntimeContext> future;
+        try {
+            future = delegate.newRuntimeContext(entry.bundleIdentifiers);
+        } catch (RuntimeException exception) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(new RuntimeStateProvisionException(String.format(
+                "Failed to provide runtime context for bundles %s.", entry.bundleIdentifiers
+            ), exception));
+        }
+        future.whenComplete((runtimeContext, throwable) -> {
+            if (throwable != null) {
+                synchronized (monitor) {
+                    entries.remove(entry.bundleIdentifiers, entry);
+                    entry.evicted = true;
+                }
+                entry.future.completeExceptionally(throwable);
+            } else {
+                entry.future.complete(runtimeContext);
+            }
+        });
+    }
+
+    /**
+     * Returns the entries that need to be evicted, after removing them from {@link #entries}.
+     *
+     * <p>This method must only be called while holding the lock on {@link #monitor}.
+     */
+    private List<Entry> evictIfNecessary() {
+        assert Thread.holdsLock(monitor);
+
+        List<Entry> evictedEntries = new ArrayList<>();
+        long now = System.nanoTime();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.referenceCount == 0
+                    && (closed || entries.size() > maximumSize || now - entry.idleSinceNanos >= idleTimeoutNanos)) {
+                iterator.remove();
+                entry.evicted = true;
+                evictedEntries.add(entry);
+            }
+        }
+        return evictedEntries;
+    }
+
+    /**
+     * Closes the runtime contexts of the given evicted entries, and logs any failures.
+     *
+     * <p>This method must not be called while holding the lock on {@link #monitor}.
+     */
+    private void closeAll(List<Entry> evictedEntries) {
+        for (Entry entry: evictedEntries) {
+            try {
+                // Evicted entries are idle, so the future must have been completed successfully.
+                entry.future.join().close();
+            } catch (IOException | RuntimeException exception) {
+                log.warn(String.format("Failed to close evicted runtime context for bundles %s.",
+                    entry.bundleIdentifiers), exception);
+            }
+        }
+    }
+
+    /**
+     * Releases one reference to the runtime context of the given entry.
+     *
+     * @throws IOException if the runtime context needed to be closed, but closing failed
+     */
+    private void release(Entry entry) throws IOException {
+        boolean closeEntry = false;
+        List<Entry> evictedEntries;
+        synchronized (monitor) {
+            assert entry.referenceCount > 0;
+            --entry.referenceCount;
+            if (entry.referenceCount == 0) {
+                entry.idleSinceNanos = System.nanoTime();
+                closeEntry = entry.evicted;
+            }
+            evictedEntries = evictIfNecessary();
+        }
+
+        closeAll(evictedEntries);
+        if (closeEntry) {
+            entry.future.join().close();
+        }
+    }
+
+    /**
+     * Releases one reference to the given entry, whose runtime context could not be created.
+     *
+     * <p>Since the entry has already been removed from the cache, there is no runtime context to close.
+     */
+    private void releaseFailed(Entry entry) {
+        List<Entry> evictedEntries;
+        synchronized (monitor) {
+            assert entry.referenceCount > 0 && entry.evicted;
+            --entry.referenceCount;
+            evictedEntries = evictIfNecessary();
+        }
+        closeAll(evictedEntries);
+    }
+
+    /**
+     * Closes this factory and all idle runtime contexts.
+     *
+     * <p>Runtime contexts that are still in use will be closed once their last handle is closed. Subsequent calls to
+     * {@link #newRuntimeContext(List)} will throw an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        List<Entry> evictedEntries;
+        synchronized (monitor) {
+            closed = true;
+            evictedEntries = evictIfNecessary();
+            for (Entry entry: entries.values()) {
+                entry.evicted = true;
+            }
+            entries.clear();
+        }
+        closeAll(evictedEntries);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s for %s", getClass().getSimpleName(), delegate);
+    }
+
+    /**
+     * Handle to a shared runtime context.
+     */
+    private final class Handle implements RuntimeContext {
+        private final Entry entry;
+        private final RuntimeContext runtimeContext;
+        private final AtomicBoolean closed = new AtomicBoolean(false);
+
+        private Handle(Entry entry, RuntimeContext runtimeContext) {
+            this.entry = entry;
+            this.runtimeContext = runtimeContext;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed.compareAndSet(false, true)) {
+                release(entry);
+            }
+        }
+
+        @Override
+        public RuntimeRepository getRepository() {
+            return runtimeContext.getRepository();
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return runtimeContext.getClassLoader();
+        }
+
+        @Override
+        public RuntimeAnnotatedExecutionTrace newAnnotatedExecutionTrace(BareExecutionTrace absoluteTrace,
+                BareModule bareModule, List<? extends BareOverride> overrides) throws LinkerException {
+            return runtimeContext.newAnnotatedExecutionTrace(absoluteTrace, bareModule, overrides);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package xyz.cloudkeeper.simple;
+
+import net.florianschoppmann.java.futures.Futures;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ByteSequenceNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledReplacementObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.RawObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNodeVisitor;
+import xyz.cloudkeeper.model.api.Marshaler;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+import xyz.cloudkeeper.model.immutable.element.Key;
+import xyz.cloudkeeper.model.immutable.element.Name;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.runtime.element.RuntimeBundle;
+import xyz.cloudkeeper.model.runtime.element.RuntimePackage;
+import xyz.cloudkeeper.model.runtime.element.RuntimePluginDeclaration;
+import xyz.cloudkeeper.model.runtime.element.RuntimeRepository;
+import xyz.cloudkeeper.model.runtime.element.serialization.RuntimeSerializationDeclaration;
+import xyz.cloudkeeper.model.util.ByteSequences;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Memoized-result store that persists results in a directory of the file system.
+ *
+ * <p>Each result is stored in its own subdirectory, which is named after the memoization key. The subdirectory
+ * contains one file with the structure of the marshaling trees, and one file for each byte sequence. Byte sequences
+ * are streamed into their files, so results of any size can be stored without holding them in memory. A result is
+ * written to a temporary directory first and then moved into place atomically, so readers either see a complete result
+ * or none. The directory may therefore be shared by multiple JVMs (for instance, by all forked executors on a node).
+ * Since memoized results are deterministic, it does not matter which of several concurrent writers of the same key
+ * wins.
+ *
+ * <p>Marshalers are persisted by class name. When reading a result, they are resolved among the serialization
+ * declarations in the repository of the given runtime context. If a marshaler cannot be resolved, the result is
+ * treated as missing.
+ *
+ * <p>This class never deletes results. Subdirectories may be deleted externally at any time (for instance, to bound the
+ * disk usage), in which case a concurrent reuse of the result fails and the simple module is executed instead.
+ */
+public final class FileMemoizedResultStore implements MemoizedResultStore {
+    /**
+     * Magic number at the beginning of each tree file ({@code "CKMR"} in ASCII).
+     */
+    private static final int MAGIC = 0x434b4d52;
+    private static final byte VERSION = 1;
+    private static final String TREE_FILE_NAME = "tree";
+    private static final String TEMPORARY_PREFIX = ".tmp-";
+
+    private static final byte MARSHALED_OBJECT_TAG = 1;
+    private static final byte MARSHALED_REPLACEMENT_TAG = 2;
+    private static final byte BYTE_SEQUENCE_TAG = 3;
+
+    private final Path directory;
+    private final Executor executor;
+
+    /**
+     * Constructs a new store.
+     *
+     * @param directory directory that results will be stored in; will be created if it does not exist
+     * @param executor executor that file-system operations will be submitted to
+     */
+    public FileMemoizedResultStore(Path directory, Executor executor) {
+        this.directory = Objects.requireNonNull(directory);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s at '%s'", getClass().getSimpleName(), directory);
+    }
+
+    private Path resultDirectory(String key) {
+        Objects.requireNonNull(key);
+        if (key.isEmpty() || !key.chars().allMatch(Character::isLetterOrDigit)) {
+            throw new IllegalArgumentException(String.format(
+                "Expected non-empty alphanumeric memoization key, but got '%s'.", key
+            ));
+        }
+        return directory.resolve(key);
+    }
+
+    /**
+     * Visitor that writes a marshaling tree into a data output stream, and each byte sequence into a separate file.
+     *
+     * <p>Since the visitor interface does not permit checked exceptions, I/O errors are wrapped in an
+     * {@link UncheckedIOException}.
+     */
+    private static final class TreeWriter implements MarshalingTreeNodeVisitor<Void, DataOutputStream> {
+        private final Path resultDirectory;
+        private int numByteSequences = 0;
+
+        private TreeWriter(Path resultDirectory) {
+            this.resultDirectory = resultDirectory;
+        }
+
+        @Override
+        @Nullable
+        public Void visitRawObjectNode(RawObjectNode node, @Nullable DataOutputStream outputStream) {
+            throw new IllegalStateException(String.format(
+                "Expected fully marshaled tree, but got raw object node with object %s.", node.getObject()
+            ));
+        }
+
+        @Override
+        @Nullable
+        public Void visitMarshaledObjectNode(MarshaledObjectNode node, @Nullable DataOutputStream outputStream) {
+            assert outputStream != null;
+            try {
+                outputStream.writeByte(MARSHALED_OBJECT_TAG);
+                outputStream.writeUTF(node.getMarshaler().getClass().getName());
+                outputStream.writeInt(node.getChildren().size());
+                for (Map.Entry<Key, MarshalingTreeNode> entry: node.getChildren().entrySet()) {
+                    outputStream.writeUTF(entry.getKey().toString());
+                    entry.getValue().accept(this, outputStream);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public Void visitMarshaledReplacementNode(MarshaledReplacementObjectNode node,
+                @Nullable DataOutputStream outputStream) {
+            assert outputStream != null;
+            try {
+                outputStream.writeByte(MARSHALED_REPLACEMENT_TAG);
+                outputStream.writeUTF(node.getMarshaler().getClass().getName());
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            node.getChild().accept(this, outputStream);
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public Void visitByteSequenceNode(ByteSequenceNode node, @Nullable DataOutputStream outputStream) {
+            assert outputStream != null;
+            int index = numByteSequences;
+            ++numByteSequences;
+            try {
+                ByteSequences.copy(node.getByteSequence(), resultDirectory.resolve(Integer.toString(index)));
+                outputStream.writeByte(BYTE_SEQUENCE_TAG);
+                outputStream.writeInt(index);
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Reader of a tree file, which resolves marshalers lazily.
+     */
+    private static final class TreeReader {
+        private final Path resultDirectory;
+        private final RuntimeContext runtimeContext;
+        private final DataInputStream inputStream;
+        @Nullable private Map<String, Marshaler<?>> marshalers;
+
+        private TreeReader(Path resultDirectory, RuntimeContext runtimeContext, DataInputStream inputStream) {
+            this.resultDirectory = resultDirectory;
+            this.runtimeContext = runtimeContext;
+            this.inputStream = inputStream;
+        }
+
+        /**
+         * Returns the marshaler with the given class name, or {@code null} if the repository does not contain a
+         * serialization declaration with such a marshaler.
+         *
+         * <p>Serialization declarations are usually named after their marshaler class (this is always the case for
+         * those in the implicit system bundle, which is not returned by {@link RuntimeRepository#getBundles()}), so
+         * this method first looks up the declaration by name. Only if that fails, it searches all bundles.
+         */
+        @Nullable
+        private Marshaler<?> marshaler(String className) {
+            @Nullable RuntimeSerializationDeclaration namedDeclaration = Name.isQualifiedName(className)
+                ? runtimeContext.getRepository().getElement(
+                    RuntimeSerializationDeclaration.class, Name.qualifiedName(className))
+                : null;
+            if (namedDeclaration != null && namedDeclaration.getInstance().getClass().getName().equals(className)) {
+                return namedDeclaration.getInstance();
+            }
+
+            if (marshalers == null) {
+                marshalers = new HashMap<>();
+                for (RuntimeBundle bundle: runtimeContext.getRepository().getBundles()) {
+                    for (RuntimePackage runtimePackage: bundle.getPackages()) {
+                        for (RuntimePluginDeclaration declaration: runtimePackage.getDeclarations()) {
+                            if (declaration instanceof RuntimeSerializationDeclaration) {
+                                Marshaler<?> marshaler = ((RuntimeSerializationDeclaration) declaration).getInstance();
+                                marshalers.put(marshaler.getClass().getName(), marshaler);
+                            }
+                        }
+                    }
+                }
+            }
+            return marshalers.get(className);
+        }
+
+        @Nullable
+        private Marshaler<?> readMarshaler() throws IOException {
+            return marshaler(inputStream.readUTF());
+        }
+
+        /**
+         * Returns the next node, or {@code null} if the tree references a marshaler that cannot be resolved.
+         */
+        @Nullable
+        private MarshalingTreeNode readNode() throws IOException {
+            byte tag = inputStream.readByte();
+            if (tag == MARSHALED_OBJECT_TAG) {
+                @Nullable Marshaler<?> marshaler = readMarshaler();
+                int numChildren = inputStream.readInt();
+                Map<Key, MarshalingTreeNode> children = new LinkedHashMap<>();
+                for (int i = 0; i < numChildren; ++i) {
+                    Key key = Key.valueOf(inputStream.readUTF());
+                    @Nullable MarshalingTreeNode child = readNode();
+                    if (child == null) {
+                        return null;
+                    }
+                    children.put(key, child);
+                }
+                return marshaler == null
+                    ? null
+                    : MarshaledObjectNode.of(marshaler, children);
+            } else if (tag == MARSHALED_REPLACEMENT_TAG) {
+                @Nullable Marshaler<?> marshaler = readMarshaler();
+                @Nullable MarshalingTreeNode child = readNode();
+                return marshaler == null || child == null
+                    ? null
+                    : MarshaledReplacementObjectNode.of(marshaler, child);
+            } else if (tag == BYTE_SEQUENCE_TAG) {
+                Path path = resultDirectory.resolve(Integer.toString(inputStream.readInt()));
+                if (!Files.isRegularFile(path)) {
+                    throw new NoSuchFileException(path.toString());
+                }
+                return ByteSequenceNode.of(ByteSequences.fileBacked(path));
+            } else {
+                throw new IOException(String.format("Invalid node tag %d.", tag));
+            }
+        }
+    }
+
+    private Optional<Map<SimpleName, ObjectNode>> read(String key, RuntimeContext runtimeContext) throws IOException {
+        Path resultDirectory = resultDirectory(key);
+        try (DataInputStream inputStream = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(resultDirectory.resolve(TREE_FILE_NAME))))) {
+            int magic = inputStream.readInt();
+            byte version = inputStream.readByte();
+            if (magic != MAGIC || version != VERSION) {
+                throw new IOException(String.format(
+                    "Expected magic number %08x and version %d, but found %08x and %d.", MAGIC, VERSION, magic, version
+                ));
+            }
+            TreeReader treeReader = new TreeReader(resultDirectory, runtimeContext, inputStream);
+            int numOutPorts = inputStream.readInt();
+            Map<SimpleName, ObjectNode> outPortValues = new LinkedHashMap<>();
+            for (int i = 0; i < numOutPorts; ++i) {
+                SimpleName outPortName = SimpleName.identifier(inputStream.readUTF());
+                @Nullable MarshalingTreeNode tree = treeReader.readNode();
+                if (!(tree instanceof ObjectNode)) {
+                    return Optional.empty();
+                }
+                outPortValues.put(outPortName, (ObjectNode) tree);
+            }
+            return Optional.of(outPortValues);
+        } catch (NoSuchFileException ignored) {
+            return Optional.empty();
+        }
+    }
+
+    private void write(String key, Map<SimpleName, ObjectNode> outPortValues) throws IOException {
+        Path resultDirectory = resultDirectory(key);
+        if (Files.isDirectory(resultDirectory)) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        Path temporaryDirectory = Files.createTempDirectory(directory, TEMPORARY_PREFIX);
+        boolean moved = false;
+        try {
+            TreeWriter treeWriter = new TreeWriter(temporaryDirectory);
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(temporaryDirectory.resolve(TREE_FILE_NAME))))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeByte(VERSION);
+                outputStream.writeInt(outPortValues.size());
+                for (Map.Entry<SimpleName, ObjectNode> entry: outPortValues.entrySet()) {
+                    outputStream.writeUTF(entry.getKey().toString());
+                    entry.getValue().accept(treeWriter, outputStream);
+                }
+            } catch (UncheckedIOException exception) {
+                throw exception.getCause();
+            }
+
+            try {
+                Files.move(temporaryDirectory, resultDirectory, StandardCopyOption.ATOMIC_MOVE);
+                moved = true;
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException ignored) {
+                // Another writer stored the same (deterministic) result in the meantime.
+            }
+        } finally {
+            if (!moved) {
+                Files.walkFileTree(temporaryDirectory, RecursiveDeleteVisitor.getInstance());
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Optional<Map<SimpleName, ObjectNode>>> get(String key, RuntimeContext runtimeContext) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(runtimeContext);
+        return Futures.supplyAsync(() -> read(key, runtimeContext), executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, Map<SimpleName, ObjectNode> outPortValues) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(outPortValues);
+        return Futures.supplyAsync(
+            () -> {
+                write(key, outPortValues);
+                return null;
+            },
+            executor
+        );
+    }
+}
@@ -0,0 +1,254 @@
+package xyz.cloudkeeper.simple;
+
+import cloudkeeper.types.ByteSequence;
+import net.florianschoppmann.java.futures.Futures;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ByteSequenceNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledReplacementObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.RawObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNodeVisitor;
+import xyz.cloudkeeper.model.immutable.element.Key;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.util.ByteSequences;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Memoized-result store that keeps results in memory, bounded by their total size in bytes.
+ *
+ * <p>The size of a result is the total length of all byte sequences in its marshaling trees, plus a small constant
+ * per tree node. Once the maximum size is exceeded, storing a new result evicts the least-recently used ones. Results
+ * larger than the maximum size are not stored at all (and their byte sequences are never read). Byte sequences of
+ * stored results are copied into memory, since they may be backed by a staging area. Memoized results are not
+ * persisted, so this store only allows reusing results within the same JVM; see {@link FileMemoizedResultStore} for a
+ * persistent store.
+ */
+public final class InMemoryMemoizedResultStore implements MemoizedResultStore {
+    /**
+     * Default maximum total size of the results kept by this store, in bytes.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Estimated number of bytes that a tree node occupies in addition to its byte sequence (if any).
+     */
+    private static final long NODE_OVERHEAD_BYTES = 64;
+
+    private final long maxBytes;
+
+    /**
+     * Map from memoization key to result, in least-recently accessed order. Also the monitor guarding {@link #size}.
+     */
+    private final LinkedHashMap<String, Result> results = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size = 0;
+
+    private static final class Result {
+        private final Map<SimpleName, ObjectNode> outPortValues;
+        private final long size;
+
+        private Result(Map<SimpleName, ObjectNode> outPortValues, long size) {
+            this.outPortValues = outPortValues;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Constructs a new store that keeps results of at most {@link #DEFAULT_MAX_BYTES} bytes in total.
+     */
+    public InMemoryMemoizedResultStore() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Constructs a new store that keeps results of at most the given number of bytes in total.
+     *
+     * @param maxBytes maximum total size of the results, in bytes, must be positive
+     */
+    public InMemoryMemoizedResultStore(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException(String.format(
+                "Expected positive maximum size, but got %d.", maxBytes
+            ));
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Visitor that returns the estimated size of a marshaling tree, in bytes.
+     *
+     * <p>Since the visitor interface does not permit checked exceptions, I/O errors are wrapped in an
+     * {@link UncheckedIOException}.
+     */
+    private enum SizeVisitor implements MarshalingTreeNodeVisitor<Long, Void> {
+        INSTANCE;
+
+        @Override
+        public Long visitRawObjectNode(RawObjectNode node, @Nullable Void ignored) {
+            return NODE_OVERHEAD_BYTES;
+        }
+
+        @Override
+        public Long visitMarshaledObjectNode(MarshaledObjectNode node, @Nullable Void ignored) {
+            long treeSize = NODE_OVERHEAD_BYTES;
+            for (MarshalingTreeNode child: node.getChildren().values()) {
+                treeSize += child.accept(this, null);
+            }
+            return treeSize;
+        }
+
+        @Override
+        public Long visitMarshaledReplacementNode(MarshaledReplacementObjectNode node, @Nullable Void ignored) {
+            return NODE_OVERHEAD_BYTES + node.getChild().accept(this, null);
+        }
+
+        @Override
+        public Long visitByteSequenceNode(ByteSequenceNode node, @Nullable Void ignored) {
+            ByteSequence byteSequence = node.getByteSequence();
+            try {
+                return NODE_OVERHEAD_BYTES + byteSequence.getContentLength();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    /**
+     * Visitor that returns a copy of a marshaling tree in which all byte sequences are self-contained.
+     *
+     * <p>Since the visitor interface does not permit checked exceptions, I/O errors are wrapped in an
+     * {@link UncheckedIOException}.
+     */
+    private enum SelfContainedCopyVisitor implements MarshalingTreeNodeVisitor<MarshalingTreeNode, Void> {
+        INSTANCE;
+
+        @Override
+        public MarshalingTreeNode visitRawObjectNode(RawObjectNode node, @Nullable Void ignored) {
+            throw new IllegalStateException(String.format(
+                "Expected fully marshaled tree, but got raw object node with object %s.", node.getObject()
+            ));
+        }
+
+        @Override
+        public MarshalingTreeNode visitMarshaledObjectNode(MarshaledObjectNode node, @Nullable Void ignored) {
+            Map<Key, MarshalingTreeNode> children = new LinkedHashMap<>(node.getChildren().size());
+            for (Map.Entry<Key, MarshalingTreeNode> entry: node.getChildren().entrySet()) {
+                children.put(entry.getKey(), entry.getValue().accept(this, null));
+            }
+            return MarshaledObjectNode.of(node.getMarshaler(), children);
+        }
+
+        @Override
+        public MarshalingTreeNode visitMarshaledReplacementNode(MarshaledReplacementObjectNode node,
+                @Nullable Void ignored) {
+            return MarshaledReplacementObjectNode.of(node.getMarshaler(), node.getChild().accept(this, null));
+        }
+
+        @Override
+        public MarshalingTreeNode visitByteSequenceNode(ByteSequenceNode node, @Nullable Void ignored) {
+            try {
+                return ByteSequenceNode.of(ByteSequences.selfContained(node.getByteSequence()));
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+    }
+
+    private static long size(Map<SimpleName, ObjectNode> outPortValues) throws IOException {
+        long resultSize = 0;
+        try {
+            for (ObjectNode tree: outPortValues.values()) {
+                resultSize += tree.accept(SizeVisitor.INSTANCE, null);
+            }
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        return resultSize;
+    }
+
+    private static Map<SimpleName, ObjectNode> selfContainedCopy(Map<SimpleName, ObjectNode> outPortValues)
+            throws IOException {
+        Map<SimpleName, ObjectNode> copy = new LinkedHashMap<>(outPortValues.size());
+        try {
+            for (Map.Entry<SimpleName, ObjectNode> entry: outPortValues.entrySet()) {
+                MarshalingTreeNode tree = entry.getValue().accept(SelfContainedCopyVisitor.INSTANCE, null);
+                copy.put(entry.getKey(), (ObjectNode) tree);
+            }
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * Returns the current total size of all results, in bytes.
+     *
+     * @return the current total size of all results, in bytes
+     */
+    public long size() {
+        synchronized (results) {
+            return size;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The runtime context is not used by this store.
+     */
+    @Override
+    public CompletableFuture<Optional<Map<SimpleName, ObjectNode>>> get(String key, RuntimeContext runtimeContext) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(runtimeContext);
+        @Nullable Result result;
+        synchronized (results) {
+            result = results.get(key);
+        }
+        return CompletableFuture.completedFuture(
+            result == null
+                ? Optional.empty()
+                : Optional.of(result.outPortValues)
+        );
+    }
+
+    @Override
+    public CompletableFuture<Void> put(String key, Map<SimpleName, ObjectNode> outPortValues) {
+        Objects.requireNonNull(key);
+        Result result;
+        try {
+            // The size is known without reading the byte sequences, so only results that fit are copied into memory.
+            long resultSize = size(outPortValues);
+            if (resultSize > maxBytes) {
+                return CompletableFuture.completedFuture(null);
+            }
+            result = new Result(selfContainedCopy(outPortValues), resultSize);
+        } catch (IOException exception) {
+            return Futures.completedExceptionally(exception);
+        }
+        synchronized (results) {
+            @Nullable Result previous = results.put(key, result);
+            if (previous != null) {
+                size -= previous.size;
+            }
+            size += result.size;
+            Iterator<Result> iterator = results.values().iterator();
+            while (size > maxBytes) {
+                size -= iterator.next().size;
+                iterator.remove();
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
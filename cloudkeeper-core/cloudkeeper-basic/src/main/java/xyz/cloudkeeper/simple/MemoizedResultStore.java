@@ -0,0 +1,51 @@
+package xyz.cloudkeeper.simple;
+
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ObjectNode;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Store of memoized simple-module results, as used by {@link MemoizingSimpleModuleExecutor}.
+ *
+ * <p>A memoized result maps the names of all out-ports of a simple module to the marshaling trees of the out-port
+ * values. Results are identified by a memoization key, which is a digest of the module declaration and the in-port
+ * values (see {@link MemoizingSimpleModuleExecutor} for details). All marshaling trees passed to
+ * {@link #put(String, Map)} are fully marshaled; that is, they do not contain
+ * {@link xyz.cloudkeeper.marshaling.MarshalingTreeNode.RawObjectNode} instances.
+ *
+ * <p>Implementations of this interface must be thread-safe. Since memoized results are only an optimization,
+ * implementations are free to discard results at any time.
+ */
+public interface MemoizedResultStore {
+    /**
+     * Returns the memoized result for the given key.
+     *
+     * <p>Persistent implementations may use the given runtime context in order to resolve the marshalers referenced by
+     * a stored result. If a marshaler cannot be resolved, the result should be treated as missing.
+     *
+     * @param key memoization key
+     * @param runtimeContext runtime context of the simple module whose result is requested
+     * @return future that will be completed with the memoized result, or with an empty optional if there is no
+     *     memoized result for the given key
+     */
+    CompletableFuture<Optional<Map<SimpleName, ObjectNode>>> get(String key, RuntimeContext runtimeContext);
+
+    /**
+     * Stores a memoized result.
+     *
+     * <p>The byte sequences in the given marshaling trees are not necessarily self-contained (see
+     * {@link cloudkeeper.types.ByteSequence#isSelfContained()}); they may be backed by the staging area of the simple
+     * module, and they are only guaranteed to be readable until the returned future is completed. Implementations that
+     * keep a result beyond that must therefore copy its byte sequences, preferably without holding the entire content
+     * in memory at once.
+     *
+     * @param key memoization key
+     * @param outPortValues map from out-port names to the marshaling trees of the out-port values
+     * @return future that will be completed once the result has been stored
+     */
+    CompletableFuture<Void> put(String key, Map<SimpleName, ObjectNode> outPortValues);
+}
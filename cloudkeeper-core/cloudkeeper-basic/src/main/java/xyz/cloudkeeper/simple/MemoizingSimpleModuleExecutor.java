@@ -0,0 +1,484 @@
+package xyz.cloudkeeper.simple;
+
+import cloudkeeper.annotations.CloudKeeperMemoization;
+import cloudkeeper.types.ByteSequence;
+import net.florianschoppmann.java.futures.Futures;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import xyz.cloudkeeper.marshaling.MarshalingTreeBuilder;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ByteSequenceNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledReplacementObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.RawObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNodeVisitor;
+import xyz.cloudkeeper.marshaling.MarshalingTreeUnmarshalSource;
+import xyz.cloudkeeper.model.LinkerException;
+import xyz.cloudkeeper.model.api.Marshaler;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.api.RuntimeStateProvider;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutor;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
+import xyz.cloudkeeper.model.api.staging.InstanceProvider;
+import xyz.cloudkeeper.model.api.staging.InstanceProvisionException;
+import xyz.cloudkeeper.model.api.staging.StagingArea;
+import xyz.cloudkeeper.model.immutable.element.Key;
+import xyz.cloudkeeper.model.immutable.element.Name;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.element.module.RuntimeInPort;
+import xyz.cloudkeeper.model.runtime.element.module.RuntimeModuleDeclaration;
+import xyz.cloudkeeper.model.runtime.element.module.RuntimeOutPort;
+import xyz.cloudkeeper.model.runtime.element.module.RuntimeProxyModule;
+import xyz.cloudkeeper.model.runtime.element.serialization.RuntimeSerializationDeclaration;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Simple-module executor that reuses the out-port values of previous executions of deterministic simple modules.
+ *
+ * <p>This executor decorates another simple-module executor. If the
+ * {@link CloudKeeperMemoization} annotation is present on the execution trace of a submitted simple module,
+ * this executor computes a memoization key and looks it up in a {@link MemoizedResultStore}:
+ * <ul><li>
+ *     If there is a memoized result, this executor unmarshals the memoized out-port values and writes them into the
+ *     staging area. The simple module is not submitted to the decorated executor. The returned
+ *     {@link SimpleModuleExecutorResult} has this class as executor name, and it contains property
+ *     {@link #MEMOIZATION_KEY}.
+ * </li><li>
+ *     Otherwise, the simple module is submitted to the decorated executor. If the execution succeeds, this executor
+ *     reads the out-port values from the staging area and stores them in the memoized-result store. The result of the
+ *     decorated executor is returned unchanged.
+ * </li></ul>
+ * Simple modules without the {@link CloudKeeperMemoization} annotation are always submitted to the decorated executor.
+ *
+ * <p>The memoization key is a SHA-256 digest of the qualified name of the module declaration, the bundle identifier of
+ * the module declaration (which for Maven bundles includes the version), the version given by
+ * {@link CloudKeeperMemoization#version()}, and the marshaled in-port values. In-port values are fully marshaled using
+ * the serialization declarations of the respective in-port, and the digest covers the marshalers as well as the
+ * marshaled byte sequences. Values that are equal in Java, but marshaled differently, therefore have different keys.
+ * This is safe, because it can only cause unnecessary executions.
+ *
+ * <p>Failures of the memoization itself (for instance, failure to read in-port values or to access the memoized-result
+ * store) never cause an execution to fail. Instead, the simple module is submitted to the decorated executor as if it
+ * did not carry the {@link CloudKeeperMemoization} annotation.
+ */
+public final class MemoizingSimpleModuleExecutor implements SimpleModuleExecutor {
+    /**
+     * Name of property in {@link SimpleModuleExecutorResult} that contains the memoization key (as hexadecimal string)
+     * if the out-port values were provided from a memoized result.
+     */
+    public static final SimpleName MEMOIZATION_KEY = SimpleName.identifier("memoizationKey");
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+    private final Executor executor;
+    private final SimpleModuleExecutor delegate;
+    private final MemoizedResultStore resultStore;
+    private final InstanceProvider instanceProvider;
+
+    private MemoizingSimpleModuleExecutor(Executor executor, SimpleModuleExecutor delegate,
+            MemoizedResultStore resultStore, InstanceProvider instanceProvider) {
+        this.executor = executor;
+        this.delegate = delegate;
+        this.resultStore = resultStore;
+        this.instanceProvider = instanceProvider;
+    }
+
+    /**
+     * This class is used to create {@link MemoizingSimpleModuleExecutor} instances.
+     *
+     * <p>None of this builder's methods accepts null parameters, and a {@link NullPointerException} is thrown if null
+     * is passed.
+     */
+    public static class Builder {
+        private final Executor executor;
+        private final SimpleModuleExecutor delegate;
+        private MemoizedResultStore resultStore = new InMemoryMemoizedResultStore();
+        @Nullable private InstanceProvider instanceProvider;
+
+        /**
+         * Constructs a builder with the specified execution context and decorated simple-module executor.
+         *
+         * @param executor the execution context that will be used for marshaling and unmarshaling values
+         * @param delegate the decorated simple-module executor, which executes simple modules without memoized result
+         */
+        public Builder(Executor executor, SimpleModuleExecutor delegate) {
+            this.executor = Objects.requireNonNull(executor);
+            this.delegate = Objects.requireNonNull(delegate);
+        }
+
+        /**
+         * Sets this builder's memoized-result store.
+         *
+         * <p>By default, {@link #build()} will assume a new {@link InMemoryMemoizedResultStore} with default capacity.
+         * In order to reuse results across JVMs, a {@link FileMemoizedResultStore} may be used instead.
+         *
+         * @param resultStore the memoized-result store
+         * @return this builder
+         */
+        public Builder setResultStore(MemoizedResultStore resultStore) {
+            this.resultStore = Objects.requireNonNull(resultStore);
+            return this;
+        }
+
+        /**
+         * Sets this builder's instance provider.
+         *
+         * <p>The instance provider will be passed to
+         * {@link RuntimeStateProvider#provideRuntimeContext(InstanceProvider)} and
+         * {@link RuntimeStateProvider#provideStagingArea(RuntimeContext, InstanceProvider)}.
+         *
+         * <p>By default, {@link #build()} will assume a new {@link SimpleInstanceProvider} that provides the execution
+         * context passed to {@link #Builder(Executor, SimpleModuleExecutor)}.
+         *
+         * @param instanceProvider the instance provider
+         * @return this builder
+         */
+        public Builder setInstanceProvider(InstanceProvider instanceProvider) {
+            this.instanceProvider = Objects.requireNonNull(instanceProvider);
+            return this;
+        }
+
+        /**
+         * Returns a new memoizing simple-module executor using the attributes of this builder.
+         *
+         * @return the new memoizing simple-module executor
+         */
+        public MemoizingSimpleModuleExecutor build() {
+            @Nullable InstanceProvider actualInstanceProvider = instanceProvider;
+            if (actualInstanceProvider == null) {
+                actualInstanceProvider = new SimpleInstanceProvider.Builder(executor).build();
+            }
+            return new MemoizingSimpleModuleExecutor(executor, delegate, resultStore, actualInstanceProvider);
+        }
+    }
+
+    private static List<Marshaler<?>> marshalers(RuntimeAnnotatedExecutionTrace absoluteTrace) {
+        return absoluteTrace.getSerializationDeclarations().stream()
+            .map(RuntimeSerializationDeclaration::getInstance).collect(Collectors.toList());
+    }
+
+    private static void update(MessageDigest digest, String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        update(digest, bytes.length);
+        digest.update(bytes);
+    }
+
+    private static void update(MessageDigest digest, long value) {
+        for (int shift = Long.SIZE - Byte.SIZE; shift >= 0; shift -= Byte.SIZE) {
+            digest.update((byte) (value >>> shift));
+        }
+    }
+
+    private static String toHexString(byte[] bytes) {
+        StringBuilder stringBuilder = new StringBuilder(2 * bytes.length);
+        for (byte currentByte: bytes) {
+            stringBuilder.append(String.format("%02x", currentByte));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Visitor that feeds a marshaling tree into a message digest.
+     *
+     * <p>Each node is prefixed by a tag, so that the digest is unambiguous. Since the visitor interface does not permit
+     * checked exceptions, I/O errors are wrapped in an {@link UncheckedIOException}.
+     */
+    private enum DigestVisitor implements MarshalingTreeNodeVisitor<Void, MessageDigest> {
+        INSTANCE;
+
+        private static final byte MARSHALED_OBJECT_TAG = 1;
+        private static final byte MARSHALED_REPLACEMENT_TAG = 2;
+        private static final byte BYTE_SEQUENCE_TAG = 3;
+
+        @Override
+        @Nullable
+        public Void visitRawObjectNode(RawObjectNode node, @Nullable MessageDigest digest) {
+            throw new IllegalStateException(String.format(
+                "Expected fully marshaled tree, but got raw object node with object %s.", node.getObject()
+            ));
+        }
+
+        @Override
+        @Nullable
+        public Void visitMarshaledObjectNode(MarshaledObjectNode node, @Nullable MessageDigest digest) {
+            assert digest != null;
+            digest.update(MARSHALED_OBJECT_TAG);
+            update(digest, node.getMarshaler().getClass().getName());
+            update(digest, node.getChildren().size());
+            for (Map.Entry<Key, MarshalingTreeNode> entry: node.getChildren().entrySet()) {
+                update(digest, entry.getKey().toString());
+                entry.getValue().accept(this, digest);
+            }
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public Void visitMarshaledReplacementNode(MarshaledReplacementObjectNode node,
+                @Nullable MessageDigest digest) {
+            assert digest != null;
+            digest.update(MARSHALED_REPLACEMENT_TAG);
+            update(digest, node.getMarshaler().getClass().getName());
+            node.getChild().accept(this, digest);
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public Void visitByteSequenceNode(ByteSequenceNode node, @Nullable MessageDigest digest) {
+            assert digest != null;
+            digest.update(BYTE_SEQUENCE_TAG);
+            ByteSequence byteSequence = node.getByteSequence();
+            try (InputStream inputStream = byteSequence.newInputStream()) {
+                update(digest, byteSequence.getContentLength());
+                byte[] buffer = new byte[4096];
+                int numBytes;
+                while ((numBytes = inputStream.read(buffer)) >= 0) {
+                    digest.update(buffer, 0, numBytes);
+                }
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns a fully marshaled tree of the given object, using the serialization declarations of the given port.
+     */
+    private static ObjectNode marshal(Object object, RuntimeAnnotatedExecutionTrace absolutePortTrace)
+            throws IOException {
+        return MarshalingTreeBuilder.marshal(object, marshalers(absolutePortTrace), (path, marshaler, value) -> true);
+    }
+
+    private static void digest(ObjectNode tree, MessageDigest digest) throws IOException {
+        try {
+            tree.accept(DigestVisitor.INSTANCE, digest);
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        }
+    }
+
+    /**
+     * Returns a future that will be completed with the memoization key for the simple module represented by the given
+     * staging area.
+     */
+    private CompletableFuture<String> memoizationKey(StagingArea stagingArea, String version) {
+        RuntimeAnnotatedExecutionTrace executionTrace = stagingArea.getAnnotatedExecutionTrace();
+        RuntimeProxyModule module = (RuntimeProxyModule) executionTrace.getModule();
+        List<? extends RuntimeInPort> inPorts = module.getInPorts();
+        List<CompletableFuture<Object>> futures = new ArrayList<>(inPorts.size());
+        for (RuntimeInPort inPort: inPorts) {
+            futures.add(stagingArea.getObject(ExecutionTrace.empty().resolveInPort(inPort.getSimpleName())));
+        }
+        return Futures.thenApplyAsync(
+            Futures.collect(futures),
+            inPortValues -> {
+                MessageDigest digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+                RuntimeModuleDeclaration declaration = module.getDeclaration();
+                update(digest, declaration.getQualifiedName().toString());
+                update(digest, declaration.getPackage().getBundleIdentifier().toString());
+                update(digest, version);
+                update(digest, inPorts.size());
+                int i = 0;
+                for (RuntimeInPort inPort: inPorts) {
+                    SimpleName inPortName = inPort.getSimpleName();
+                    update(digest, inPortName.toString());
+                    digest(marshal(inPortValues.get(i), executionTrace.resolveInPort(inPortName)), digest);
+                    ++i;
+                }
+                return toHexString(digest.digest());
+            },
+            executor
+        );
+    }
+
+    /**
+     * Writes the given memoized out-port values into the given staging area.
+     *
+     * <p>The returned future will be completed exceptionally if the memoized result does not contain a value for every
+     * out-port.
+     */
+    private CompletableFuture<Void> materialize(RuntimeContext runtimeContext, StagingArea stagingArea,
+            Map<SimpleName, ObjectNode> outPortValues) {
+        RuntimeProxyModule module = (RuntimeProxyModule) stagingArea.getAnnotatedExecutionTrace().getModule();
+        List<? extends RuntimeOutPort> outPorts = module.getOutPorts();
+        return Futures
+            .supplyAsync(
+                () -> {
+                    List<Object> values = new ArrayList<>(outPorts.size());
+                    for (RuntimeOutPort outPort: outPorts) {
+                        @Nullable ObjectNode tree = outPortValues.get(outPort.getSimpleName());
+                        if (tree == null) {
+                            throw new IOException(String.format("No memoized value for %s.", outPort));
+                        }
+                        values.add(MarshalingTreeUnmarshalSource.unmarshal(tree, runtimeContext.getClassLoader()));
+                    }
+                    return values;
+                },
+                executor
+            )
+            .thenCompose(values -> {
+                CompletableFuture<?>[] futures = new CompletableFuture<?>[outPorts.size()];
+                int i = 0;
+                for (RuntimeOutPort outPort: outPorts) {
+                    ExecutionTrace outPortTrace = ExecutionTrace.empty().resolveOutPort(outPort.getSimpleName());
+                    futures[i] = stagingArea.putObject(outPortTrace, values.get(i));
+                    ++i;
+                }
+                return CompletableFuture.allOf(futures);
+            });
+    }
+
+    /**
+     * Reads the out-port values from the given staging area and stores them in the memoized-result store.
+     *
+     * <p>The marshaling trees passed to the store may contain byte sequences backed by the staging area. They are not
+     * copied here, so that the store can decide whether (and where) to copy them; see
+     * {@link MemoizedResultStore#put(String, Map)}.
+     */
+    private CompletableFuture<Void> memoize(StagingArea stagingArea, String key) {
+        RuntimeAnnotatedExecutionTrace executionTrace = stagingArea.getAnnotatedExecutionTrace();
+        List<? extends RuntimeOutPort> outPorts = ((RuntimeProxyModule) executionTrace.getModule()).getOutPorts();
+        List<CompletableFuture<Object>> futures = new ArrayList<>(outPorts.size());
+        for (RuntimeOutPort outPort: outPorts) {
+            futures.add(stagingArea.getObject(ExecutionTrace.empty().resolveOutPort(outPort.getSimpleName())));
+        }
+        return Futures
+            .thenApplyAsync(
+                Futures.collect(futures),
+                outPortValues -> {
+                    Map<SimpleName, ObjectNode> trees = new LinkedHashMap<>(outPorts.size());
+                    int i = 0;
+                    for (RuntimeOutPort outPort: outPorts) {
+                        SimpleName outPortName = outPort.getSimpleName();
+                        ObjectNode tree = marshal(outPortValues.get(i), executionTrace.resolveOutPort(outPortName));
+                        trees.put(outPortName, tree);
+                        ++i;
+                    }
+                    return trees;
+                },
+                executor
+            )
+            .thenCompose(trees -> resultStore.put(key, trees));
+    }
+
+    private CompletableFuture<SimpleModuleExecutorResult> submitToDelegate(RuntimeStateProvider runtimeStateProvider,
+            String format, Object argument, Throwable throwable) {
+        log.warn(String.format(format, argument), Futures.unwrapCompletionException(throwable));
+        return delegate.submit(runtimeStateProvider);
+    }
+
+    private CompletableFuture<SimpleModuleExecutorResult> executeAndMemoize(RuntimeStateProvider runtimeStateProvider,
+            StagingArea stagingArea, String key) {
+        return delegate.submit(runtimeStateProvider)
+            .thenCompose(result -> {
+                if (result.getExecutionException() != null) {
+                    return CompletableFuture.completedFuture(result);
+                }
+                return memoize(stagingArea, key).handle((ignored, throwable) -> {
+                    if (throwable != null) {
+                        log.warn(String.format("Failed to memoize result of %s.", runtimeStateProvider),
+                            Futures.unwrapCompletionException(throwable));
+                    }
+                    return result;
+                });
+            });
+    }
+
+    private CompletableFuture<SimpleModuleExecutorResult> lookupOrExecute(RuntimeStateProvider runtimeStateProvider,
+            RuntimeContext runtimeContext, long submissionTimeMillis) {
+        StagingArea stagingArea;
+        try {
+            stagingArea = runtimeStateProvider.provideStagingArea(runtimeContext, instanceProvider);
+        } catch (LinkerException | InstanceProvisionException exception) {
+            return submitToDelegate(runtimeStateProvider, "Failed to provide staging area for %s.",
+                runtimeStateProvider, exception);
+        }
+
+        @Nullable CloudKeeperMemoization memoization
+            = stagingArea.getAnnotatedExecutionTrace().getAnnotation(CloudKeeperMemoization.class);
+        if (memoization == null) {
+            return delegate.submit(runtimeStateProvider);
+        }
+
+        CompletableFuture<String> keyFuture = memoizationKey(stagingArea, memoization.version());
+        return keyFuture
+            .thenCompose(key -> resultStore.get(key, runtimeContext))
+            .handle((optionalOutPortValues, throwable) -> {
+                if (throwable != null) {
+                    return submitToDelegate(runtimeStateProvider, "Failed to look up memoized result for %s.",
+                        runtimeStateProvider, throwable);
+                }
+
+                String key = keyFuture.join();
+                Optional<Map<SimpleName, ObjectNode>> outPortValues = optionalOutPortValues;
+                if (!outPortValues.isPresent()) {
+                    return executeAndMemoize(runtimeStateProvider, stagingArea, key);
+                }
+
+                return materialize(runtimeContext, stagingArea, outPortValues.get())
+                    .handle((ignored, materializeThrowable) -> {
+                        if (materializeThrowable != null) {
+                            log.warn(String.format("Failed to reuse memoized result %s for %s.", key,
+                                runtimeStateProvider), Futures.unwrapCompletionException(materializeThrowable));
+                            return executeAndMemoize(runtimeStateProvider, stagingArea, key);
+                        }
+                        log.debug("Reusing memoized result {} for {}.", key, runtimeStateProvider);
+                        return CompletableFuture.completedFuture(
+                            new SimpleModuleExecutorResult.Builder(
+                                    Name.qualifiedName(MemoizingSimpleModuleExecutor.class.getName()))
+                                .addProperty(SUBMISSION_TIME_MILLIS, submissionTimeMillis)
+                                .addProperty(MEMOIZATION_KEY, key)
+                                .addProperty(COMPLETION_TIME_MILLIS, System.currentTimeMillis())
+                                .build()
+                        );
+                    })
+                    .thenCompose(Function.identity());
+            })
+            .thenCompose(Function.identity());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the runtime context cannot be provided, the simple module is submitted to the decorated executor without
+     * memoization.
+     */
+    @Override
+    public CompletableFuture<SimpleModuleExecutorResult> submit(RuntimeStateProvider runtimeStateProvider) {
+        long submissionTimeMillis = System.currentTimeMillis();
+        return runtimeStateProvider.provideRuntimeContext(instanceProvider)
+            .handle((runtimeContext, throwable) -> {
+                if (throwable != null) {
+                    return submitToDelegate(runtimeStateProvider, "Failed to provide runtime context for %s.",
+                        runtimeStateProvider, throwable);
+                }
+                return Futures.thenComposeWithResource(
+                    CompletableFuture.completedFuture(runtimeContext),
+                    ignored -> lookupOrExecute(runtimeStateProvider, runtimeContext, submissionTimeMillis)
+                );
+            })
+            .thenCompose(Function.identity());
+    }
+}
@@ -4,27 +4,34 @@ import scala.concurrent.ExecutionContext;
 import xyz.cloudkeeper.model.api.RuntimeContextFactory;
 import xyz.cloudkeeper.model.api.staging.InstanceProvider;
 import xyz.cloudkeeper.model.api.staging.InstanceProvisionException;
+import xyz.cloudkeeper.staging.StagingIOExecutor;
 
 import javax.annotation.Nullable;
 import java.util.Objects;
 import java.util.concurrent.Executor;
 
 /**
- * Simple instance provider for {@link RuntimeContextFactory} and {@link ExecutionContext} instances.
+ * Simple instance provider for {@link RuntimeContextFactory}, {@link ExecutionContext}, and {@link StagingIOExecutor}
+ * instances.
  */
 public final class SimpleInstanceProvider implements InstanceProvider {
     private final Executor executor;
     private final RuntimeContextFactory runtimeContextFactory;
+    private final StagingIOExecutor stagingIOExecutor;
 
     private SimpleInstanceProvider(Builder builder) {
         executor = builder.executor;
         runtimeContextFactory = builder.runtimeContextFactory == null
             ? new DSLRuntimeContextFactory.Builder(executor).build()
             : builder.runtimeContextFactory;
+        stagingIOExecutor = builder.stagingIOExecutor == null
+            ? new StagingIOExecutor.Builder().build()
+            : builder.stagingIOExecutor;
     }
 
     public static final class Builder {
         @Nullable private RuntimeContextFactory runtimeContextFactory = null;
+        @Nullable private StagingIOExecutor stagingIOExecutor = null;
         private final Executor executor;
 
         /**
@@ -50,6 +57,21 @@ public final class SimpleInstanceProvider implements InstanceProvider {
             return this;
         }
 
+        /**
+         * Sets the executor for the I/O operations of staging areas.
+         *
+         * <p>By default, a newly created {@link StagingIOExecutor} with default limits will be used, which runs tasks
+         * on its own thread pool (see {@link StagingIOExecutor.Builder#Builder()}). Blocking I/O is therefore never
+         * submitted to the executor passed to {@link #Builder(Executor)}.
+         *
+         * @param stagingIOExecutor executor for the I/O operations of staging areas
+         * @return this builder
+         */
+        public Builder setStagingIOExecutor(StagingIOExecutor stagingIOExecutor) {
+            this.stagingIOExecutor = Objects.requireNonNull(stagingIOExecutor);
+            return this;
+        }
+
         public SimpleInstanceProvider build() {
             return new SimpleInstanceProvider(this);
         }
@@ -62,6 +84,8 @@ public final class SimpleInstanceProvider implements InstanceProvider {
             return (T) runtimeContextFactory;
         } else if (Executor.class.equals(requestedClass)) {
             return (T) executor;
+        } else if (StagingIOExecutor.class.equals(requestedClass)) {
+            return (T) stagingIOExecutor;
         } else {
             throw new InstanceProvisionException(String.format(
                 "Cannot provide instance of %s.", requestedClass
@@ -19,6 +19,7 @@ import xyz.cloudkeeper.model.api.staging.InstanceProvider;
 import xyz.cloudkeeper.model.api.staging.StagingAreaProvider;
 import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
 import xyz.cloudkeeper.staging.MapStagingArea;
+import xyz.cloudkeeper.staging.StagingIOExecutor;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -37,6 +38,13 @@ public final class SingleVMCloudKeeper {
     private static final String INSTANCE_PROVIDER_NAME = "instance-provider";
     private static final String INSTANCE_PROVIDER_PATH = "/user/" + INSTANCE_PROVIDER_NAME;
 
+    /**
+     * Identifier of the Akka dispatcher that the I/O operations of staging areas are submitted to, if the actor system
+     * has a dispatcher with this identifier. Otherwise, they run on a dedicated thread pool (see
+     * {@link StagingIOExecutor.Builder#Builder()}), and never on the default dispatcher.
+     */
+    public static final String STAGING_DISPATCHER_ID = "cloudkeeper.staging-dispatcher";
+
     private final boolean ownsActorSystem;
     private final ActorSystem actorSystem;
     private final AtomicBoolean isShutDown = new AtomicBoolean(false);
@@ -131,7 +139,14 @@ public final class SingleVMCloudKeeper {
 
                 InstanceProvider actualInstanceProvider = instanceProvider;
                 if (actualInstanceProvider == null) {
-                    actualInstanceProvider = new SimpleInstanceProvider.Builder(runnableExecutor).build();
+                    StagingIOExecutor.Builder stagingIOExecutorBuilder
+                        = actualActorSystem.dispatchers().hasDispatcher(STAGING_DISPATCHER_ID)
+                            ? new StagingIOExecutor.Builder(
+                                actualActorSystem.dispatchers().lookup(STAGING_DISPATCHER_ID))
+                            : new StagingIOExecutor.Builder();
+                    actualInstanceProvider = new SimpleInstanceProvider.Builder(runnableExecutor)
+                        .setStagingIOExecutor(stagingIOExecutorBuilder.build())
+                        .build();
                 }
 
                 actualActorSystem.actorOf(
@@ -211,6 +226,8 @@ public final class SingleVMCloudKeeper {
         private StagingAreaProvider stagingAreaProvider
             = (runtimeContext, executionTrace, ignored) -> new MapStagingArea(runtimeContext, executionTrace);
         private boolean cleaningRequested = true;
+        private int maxConcurrentElements = CloudKeeperEnvironmentBuilder.DEFAULT_MAX_CONCURRENT_ELEMENTS;
+        private boolean loopPipelining = false;
 
         private EnvironmentBuilder() { }
 
@@ -219,6 +236,26 @@ public final class SingleVMCloudKeeper {
             return this;
         }
 
+        /**
+         * Sets the maximum number of elements that the interpreter of an apply-to-all module processes concurrently.
+         *
+         * @see CloudKeeperEnvironmentBuilder#setMaxConcurrentElements(int)
+         */
+        public EnvironmentBuilder setMaxConcurrentElements(int maxConcurrentElements) {
+            this.maxConcurrentElements = maxConcurrentElements;
+            return this;
+        }
+
+        /**
+         * Sets whether loop iterations should be pipelined.
+         *
+         * @see CloudKeeperEnvironmentBuilder#setLoopPipelining(boolean)
+         */
+        public EnvironmentBuilder setLoopPipelining(boolean loopPipelining) {
+            this.loopPipelining = loopPipelining;
+            return this;
+        }
+
         public EnvironmentBuilder setStagingAreaProvider(StagingAreaProvider stagingAreaProvider) {
             this.stagingAreaProvider = stagingAreaProvider;
             return this;
@@ -237,6 +274,8 @@ public final class SingleVMCloudKeeper {
             );
             builder
                 .setCleaningRequested(cleaningRequested)
+                .setMaxConcurrentElements(maxConcurrentElements)
+                .setLoopPipelining(loopPipelining)
                 .setInstanceProviderActorPath(INSTANCE_PROVIDER_PATH);
             return builder.build();
         }
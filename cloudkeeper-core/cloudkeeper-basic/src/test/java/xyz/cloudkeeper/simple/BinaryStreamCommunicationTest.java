@@ -0,0 +1,130 @@
+package xyz.cloudkeeper.simple;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+public class BinaryStreamCommunicationTest {
+    @Test
+    public void testRoundTrip() throws IOException {
+        ArrayList<String> value = new ArrayList<>();
+        value.add("foo");
+        value.add("bar");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryStreamCommunication.writeObject(value, outputStream);
+        BinaryStreamCommunication.writeObject(24, outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        Assert.assertEquals(BinaryStreamCommunication.readObject(ArrayList.class, inputStream), value);
+        Assert.assertEquals(BinaryStreamCommunication.readObject(Integer.class, inputStream), (Integer) 24);
+        Assert.assertEquals(inputStream.read(), -1);
+
+        Assert.assertEquals(
+            BinaryStreamCommunication.readFramedOrEmbeddedObject(ArrayList.class, new ByteArrayInputStream(bytes)),
+            value
+        );
+    }
+
+    @Test
+    public void testInvalidChecksum() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryStreamCommunication.writeObject("Hello world!", outputStream);
+        byte[] bytes = outputStream.toByteArray();
+        bytes[bytes.length - 1] ^= 1;
+
+        try {
+            BinaryStreamCommunication.readObject(String.class, new ByteArrayInputStream(bytes));
+            Assert.fail("Expected IOException");
+        } catch (IOException exception) {
+            Assert.assertTrue(exception.getMessage().contains("checksum"));
+        }
+    }
+
+    @Test
+    public void testDeserializationFailure() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryStreamCommunication.writeObject("Hello world!", outputStream);
+        BinaryStreamCommunication.writeObject(24, outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        ByteArrayInputStream inputStream = new ByteArrayInputStream(bytes);
+        try {
+            BinaryStreamCommunication.readObject(Integer.class, inputStream);
+            Assert.fail("Expected DeserializationException");
+        } catch (BinaryStreamCommunication.DeserializationException ignored) { }
+        Assert.assertEquals(BinaryStreamCommunication.readObject(Integer.class, inputStream), (Integer) 24);
+
+        // Invalid magic number: No way to recover the frame boundary.
+        bytes[0] ^= 1;
+        try {
+            BinaryStreamCommunication.readObject(String.class, new ByteArrayInputStream(bytes));
+            Assert.fail("Expected IOException");
+        } catch (BinaryStreamCommunication.DeserializationException exception) {
+            Assert.fail("Expected framing error", exception);
+        } catch (IOException exception) {
+            Assert.assertTrue(exception.getMessage().contains("magic"));
+        }
+    }
+
+    @Test
+    public void testInvalidFrameLength() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryStreamCommunication.writeObject("Hello world!", outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        // A frame longer than the maximum is rejected before its content is read.
+        try {
+            BinaryStreamCommunication.readObject(String.class, new ByteArrayInputStream(bytes), 8);
+            Assert.fail("Expected IOException");
+        } catch (IOException exception) {
+            Assert.assertTrue(exception.getMessage().contains("exceeds"));
+        }
+
+        // Corrupted length field: 0x7fffffff and -1
+        for (byte lengthByte: new byte[] { 0x7f, (byte) 0xff }) {
+            bytes[4] = lengthByte;
+            bytes[5] = (byte) 0xff;
+            bytes[6] = (byte) 0xff;
+            bytes[7] = (byte) 0xff;
+            try {
+                BinaryStreamCommunication.readObject(String.class, new ByteArrayInputStream(bytes));
+                Assert.fail("Expected IOException");
+            } catch (IOException exception) {
+                Assert.assertTrue(exception.getMessage().contains("length"));
+            }
+        }
+    }
+
+    @Test
+    public void testEmbeddedObject() throws IOException {
+        Integer value = 24;
+
+        byte[] bytes;
+        try (
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            PrintWriter printWriter
+                = new PrintWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8.name()))
+        ) {
+            CharacterStreamCommunication.writeBoundary("foo", printWriter);
+            printWriter.println("Look at this!");
+            CharacterStreamCommunication.writeObject(value, printWriter, "foo");
+            printWriter.println("Done!");
+            printWriter.flush();
+            bytes = outputStream.toByteArray();
+        }
+
+        Assert.assertEquals(
+            BinaryStreamCommunication.readFramedOrEmbeddedObject(Integer.class, new ByteArrayInputStream(bytes)),
+            value
+        );
+    }
+}
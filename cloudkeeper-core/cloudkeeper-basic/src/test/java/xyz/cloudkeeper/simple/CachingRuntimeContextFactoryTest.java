@@ -0,0 +1,184 @@
+package xyz.cloudkeeper.simple;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.api.RuntimeContextFactory;
+import xyz.cloudkeeper.model.bare.element.module.BareModule;
+import xyz.cloudkeeper.model.bare.execution.BareExecutionTrace;
+import xyz.cloudkeeper.model.bare.execution.BareOverride;
+import xyz.cloudkeeper.model.runtime.element.RuntimeRepository;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class CachingRuntimeContextFactoryTest {
+    private static final List<URI> FIRST = Collections.singletonList(URI.create("x-test:first"));
+    private static final List<URI> SECOND = Collections.singletonList(URI.create("x-test:second"));
+
+    private static final class CountingRuntimeContext implements RuntimeContext {
+        private int closeCount = 0;
+
+        @Override
+        public void close() {
+            ++closeCount;
+        }
+
+        @Override
+        public RuntimeRepository getRepository() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return getClass().getClassLoader();
+        }
+
+        @Override
+        public RuntimeAnnotatedExecutionTrace newAnnotatedExecutionTrace(BareExecutionTrace absoluteTrace,
+                BareModule bareModule, List<? extends BareOverride> overrides) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class CountingRuntimeContextFactory implements RuntimeContextFactory {
+        private final List<CountingRuntimeContext> runtimeContexts = new ArrayList<>();
+        private final List<CompletableFuture<RuntimeContext>> deferredFutures = new ArrayList<>();
+        private boolean fail = false;
+        private boolean defer = false;
+
+        @Override
+        public CompletableFuture<RuntimeContext> newRuntimeContext(List<URI> bundleIdentifiers) {
+            CompletableFuture<RuntimeContext> future = new CompletableFuture<>();
+            if (defer) {
+                deferredFutures.add(future);
+            } else if (fail) {
+                future.completeExceptionally(new IllegalStateException("Expected failure."));
+            } else {
+                CountingRuntimeContext runtimeContext = new CountingRuntimeContext();
+                runtimeContexts.add(runtimeContext);
+                future.complete(runtimeContext);
+            }
+            return future;
+        }
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        CountingRuntimeContextFactory delegate = new CountingRuntimeContextFactory();
+        try (CachingRuntimeContextFactory factory = new CachingRuntimeContextFactory.Builder(delegate).build()) {
+            RuntimeContext first = factory.newRuntimeContext(FIRST).get();
+            RuntimeContext second = factory.newRuntimeContext(new ArrayList<>(FIRST)).get();
+            Assert.assertNotSame(first, second);
+            Assert.assertEquals(delegate.runtimeContexts.size(), 1);
+
+            first.close();
+            first.close();
+            second.close();
+            Assert.assertEquals(delegate.runtimeContexts.get(0).closeCount, 0);
+
+            factory.newRuntimeContext(FIRST).get().close();
+            Assert.assertEquals(delegate.runtimeContexts.size(), 1);
+            Assert.assertEquals(factory.size(), 1);
+        }
+        Assert.assertEquals(delegate.runtimeContexts.get(0).closeCount, 1);
+    }
+
+    @Test
+    public void testMaximumSize() throws Exception {
+        CountingRuntimeContextFactory delegate = new CountingRuntimeContextFactory();
+        try (
+            CachingRuntimeContextFactory factory = new CachingRuntimeContextFactory.Builder(delegate)
+                .setMaximumSize(1)
+                .build()
+        ) {
+            RuntimeContext first = factory.newRuntimeContext(FIRST).get();
+            RuntimeContext second = factory.newRuntimeContext(SECOND).get();
+            // Runtime contexts in use are never evicted.
+            Assert.assertEquals(factory.size(), 2);
+
+            first.close();
+            Assert.assertEquals(factory.size(), 1);
+            Assert.assertEquals(delegate.runtimeContexts.get(0).closeCount, 1);
+
+            second.close();
+            Assert.assertEquals(factory.size(), 1);
+            Assert.assertEquals(delegate.runtimeContexts.get(1).closeCount, 0);
+        }
+        Assert.assertEquals(delegate.runtimeContexts.get(1).closeCount, 1);
+    }
+
+    @Test
+    public void testIdleTimeout() throws Exception {
+        CountingRuntimeContextFactory delegate = new CountingRuntimeContextFactory();
+        try (
+            CachingRuntimeContextFactory factory = new CachingRuntimeContextFactory.Builder(delegate)
+                .setIdleTimeout(0, TimeUnit.MILLISECONDS)
+                .build()
+        ) {
+            factory.newRuntimeContext(FIRST).get().close();
+            Assert.assertEquals(factory.size(), 0);
+            Assert.assertEquals(delegate.runtimeContexts.get(0).closeCount, 1);
+        }
+    }
+
+    @Test
+    public void testCloseWhileInUse() throws Exception {
+        CountingRuntimeContextFactory delegate = new CountingRuntimeContextFactory();
+        CachingRuntimeContextFactory factory = new CachingRuntimeContextFactory.Builder(delegate).build();
+        RuntimeContext runtimeContext = factory.newRuntimeContext(FIRST).get();
+        factory.close();
+        Assert.assertEquals(delegate.runtimeContexts.get(0).closeCount, 0);
+        runtimeContext.close();
+        Assert.assertEquals(delegate.runtimeContexts.get(0).closeCount, 1);
+
+        try {
+            factory.newRuntimeContext(FIRST);
+            Assert.fail("Expected exception.");
+        } catch (IllegalStateException ignored) { }
+    }
+
+    @Test
+    public void testFailureNotCached() throws Exception {
+        CountingRuntimeContextFactory delegate = new CountingRuntimeContextFactory();
+        try (CachingRuntimeContextFactory factory = new CachingRuntimeContextFactory.Builder(delegate).build()) {
+            delegate.fail = true;
+            try {
+                factory.newRuntimeContext(FIRST).get();
+                Assert.fail("Expected exception.");
+            } catch (ExecutionException exception) {
+                Assert.assertTrue(exception.getCause() instanceof IllegalStateException);
+            }
+            Assert.assertEquals(factory.size(), 0);
+
+            delegate.fail = false;
+            factory.newRuntimeContext(FIRST).get().close();
+            Assert.assertEquals(delegate.runtimeContexts.size(), 1);
+        }
+    }
+
+    @Test
+    public void testCancelBeforeCompletion() throws Exception {
+        CountingRuntimeContextFactory delegate = new CountingRuntimeContextFactory();
+        try (CachingRuntimeContextFactory factory = new CachingRuntimeContextFactory.Builder(delegate).build()) {
+            delegate.defer = true;
+            CompletableFuture<RuntimeContext> cancelled = factory.newRuntimeContext(FIRST);
+            CompletableFuture<RuntimeContext> other = factory.newRuntimeContext(FIRST);
+            Assert.assertTrue(cancelled.cancel(true));
+
+            CountingRuntimeContext runtimeContext = new CountingRuntimeContext();
+            delegate.runtimeContexts.add(runtimeContext);
+            delegate.deferredFutures.get(0).complete(runtimeContext);
+            Assert.assertTrue(other.isDone());
+            other.get().close();
+        }
+        // The reference held by the cancelled future must have been released, so the runtime context is idle.
+        Assert.assertEquals(delegate.runtimeContexts.get(0).closeCount, 1);
+    }
+}
@@ -0,0 +1,269 @@
+package xyz.cloudkeeper.simple;
+
+import cloudkeeper.serialization.ByteSequenceMarshaler;
+import cloudkeeper.types.ByteSequence;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.dsl.Module;
+import xyz.cloudkeeper.dsl.ModuleFactory;
+import xyz.cloudkeeper.dsl.SimpleModule;
+import xyz.cloudkeeper.dsl.SimpleModulePlugin;
+import xyz.cloudkeeper.marshaling.MarshalingTreeBuilder;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ByteSequenceNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ObjectNode;
+import xyz.cloudkeeper.model.CloudKeeperMemoization;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.api.RuntimeStateProvider;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutor;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
+import xyz.cloudkeeper.model.api.staging.StagingArea;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+import xyz.cloudkeeper.model.immutable.element.Name;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+import xyz.cloudkeeper.model.util.ByteSequences;
+import xyz.cloudkeeper.staging.MapStagingArea;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoizingSimpleModuleExecutorTest {
+    private static final long AWAIT_DURATION_MILLIS = 5000;
+    private static final ExecutionTrace NUM = ExecutionTrace.empty().resolveInPort(SimpleName.identifier("num"));
+    private static final ExecutionTrace SQUARE = ExecutionTrace.empty().resolveOutPort(SimpleName.identifier("square"));
+
+    @Nullable private ExecutorService executorService;
+    @Nullable private Path tempDir;
+    @Nullable private SimpleModuleExecutor localExecutor;
+
+    @BeforeClass
+    public void setup() throws IOException {
+        executorService = Executors.newFixedThreadPool(2);
+        tempDir = Files.createTempDirectory(getClass().getSimpleName());
+        localExecutor = new LocalSimpleModuleExecutor.Builder(
+                executorService, new PrefetchingModuleConnectorProvider(tempDir))
+            .build();
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        assert executorService != null && tempDir != null;
+        Files.walkFileTree(tempDir, RecursiveDeleteVisitor.getInstance());
+        executorService.shutdownNow();
+    }
+
+    @CloudKeeperMemoization(version = "1")
+    @SimpleModulePlugin("Squares its input, and counts the number of executions.")
+    public abstract static class MemoizedSquare extends SimpleModule<MemoizedSquare> {
+        private static final AtomicInteger NUM_EXECUTIONS = new AtomicInteger();
+
+        public abstract InPort<Integer> num();
+        public abstract OutPort<Integer> square();
+
+        @Override
+        public void run() {
+            NUM_EXECUTIONS.incrementAndGet();
+            square().set(num().get() * num().get());
+        }
+    }
+
+    @CloudKeeperMemoization(version = "1")
+    @SimpleModulePlugin("Squares its input, and counts the number of executions.")
+    public abstract static class PersistentSquare extends SimpleModule<PersistentSquare> {
+        private static final AtomicInteger NUM_EXECUTIONS = new AtomicInteger();
+
+        public abstract InPort<Integer> num();
+        public abstract OutPort<Integer> square();
+
+        @Override
+        public void run() {
+            NUM_EXECUTIONS.incrementAndGet();
+            square().set(num().get() * num().get());
+        }
+    }
+
+    @CloudKeeperMemoization(version = "1")
+    @SimpleModulePlugin("Squares its input, and counts the number of executions.")
+    public abstract static class UncachedSquare extends SimpleModule<UncachedSquare> {
+        private static final AtomicInteger NUM_EXECUTIONS = new AtomicInteger();
+
+        public abstract InPort<Integer> num();
+        public abstract OutPort<Integer> square();
+
+        @Override
+        public void run() {
+            NUM_EXECUTIONS.incrementAndGet();
+            square().set(num().get() * num().get());
+        }
+    }
+
+    @SimpleModulePlugin("Squares its input, and counts the number of executions.")
+    public abstract static class Square extends SimpleModule<Square> {
+        private static final AtomicInteger NUM_EXECUTIONS = new AtomicInteger();
+
+        public abstract InPort<Integer> num();
+        public abstract OutPort<Integer> square();
+
+        @Override
+        public void run() {
+            NUM_EXECUTIONS.incrementAndGet();
+            square().set(num().get() * num().get());
+        }
+    }
+
+    /**
+     * Executes the given module with the given input in a new staging area, and verifies the output.
+     */
+    private static <T extends Module<T>> SimpleModuleExecutorResult execute(SimpleModuleExecutor executor,
+            RuntimeContext runtimeContext, Class<T> moduleClass, int num) throws Exception {
+        RuntimeAnnotatedExecutionTrace rootTrace = runtimeContext.newAnnotatedExecutionTrace(
+            ExecutionTrace.empty(), ModuleFactory.getDefault().create(moduleClass), Collections.emptyList());
+        StagingArea stagingArea = new MapStagingArea(runtimeContext, rootTrace);
+        stagingArea.putObject(NUM, num).get(AWAIT_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+
+        SimpleModuleExecutorResult result = executor.submit(RuntimeStateProvider.of(runtimeContext, stagingArea))
+            .get(AWAIT_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+        Assert.assertNull(result.getExecutionException());
+        Assert.assertEquals(stagingArea.getObject(SQUARE).get(AWAIT_DURATION_MILLIS, TimeUnit.MILLISECONDS), num * num);
+        return result;
+    }
+
+    private RuntimeContext newRuntimeContext(Class<? extends Module<?>> moduleClass) throws Exception {
+        assert executorService != null;
+        return new DSLRuntimeContextFactory.Builder(executorService).build()
+            .newRuntimeContext(Collections.singletonList(new URI(Module.URI_SCHEME, moduleClass.getName(), null)))
+            .get(AWAIT_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void memoizedResults() throws Exception {
+        assert executorService != null && localExecutor != null;
+        MemoizingSimpleModuleExecutor executor
+            = new MemoizingSimpleModuleExecutor.Builder(executorService, localExecutor).build();
+        Name memoizingExecutorName = Name.qualifiedName(MemoizingSimpleModuleExecutor.class.getName());
+
+        try (RuntimeContext runtimeContext = newRuntimeContext(MemoizedSquare.class)) {
+            SimpleModuleExecutorResult result = execute(executor, runtimeContext, MemoizedSquare.class, 3);
+            Assert.assertEquals(MemoizedSquare.NUM_EXECUTIONS.get(), 1);
+            Assert.assertNotEquals(result.getExecutorName(), memoizingExecutorName);
+
+            // Equal in-port value, but different staging area: The memoized result is reused.
+            result = execute(executor, runtimeContext, MemoizedSquare.class, 3);
+            Assert.assertEquals(MemoizedSquare.NUM_EXECUTIONS.get(), 1);
+            Assert.assertEquals(result.getExecutorName(), memoizingExecutorName);
+            Assert.assertNotNull(result.getProperty(
+                String.class, memoizingExecutorName, MemoizingSimpleModuleExecutor.MEMOIZATION_KEY));
+
+            // Different in-port value: The module is executed again.
+            execute(executor, runtimeContext, MemoizedSquare.class, 4);
+            Assert.assertEquals(MemoizedSquare.NUM_EXECUTIONS.get(), 2);
+        }
+    }
+
+    @Test
+    public void withoutAnnotation() throws Exception {
+        assert executorService != null && localExecutor != null;
+        MemoizingSimpleModuleExecutor executor
+            = new MemoizingSimpleModuleExecutor.Builder(executorService, localExecutor).build();
+
+        try (RuntimeContext runtimeContext = newRuntimeContext(Square.class)) {
+            execute(executor, runtimeContext, Square.class, 3);
+            execute(executor, runtimeContext, Square.class, 3);
+            Assert.assertEquals(Square.NUM_EXECUTIONS.get(), 2);
+        }
+    }
+
+    @Test
+    public void persistentResults() throws Exception {
+        assert executorService != null && localExecutor != null && tempDir != null;
+        Path resultDirectory = tempDir.resolve("results");
+        Name memoizingExecutorName = Name.qualifiedName(MemoizingSimpleModuleExecutor.class.getName());
+
+        try (RuntimeContext runtimeContext = newRuntimeContext(PersistentSquare.class)) {
+            MemoizingSimpleModuleExecutor executor = new MemoizingSimpleModuleExecutor.Builder(executorService,
+                    localExecutor)
+                .setResultStore(new FileMemoizedResultStore(resultDirectory, executorService))
+                .build();
+            execute(executor, runtimeContext, PersistentSquare.class, 3);
+            Assert.assertEquals(PersistentSquare.NUM_EXECUTIONS.get(), 1);
+        }
+
+        // New store and new runtime context (as in a different JVM): The persisted result is reused.
+        try (RuntimeContext runtimeContext = newRuntimeContext(PersistentSquare.class)) {
+            MemoizingSimpleModuleExecutor executor = new MemoizingSimpleModuleExecutor.Builder(executorService,
+                    localExecutor)
+                .setResultStore(new FileMemoizedResultStore(resultDirectory, executorService))
+                .build();
+            SimpleModuleExecutorResult result = execute(executor, runtimeContext, PersistentSquare.class, 3);
+            Assert.assertEquals(PersistentSquare.NUM_EXECUTIONS.get(), 1);
+            Assert.assertEquals(result.getExecutorName(), memoizingExecutorName);
+        }
+    }
+
+    @Test
+    public void resultLargerThanStore() throws Exception {
+        assert executorService != null && localExecutor != null;
+        InMemoryMemoizedResultStore resultStore = new InMemoryMemoizedResultStore(1);
+        MemoizingSimpleModuleExecutor executor = new MemoizingSimpleModuleExecutor.Builder(executorService,
+                localExecutor)
+            .setResultStore(resultStore)
+            .build();
+
+        try (RuntimeContext runtimeContext = newRuntimeContext(UncachedSquare.class)) {
+            execute(executor, runtimeContext, UncachedSquare.class, 3);
+            execute(executor, runtimeContext, UncachedSquare.class, 3);
+            Assert.assertEquals(UncachedSquare.NUM_EXECUTIONS.get(), 2);
+            Assert.assertEquals(resultStore.size(), 0);
+        }
+    }
+
+    /**
+     * Verifies that the in-memory store copies byte sequences backed by external storage (such as a staging area),
+     * so that stored results remain readable after the storage has been cleaned up.
+     */
+    @Test
+    public void inMemoryStoreCopiesByteSequences() throws Exception {
+        assert tempDir != null;
+        byte[] content = new byte[100];
+        Arrays.fill(content, (byte) 7);
+        Path file = tempDir.resolve("content");
+        Files.write(file, content);
+        ObjectNode tree = MarshalingTreeBuilder.marshal(ByteSequences.fileBacked(file),
+            Collections.singletonList(new ByteSequenceMarshaler()), (path, marshaler, value) -> true);
+        SimpleName outPortName = SimpleName.identifier("out");
+
+        InMemoryMemoizedResultStore resultStore = new InMemoryMemoizedResultStore();
+        resultStore.put("key", Collections.singletonMap(outPortName, tree)).get();
+        Files.delete(file);
+
+        Optional<Map<SimpleName, ObjectNode>> result;
+        try (RuntimeContext runtimeContext = newRuntimeContext(Square.class)) {
+            result = resultStore.get("key", runtimeContext).get();
+        }
+        Assert.assertTrue(result.isPresent());
+        int numByteSequences = 0;
+        for (MarshalingTreeNode child: ((MarshaledObjectNode) result.get().get(outPortName)).getChildren().values()) {
+            ByteSequence byteSequence = ((ByteSequenceNode) child).getByteSequence();
+            Assert.assertTrue(byteSequence.isSelfContained());
+            ++numByteSequences;
+        }
+        Assert.assertEquals(numByteSequences, 2);
+        Assert.assertTrue(resultStore.size() > content.length);
+    }
+}
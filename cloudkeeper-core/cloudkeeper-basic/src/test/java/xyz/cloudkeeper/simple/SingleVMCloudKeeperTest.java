@@ -7,6 +7,8 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import scala.concurrent.Await;
 import scala.concurrent.duration.Duration;
+import xyz.cloudkeeper.dsl.CompositeModule;
+import xyz.cloudkeeper.dsl.CompositeModulePlugin;
 import xyz.cloudkeeper.dsl.ModuleFactory;
 import xyz.cloudkeeper.examples.modules.BinarySum;
 import xyz.cloudkeeper.examples.modules.Fibonacci;
@@ -26,6 +28,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 
@@ -98,6 +101,25 @@ public class SingleVMCloudKeeperTest {
         workflowExecution.toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
     }
 
+    @Test
+    public void testPipelinedFibonacci() throws Exception {
+        CloudKeeperEnvironment cloudKeeperEnvironment = cloudKeeper.newCloudKeeperEnvironmentBuilder()
+            .setCleaningRequested(true)
+            .setLoopPipelining(true)
+            .build();
+        Fibonacci fibonacciModule = ModuleFactory.getDefault().create(Fibonacci.class)
+            .n().fromValue(10);
+        WorkflowExecution workflowExecution = fibonacciModule
+            .newPreconfiguredWorkflowExecutionBuilder(cloudKeeperEnvironment)
+            .setBundleIdentifiers(Collections.singletonList(SimpleRepository.BUNDLE_ID))
+            .start();
+        int result = WorkflowExecutions.getOutputValue(
+            workflowExecution, fibonacciModule.result(), WAIT_SECONDS, TimeUnit.SECONDS);
+        Assert.assertEquals(result, 55);
+
+        workflowExecution.toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
     @Test
     public void testProxyFibonacci() throws Exception {
         CloudKeeperEnvironment cloudKeeperEnvironment = cloudKeeper.newCloudKeeperEnvironmentBuilder()
@@ -134,6 +156,37 @@ public class SingleVMCloudKeeperTest {
         workflowExecution.toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
     }
 
+    @CompositeModulePlugin("Adds a constant to all elements of a collection.")
+    public abstract static class AddToAll extends CompositeModule<AddToAll> {
+        public abstract InPort<Collection<Integer>> numbers();
+        public abstract InPort<Integer> summand();
+        public abstract OutPort<Collection<Integer>> sums();
+
+        private final BinarySum sum = child(BinarySum.class).from(forEach(numbers()), summand());
+
+        { sums().from(arrayOf(sum.sum())); }
+    }
+
+    @Test
+    public void testApplyToAll() throws Exception {
+        CloudKeeperEnvironment cloudKeeperEnvironment = cloudKeeper.newCloudKeeperEnvironmentBuilder()
+            .setCleaningRequested(true)
+            .setMaxConcurrentElements(2)
+            .build();
+        AddToAll addToAllModule = ModuleFactory.getDefault().create(AddToAll.class)
+            .numbers().fromValue(Arrays.asList(1, 2, 3, 4, 5))
+            .summand().fromValue(10);
+        WorkflowExecution workflowExecution = addToAllModule
+            .newPreconfiguredWorkflowExecutionBuilder(cloudKeeperEnvironment)
+            .setBundleIdentifiers(Collections.singletonList(SimpleRepository.BUNDLE_ID))
+            .start();
+        Collection<Integer> result = WorkflowExecutions.getOutputValue(
+            workflowExecution, addToAllModule.sums(), WAIT_SECONDS, TimeUnit.SECONDS);
+        Assert.assertEquals(result, Arrays.asList(11, 12, 13, 14, 15));
+
+        workflowExecution.toCompletableFuture().get(WAIT_SECONDS, TimeUnit.SECONDS);
+    }
+
     private static int binomial(int n, int k) {
         // Crappy algorithm to compute binomial coefficients. OK for our purpose, where inputs are small.
         long result = 1;
@@ -0,0 +1,531 @@
+package xyz.cloudkeeper.interpreter;
+
+import akka.actor.ActorRef;
+import akka.actor.PoisonPill;
+import akka.actor.Terminated;
+import akka.actor.UntypedActor;
+import akka.event.Logging;
+import akka.event.LoggingAdapter;
+import akka.japi.Creator;
+import net.florianschoppmann.java.futures.Futures;
+import xyz.cloudkeeper.model.api.staging.StagingArea;
+import xyz.cloudkeeper.model.immutable.element.Index;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.element.module.RuntimeConnection;
+import xyz.cloudkeeper.model.runtime.element.module.RuntimeInPort;
+import xyz.cloudkeeper.model.runtime.element.module.RuntimeModule;
+import xyz.cloudkeeper.model.runtime.element.module.RuntimeOutPort;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Interpreter of apply-to-all modules.
+ *
+ * <p>An apply-to-all module receives a collection on its apply-to-all in-port (see
+ * {@link RuntimeModule#getApplyToAllConnection()}), and the module is applied to each element of this collection. This
+ * actor scatters the elements into individual child executions, each of which has the execution trace
+ * {@code <module>/<index>} (relative to the staging area of this actor). Values for all other required in-ports are
+ * copied into each child execution. At most {@link InterpreterProperties#getMaxConcurrentElements()} child executions
+ * are in flight at any time. Once all child executions have finished, the per-element out-port values are gathered
+ * into lists that are then written to the out-ports of the apply-to-all module. The combine-into-array connections
+ * leaving the apply-to-all module then simply transmit these lists.
+ *
+ * <p>If this actor is started without any recomputed in-ports, it assumes that interpretation is resumed. In this
+ * case, elements for which the staging area already contains values for all requested out-ports are not recomputed.
+ */
+final class ApplyToAllInterpreterActor extends AbstractModuleInterpreterActor {
+    private final LoggingAdapter log = Logging.getLogger(getContext().system(), (UntypedActor) this);
+
+    private final RuntimeModule module;
+    private final LocalInterpreterProperties interpreterProperties;
+    private final StagingArea stagingArea;
+    private final InterpreterPropsProvider interpreterPropsProvider;
+
+    /**
+     * Set of all in-ports for that this actor will receive a {@link InterpreterInterface.InPortHasSignal} message.
+     *
+     * <p>This set is never modified.
+     */
+    private final BitSet recomputedInPorts;
+
+    /**
+     * Set of all out-ports for that a {@link InterpreterInterface.SubmoduleOutPortHasSignal} needs to be sent.
+     *
+     * <p>This set is never modified.
+     */
+    private final BitSet requestedOutPorts;
+
+    /**
+     * Index of the apply-to-all in-port in the list returned by {@link RuntimeModule#getInPorts()}.
+     */
+    private final int applyToAllInPortId;
+
+    /**
+     * Set of all in-ports that need to have a value so that the per-element child executions can be started.
+     *
+     * <p>This set always contains the apply-to-all in-port. It is never modified.
+     */
+    private final BitSet requiredInPorts;
+
+    /**
+     * Set of all in-ports that still require to receive a value.
+     *
+     * <p>This set is modified whenever an in-port receives a value.
+     */
+    private final BitSet inPortsRequiringValue;
+
+    /**
+     * Maximum number of elements that are processed concurrently.
+     */
+    private final int maxConcurrentElements;
+
+    /**
+     * Elements of the collection at the apply-to-all in-port.
+     *
+     * <p>This field is set once when entering state {@link State#RUNNING}.
+     */
+    @Nullable private List<?> elements = null;
+
+    /**
+     * Index of the next element that has not yet been scattered.
+     */
+    private int nextElement = 0;
+
+    /**
+     * Number of elements that have been scattered, but which have not finished yet.
+     */
+    private int elementsInFlight = 0;
+
+    /**
+     * Number of elements that have finished.
+     */
+    private int finishedElements = 0;
+
+    /**
+     * Map from child actors to the index of the element they are interpreting.
+     */
+    private final Map<ActorRef, Index> elementActors = new HashMap<>();
+
+    private enum State {
+        /**
+         * Waiting for values of all required in-ports. No child interpreter has been started yet.
+         */
+        WAITING_FOR_INPUTS,
+
+        /**
+         * Elements are being scattered into child executions.
+         */
+        RUNNING,
+
+        /**
+         * All child executions have finished and their outputs are being gathered.
+         */
+        GATHERING,
+
+        /**
+         * Produced all outputs and notified parent executor about it.
+         *
+         * <p>This means this actor is ready to terminate itself, and no failure occurred.
+         */
+        DONE
+    }
+    private State state = State.WAITING_FOR_INPUTS;
+
+    /**
+     * Factory for creating an apply-to-all-module interpreter.
+     *
+     * <p>This class is not meant to be serialized because actor creators for apply-to-all-module interpreters will
+     * only be used within the same JVM. Any attempt to serialize a factory will cause a
+     * {@link NotSerializableException}.
+     */
+    static final class Factory implements Creator<UntypedActor> {
+        private static final long serialVersionUID = 4107350279214627418L;
+
+        private final RuntimeModule module;
+        private final LocalInterpreterProperties interpreterProperties;
+        private final StagingArea stagingArea;
+        private final InterpreterPropsProvider interpreterPropsProvider;
+        private final int moduleId;
+        private final BitSet recomputedInPorts;
+        private final BitSet requestedOutPorts;
+
+        Factory(LocalInterpreterProperties interpreterProperties, StagingArea stagingArea,
+                InterpreterPropsProvider interpreterPropsProvider, int moduleId,
+                BitSet recomputedInPorts, BitSet requestedOutPorts) {
+            Objects.requireNonNull(interpreterProperties);
+            Objects.requireNonNull(stagingArea);
+            Objects.requireNonNull(interpreterPropsProvider);
+            Objects.requireNonNull(recomputedInPorts);
+            Objects.requireNonNull(requestedOutPorts);
+
+            this.interpreterProperties = interpreterProperties;
+            this.stagingArea = stagingArea;
+            module = stagingArea.getAnnotatedExecutionTrace().getModule();
+            if (module.getApplyToAllConnection() == null) {
+                throw new IllegalArgumentException(String.format("Expected apply-to-all module, but got %s.", module));
+            }
+            this.interpreterPropsProvider = interpreterPropsProvider;
+            this.moduleId = moduleId;
+            this.recomputedInPorts = (BitSet) recomputedInPorts.clone();
+            this.requestedOutPorts = (BitSet) requestedOutPorts.clone();
+        }
+
+        private void readObject(ObjectInputStream stream) throws IOException {
+            throw new NotSerializableException(getClass().getName());
+        }
+
+        private void writeObject(ObjectOutputStream stream) throws IOException {
+            throw new NotSerializableException(getClass().getName());
+        }
+
+        @Override
+        public UntypedActor create() {
+            return new ApplyToAllInterpreterActor(this);
+        }
+    }
+
+    ApplyToAllInterpreterActor(Factory factory) {
+        super(factory.interpreterProperties, factory.stagingArea.getAnnotatedExecutionTrace(), factory.moduleId);
+
+        module = factory.module;
+        stagingArea = factory.stagingArea;
+        interpreterProperties = factory.interpreterProperties;
+        interpreterPropsProvider = factory.interpreterPropsProvider;
+        recomputedInPorts = factory.recomputedInPorts;
+        requestedOutPorts = factory.requestedOutPorts;
+        maxConcurrentElements = interpreterProperties.getMaxConcurrentElements();
+
+        @Nullable RuntimeConnection applyToAllConnection = module.getApplyToAllConnection();
+        assert applyToAllConnection != null : "verified by factory";
+        applyToAllInPortId = ((RuntimeInPort) applyToAllConnection.getToPort()).getInIndex();
+
+        List<? extends RuntimeOutPort> outPorts = module.getOutPorts();
+        requiredInPorts = new BitSet(module.getInPorts().size());
+        requiredInPorts.set(applyToAllInPortId);
+        for (
+            int outPortId = requestedOutPorts.nextSetBit(0);
+            outPortId >= 0;
+            outPortId = requestedOutPorts.nextSetBit(outPortId + 1)
+        ) {
+            for (RuntimeInPort inPort: outPorts.get(outPortId).getInPortDependencies()) {
+                requiredInPorts.set(inPort.getInIndex());
+            }
+        }
+
+        inPortsRequiringValue = (BitSet) requiredInPorts.clone();
+        inPortsRequiringValue.and(recomputedInPorts);
+    }
+
+    @Override
+    void onEmptySetOfAsynchronousActions() { }
+
+    @Override
+    public void preStart() {
+        assert state == State.WAITING_FOR_INPUTS;
+
+        publishStartModule();
+        if (inPortsRequiringValue.isEmpty()) {
+            retrieveElements();
+        }
+    }
+
+    @Override
+    public void postStop() {
+        publishStopModule(state == State.DONE);
+    }
+
+    @Override
+    void inPortHasSignal(int inPortId) {
+        if (state == State.WAITING_FOR_INPUTS && inPortsRequiringValue.get(inPortId)) {
+            inPortsRequiringValue.set(inPortId, false);
+            if (inPortsRequiringValue.isEmpty()) {
+                retrieveElements();
+            }
+        } else {
+            log.warning(String.format(
+                "Ignoring message that %s received value while in state %s.",
+                module.getInPorts().get(inPortId), state
+            ));
+        }
+    }
+
+    /**
+     * Starts retrieving the collection at the apply-to-all in-port.
+     *
+     * <p>The asynchronous action started by this method is finished by {@link #scatter(List)}.
+     */
+    private void retrieveElements() {
+        assert state == State.WAITING_FOR_INPUTS;
+
+        state = State.RUNNING;
+        SimpleName inPortName = module.getInPorts().get(applyToAllInPortId).getSimpleName();
+        CompletableFuture<Object> messageFuture = stagingArea
+            .getObject(ExecutionTrace.empty().resolveInPort(inPortName))
+            .thenApply(collection -> new ReceivedElements(new ArrayList<>((Collection<?>) collection)));
+        pipeResultToSelf(messageFuture, "retrieving elements of apply-to-all in-port %s", inPortName);
+    }
+
+    /**
+     * Handles event that the collection at the apply-to-all in-port was retrieved.
+     *
+     * @param newElements elements of the collection at the apply-to-all in-port
+     */
+    private void scatter(List<?> newElements) {
+        assert state == State.RUNNING && elements == null;
+
+        elements = newElements;
+        if (elements.isEmpty()) {
+            gather();
+        } else {
+            scatterNextElements();
+        }
+    }
+
+    /**
+     * Starts preparing child executions for as many elements as the concurrency limit permits.
+     */
+    private void scatterNextElements() {
+        assert state == State.RUNNING && elements != null;
+
+        while (elementsInFlight < maxConcurrentElements && nextElement < elements.size()) {
+            prepareElement(Index.index(nextElement));
+            ++nextElement;
+            ++elementsInFlight;
+        }
+    }
+
+    private static ExecutionTrace elementTrace(Index element) {
+        return ExecutionTrace.empty().resolveContent().resolveIteration(element);
+    }
+
+    /**
+     * Starts preparing the child execution for the given element.
+     *
+     * <p>If interpretation is resumed and the staging area already contains values for all requested out-ports of the
+     * given element, the element is not recomputed. Otherwise, the element value and the values of all other required
+     * in-ports are written to the execution trace of the element. The asynchronous action started by this method is
+     * finished by {@link #elementStatus(Index, boolean)}.
+     *
+     * @param element index of the element
+     */
+    private void prepareElement(Index element) {
+        assert elements != null;
+
+        CompletableFuture<Boolean> hasOutputsFuture;
+        if (recomputedInPorts.isEmpty()) {
+            List<? extends RuntimeOutPort> outPorts = module.getOutPorts();
+            List<CompletableFuture<Boolean>> existsFutures = new ArrayList<>(requestedOutPorts.cardinality());
+            for (
+                int outPortId = requestedOutPorts.nextSetBit(0);
+                outPortId >= 0;
+                outPortId = requestedOutPorts.nextSetBit(outPortId + 1)
+            ) {
+                existsFutures.add(stagingArea.exists(
+                    elementTrace(element).resolveOutPort(outPorts.get(outPortId).getSimpleName())
+                ));
+            }
+            hasOutputsFuture = Futures.collect(existsFutures)
+                .thenApply(existsList -> !existsList.contains(false));
+        } else {
+            hasOutputsFuture = CompletableFuture.completedFuture(false);
+        }
+
+        Object elementValue = elements.get(element.intValue());
+        CompletableFuture<Object> messageFuture = hasOutputsFuture.thenCompose(
+            hasOutputs -> hasOutputs
+                ? CompletableFuture.completedFuture(new ElementStatus(element, true))
+                : copyInputsForElement(element, elementValue).thenApply(ignored -> new ElementStatus(element, false))
+        );
+        pipeResultToSelf(messageFuture, "preparing element %s", element);
+    }
+
+    private CompletableFuture<Void> copyInputsForElement(Index element, Object elementValue) {
+        List<? extends RuntimeInPort> inPorts = module.getInPorts();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(requiredInPorts.cardinality());
+        for (
+            int inPortId = requiredInPorts.nextSetBit(0);
+            inPortId >= 0;
+            inPortId = requiredInPorts.nextSetBit(inPortId + 1)
+        ) {
+            SimpleName inPortName = inPorts.get(inPortId).getSimpleName();
+            ExecutionTrace copyTo = elementTrace(element).resolveInPort(inPortName);
+            if (inPortId == applyToAllInPortId) {
+                futures.add(stagingArea.putObject(copyTo, elementValue).thenApply(ignored -> null));
+            } else {
+                futures.add(stagingArea.copy(ExecutionTrace.empty().resolveInPort(inPortName), copyTo));
+            }
+        }
+        return Futures.collect(futures).thenApply(ignored -> null);
+    }
+
+    /**
+     * Handles event that the child execution for the given element has been prepared.
+     *
+     * @param element index of the element
+     * @param hasOutputs whether the staging area already contains values for all requested out-ports of the element
+     */
+    private void elementStatus(Index element, boolean hasOutputs) {
+        assert state == State.RUNNING;
+
+        if (hasOutputs) {
+            elementFinished();
+        } else {
+            startChildExecutor(element);
+        }
+    }
+
+    private void startChildExecutor(Index element) {
+        ActorRef elementActorRef = getContext().actorOf(
+            interpreterPropsProvider.provideInterpreterProps(
+                interpreterProperties,
+                stagingArea.resolveDescendant(elementTrace(element)),
+                0,
+                Collections.nCopies(module.getInPorts().size(), DependencyGraph.HasValue.UNKNOWN),
+                requiredInPorts,
+                requestedOutPorts
+            ),
+            element.toString()
+        );
+        elementActors.put(elementActorRef, element);
+        getContext().watch(elementActorRef);
+
+        for (
+            int inPortId = requiredInPorts.nextSetBit(0);
+            inPortId >= 0;
+            inPortId = requiredInPorts.nextSetBit(inPortId + 1)
+        ) {
+            elementActorRef.tell(new InterpreterInterface.InPortHasSignal(inPortId), getSelf());
+        }
+    }
+
+    /**
+     * Handles event that a child actor terminated.
+     *
+     * @param childActor actor reference of child actor
+     */
+    private void childActorTerminated(ActorRef childActor) {
+        @Nullable Index element = elementActors.remove(childActor);
+        if (element != null) {
+            elementFinished();
+        } else {
+            log.warning(String.format("Ignoring terminated message for unknown child actor %s.", childActor));
+        }
+    }
+
+    private void elementFinished() {
+        assert state == State.RUNNING && elements != null;
+
+        --elementsInFlight;
+        ++finishedElements;
+        if (finishedElements == elements.size()) {
+            gather();
+        } else {
+            scatterNextElements();
+        }
+    }
+
+    /**
+     * Starts gathering the per-element values of all requested out-ports.
+     *
+     * <p>For each requested out-port, this method retrieves the values of all elements, writes the list of values to
+     * the out-port of the apply-to-all module, and notifies the parent actor.
+     */
+    private void gather() {
+        assert state == State.RUNNING && elements != null;
+
+        state = State.GATHERING;
+        int numElements = elements.size();
+        elements = null;
+
+        List<? extends RuntimeOutPort> outPorts = module.getOutPorts();
+        List<CompletableFuture<Void>> outPortFutures = new ArrayList<>(requestedOutPorts.cardinality());
+        ActorRef parent = getContext().parent();
+        for (
+            int outPortId = requestedOutPorts.nextSetBit(0);
+            outPortId >= 0;
+            outPortId = requestedOutPorts.nextSetBit(outPortId + 1)
+        ) {
+            SimpleName outPortName = outPorts.get(outPortId).getSimpleName();
+            List<CompletableFuture<Object>> valueFutures = new ArrayList<>(numElements);
+            for (int i = 0; i < numElements; ++i) {
+                valueFutures.add(stagingArea.getObject(elementTrace(Index.index(i)).resolveOutPort(outPortName)));
+            }
+            ExecutionTrace outPortTrace = ExecutionTrace.empty().resolveOutPort(outPortName);
+            CompletableFuture<Void> outPortFuture = Futures.collect(valueFutures)
+                .thenCompose(values -> stagingArea.putObject(outPortTrace, values))
+                .thenApply(ignored -> null);
+            int finalOutPortId = outPortId;
+            // As in the loop-module interpreter, out-ports are signaled individually as soon as they are available.
+            outPortFuture.thenRun(
+                () -> parent.tell(
+                    new InterpreterInterface.SubmoduleOutPortHasSignal(getModuleId(), finalOutPortId),
+                    getSelf()
+                )
+            );
+            outPortFutures.add(outPortFuture);
+        }
+        CompletableFuture<LocalMessages> messageFuture = Futures.collect(outPortFutures)
+            .thenApply(ignored -> LocalMessages.PREPARE_TO_TERMINATE);
+        pipeResultToSelf(messageFuture, "gathering outputs of %d elements", numElements);
+    }
+
+    private void prepareToTerminate() {
+        state = State.DONE;
+        getSelf().tell(PoisonPill.getInstance(), getSelf());
+    }
+
+    @Override
+    public void onReceive(Object message) throws InterpreterException {
+        if (message instanceof ReceivedElements) {
+            scatter(((ReceivedElements) message).elements);
+        } else if (message instanceof ElementStatus) {
+            ElementStatus arguments = (ElementStatus) message;
+            elementStatus(arguments.element, arguments.hasOutputs);
+        } else if (message instanceof Terminated) {
+            childActorTerminated(((Terminated) message).getActor());
+        } else if (message instanceof InterpreterInterface.SubmoduleOutPortHasSignal) {
+            // Outputs of child executions are only examined once the child actor has terminated.
+            log.debug("Ignoring out-port signal from child actor {}.", getSender());
+        } else if (message == LocalMessages.PREPARE_TO_TERMINATE) {
+            prepareToTerminate();
+        } else {
+            super.onReceive(message);
+        }
+    }
+
+    private static final class ReceivedElements {
+        private final List<?> elements;
+
+        private ReceivedElements(List<?> elements) {
+            this.elements = elements;
+        }
+    }
+
+    private static final class ElementStatus {
+        private final Index element;
+        private final boolean hasOutputs;
+
+        private ElementStatus(Index element, boolean hasOutputs) {
+            this.element = element;
+            this.hasOutputs = hasOutputs;
+        }
+    }
+
+    enum LocalMessages {
+        PREPARE_TO_TERMINATE
+    }
+}
@@ -26,6 +26,11 @@ public final class CloudKeeperEnvironmentBuilder {
      */
     public static final String DEFAULT_INSTANCE_PROVIDER_ACTOR_PATH = "cloudkeeper/instance-provider";
 
+    /**
+     * Default maximum number of elements that the interpreter of an apply-to-all module processes concurrently.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_ELEMENTS = 64;
+
     private final Executor executor;
     private String instanceProviderActorPath = DEFAULT_INSTANCE_PROVIDER_ACTOR_PATH;
     private final InstanceProvider instanceProvider;
@@ -36,6 +41,8 @@ public final class CloudKeeperEnvironmentBuilder {
     private final ActorRef simpleModuleExecutor;
     private boolean cleaningRequested = true;
     private boolean retrieveResults = true;
+    private int maxConcurrentElements = DEFAULT_MAX_CONCURRENT_ELEMENTS;
+    private boolean loopPipelining = false;
 
     /**
      * @see #setRemoteAskTimeout
@@ -136,6 +143,49 @@ public final class CloudKeeperEnvironmentBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of elements that the interpreter of an apply-to-all module processes concurrently.
+     *
+     * <p>An apply-to-all module is interpreted by scattering the elements of its apply-to-all in-port into individual
+     * child executions and, once all of them finished, gathering the per-element out-port values into arrays. This
+     * option bounds the number of child executions that may be in flight at any time, which limits both the load on
+     * the simple-module executor and the number of concurrent staging-area operations.
+     *
+     * <p>By default, this option is set to {@link #DEFAULT_MAX_CONCURRENT_ELEMENTS}.
+     *
+     * @param maxConcurrentElements maximum number of concurrently processed elements, must be positive
+     * @return this builder
+     * @throws IllegalArgumentException if the argument is not positive
+     */
+    public CloudKeeperEnvironmentBuilder setMaxConcurrentElements(int maxConcurrentElements) {
+        if (maxConcurrentElements <= 0) {
+            throw new IllegalArgumentException(String.format(
+                "Expected positive maximum number of concurrent elements, but got %d.", maxConcurrentElements
+            ));
+        }
+        this.maxConcurrentElements = maxConcurrentElements;
+        return this;
+    }
+
+    /**
+     * Sets whether loop iterations should be pipelined.
+     *
+     * <p>If this option is enabled, the interpreter of a loop module starts the next iteration as soon as the value of
+     * the continue-port of the current iteration is known to be {@code true}, even if the current iteration has not
+     * finished yet. Inputs of the next iteration are then copied as soon as they are available, so that submodules of
+     * the next iteration that do not depend on outputs of the current iteration can already run. This reduces the
+     * number of sequential staging-area round-trips per iteration, at the cost of running more modules concurrently.
+     *
+     * <p>By default, this option is set to {@code false}.
+     *
+     * @param loopPipelining whether loop iterations should be pipelined
+     * @return this builder
+     */
+    public CloudKeeperEnvironmentBuilder setLoopPipelining(boolean loopPipelining) {
+        this.loopPipelining = loopPipelining;
+        return this;
+    }
+
     /**
      * Sets the timeout for receiving answers from from potentially remote actors.
      *
@@ -184,6 +234,7 @@ public final class CloudKeeperEnvironmentBuilder {
     public CloudKeeperEnvironment build() {
         return new CloudKeeperEnvironmentImpl(executor, instanceProviderActorPath, instanceProvider,
             interpreterPropsProvider, stagingAreaProvider, administrator, masterInterpreter, simpleModuleExecutor,
-            eventSubscriptions, cleaningRequested, retrieveResults, remoteAskTimeout, localAskTimeout);
+            eventSubscriptions, cleaningRequested, retrieveResults, maxConcurrentElements, loopPipelining,
+            remoteAskTimeout, localAskTimeout);
     }
 }
@@ -24,6 +24,8 @@ final class CloudKeeperEnvironmentImpl implements CloudKeeperEnvironment {
     private final ImmutableList<EventSubscription> eventSubscriptions;
     private final boolean cleaningRequested;
     private final boolean retrieveResults;
+    private final int maxConcurrentElements;
+    private final boolean loopPipelining;
     private final Timeout remoteAskTimeout;
     private final Timeout localAskTimeout;
 
@@ -31,7 +33,8 @@ final class CloudKeeperEnvironmentImpl implements CloudKeeperEnvironment {
             InstanceProvider instanceProvider, InterpreterPropsProvider interpreterPropsProvider,
             StagingAreaProvider stagingAreaProvider, ActorRef administrator, ActorRef masterInterpreter,
             ActorRef executor, ImmutableList<EventSubscription> eventSubscriptions, boolean cleaningRequested,
-            boolean retrieveResults, Timeout remoteAskTimeout, Timeout localAskTimeout) {
+            boolean retrieveResults, int maxConcurrentElements, boolean loopPipelining, Timeout remoteAskTimeout,
+            Timeout localAskTimeout) {
         this.runnableExecutor = Objects.requireNonNull(runnableExecutor);
         this.instanceProviderActorPath = Objects.requireNonNull(instanceProviderActorPath);
         this.instanceProvider = Objects.requireNonNull(instanceProvider);
@@ -43,6 +46,8 @@ final class CloudKeeperEnvironmentImpl implements CloudKeeperEnvironment {
         this.eventSubscriptions = Objects.requireNonNull(eventSubscriptions);
         this.cleaningRequested = cleaningRequested;
         this.retrieveResults = retrieveResults;
+        this.maxConcurrentElements = maxConcurrentElements;
+        this.loopPipelining = loopPipelining;
         this.remoteAskTimeout = Objects.requireNonNull(remoteAskTimeout);
         this.localAskTimeout = Objects.requireNonNull(localAskTimeout);
     }
@@ -91,6 +96,14 @@ final class CloudKeeperEnvironmentImpl implements CloudKeeperEnvironment {
         return retrieveResults;
     }
 
+    int getMaxConcurrentElements() {
+        return maxConcurrentElements;
+    }
+
+    boolean isLoopPipelining() {
+        return loopPipelining;
+    }
+
     Timeout getRemoteAskTimeout() {
         return remoteAskTimeout;
     }
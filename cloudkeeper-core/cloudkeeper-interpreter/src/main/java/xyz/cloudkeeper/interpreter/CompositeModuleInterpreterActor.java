@@ -244,7 +244,7 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
         }
 
         computeResumeState
-            = new ComputeResumeState(dependencyGraph, recomputedInPorts, this::asynchronousHasValueCheck);
+            = new ComputeResumeState(dependencyGraph, recomputedInPorts, this::asynchronousHasValuesCheck);
     }
 
     /**
@@ -359,28 +359,34 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
     }
 
     /**
-     * Callback for {@link ComputeResumeState} in order to determine whether a dependency-graph node has a value or not.
+     * Callback for {@link ComputeResumeState} in order to determine which of the given dependency-graph nodes have a
+     * value.
+     *
+     * <p>All nodes are checked with a single call of {@link StagingArea#checkExistence(List)}, so that the staging
+     * area may answer the query with a bulk operation (such as a single directory listing).
      *
      * <p>This method is guaranteed to be called during processing of a message this actor received (in particular,
      * on the same thread).
      */
-    private void asynchronousHasValueCheck(ValueNode valueNode) {
-        ExecutionTrace executionTrace = valueNode.getExecutionTrace();
-        CompletableFuture<Object> messageFuture = stagingArea.exists(executionTrace)
-            .thenApply(exists -> new FinishedStagingAreaOperation(valueNode, exists));
-        pipeResultToSelf(messageFuture, "checking if staging area contains execution trace '%s'",
-            executionTrace);
+    private void asynchronousHasValuesCheck(List<ValueNode> valueNodes) {
+        List<ExecutionTrace> executionTraces = valueNodes.stream()
+            .map(ValueNode::getExecutionTrace)
+            .collect(Collectors.toList());
+        CompletableFuture<Object> messageFuture = stagingArea.checkExistence(executionTraces)
+            .thenApply(existing -> new FinishedStagingAreaOperation(valueNodes, existing));
+        pipeResultToSelf(messageFuture, "checking which of %d execution traces the staging area contains",
+            executionTraces.size());
     }
 
     /**
-     * Handles event that a future returned by {@link StagingArea#exists(RuntimeExecutionTrace)} (called by
-     * {@link #asynchronousHasValueCheck(ValueNode)}) was completed successfully.
+     * Handles event that a future returned by {@link StagingArea#checkExistence(List)} (called by
+     * {@link #asynchronousHasValuesCheck(List)}) was completed successfully.
      *
-     * @param node node in the dependency graph
-     * @param hasValue whether the node in the dependency graph has a value
+     * @param nodes nodes in the dependency graph
+     * @param hasValues set that contains index {@code i} if and only if {@code nodes.get(i)} has a value
      */
-    private void finishedStagingAreaOperation(ValueNode node, boolean hasValue) {
-        computeResumeState.updateHasValue(node, hasValue);
+    private void finishedStagingAreaOperation(List<ValueNode> nodes, BitSet hasValues) {
+        computeResumeState.updateHasValues(nodes, hasValues);
         startRunningIfQueueEmpty();
     }
 
@@ -498,6 +504,19 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
      * (if the connection is short-circuit or child-out-to-parent-out).
      *
      * <p>The visitor returns a future that will be completed with the target execution trace.
+     *
+     * <p>Where it is safe to do so, values are transmitted with {@link StagingArea#link}, which allows the staging area
+     * to store a reference instead of a physical copy. A link is only valid as long as its source, so this visitor uses
+     * links only if the source is guaranteed to outlive the target:
+     * <ul><li>
+     *     For parent-in-to-child-in and short-circuit connections, the source is an in-port of the current module,
+     *     which is only deleted together with the target.
+     * </li><li>
+     *     For sibling and child-out-to-parent-out connections, the source is an out-port of a submodule, which is
+     *     deleted once it is no longer needed if cleaning is requested (see
+     *     {@link #submoduleOutPortNoLongerNeeded(RuntimeOutPort)}). Links are therefore only used if cleaning is not
+     *     requested.
+     * </li></ul>
      */
     private final class TransmitFromSourcePortVisitor
             implements RuntimeConnectionVisitor<CompletableFuture<Void>, RuntimePort> {
@@ -513,9 +532,12 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
          * <p>For simplicity, however, this method always starts an asynchronous action.
          */
         private CompletableFuture<Void> startCopyAndSendMessage(ExecutionTrace copyFromExecutionTrace,
-                ExecutionTrace copyToExecutionTrace, final Object message, final ActorRef messageTarget) {
-            CompletableFuture<Void> copyFuture = stagingArea
-                .copy(copyFromExecutionTrace, copyToExecutionTrace)
+                ExecutionTrace copyToExecutionTrace, boolean sourceOutlivesTarget, final Object message,
+                final ActorRef messageTarget) {
+            CompletableFuture<Void> transferFuture = sourceOutlivesTarget
+                ? stagingArea.link(copyFromExecutionTrace, copyToExecutionTrace)
+                : stagingArea.copy(copyFromExecutionTrace, copyToExecutionTrace);
+            CompletableFuture<Void> copyFuture = transferFuture
                 .thenApply(ignored -> {
                     messageTarget.tell(message, getSelf());
                     return null;
@@ -526,7 +548,7 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
         }
 
         private CompletableFuture<Void> triggerSubmodule(RuntimeConnection connection,
-                ExecutionTrace copyFromExecutionTrace) {
+                ExecutionTrace copyFromExecutionTrace, boolean sourceOutlivesTarget) {
             RuntimeInPort toPort = (RuntimeInPort) connection.getToPort();
             RuntimeModule toModule = toPort.getModule();
 
@@ -535,7 +557,8 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
             Object message = new InPortHasSignal(toPort.getInIndex());
             ActorRef messageTarget = getChildExecutor(toModule);
 
-            return startCopyAndSendMessage(copyFromExecutionTrace, copyToExecutionTrace, message, messageTarget);
+            return startCopyAndSendMessage(copyFromExecutionTrace, copyToExecutionTrace, sourceOutlivesTarget, message,
+                messageTarget);
         }
 
         @Override
@@ -545,7 +568,8 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
             return triggerSubmodule(
                 connection,
                 ExecutionTrace.empty().resolveContent()
-                    .resolveModule(fromPort.getModule().getSimpleName()).resolveOutPort(fromPort.getSimpleName())
+                    .resolveModule(fromPort.getModule().getSimpleName()).resolveOutPort(fromPort.getSimpleName()),
+                !getInterpreterProperties().isCleaningRequested()
             );
         }
 
@@ -553,18 +577,19 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
         public CompletableFuture<Void> visitParentInToChildInConnection(
                 RuntimeParentInToChildInConnection connection, @Nullable RuntimePort fromPort) {
             assert fromPort != null;
-            return triggerSubmodule(connection, ExecutionTrace.empty().resolveInPort(fromPort.getSimpleName()));
+            return triggerSubmodule(connection, ExecutionTrace.empty().resolveInPort(fromPort.getSimpleName()), true);
         }
 
         private CompletableFuture<Void> triggerSelf(RuntimeConnection connection,
-                ExecutionTrace copyFromExecutionTrace) {
+                ExecutionTrace copyFromExecutionTrace, boolean sourceOutlivesTarget) {
             RuntimeOutPort toPort = (RuntimeOutPort) connection.getToPort();
             ExecutionTrace copyToExecutionTrace = ExecutionTrace.empty().resolveOutPort(toPort.getSimpleName());
 
             Object message = new OutPortHasSignal(toPort.getOutIndex());
             ActorRef messageTarget = getSelf();
 
-            return startCopyAndSendMessage(copyFromExecutionTrace, copyToExecutionTrace, message, messageTarget);
+            return startCopyAndSendMessage(copyFromExecutionTrace, copyToExecutionTrace, sourceOutlivesTarget, message,
+                messageTarget);
         }
 
         @Override
@@ -574,7 +599,8 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
             return triggerSelf(
                 connection,
                 ExecutionTrace.empty().resolveContent()
-                    .resolveModule(fromPort.getModule().getSimpleName()).resolveOutPort(fromPort.getSimpleName())
+                    .resolveModule(fromPort.getModule().getSimpleName()).resolveOutPort(fromPort.getSimpleName()),
+                !getInterpreterProperties().isCleaningRequested()
             );
         }
 
@@ -582,7 +608,7 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
         public CompletableFuture<Void> visitShortCircuitConnection(RuntimeShortCircuitConnection connection,
                 @Nullable RuntimePort fromPort) {
             assert fromPort != null;
-            return triggerSelf(connection, ExecutionTrace.empty().resolveInPort(fromPort.getSimpleName()));
+            return triggerSelf(connection, ExecutionTrace.empty().resolveInPort(fromPort.getSimpleName()), true);
         }
     }
 
@@ -761,7 +787,7 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
     public void onReceive(Object message) throws InterpreterException {
         if (message instanceof FinishedStagingAreaOperation) {
             FinishedStagingAreaOperation arguments = (FinishedStagingAreaOperation) message;
-            finishedStagingAreaOperation(arguments.node, arguments.hasValue);
+            finishedStagingAreaOperation(arguments.nodes, arguments.hasValues);
         } else if (message instanceof OutPortHasSignal) {
             outportCarriesSignal(((OutPortHasSignal) message).outPortId);
         } else if (message instanceof SubmoduleOutPortHasSignal) {
@@ -777,12 +803,12 @@ final class CompositeModuleInterpreterActor extends AbstractModuleInterpreterAct
     }
 
     private static final class FinishedStagingAreaOperation {
-        private final ValueNode node;
-        private final boolean hasValue;
+        private final List<ValueNode> nodes;
+        private final BitSet hasValues;
 
-        private FinishedStagingAreaOperation(ValueNode node, boolean hasValue) {
-            this.node = node;
-            this.hasValue = hasValue;
+        private FinishedStagingAreaOperation(List<ValueNode> nodes, BitSet hasValues) {
+            this.nodes = nodes;
+            this.hasValues = hasValues;
         }
     }
 
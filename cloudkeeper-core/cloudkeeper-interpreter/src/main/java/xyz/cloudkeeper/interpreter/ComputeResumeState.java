@@ -53,13 +53,13 @@ final class ComputeResumeState {
     private final Deque<DependencyGraphNode> recomputeQueue = new ArrayDeque<>();
 
     /**
-     * Operation that is triggered in order to check was a {@link ValueNode} has a value.
+     * Operation that is triggered in order to check which of a list of {@link ValueNode} instances have a value.
      *
-     * <p>It is expected that after invoking the operation, {@link #updateHasValue(ValueNode, boolean)}
-     * will be eventually be called for that {@link ValueNode}. It is guaranteed that {@link ValueNode#getHasValue()} is
-     * {@link HasValue#PENDING_VALUE_CHECK} at the time the operation is called.
+     * <p>It is expected that after invoking the operation, {@link #updateHasValues(List, BitSet)} will eventually be
+     * called with the same list. It is guaranteed that {@link ValueNode#getHasValue()} is
+     * {@link HasValue#PENDING_VALUE_CHECK} for each list element at the time the operation is called.
      */
-    private final Consumer<ValueNode> checkHasValue;
+    private final Consumer<List<ValueNode>> checkHasValues;
 
     /**
      * Array of sets, one for each submodule, containing the indices of all out-ports that need to be computed.
@@ -72,10 +72,11 @@ final class ComputeResumeState {
     private int numAsynchronousCalls = 0;
 
 
-    ComputeResumeState(DependencyGraph dependencyGraph, BitSet recomputedInPorts, Consumer<ValueNode> checkHasValue) {
+    ComputeResumeState(DependencyGraph dependencyGraph, BitSet recomputedInPorts,
+            Consumer<List<ValueNode>> checkHasValues) {
         this.dependencyGraph = dependencyGraph;
         this.recomputedInPorts = (BitSet) recomputedInPorts.clone();
-        this.checkHasValue = checkHasValue;
+        this.checkHasValues = checkHasValues;
 
         recomputedInPorts.stream()
             .mapToObj(id -> dependencyGraph.inPortNodes().get(id))
@@ -161,18 +162,29 @@ final class ComputeResumeState {
      *
      * <p>If {@code node} is a {@link ValueNode} and {@link ValueNode#getHasValue()} returns {@link HasValue#UNKNOWN},
      * this method will call the {@link Consumer} passed to constructor
-     * {@link #ComputeResumeState(DependencyGraph, BitSet, Consumer)}. It is required that this results in a
-     * corresponding call to {@link #updateHasValue(ValueNode, boolean)}.
+     * {@link #ComputeResumeState(DependencyGraph, BitSet, Consumer)}. In order to avoid one asynchronous call per
+     * node, the list passed to the consumer does not only contain {@code node}, but all value nodes in the dependency
+     * graph whose {@link ValueNode#getHasValue()} is {@link HasValue#UNKNOWN}. Typically, this means that a single
+     * bulk query is sufficient for the entire dependency graph. It is required that this results in a corresponding
+     * call to {@link #updateHasValues(List, BitSet)}.
      */
     private HasValue computeHasValue(DependencyGraphNode node) {
         HasValue hasValue = node.getHasValue();
         if (hasValue == HasValue.UNKNOWN) {
             assert node instanceof ValueNode;
-            ValueNode valueNode = (ValueNode) node;
+            List<ValueNode> valueNodes = dependencyGraph.nodeStream()
+                .filter(candidate -> candidate instanceof ValueNode)
+                .map(candidate -> (ValueNode) candidate)
+                .filter(DependencyGraphNode::isOnPathToOutPort)
+                .filter(valueNode -> valueNode.getHasValue() == HasValue.UNKNOWN)
+                .collect(Collectors.toList());
+            assert valueNodes.contains(node);
+            for (ValueNode valueNode: valueNodes) {
+                valueNode.setHasValue(HasValue.PENDING_VALUE_CHECK);
+            }
             hasValue = HasValue.PENDING_VALUE_CHECK;
-            valueNode.setHasValue(hasValue);
             ++numAsynchronousCalls;
-            checkHasValue.accept(valueNode);
+            checkHasValues.accept(Collections.unmodifiableList(valueNodes));
         }
         return hasValue;
     }
@@ -181,7 +193,7 @@ final class ComputeResumeState {
      * Continue running the <em>ComputeResumeState</em> as documented in the CloudKeeper design document.
      *
      * <p>This method performs a modified breadth-first-search. When this method returns, the algorithm has not
-     * necessarily finished, because asynchronous calls can have been made (using {@link #checkHasValue}). Callers must
+     * necessarily finished, because asynchronous calls can have been made (using {@link #checkHasValues}). Callers must
      * ensure that {@link #isFinished()} returns {@code true} before using the results produced by the algorithm.
      *
      * <p>This method is a no-op if {@link #isFinished()} returns {@code true}.
@@ -253,34 +265,42 @@ final class ComputeResumeState {
     }
 
     /**
-     * Handles information whether a {@link ValueNode} has or does not have a value present.
+     * Handles information which of the {@link ValueNode} instances previously passed to {@link #checkHasValues} have
+     * or do not have a value present.
      *
-     * <p>Note that if the state of the given dependency-graph node is not {@link PortState#READY} any more, then the
-     * node was visited again after {@link ValueNode#getHasValue()} started the asynchronous staging-area operation
-     * (when {@link ValueNode#getHasValue()} was called, the state was {@link PortState#READY}). In this case there is
-     * no need to add the node to the queue again in this method.
+     * <p>Note that if the state of a dependency-graph node is {@link PortState#READY}, then the node was dequeued while
+     * the asynchronous staging-area operation was pending, and it therefore needs to be added to the queue again.
+     * Otherwise, the node has either not been visited at all, or it was visited again after the asynchronous
+     * staging-area operation was started. In both cases there is no need to add the node to the queue in this method.
      *
-     * @param node node in the dependency graph
-     * @param hasValue whether the node in the dependency graph has a value
+     * @param nodes list of nodes in the dependency graph, as previously passed to {@link #checkHasValues}
+     * @param hasValues set that contains index {@code i} if and only if {@code nodes.get(i)} has a value
      */
-    void updateHasValue(ValueNode node, boolean hasValue) {
-        Objects.requireNonNull(node);
+    void updateHasValues(List<ValueNode> nodes, BitSet hasValues) {
+        Objects.requireNonNull(nodes);
+        Objects.requireNonNull(hasValues);
         requireNotFinished();
-        if (node.getHasValue() != HasValue.PENDING_VALUE_CHECK) {
-            throw new IllegalArgumentException(String.format(
-                "Expected node with state %s, but actual state of %s is %s.",
-                HasValue.PENDING_VALUE_CHECK, node, node.getHasValue()
-            ));
+        for (ValueNode node: nodes) {
+            if (node.getHasValue() != HasValue.PENDING_VALUE_CHECK) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected node with state %s, but actual state of %s is %s.",
+                    HasValue.PENDING_VALUE_CHECK, node, node.getHasValue()
+                ));
+            }
         }
 
         --numAsynchronousCalls;
-        node.setHasValue(
-            hasValue
-                ? HasValue.HAS_VALUE
-                : HasValue.NO_VALUE
-        );
-        if (node.getPortState() == PortState.READY) {
-            readyQueue.add(node);
+        int index = 0;
+        for (ValueNode node: nodes) {
+            node.setHasValue(
+                hasValues.get(index)
+                    ? HasValue.HAS_VALUE
+                    : HasValue.NO_VALUE
+            );
+            if (node.getPortState() == PortState.READY) {
+                readyQueue.add(node);
+            }
+            ++index;
         }
         run();
     }
@@ -302,8 +322,8 @@ final class ComputeResumeState {
     }
 
     /**
-     * Returns whether the algorithm has finished or whether another call of {@link #updateHasValue(ValueNode, boolean)}
-     * is required.
+     * Returns whether the algorithm has finished or whether another call of {@link #updateHasValues(List, BitSet)} is
+     * required.
      *
      * @return whether the algorithm has finished
      */
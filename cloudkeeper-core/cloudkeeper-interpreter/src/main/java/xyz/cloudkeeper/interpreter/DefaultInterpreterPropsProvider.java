@@ -26,26 +26,55 @@ import java.util.Objects;
 enum DefaultInterpreterPropsProvider implements InterpreterPropsProvider {
     INSTANCE;
 
-    private static void requireEmptyExecutionTraceOrModuleType(RuntimeExecutionTrace executionTrace) {
-        if (!executionTrace.isEmpty() && executionTrace.getType() != RuntimeExecutionTrace.Type.MODULE) {
-            throw new IllegalArgumentException(String.format(
-                "Expected empty execution trace or execution trace with type %s, but got '%s'.",
-                RuntimeExecutionTrace.Type.MODULE, executionTrace
-            ));
+    /**
+     * Returns the number of iteration frames following the last module frame in the given execution trace.
+     *
+     * <p>For instance, for execution trace {@code /a/b/3/4}, this method returns 2.
+     */
+    private static int trailingIterations(RuntimeExecutionTrace executionTrace) {
+        int count = 0;
+        for (RuntimeExecutionTrace element: executionTrace.asElementList()) {
+            if (element.getType() == RuntimeExecutionTrace.Type.MODULE) {
+                count = 0;
+            } else if (element.getType() == RuntimeExecutionTrace.Type.ITERATION) {
+                ++count;
+            }
         }
+        return count;
     }
 
-    private static void requireLoopExecutionTrace(RuntimeExecutionTrace executionTrace) {
+    /**
+     * Verifies that the given execution trace is compatible with the given number of iteration frames that the module
+     * interpreter may consume.
+     *
+     * <p>An apply-to-all module consumes one iteration frame (representing the element), and a loop module consumes one
+     * iteration frame (representing the iteration). Hence, a loop module that is also an apply-to-all module may be
+     * represented by an execution trace with up to two trailing iteration frames.
+     *
+     * @param executionTrace execution trace
+     * @param maxIterations maximum number of trailing iteration frames
+     * @return number of trailing iteration frames
+     */
+    private static int requireTrailingIterations(RuntimeExecutionTrace executionTrace, int maxIterations) {
+        int iterations = executionTrace.isEmpty()
+            ? 0
+            : trailingIterations(executionTrace);
         if (
-            !executionTrace.isEmpty()
-            && !EnumSet.of(RuntimeExecutionTrace.Type.MODULE, RuntimeExecutionTrace.Type.ITERATION)
-                .contains(executionTrace.getType())
+            (
+                !executionTrace.isEmpty()
+                && !EnumSet.of(RuntimeExecutionTrace.Type.MODULE, RuntimeExecutionTrace.Type.ITERATION)
+                    .contains(executionTrace.getType())
+            )
+            || iterations > maxIterations
         ) {
             throw new IllegalArgumentException(String.format(
-                "Expected empty execution trace or execution trace with type in %s, but got '%s'.",
-                EnumSet.of(RuntimeExecutionTrace.Type.MODULE, RuntimeExecutionTrace.Type.ITERATION), executionTrace
+                "Expected empty execution trace or execution trace with type in %s and with at most %d trailing "
+                    + "iteration frames, but got '%s'.",
+                EnumSet.of(RuntimeExecutionTrace.Type.MODULE, RuntimeExecutionTrace.Type.ITERATION), maxIterations,
+                executionTrace
             ));
         }
+        return iterations;
     }
 
     @Override
@@ -77,17 +106,29 @@ enum DefaultInterpreterPropsProvider implements InterpreterPropsProvider {
         BitSet recomputedInPortsClone = (BitSet) recomputedInPorts.clone();
         BitSet requestedOutPortsClone = (BitSet) requestedOutPorts.clone();
 
+        RuntimeExecutionTrace executionTrace = stagingArea.getAnnotatedExecutionTrace();
+        int elementIterations = runtimeModule.getApplyToAllConnection() == null
+            ? 0
+            : 1;
+        int maxIterations = runtimeModule instanceof RuntimeLoopModule
+            ? elementIterations + 1
+            : elementIterations;
+        int iterations = requireTrailingIterations(executionTrace, maxIterations);
+        if (iterations < elementIterations) {
+            return Props.create(new ApplyToAllInterpreterActor.Factory(interpreterProperties, stagingArea,
+                DefaultInterpreterPropsProvider.this, moduleId, recomputedInPortsClone, requestedOutPortsClone));
+        }
+        boolean isLoopIteration = iterations > elementIterations;
+
         @Nullable Creator<UntypedActor> actorCreator = runtimeModule.accept(
             new RuntimeModuleVisitor<Creator<UntypedActor>, Void>() {
                 @Override
                 public Creator<UntypedActor> visit(RuntimeInputModule module, @Nullable Void ignored) {
-                    requireEmptyExecutionTraceOrModuleType(stagingArea.getAnnotatedExecutionTrace());
                     return new InputModuleInterpreterActor.Factory(interpreterProperties, stagingArea, moduleId);
                 }
 
                 @Override
                 public Creator<UntypedActor> visit(RuntimeCompositeModule compositeModule, @Nullable Void ignored) {
-                    requireEmptyExecutionTraceOrModuleType(stagingArea.getAnnotatedExecutionTrace());
                     return new CompositeModuleInterpreterActor.Factory(interpreterProperties, stagingArea,
                         DefaultInterpreterPropsProvider.this, moduleId, localInPortsHasValueList,
                         recomputedInPortsClone, requestedOutPortsClone);
@@ -95,9 +136,7 @@ enum DefaultInterpreterPropsProvider implements InterpreterPropsProvider {
 
                 @Override
                 public Creator<UntypedActor> visit(RuntimeLoopModule module, @Nullable Void ignored) {
-                    requireLoopExecutionTrace(stagingArea.getAnnotatedExecutionTrace());
-                    RuntimeExecutionTrace executionTrace = stagingArea.getAnnotatedExecutionTrace();
-                    if (executionTrace.isEmpty() || executionTrace.getType() != RuntimeExecutionTrace.Type.ITERATION) {
+                    if (!isLoopIteration) {
                         return new LoopModuleInterpreterActor.Factory(interpreterProperties, stagingArea,
                             DefaultInterpreterPropsProvider.this, moduleId, recomputedInPortsClone,
                             requestedOutPortsClone);
@@ -110,7 +149,6 @@ enum DefaultInterpreterPropsProvider implements InterpreterPropsProvider {
 
                 @Override
                 public Creator<UntypedActor> visit(final RuntimeProxyModule module, @Nullable Void ignored) {
-                    requireEmptyExecutionTraceOrModuleType(stagingArea.getAnnotatedExecutionTrace());
                     return module.getDeclaration().accept(
                         new RuntimeModuleDeclarationVisitor<Creator<UntypedActor>, Void>() {
                             @Override
@@ -0,0 +1,354 @@
+package xyz.cloudkeeper.interpreter;
+
+import akka.actor.ActorRef;
+import akka.actor.Props;
+import akka.actor.Status.Failure;
+import akka.actor.Terminated;
+import akka.actor.UntypedActor;
+import akka.event.Logging;
+import akka.event.LoggingAdapter;
+import akka.japi.Creator;
+import xyz.cloudkeeper.model.api.ExecutionException;
+import xyz.cloudkeeper.model.api.RuntimeStateProvider;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Executor actor that distributes simple-module executions across a pool of executor nodes.
+ *
+ * <p>See {@link ExecutorPoolActorCreator} for a description of the scheduling. Since an executor actor identifies
+ * submissions by their sender, this actor creates a relay child actor for each submission to a node. The relay
+ * actor is the sender of both the {@link ExecutorActorInterface.ExecuteTrace} and the
+ * {@link ExecutorActorInterface.CancelExecution} message, and it passes the response of the node back to this actor.
+ */
+final class ExecutorPoolActor extends UntypedActor {
+    private final LoggingAdapter log = Logging.getLogger(getContext().system(), (UntypedActor) this);
+    private final Function<RuntimeStateProvider, Set<String>> localityHints;
+    private final int localityWindow;
+
+    private final List<Node> nodes = new ArrayList<>();
+
+    /**
+     * Requests not yet submitted to a node, indexed by original submitter. Iteration order is the order of arrival.
+     */
+    private final LinkedHashMap<ActorRef, PendingRequest> pendingRequests = new LinkedHashMap<>();
+
+    /**
+     * Requests submitted to a node, indexed by original submitter.
+     */
+    private final Map<ActorRef, Assignment> assignments = new HashMap<>();
+
+    ExecutorPoolActor(ExecutorPoolActorCreator creator) {
+        localityHints = creator.getLocalityHints();
+        localityWindow = creator.getLocalityWindow();
+        for (ExecutorPoolActorCreator.NodeDefinition definition: creator.getNodes()) {
+            nodes.add(new Node(definition));
+        }
+    }
+
+    @Override
+    public void preStart() {
+        for (Node node: nodes) {
+            getContext().watch(node.executor);
+        }
+    }
+
+    private static final class Node {
+        private final ActorRef executor;
+        private final int capacity;
+        @Nullable private final String location;
+        private int numActive = 0;
+
+        private Node(ExecutorPoolActorCreator.NodeDefinition definition) {
+            executor = definition.getExecutor();
+            capacity = definition.getCapacity();
+            location = definition.getLocation();
+        }
+
+        private boolean hasCapacity() {
+            return numActive < capacity;
+        }
+
+        /**
+         * Returns whether this node has a lower load (relative to its capacity) than the given node.
+         */
+        private boolean isLessLoadedThan(Node other) {
+            // numActive / capacity < other.numActive / other.capacity, without rounding issues
+            return (long) numActive * other.capacity < (long) other.numActive * capacity;
+        }
+    }
+
+    private static final class PendingRequest {
+        private final ExecutorActorInterface.ExecuteTrace message;
+        private final Set<String> preferredLocations;
+
+        private PendingRequest(ExecutorActorInterface.ExecuteTrace message, Set<String> preferredLocations) {
+            this.message = message;
+            this.preferredLocations = preferredLocations;
+        }
+
+        private boolean prefers(Node node) {
+            return node.location != null && preferredLocations.contains(node.location);
+        }
+    }
+
+    private static final class Assignment {
+        private final Node node;
+        private final ActorRef relay;
+
+        private Assignment(Node node, ActorRef relay) {
+            this.node = node;
+            this.relay = relay;
+        }
+    }
+
+    /**
+     * Response by a node, as passed on by a relay actor.
+     */
+    private static final class RelayedResponse {
+        private final ActorRef originalSubmitter;
+        private final Object response;
+
+        private RelayedResponse(ActorRef originalSubmitter, Object response) {
+            this.originalSubmitter = originalSubmitter;
+            this.response = response;
+        }
+    }
+
+    /**
+     * Actor that stands in for the original submitter when communicating with a node.
+     */
+    private static final class RelayActor extends UntypedActor {
+        private final ActorRef originalSubmitter;
+
+        private RelayActor(ActorRef originalSubmitter) {
+            this.originalSubmitter = originalSubmitter;
+        }
+
+        @Override
+        public void onReceive(Object message) {
+            getContext().parent().tell(new RelayedResponse(originalSubmitter, message), getSelf());
+        }
+    }
+
+    /**
+     * Factory for creating a relay actor.
+     *
+     * <p>Note: This actor creator cannot be serialized.
+     */
+    private static final class RelayFactory implements Creator<UntypedActor> {
+        private static final long serialVersionUID = -5936000587361853404L;
+
+        private final ActorRef originalSubmitter;
+
+        private RelayFactory(ActorRef originalSubmitter) {
+            this.originalSubmitter = originalSubmitter;
+        }
+
+        private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+            throw new NotSerializableException(getClass().getName());
+        }
+
+        private void writeObject(ObjectOutputStream stream) throws IOException {
+            throw new NotSerializableException(getClass().getName());
+        }
+
+        @Override
+        public UntypedActor create() {
+            return new RelayActor(originalSubmitter);
+        }
+    }
+
+    private void fail(ActorRef submitter, String format, Object... args) {
+        submitter.tell(new Failure(new ExecutionException(String.format(format, args))), getSelf());
+    }
+
+    private Set<String> preferredLocations(RuntimeStateProvider runtimeStateProvider) {
+        try {
+            @Nullable Set<String> locations = localityHints.apply(runtimeStateProvider);
+            return locations == null
+                ? Collections.emptySet()
+                : locations;
+        } catch (RuntimeException exception) {
+            log.warning(String.format(
+                "Ignoring exception thrown by locality-hint function for %s: %s", runtimeStateProvider, exception
+            ));
+            return Collections.emptySet();
+        }
+    }
+
+    private void executeSimpleModule(ExecutorActorInterface.ExecuteTrace message) {
+        ActorRef sender = getSender();
+        if (pendingRequests.containsKey(sender) || assignments.containsKey(sender)) {
+            log.warning(String.format(
+                "Ignoring %s because sender %s sent the same request previously.", message, sender
+            ));
+            fail(sender, "Already executing simple module submitted by %s.", sender);
+            return;
+        } else if (nodes.isEmpty()) {
+            fail(sender, "No executor node available to execute %s.", message.getRuntimeStateProvider());
+            return;
+        }
+
+        pendingRequests.put(sender, new PendingRequest(message, preferredLocations(message.getRuntimeStateProvider())));
+        schedule();
+    }
+
+    /**
+     * Submits pending requests to nodes until either there are no more pending requests or all nodes are at capacity.
+     */
+    private void schedule() {
+        while (!pendingRequests.isEmpty()) {
+            // Nodes with free capacity, ordered by load relative to their capacity
+            List<Node> availableNodes = new ArrayList<>(nodes.size());
+            for (Node node: nodes) {
+                if (node.hasCapacity()) {
+                    availableNodes.add(node);
+                }
+            }
+            if (availableNodes.isEmpty()) {
+                return;
+            }
+            availableNodes.sort((first, second) -> first.isLessLoadedThan(second)
+                ? -1
+                : (second.isLessLoadedThan(first) ? 1 : 0));
+
+            if (!assignLocalRequest(availableNodes)) {
+                // No available node is preferred by any request within the window. Submit the oldest request to the
+                // least loaded node.
+                Iterator<Map.Entry<ActorRef, PendingRequest>> iterator = pendingRequests.entrySet().iterator();
+                Map.Entry<ActorRef, PendingRequest> entry = iterator.next();
+                iterator.remove();
+                assign(entry.getKey(), entry.getValue(), availableNodes.get(0));
+            }
+        }
+    }
+
+    /**
+     * Submits the oldest request (within the locality window) that prefers one of the given nodes, and returns whether
+     * there was such a request.
+     */
+    private boolean assignLocalRequest(List<Node> availableNodes) {
+        for (Node node: availableNodes) {
+            if (node.location == null) {
+                continue;
+            }
+            int position = 0;
+            Iterator<Map.Entry<ActorRef, PendingRequest>> iterator = pendingRequests.entrySet().iterator();
+            while (iterator.hasNext() && position < localityWindow) {
+                Map.Entry<ActorRef, PendingRequest> entry = iterator.next();
+                if (entry.getValue().prefers(node)) {
+                    iterator.remove();
+                    assign(entry.getKey(), entry.getValue(), node);
+                    return true;
+                }
+                ++position;
+            }
+        }
+        return false;
+    }
+
+    private void assign(ActorRef submitter, PendingRequest request, Node node) {
+        ActorRef relay = getContext().actorOf(Props.create(new RelayFactory(submitter)));
+        assignments.put(submitter, new Assignment(node, relay));
+        ++node.numActive;
+        log.debug("[Execution ID {}] [Trace {}] Submitting to executor node {} ({} slots in use).",
+            request.message.getExecutionId(), request.message.getRuntimeStateProvider().getExecutionTrace(),
+            node.executor, node.numActive);
+        node.executor.tell(request.message, relay);
+    }
+
+    private void release(Assignment assignment) {
+        --assignment.node.numActive;
+        getContext().stop(assignment.relay);
+    }
+
+    private void relayedResponse(RelayedResponse message) {
+        @Nullable Assignment assignment = assignments.get(message.originalSubmitter);
+        if (assignment == null || !assignment.relay.equals(getSender())) {
+            log.warning(String.format("Ignoring response from unknown relay actor %s.", getSender()));
+            return;
+        }
+
+        assignments.remove(message.originalSubmitter);
+        release(assignment);
+        message.originalSubmitter.tell(message.response, getSelf());
+        schedule();
+    }
+
+    private void cancelExecution(ExecutorActorInterface.CancelExecution message) {
+        ActorRef sender = getSender();
+        @Nullable Assignment assignment = assignments.get(sender);
+        if (assignment != null) {
+            // The node responds with a failure, which is passed on to the submitter as usual.
+            assignment.node.executor.tell(message, assignment.relay);
+        } else if (pendingRequests.remove(sender) != null) {
+            // Same response that an executor actor would send for a cancelled execution
+            fail(sender, "Simple-module execution cancelled before submission to executor node: %s",
+                message.getReason());
+        } else {
+            log.warning(String.format("Ignoring %s because sender %s is unknown.", message, sender));
+        }
+    }
+
+    private void nodeTerminated(ActorRef executor) {
+        @Nullable Node terminatedNode = null;
+        for (Iterator<Node> iterator = nodes.iterator(); iterator.hasNext();) {
+            Node node = iterator.next();
+            if (node.executor.equals(executor)) {
+                terminatedNode = node;
+                iterator.remove();
+                break;
+            }
+        }
+        if (terminatedNode == null) {
+            return;
+        }
+
+        log.warning(String.format("Executor node %s terminated. Removing it from the pool.", executor));
+        for (Iterator<Map.Entry<ActorRef, Assignment>> iterator = assignments.entrySet().iterator();
+                iterator.hasNext();) {
+            Map.Entry<ActorRef, Assignment> entry = iterator.next();
+            if (entry.getValue().node == terminatedNode) {
+                iterator.remove();
+                release(entry.getValue());
+                fail(entry.getKey(), "Executor node %s terminated during simple-module execution.", executor);
+            }
+        }
+
+        if (nodes.isEmpty()) {
+            for (ActorRef submitter: pendingRequests.keySet()) {
+                fail(submitter, "All executor nodes terminated before simple-module execution.");
+            }
+            pendingRequests.clear();
+        }
+    }
+
+    @Override
+    public void onReceive(Object message) {
+        if (message instanceof ExecutorActorInterface.ExecuteTrace) {
+            executeSimpleModule((ExecutorActorInterface.ExecuteTrace) message);
+        } else if (message instanceof ExecutorActorInterface.CancelExecution) {
+            cancelExecution((ExecutorActorInterface.CancelExecution) message);
+        } else if (message instanceof RelayedResponse) {
+            relayedResponse((RelayedResponse) message);
+        } else if (message instanceof Terminated) {
+            nodeTerminated(((Terminated) message).getActor());
+        } else {
+            unhandled(message);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package xyz.cloudkeeper.interpreter;
+
+import akka.actor.ActorRef;
+import akka.actor.UntypedActor;
+import akka.japi.Creator;
+import xyz.cloudkeeper.model.api.RuntimeStateProvider;
+import xyz.cloudkeeper.model.util.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Akka actor creator (factory) of executor actors that distribute simple-module executions across a pool of executor
+ * nodes.
+ *
+ * <p>The actor created by this factory accepts the same messages as an executor actor created by
+ * {@link ExecutorActorCreator}, and it can therefore be used wherever an executor actor is expected (for instance,
+ * with {@link CloudKeeperEnvironmentBuilder}). Each executor node is itself an executor actor (typically created by
+ * {@link ExecutorActorCreator}), which may be local or reside on a remote Akka node. Each node has a capacity, which
+ * is the maximum number of simple-module executions that the pool submits to the node concurrently.
+ *
+ * <p>Requests that cannot be submitted immediately because all nodes are at capacity are kept in a queue shared by
+ * all nodes. Whenever a node finishes an execution, it takes the next request from this queue. Nodes therefore pull
+ * work according to their actual throughput, so fast nodes take over requests that would otherwise wait for slow
+ * nodes. When there is a choice of nodes, the pool prefers nodes whose location is among the locations returned by the
+ * locality-hint function for the request (see {@link Builder#setLocalityHints(Function)}), and otherwise the node with
+ * the lowest load relative to its capacity.
+ *
+ * <p>If an executor node terminates (for instance, because its remote Akka node became unreachable), all executions
+ * currently submitted to it fail, and the node is removed from the pool.
+ *
+ * <p>Note: This actor creator cannot be serialized.
+ */
+public final class ExecutorPoolActorCreator implements Creator<UntypedActor> {
+    private static final long serialVersionUID = -2466271911402318823L;
+
+    private final ImmutableList<NodeDefinition> nodes;
+    private final Function<RuntimeStateProvider, Set<String>> localityHints;
+    private final int localityWindow;
+
+    private ExecutorPoolActorCreator(Builder builder) {
+        nodes = ImmutableList.copyOf(builder.nodes);
+        localityHints = builder.localityHints;
+        localityWindow = builder.localityWindow;
+    }
+
+    private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+        throw new NotSerializableException(getClass().getName());
+    }
+
+    private void writeObject(ObjectOutputStream stream) throws IOException {
+        throw new NotSerializableException(getClass().getName());
+    }
+
+    static final class NodeDefinition {
+        private final ActorRef executor;
+        private final int capacity;
+        @Nullable private final String location;
+
+        private NodeDefinition(ActorRef executor, int capacity, @Nullable String location) {
+            this.executor = executor;
+            this.capacity = capacity;
+            this.location = location;
+        }
+
+        ActorRef getExecutor() {
+            return executor;
+        }
+
+        int getCapacity() {
+            return capacity;
+        }
+
+        @Nullable
+        String getLocation() {
+            return location;
+        }
+    }
+
+    ImmutableList<NodeDefinition> getNodes() {
+        return nodes;
+    }
+
+    Function<RuntimeStateProvider, Set<String>> getLocalityHints() {
+        return localityHints;
+    }
+
+    int getLocalityWindow() {
+        return localityWindow;
+    }
+
+    /**
+     * This class is used to create executor-pool actor creators.
+     */
+    public static final class Builder {
+        /**
+         * Default number of queued requests (counted from the head of the queue) that a node with free capacity
+         * considers when looking for a request with matching locality hint.
+         */
+        public static final int DEFAULT_LOCALITY_WINDOW = 64;
+
+        private final List<NodeDefinition> nodes = new ArrayList<>();
+        private Function<RuntimeStateProvider, Set<String>> localityHints
+            = runtimeStateProvider -> Collections.emptySet();
+        private int localityWindow = DEFAULT_LOCALITY_WINDOW;
+
+        /**
+         * Adds an executor node without location.
+         *
+         * @param executor executor actor, which may be local or remote
+         * @param capacity maximum number of simple-module executions concurrently submitted to the node, must be
+         *     positive
+         * @return this builder
+         */
+        public Builder addNode(ActorRef executor, int capacity) {
+            return addNode(executor, capacity, null);
+        }
+
+        /**
+         * Adds an executor node.
+         *
+         * @param executor executor actor, which may be local or remote
+         * @param capacity maximum number of simple-module executions concurrently submitted to the node, must be
+         *     positive
+         * @param location location of the node (for instance, its host name) that is matched against the locations
+         *     returned by the locality-hint function, or {@code null} if the node has no location
+         * @return this builder
+         */
+        public Builder addNode(ActorRef executor, int capacity, @Nullable String location) {
+            Objects.requireNonNull(executor);
+            if (capacity <= 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected positive capacity, but got %d.", capacity
+                ));
+            }
+            nodes.add(new NodeDefinition(executor, capacity, location));
+            return this;
+        }
+
+        /**
+         * Sets the function that returns the preferred node locations for a simple-module execution.
+         *
+         * <p>Typically, the function returns the locations that already hold the inputs of the simple module (for
+         * instance, because they were written by a previous module executed on the same node). The function is called
+         * once for each request, within the pool actor. It should therefore not block.
+         *
+         * <p>By default, {@link #build()} will assume a function that always returns the empty set.
+         *
+         * @param localityHints function that returns the preferred node locations for a runtime-state provider
+         * @return this builder
+         */
+        public Builder setLocalityHints(Function<RuntimeStateProvider, Set<String>> localityHints) {
+            this.localityHints = Objects.requireNonNull(localityHints);
+            return this;
+        }
+
+        /**
+         * Sets the number of queued requests (counted from the head of the queue) that a node with free capacity
+         * considers when looking for a request with matching locality hint.
+         *
+         * <p>Larger values improve locality at the cost of fairness and scheduling time. By default, {@link #build()}
+         * will assume {@link #DEFAULT_LOCALITY_WINDOW}.
+         *
+         * @param localityWindow number of queued requests considered, must be non-negative
+         * @return this builder
+         */
+        public Builder setLocalityWindow(int localityWindow) {
+            if (localityWindow < 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected non-negative locality window, but got %d.", localityWindow
+                ));
+            }
+            this.localityWindow = localityWindow;
+            return this;
+        }
+
+        /**
+         * Returns a new executor-pool actor creator using the attributes of this builder.
+         *
+         * @return the new executor-pool actor creator
+         */
+        public ExecutorPoolActorCreator build() {
+            if (nodes.isEmpty()) {
+                throw new IllegalStateException("Expected at least one executor node, but got none.");
+            }
+            return new ExecutorPoolActorCreator(this);
+        }
+    }
+
+    @Override
+    public UntypedActor create() {
+        return new ExecutorPoolActor(this);
+    }
+}
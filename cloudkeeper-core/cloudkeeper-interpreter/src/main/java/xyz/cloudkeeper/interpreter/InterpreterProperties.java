@@ -19,21 +19,31 @@ class InterpreterProperties implements Serializable {
     private final ActorRef administrator;
     private final ActorRef executor;
     private final ImmutableList<EventSubscription> eventSubscriptions;
+    private final int maxConcurrentElements;
+    private final boolean loopPipelining;
 
     InterpreterProperties(InterpreterProperties original) {
-        this(original.cleaningRequested, original.administrator, original.executor, original.eventSubscriptions);
+        this(original.cleaningRequested, original.administrator, original.executor, original.eventSubscriptions,
+            original.maxConcurrentElements, original.loopPipelining);
     }
 
     InterpreterProperties(boolean cleaningRequested, ActorRef administrator, ActorRef executor,
-            ImmutableList<EventSubscription> eventSubscriptions) {
+            ImmutableList<EventSubscription> eventSubscriptions, int maxConcurrentElements, boolean loopPipelining) {
         Objects.requireNonNull(administrator);
         Objects.requireNonNull(executor);
         Objects.requireNonNull(eventSubscriptions);
+        if (maxConcurrentElements <= 0) {
+            throw new IllegalArgumentException(String.format(
+                "Expected positive maximum number of concurrent elements, but got %d.", maxConcurrentElements
+            ));
+        }
 
         this.cleaningRequested = cleaningRequested;
         this.administrator = administrator;
         this.executor = executor;
         this.eventSubscriptions = ImmutableList.copyOf(eventSubscriptions);
+        this.maxConcurrentElements = maxConcurrentElements;
+        this.loopPipelining = loopPipelining;
     }
 
     /**
@@ -54,4 +64,18 @@ class InterpreterProperties implements Serializable {
     ImmutableList<EventSubscription> getEventSubscriptions() {
         return eventSubscriptions;
     }
+
+    /**
+     * Returns the maximum number of elements that an apply-to-all module interpreter processes concurrently.
+     */
+    int getMaxConcurrentElements() {
+        return maxConcurrentElements;
+    }
+
+    /**
+     * Returns whether loop-module interpreters should start the next iteration while the current one is still running.
+     */
+    boolean isLoopPipelining() {
+        return loopPipelining;
+    }
 }
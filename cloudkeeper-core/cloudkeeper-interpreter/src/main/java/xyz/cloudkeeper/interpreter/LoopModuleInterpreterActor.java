@@ -34,6 +34,15 @@ import java.util.concurrent.CompletableFuture;
 
 /**
  * Interpreter of loop modules.
+ *
+ * <p>By default, iterations are interpreted strictly one at a time: Only once the actor interpreting the current
+ * iteration has terminated, the value of the continue-port is retrieved and the inputs for the next iteration are
+ * copied. If {@link InterpreterProperties#isLoopPipelining()} is {@code true}, the continue-port value is instead
+ * retrieved as soon as the current iteration signals it, and the next iteration is started right away if the value is
+ * {@code true}. The inputs of the next iteration are then copied as soon as they become available: In-ports that are
+ * not I/O-ports are copied immediately, and I/O-ports are copied as soon as the current iteration signals the
+ * corresponding out-port. Since the next iteration is only started once it is known that it will be needed, resuming
+ * an interrupted interpretation works the same in both modes.
  */
 final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
     private final LoggingAdapter log = Logging.getLogger(getContext().system(), (UntypedActor) this);
@@ -105,6 +114,58 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
      */
     @Nullable private ActorRef iterationActorRef = null;
 
+    /**
+     * Whether the next iteration is started while the current iteration is still running.
+     */
+    private final boolean pipelining;
+
+    /**
+     * Set of all out-ports for which the current iteration has sent a
+     * {@link InterpreterInterface.SubmoduleOutPortHasSignal} message.
+     *
+     * <p>This set is only maintained if {@link #pipelining} is {@code true}.
+     */
+    private final BitSet currentIterationOutPorts;
+
+    /**
+     * Value of the continue-port of the current iteration, or {@code null} if not (yet) known.
+     *
+     * <p>This field is only maintained if {@link #pipelining} is {@code true}.
+     */
+    @Nullable private Boolean currentIterationContinues = null;
+
+    /**
+     * The iteration the child actor {@link #nextIterationActorRef} is interpreting.
+     */
+    @Nullable private Index nextIteration = null;
+
+    /**
+     * Reference to actor that interprets the next iteration while the current iteration is still running.
+     */
+    @Nullable private ActorRef nextIterationActorRef = null;
+
+    /**
+     * Set of all out-ports for which the next iteration has sent a
+     * {@link InterpreterInterface.SubmoduleOutPortHasSignal} message.
+     */
+    private final BitSet nextIterationOutPorts;
+
+    /**
+     * Value of the continue-port of the next iteration, or {@code null} if not (yet) known.
+     */
+    @Nullable private Boolean nextIterationContinues = null;
+
+    /**
+     * Whether the actor interpreting the next iteration terminated before the current iteration did.
+     */
+    private boolean nextIterationTerminated = false;
+
+    /**
+     * Set of all I/O-ports whose value still needs to be copied to the next iteration, once the current iteration has
+     * signaled a value for the corresponding out-port.
+     */
+    private final BitSet nextIterationPendingInPorts;
+
     private enum State {
         /**
          * Finding out from where to resume. No child interpreter has been started yet.
@@ -215,6 +276,11 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
 
         inPortsRequiringValue = (BitSet) requiredInPortsForIterations.clone();
         inPortsCopiedToFirstIteration = new BitSet(inPorts.size());
+
+        pipelining = interpreterProperties.isLoopPipelining();
+        currentIterationOutPorts = new BitSet(outPorts.size());
+        nextIterationOutPorts = new BitSet(outPorts.size());
+        nextIterationPendingInPorts = new BitSet(inPorts.size());
     }
 
     /**
@@ -394,6 +460,8 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
         );
         assert iterationActorRef != null;
         currentIteration = iteration;
+        currentIterationOutPorts.clear();
+        currentIterationContinues = null;
         getContext().watch(iterationActorRef);
 
         for (
@@ -452,8 +520,6 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
     private void copyInputsForIteration(final Index iteration) {
         assert iteration.intValue() > 0;
 
-        int iterationInt = iteration.intValue();
-        Index previousIteration = Index.index(iterationInt - 1);
         List<? extends RuntimeInPort> inPorts = module.getInPorts();
         List<CompletableFuture<Void>> copyFutures = new ArrayList<>(inPorts.size());
         for (
@@ -461,21 +527,216 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
             inPortId >= 0;
             inPortId = requiredInPortsForIterations.nextSetBit(inPortId + 1)
         ) {
-            RuntimeInPort inPort = inPorts.get(inPortId);
-            SimpleName inPortName = inPort.getSimpleName();
-            ExecutionTrace copyFrom = inPort instanceof RuntimeIOPort
-                ? ExecutionTrace.empty().resolveContent().resolveIteration(previousIteration).resolveOutPort(inPortName)
-                : ExecutionTrace.empty().resolveInPort(inPortName);
-            ExecutionTrace copyTo = ExecutionTrace.empty().resolveContent().resolveIteration(iteration)
-                .resolveInPort(inPortName);
-
-            copyFutures.add(stagingArea.copy(copyFrom, copyTo));
+            copyFutures.add(copyInputForIteration(iteration, inPorts.get(inPortId)));
         }
         CompletableFuture<Object> messageFuture = Futures.collect(copyFutures)
             .thenApply(ignored -> new IterationStatus(iteration, true));
         pipeResultToSelf(messageFuture, "copying inputs for iteration %s", iteration);
     }
 
+    /**
+     * Starts copying the value for the given in-port to the given iteration.
+     *
+     * <p>If the in-port is actually an I/O-port, then the value is copied from the previous iteration. Otherwise, the
+     * input value is copied from the values passed to the loop module.
+     *
+     * @param iteration iteration for which the in-port value is copied, must be greater than 0
+     * @param inPort in-port
+     * @return future that will be completed once the value has been copied
+     */
+    private CompletableFuture<Void> copyInputForIteration(Index iteration, RuntimeInPort inPort) {
+        Index previousIteration = Index.index(iteration.intValue() - 1);
+        SimpleName inPortName = inPort.getSimpleName();
+        ExecutionTrace copyFrom = inPort instanceof RuntimeIOPort
+            ? ExecutionTrace.empty().resolveContent().resolveIteration(previousIteration).resolveOutPort(inPortName)
+            : ExecutionTrace.empty().resolveInPort(inPortName);
+        ExecutionTrace copyTo = ExecutionTrace.empty().resolveContent().resolveIteration(iteration)
+            .resolveInPort(inPortName);
+        return stagingArea.copy(copyFrom, copyTo);
+    }
+
+    /**
+     * Handles event that an iteration actor signaled a value for one of its out-ports.
+     *
+     * <p>This method is a no-op unless {@link #pipelining} is {@code true}. Otherwise, it starts retrieving the value
+     * of the continue-port as soon as it is available, and it starts copying I/O-port values to the next iteration as
+     * soon as they are available.
+     *
+     * @param childActor actor reference of child actor
+     * @param outPortId index of the out-port in the list returned by {@link RuntimeLoopModule#getOutPorts()}
+     */
+    private void iterationOutPortHasSignal(ActorRef childActor, int outPortId) {
+        if (!pipelining) {
+            return;
+        }
+
+        boolean isContinuePort = outPortId == module.getContinuePort().getOutIndex();
+        if (childActor == iterationActorRef) {
+            assert currentIteration != null;
+            currentIterationOutPorts.set(outPortId);
+            RuntimeOutPort outPort = module.getOutPorts().get(outPortId);
+            if (isContinuePort) {
+                retrieveContinuePortValue(currentIteration);
+            } else if (outPort instanceof RuntimeIOPort) {
+                int inPortId = ((RuntimeIOPort) outPort).getInIndex();
+                if (nextIterationPendingInPorts.get(inPortId)) {
+                    nextIterationPendingInPorts.set(inPortId, false);
+                    copyInputToNextIteration(inPortId);
+                }
+            }
+        } else if (childActor == nextIterationActorRef) {
+            assert nextIteration != null;
+            nextIterationOutPorts.set(outPortId);
+            if (isContinuePort) {
+                retrieveContinuePortValue(nextIteration);
+            }
+        }
+    }
+
+    private void retrieveContinuePortValue(Index iteration) {
+        ExecutionTrace continueTrace = ExecutionTrace.empty()
+            .resolveContent().resolveIteration(iteration)
+            .resolveOutPort(SimpleName.identifier(BareLoopModule.CONTINUE_PORT_NAME));
+        CompletableFuture<Object> messageFuture = stagingArea.getObject(continueTrace)
+            .thenApply(shouldContinue -> new ContinuePortValue(iteration, (boolean) shouldContinue));
+        pipeResultToSelf(messageFuture, "examining value at %s", continueTrace);
+    }
+
+    /**
+     * Handles event that the value of the continue-port of the given iteration has been retrieved.
+     *
+     * <p>If the given iteration is the current iteration and the value is {@code true}, this method starts the next
+     * iteration. Messages for iterations that are neither current nor next (because the value was also retrieved
+     * after the iteration actor terminated) are ignored.
+     *
+     * @param iteration iteration whose continue-port value has been retrieved
+     * @param shouldContinue the value of the continue-port
+     */
+    private void continuePortValue(Index iteration, boolean shouldContinue) {
+        if (iteration.equals(currentIteration)) {
+            currentIterationContinues = shouldContinue;
+            if (shouldContinue && nextIterationActorRef == null
+                    && (state != State.FIRST_ITERATION || inPortsRequiringValue.isEmpty())) {
+                startNextIteration();
+            }
+        } else if (iteration.equals(nextIteration)) {
+            nextIterationContinues = shouldContinue;
+        }
+    }
+
+    /**
+     * Starts the actor for the iteration following the current iteration, while the current iteration is still running.
+     *
+     * <p>The new actor is told about each required in-port as soon as its value has been copied.
+     */
+    private void startNextIteration() {
+        assert pipelining && currentIteration != null && nextIterationActorRef == null;
+
+        Index iteration = Index.index(currentIteration.intValue() + 1);
+        nextIteration = iteration;
+        nextIterationOutPorts.clear();
+        nextIterationContinues = null;
+        nextIterationTerminated = false;
+        nextIterationActorRef = getContext().actorOf(
+            interpreterPropsProvider.provideInterpreterProps(
+                interpreterProperties,
+                stagingArea.resolveDescendant(
+                    ExecutionTrace.empty().resolveContent().resolveIteration(iteration)
+                ),
+                0,
+                Collections.nCopies(module.getInPorts().size(), DependencyGraph.HasValue.UNKNOWN),
+                requiredInPortsForIterations,
+                neededOutPortsForIterations
+            ),
+            iteration.toString()
+        );
+        getContext().watch(nextIterationActorRef);
+
+        List<? extends RuntimeInPort> inPorts = module.getInPorts();
+        for (
+            int inPortId = requiredInPortsForIterations.nextSetBit(0);
+            inPortId >= 0;
+            inPortId = requiredInPortsForIterations.nextSetBit(inPortId + 1)
+        ) {
+            RuntimeInPort inPort = inPorts.get(inPortId);
+            if (inPort instanceof RuntimeIOPort
+                    && !currentIterationOutPorts.get(((RuntimeIOPort) inPort).getOutIndex())) {
+                nextIterationPendingInPorts.set(inPortId);
+            } else {
+                copyInputToNextIteration(inPortId);
+            }
+        }
+    }
+
+    private void copyInputToNextIteration(int inPortId) {
+        assert nextIteration != null;
+
+        Index iteration = nextIteration;
+        RuntimeInPort inPort = module.getInPorts().get(inPortId);
+        CompletableFuture<Object> messageFuture = copyInputForIteration(iteration, inPort)
+            .thenApply(ignored -> new CopiedInPortToIteration(iteration, inPortId));
+        pipeResultToSelf(messageFuture, "copying value for in-port %s to iteration %s", inPort.getSimpleName(),
+            iteration);
+    }
+
+    private void copiedInPortToIteration(Index iteration, int inPortId) {
+        @Nullable ActorRef actorRef = iteration.equals(nextIteration)
+            ? nextIterationActorRef
+            : iteration.equals(currentIteration)
+                ? iterationActorRef
+                : null;
+        if (actorRef != null) {
+            actorRef.tell(new InterpreterInterface.InPortHasSignal(inPortId), getSelf());
+        }
+    }
+
+    /**
+     * Makes the next iteration the current iteration.
+     *
+     * <p>This method is called when the current iteration terminated and the next iteration had already been started.
+     *
+     * @throws InterpreterException if the current iteration terminated without signaling a value for an I/O-port that
+     *     the next iteration still waits for
+     */
+    private void promoteNextIteration() throws InterpreterException {
+        assert nextIterationActorRef != null && nextIteration != null;
+        if (!nextIterationPendingInPorts.isEmpty()) {
+            // The terminated iteration will not signal any further out-ports, so the next iteration would never start.
+            List<? extends RuntimeInPort> inPorts = module.getInPorts();
+            List<SimpleName> pendingInPortNames = new ArrayList<>(nextIterationPendingInPorts.cardinality());
+            for (
+                int inPortId = nextIterationPendingInPorts.nextSetBit(0);
+                inPortId >= 0;
+                inPortId = nextIterationPendingInPorts.nextSetBit(inPortId + 1)
+            ) {
+                pendingInPortNames.add(inPorts.get(inPortId).getSimpleName());
+            }
+            throw new InterpreterException(getAbsoluteTrace(), String.format(
+                "Iteration %s terminated without providing values for I/O-ports %s needed by iteration %s.",
+                Index.index(nextIteration.intValue() - 1), pendingInPortNames, nextIteration
+            ));
+        }
+
+        iterationActorRef = nextIterationActorRef;
+        currentIteration = nextIteration;
+        currentIterationOutPorts.clear();
+        currentIterationOutPorts.or(nextIterationOutPorts);
+        currentIterationContinues = nextIterationContinues;
+        boolean terminated = nextIterationTerminated;
+
+        nextIterationActorRef = null;
+        nextIteration = null;
+        nextIterationOutPorts.clear();
+        nextIterationContinues = null;
+        nextIterationTerminated = false;
+
+        if (terminated) {
+            childActorTerminated(iterationActorRef);
+        } else if (Boolean.TRUE.equals(currentIterationContinues)) {
+            startNextIteration();
+        }
+    }
+
     /**
      * Handles event that the last iteration yielded value {@code false} for the continue-port.
      *
@@ -522,8 +783,9 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
      * message will be sent.
      *
      * @param childActor actor reference of child actor
+     * @throws InterpreterException if the next iteration cannot be promoted
      */
-    private void childActorTerminated(ActorRef childActor) {
+    private void childActorTerminated(ActorRef childActor) throws InterpreterException {
         assert state == State.FIRST_ITERATION || state == State.RUNNING;
 
         if (childActor == iterationActorRef) {
@@ -535,6 +797,17 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
             iterationActorRef = null;
             currentIteration = null;
 
+            if (pipelining && currentIterationContinues != null) {
+                if (!currentIterationContinues) {
+                    finished(finishedIteration);
+                } else if (nextIterationActorRef != null) {
+                    promoteNextIteration();
+                } else {
+                    copyInputsForIteration(Index.index(finishedIteration.intValue() + 1));
+                }
+                return;
+            }
+
             ExecutionTrace continueTrace = ExecutionTrace.empty()
                 .resolveContent().resolveIteration(finishedIteration)
                 .resolveOutPort(SimpleName.identifier(BareLoopModule.CONTINUE_PORT_NAME));
@@ -545,6 +818,8 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
                         : new FinishedLastIteration(finishedIteration)
                 );
             pipeResultToSelf(messageFuture, "examining value at %s", continueTrace);
+        } else if (childActor == nextIterationActorRef) {
+            nextIterationTerminated = true;
         } else {
             log.warning(String.format("Ignoring terminated message for unknown child actor %s.", childActor));
         }
@@ -568,6 +843,15 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
             copiedInPortToFirstIteration(((CopiedInPortToFirstIteration) message).inPortId);
         } else if (message instanceof Terminated) {
             childActorTerminated(((Terminated) message).getActor());
+        } else if (message instanceof InterpreterInterface.SubmoduleOutPortHasSignal) {
+            iterationOutPortHasSignal(getSender(),
+                ((InterpreterInterface.SubmoduleOutPortHasSignal) message).getOutPortId());
+        } else if (message instanceof ContinuePortValue) {
+            ContinuePortValue arguments = (ContinuePortValue) message;
+            continuePortValue(arguments.iteration, arguments.shouldContinue);
+        } else if (message instanceof CopiedInPortToIteration) {
+            CopiedInPortToIteration arguments = (CopiedInPortToIteration) message;
+            copiedInPortToIteration(arguments.iteration, arguments.inPortId);
         } else if (message instanceof FinishedLastIteration) {
             finished(((FinishedLastIteration) message).iteration);
         } else if (message == LocalMessages.PREPARE_TO_TERMINATE) {
@@ -601,6 +885,26 @@ final class LoopModuleInterpreterActor extends AbstractModuleInterpreterActor {
         }
     }
 
+    private static final class ContinuePortValue {
+        private final Index iteration;
+        private final boolean shouldContinue;
+
+        private ContinuePortValue(Index iteration, boolean shouldContinue) {
+            this.iteration = iteration;
+            this.shouldContinue = shouldContinue;
+        }
+    }
+
+    private static final class CopiedInPortToIteration {
+        private final Index iteration;
+        private final int inPortId;
+
+        private CopiedInPortToIteration(Index iteration, int inPortId) {
+            this.iteration = iteration;
+            this.inPortId = inPortId;
+        }
+    }
+
     private static final class FinishedLastIteration {
         private final Index iteration;
 
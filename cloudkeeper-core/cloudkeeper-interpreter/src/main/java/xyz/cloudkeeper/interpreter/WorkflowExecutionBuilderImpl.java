@@ -179,7 +179,8 @@ final class WorkflowExecutionBuilderImpl implements WorkflowExecutionBuilder {
 
             InterpreterProperties executionProperties = new InterpreterProperties(
                 cloudKeeperEnvironment.isCleaningRequested(), cloudKeeperEnvironment.getAdministrator(),
-                cloudKeeperEnvironment.getExecutor(), cloudKeeperEnvironment.getEventSubscriptions());
+                cloudKeeperEnvironment.getExecutor(), cloudKeeperEnvironment.getEventSubscriptions(),
+                cloudKeeperEnvironment.getMaxConcurrentElements(), cloudKeeperEnvironment.isLoopPipelining());
             final MasterInterpreterActorInterface.CreateExecution message
                 = new MasterInterpreterActorInterface.CreateExecution(
                     cloudKeeperEnvironment.getInstanceProviderActorPath(),
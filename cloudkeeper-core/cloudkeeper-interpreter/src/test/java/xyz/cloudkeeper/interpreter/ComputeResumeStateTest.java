@@ -108,7 +108,7 @@ public class ComputeResumeStateTest {
             .collect(Collectors.toSet());
         BitSet recomputedInPorts = testCase.recomputedInPorts;
 
-        Deque<ValueNode> queriedQueue = new ArrayDeque<>();
+        Deque<List<ValueNode>> queriedQueue = new ArrayDeque<>();
         ComputeResumeState computeResumeState
             = new ComputeResumeState(dependencyGraph, recomputedInPorts, queriedQueue::add);
 
@@ -123,7 +123,8 @@ public class ComputeResumeStateTest {
         } catch (IllegalStateException ignored) { }
 
         try {
-            computeResumeState.updateHasValue(dependencyGraph.outPortNodes().get(0), true);
+            computeResumeState.updateHasValues(
+                Collections.singletonList(dependencyGraph.outPortNodes().get(0)), new BitSet());
             Assert.fail(String.format(
                 "Updating value of dependency-graph node didn't fail, even though state was not %s.",
                 HasValue.PENDING_VALUE_CHECK
@@ -131,14 +132,23 @@ public class ComputeResumeStateTest {
         } catch (IllegalArgumentException ignored) { }
 
         computeResumeState.run();
+        Assert.assertTrue(
+            queriedQueue.size() <= 1,
+            "Expected at most one (bulk) query for the entire dependency graph."
+        );
         while (!queriedQueue.isEmpty()) {
-            ValueNode node = queriedQueue.poll();
-            computeResumeState.updateHasValue(node, executionTraceWithValue.contains(node.getExecutionTrace()));
+            List<ValueNode> nodes = queriedQueue.poll();
+            BitSet hasValues = new BitSet(nodes.size());
+            for (int i = 0; i < nodes.size(); ++i) {
+                hasValues.set(i, executionTraceWithValue.contains(nodes.get(i).getExecutionTrace()));
+            }
+            computeResumeState.updateHasValues(nodes, hasValues);
         }
         Assert.assertTrue(computeResumeState.isFinished());
 
         try {
-            computeResumeState.updateHasValue(dependencyGraph.outPortNodes().get(0), true);
+            computeResumeState.updateHasValues(
+                Collections.singletonList(dependencyGraph.outPortNodes().get(0)), new BitSet());
             Assert.fail(
                 "Updating value of dependency-graph node didn't fail, even though algorithm has already finished.");
         } catch (IllegalStateException ignored) { }
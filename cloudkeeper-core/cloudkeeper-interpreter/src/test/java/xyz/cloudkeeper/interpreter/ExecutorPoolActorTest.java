@@ -0,0 +1,163 @@
+package xyz.cloudkeeper.interpreter;
+
+import akka.actor.ActorRef;
+import akka.actor.ActorSystem;
+import akka.actor.Props;
+import akka.actor.Status.Failure;
+import akka.testkit.JavaTestKit;
+import akka.testkit.TestProbe;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.interpreter.ExecutorActorInterface.CancelExecution;
+import xyz.cloudkeeper.interpreter.ExecutorActorInterface.ExecuteTrace;
+import xyz.cloudkeeper.model.api.ExecutionException;
+import xyz.cloudkeeper.model.api.RuntimeStateProvider;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
+import xyz.cloudkeeper.model.immutable.element.Name;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+
+public class ExecutorPoolActorTest {
+    @Nullable private ActorSystem actorSystem;
+
+    @BeforeClass
+    public void setup() {
+        actorSystem = ActorSystem.create(getClass().getSimpleName());
+    }
+
+    @AfterClass
+    public void tearDown() {
+        assert actorSystem != null;
+        JavaTestKit.shutdownActorSystem(actorSystem);
+    }
+
+    private static SimpleModuleExecutorResult newResult() {
+        return new SimpleModuleExecutorResult.Builder(Name.qualifiedName(SimpleModuleExecutorResult.class.getName()))
+            .build();
+    }
+
+    @Test
+    public void capacityAndWorkStealing() {
+        assert actorSystem != null;
+        TestProbe firstNode = new TestProbe(actorSystem);
+        TestProbe secondNode = new TestProbe(actorSystem);
+        ActorRef pool = actorSystem.actorOf(Props.create(
+            new ExecutorPoolActorCreator.Builder()
+                .addNode(firstNode.ref(), 1)
+                .addNode(secondNode.ref(), 1)
+                .build()
+        ));
+
+        TestProbe[] submitters = { new TestProbe(actorSystem), new TestProbe(actorSystem), new TestProbe(actorSystem) };
+        for (TestProbe submitter: submitters) {
+            pool.tell(new ExecuteTrace(1, mock(RuntimeStateProvider.class)), submitter.ref());
+        }
+
+        // Both nodes are at capacity, so the third request is queued.
+        firstNode.expectMsgClass(ExecuteTrace.class);
+        secondNode.expectMsgClass(ExecuteTrace.class);
+        Assert.assertFalse(firstNode.msgAvailable());
+        Assert.assertFalse(secondNode.msgAvailable());
+
+        // The node that finishes first takes the queued request.
+        SimpleModuleExecutorResult result = newResult();
+        secondNode.reply(result);
+        secondNode.expectMsgClass(ExecuteTrace.class);
+        Assert.assertFalse(firstNode.msgAvailable());
+
+        int numResults = 0;
+        for (TestProbe submitter: submitters) {
+            if (submitter.msgAvailable()) {
+                submitter.expectMsg(result);
+                ++numResults;
+            }
+        }
+        Assert.assertEquals(numResults, 1);
+    }
+
+    @Test
+    public void locality() {
+        assert actorSystem != null;
+        TestProbe firstNode = new TestProbe(actorSystem);
+        TestProbe secondNode = new TestProbe(actorSystem);
+        RuntimeStateProvider localToSecond = mock(RuntimeStateProvider.class);
+        Map<RuntimeStateProvider, Set<String>> locations = new HashMap<>();
+        locations.put(localToSecond, Collections.singleton("second"));
+        ActorRef pool = actorSystem.actorOf(Props.create(
+            new ExecutorPoolActorCreator.Builder()
+                .addNode(firstNode.ref(), 2, "first")
+                .addNode(secondNode.ref(), 2, "second")
+                .setLocalityHints(runtimeStateProvider
+                    -> locations.getOrDefault(runtimeStateProvider, Collections.emptySet()))
+                .build()
+        ));
+
+        pool.tell(new ExecuteTrace(1, localToSecond), new TestProbe(actorSystem).ref());
+        Assert.assertSame(secondNode.expectMsgClass(ExecuteTrace.class).getRuntimeStateProvider(), localToSecond);
+        Assert.assertFalse(firstNode.msgAvailable());
+
+        // Without locality hint, the least loaded node is chosen.
+        RuntimeStateProvider noHint = mock(RuntimeStateProvider.class);
+        pool.tell(new ExecuteTrace(1, noHint), new TestProbe(actorSystem).ref());
+        Assert.assertSame(firstNode.expectMsgClass(ExecuteTrace.class).getRuntimeStateProvider(), noHint);
+    }
+
+    @Test
+    public void cancellationAndNodeFailure() {
+        assert actorSystem != null;
+        TestProbe node = new TestProbe(actorSystem);
+        ActorRef pool = actorSystem.actorOf(Props.create(
+            new ExecutorPoolActorCreator.Builder()
+                .addNode(node.ref(), 1)
+                .build()
+        ));
+
+        TestProbe running = new TestProbe(actorSystem);
+        TestProbe queued = new TestProbe(actorSystem);
+        pool.tell(new ExecuteTrace(1, mock(RuntimeStateProvider.class)), running.ref());
+        pool.tell(new ExecuteTrace(1, mock(RuntimeStateProvider.class)), queued.ref());
+        node.expectMsgClass(ExecuteTrace.class);
+        ActorRef relay = node.sender();
+
+        // A queued request is cancelled by the pool itself.
+        pool.tell(new CancelExecution("test"), queued.ref());
+        Assert.assertTrue(queued.expectMsgClass(Failure.class).cause() instanceof ExecutionException);
+
+        // A running request is cancelled by the node, on behalf of the same sender as the original request.
+        pool.tell(new CancelExecution("test"), running.ref());
+        node.expectMsg(new CancelExecution("test"));
+        Assert.assertEquals(node.sender(), relay);
+
+        // If the node terminates, the running request fails.
+        actorSystem.stop(node.ref());
+        Assert.assertTrue(running.expectMsgClass(Failure.class).cause() instanceof ExecutionException);
+    }
+
+    @Test
+    public void badArguments() {
+        assert actorSystem != null;
+        ExecutorPoolActorCreator.Builder builder = new ExecutorPoolActorCreator.Builder();
+        try {
+            builder.build();
+            Assert.fail();
+        } catch (IllegalStateException ignored) { }
+
+        try {
+            builder.addNode(new TestProbe(actorSystem).ref(), 0);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+
+        try {
+            builder.setLocalityWindow(-1);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+    }
+}
@@ -118,7 +118,9 @@ final class ModuleInterpretation implements AutoCloseable {
             builder.cleaning,
             administratorProbe.ref(),
             executorProbe.ref(),
-            ImmutableList.of(new EventSubscription(eventProbe.ref()))
+            ImmutableList.of(new EventSubscription(eventProbe.ref())),
+            CloudKeeperEnvironmentBuilder.DEFAULT_MAX_CONCURRENT_ELEMENTS,
+            false
         );
         InterpreterEventBus eventBus = new InterpreterEventBus();
         interpreterProperties.getEventSubscriptions()
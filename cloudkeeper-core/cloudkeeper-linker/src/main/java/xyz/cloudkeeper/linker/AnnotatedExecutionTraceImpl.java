@@ -14,19 +14,15 @@ import xyz.cloudkeeper.model.immutable.element.SimpleName;
 import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.IllegalExecutionTraceException;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
-import xyz.cloudkeeper.model.runtime.execution.RuntimeElementPatternTarget;
-import xyz.cloudkeeper.model.runtime.execution.RuntimeElementTarget;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace;
-import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTracePatternTarget;
-import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTraceTarget;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTraceVisitor;
-import xyz.cloudkeeper.model.runtime.execution.RuntimeOverrideTargetVisitor;
 import xyz.cloudkeeper.model.util.ImmutableList;
 
 import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -34,24 +30,36 @@ import java.util.Objects;
 import java.util.Set;
 
 final class AnnotatedExecutionTraceImpl extends AbstractFreezable implements RuntimeAnnotatedExecutionTrace {
+    /**
+     * Types of execution traces that represent an element (as opposed to, e.g., an iteration).
+     */
+    private static final Set<Type> ELEMENT_TYPES = Collections.unmodifiableSet(
+        EnumSet.of(Type.MODULE, Type.IN_PORT, Type.OUT_PORT));
+
     private final ExecutionTrace executionTrace;
     private final IElementImpl element;
     private final ImmutableList<OverrideImpl> overrides;
 
+    /**
+     * Index of {@link #overrides}, shared by all annotated execution traces resolved from the same root. Created lazily
+     * for the root, because override targets are not finished when the root is.
+     */
+    @Nullable private volatile OverrideIndex overrideIndex;
+
     private ImmutableList<SerializationDeclarationImpl> defaultSerializationDeclarations;
 
     /**
      * Constructor for effectively immutable instances (already frozen at construction time).
      */
-    AnnotatedExecutionTraceImpl(ExecutionTrace executionTrace, IElementImpl element,
-            List<OverrideImpl> overrides,
+    AnnotatedExecutionTraceImpl(ExecutionTrace executionTrace, IElementImpl element, OverrideIndex overrideIndex,
             List<SerializationDeclarationImpl> defaultSerializationDeclarations) {
         super(State.PRECOMPUTED, null);
         assert !executionTrace.isEmpty() || element instanceof ModuleImpl;
 
         this.executionTrace = executionTrace;
         this.element = element;
-        this.overrides = ImmutableList.copyOf(overrides);
+        overrides = overrideIndex.getOverrides();
+        this.overrideIndex = overrideIndex;
         this.defaultSerializationDeclarations = ImmutableList.copyOf(defaultSerializationDeclarations);
     }
 
@@ -177,77 +185,18 @@ final class AnnotatedExecutionTraceImpl extends AbstractFreezable implements Run
         return overrides;
     }
 
-    private enum MatchExecutionTraceVisitor implements RuntimeOverrideTargetVisitor<Boolean, ExecutionTrace> {
-        INSTANCE;
-
-        @Override
-        public Boolean visitElementTarget(RuntimeElementTarget target, @Nullable ExecutionTrace current) {
-            return Boolean.FALSE;
-        }
-
-        @Override
-        public Boolean visitElementPatternTarget(RuntimeElementPatternTarget target, @Nullable ExecutionTrace current) {
-            return Boolean.FALSE;
-        }
-
-        @Override
-        public Boolean visitExecutionTraceTarget(RuntimeExecutionTraceTarget target, @Nullable ExecutionTrace current) {
-            return ExecutionTrace.copyOf(target.getExecutionTrace()).equals(current);
-        }
-
-        @Override
-        public Boolean visitExecutionTracePatternTarget(RuntimeExecutionTracePatternTarget target,
-                @Nullable ExecutionTrace current) {
-            assert current != null;
-            return target.getPattern().matcher(current.toString()).matches();
-        }
-    }
-
-    private enum MatchElementVisitor implements RuntimeOverrideTargetVisitor<Boolean, Name> {
-        INSTANCE;
-
-        @Override
-        public Boolean visitElementTarget(RuntimeElementTarget target, @Nullable Name current) {
-            assert current != null;
-            return target.getElement().getQualifiedName().equals(current);
-        }
-
-        @Override
-        public Boolean visitElementPatternTarget(RuntimeElementPatternTarget target, @Nullable Name current) {
-            assert current != null;
-            return target.getPattern().matcher(current.toString()).matches();
-        }
-
-        @Override
-        public Boolean visitExecutionTraceTarget(RuntimeExecutionTraceTarget target, @Nullable Name current) {
-            return Boolean.FALSE;
-        }
-
-        @Override
-        public Boolean visitExecutionTracePatternTarget(RuntimeExecutionTracePatternTarget target,
-                @Nullable Name current) {
-            return Boolean.FALSE;
-        }
-    }
-
-    @Nullable
-    private <P> AnnotationImpl findAnnotation(Name annotationTypeName,
-            RuntimeOverrideTargetVisitor<Boolean, P> visitor, P parameter) {
-        @Nullable AnnotationImpl annotation = null;
-        for (OverrideImpl override: overrides) {
-            for (OverrideTargetImpl target: override.getTargets()) {
-                if (Boolean.TRUE.equals(target.accept(visitor, parameter))) {
-                    annotation = override.getDeclaredAnnotation(annotationTypeName);
-
-                    // Break out of target loop: One target was a match, so no need to check the other targets of this
-                    // override any more.
-                    break;
-                }
-            }
-            // The current execution trace or element may be matched by multiple overrides. In this case, the latest
-            // override has precedence. Hence, no break here.
+    /**
+     * Returns the override index, creating it if necessary.
+     */
+    private OverrideIndex overrideIndex() {
+        require(State.FINISHED);
+        @Nullable OverrideIndex localOverrideIndex = overrideIndex;
+        if (localOverrideIndex == null) {
+            // Benign race: Concurrent callers may create equivalent indices, only one of which is retained.
+            localOverrideIndex = new OverrideIndex(overrides);
+            overrideIndex = localOverrideIndex;
         }
-        return annotation;
+        return localOverrideIndex;
     }
 
     /**
@@ -263,11 +212,18 @@ final class AnnotatedExecutionTraceImpl extends AbstractFreezable implements Run
      */
     @Nullable
     private AnnotationImpl getAnnotationForElement(IElementImpl element, Name annotationTypeName) {
+        OverrideIndex index = overrideIndex();
+        return index.memoizedAnnotation(element, annotationTypeName,
+            () -> computeAnnotationForElement(index, element, annotationTypeName));
+    }
+
+    @Nullable
+    private static AnnotationImpl computeAnnotationForElement(OverrideIndex index, IElementImpl element,
+            Name annotationTypeName) {
         @Nullable IElementImpl currentElement = element;
         @Nullable AnnotationImpl annotation;
         do {
-            annotation = findAnnotation(
-                annotationTypeName, MatchElementVisitor.INSTANCE, currentElement.getQualifiedName());
+            annotation = index.findAnnotation(currentElement.getQualifiedName(), annotationTypeName);
             if (annotation == null) {
                 annotation = currentElement.getDeclaredAnnotation(annotationTypeName);
             }
@@ -280,16 +236,23 @@ final class AnnotatedExecutionTraceImpl extends AbstractFreezable implements Run
     @Override
     @Nullable
     public AnnotationImpl getAnnotation(Name annotationTypeName) {
+        return overrideIndex().memoizedAnnotation(executionTrace, annotationTypeName,
+            () -> computeAnnotation(annotationTypeName));
+    }
+
+    @Nullable
+    private AnnotationImpl computeAnnotation(Name annotationTypeName) {
+        OverrideIndex index = overrideIndex();
         ExecutionTrace currentExecutionTrace = executionTrace;
         @Nullable AnnotationImpl annotation = null;
         while (annotation == null) {
-            annotation = findAnnotation(annotationTypeName, MatchExecutionTraceVisitor.INSTANCE, currentExecutionTrace);
+            annotation = index.findAnnotation(currentExecutionTrace, annotationTypeName);
 
             // Special case: An absolute empty execution trace always represents a MODULE. However, ExecutionTrace
             // represents a potentially relative execution trace, so getType() cannot be called on an empty
             // ExecutionTrace.
             if (currentExecutionTrace.isEmpty()
-                    || EnumSet.of(Type.MODULE, Type.IN_PORT, Type.OUT_PORT).contains(currentExecutionTrace.getType())) {
+                    || ELEMENT_TYPES.contains(currentExecutionTrace.getType())) {
                 break;
             }
             currentExecutionTrace = currentExecutionTrace.subtrace(0, currentExecutionTrace.asElementList().size() - 1);
@@ -410,21 +373,21 @@ final class AnnotatedExecutionTraceImpl extends AbstractFreezable implements Run
             ));
         }
 
-        return new AnnotatedExecutionTraceImpl(newExecutionTrace, newModule, overrides,
+        return new AnnotatedExecutionTraceImpl(newExecutionTrace, newModule, overrideIndex(),
             defaultSerializationDeclarations);
     }
 
     @Override
     public AnnotatedExecutionTraceImpl resolveIteration(Index index) {
         require(State.FINISHED);
-        return new AnnotatedExecutionTraceImpl(executionTrace.resolveIteration(index), element, overrides,
+        return new AnnotatedExecutionTraceImpl(executionTrace.resolveIteration(index), element, overrideIndex(),
             defaultSerializationDeclarations);
     }
 
     @Override
     public AnnotatedExecutionTraceImpl resolveContent() {
         require(State.FINISHED);
-        return new AnnotatedExecutionTraceImpl(executionTrace.resolveContent(), element, overrides,
+        return new AnnotatedExecutionTraceImpl(executionTrace.resolveContent(), element, overrideIndex(),
             defaultSerializationDeclarations);
     }
 
@@ -442,7 +405,7 @@ final class AnnotatedExecutionTraceImpl extends AbstractFreezable implements Run
             ));
         }
 
-        return new AnnotatedExecutionTraceImpl(newExecutionTrace, inPort, overrides,
+        return new AnnotatedExecutionTraceImpl(newExecutionTrace, inPort, overrideIndex(),
             defaultSerializationDeclarations);
     }
 
@@ -460,14 +423,14 @@ final class AnnotatedExecutionTraceImpl extends AbstractFreezable implements Run
             ));
         }
 
-        return new AnnotatedExecutionTraceImpl(newExecutionTrace, outPort, overrides,
+        return new AnnotatedExecutionTraceImpl(newExecutionTrace, outPort, overrideIndex(),
             defaultSerializationDeclarations);
     }
 
     @Override
     public AnnotatedExecutionTraceImpl resolveArrayIndex(Index index) {
         require(State.FINISHED);
-        return new AnnotatedExecutionTraceImpl(executionTrace.resolveArrayIndex(index), element, overrides,
+        return new AnnotatedExecutionTraceImpl(executionTrace.resolveArrayIndex(index), element, overrideIndex(),
             defaultSerializationDeclarations);
     }
 
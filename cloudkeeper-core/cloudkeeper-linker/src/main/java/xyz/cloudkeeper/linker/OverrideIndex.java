@@ -0,0 +1,279 @@
+package xyz.cloudkeeper.linker;
+
+import xyz.cloudkeeper.model.immutable.element.Name;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeElementPatternTarget;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeElementTarget;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTracePatternTarget;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTraceTarget;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeOverrideTargetVisitor;
+import xyz.cloudkeeper.model.util.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Index of the targets of a list of overrides, together with memoized annotation lookups.
+ *
+ * <p>An override index is created once for the overrides of a root {@link AnnotatedExecutionTraceImpl}, and it is
+ * shared by all annotated execution traces resolved from the root. Lookups therefore do not need to visit every target
+ * of every override. Instead, execution-trace targets and element targets are kept in hash maps, and pattern targets
+ * are kept in reverse override order, so that the search can stop at the first match (or as soon as a later
+ * override has already been found through a hash map).
+ *
+ * <p>Consistent with the previous linear search, if multiple overrides match, the latest override has precedence (even
+ * if it does not declare the requested annotation).
+ *
+ * <p>Instances of this class are thread-safe.
+ */
+final class OverrideIndex {
+    /**
+     * Maximum number of entries in each memoization map. Once a map is full, lookups are still correct but no longer
+     * memoized. This bounds the memory consumption for very long executions.
+     */
+    private static final int MAX_CACHE_SIZE = 1 << 16;
+
+    private static final int NO_MATCH = -1;
+
+    private final ImmutableList<OverrideImpl> overrides;
+    private final Map<ExecutionTrace, Integer> executionTraceTargets = new HashMap<>();
+    private final Map<Name, Integer> elementTargets = new HashMap<>();
+    private final List<PatternTarget> executionTracePatternTargets;
+    private final List<PatternTarget> elementPatternTargets;
+
+    private final ConcurrentHashMap<ExecutionTrace, Integer> executionTraceMatches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Name, Integer> elementMatches = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<CacheKey, Optional<AnnotationImpl>> annotations = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new override index.
+     *
+     * <p>All overrides (including their targets) must be in state {@link AbstractFreezable.State#FINISHED} or later.
+     *
+     * @param overrides the overrides
+     */
+    OverrideIndex(ImmutableList<OverrideImpl> overrides) {
+        this.overrides = overrides;
+        List<PatternTarget> newExecutionTracePatternTargets = new ArrayList<>();
+        List<PatternTarget> newElementPatternTargets = new ArrayList<>();
+        IndexVisitor visitor = new IndexVisitor(newExecutionTracePatternTargets, newElementPatternTargets);
+        for (int position = 0; position < overrides.size(); ++position) {
+            for (OverrideTargetImpl target: overrides.get(position).getTargets()) {
+                target.accept(visitor, position);
+            }
+        }
+        Collections.reverse(newExecutionTracePatternTargets);
+        Collections.reverse(newElementPatternTargets);
+        executionTracePatternTargets = ImmutableList.copyOf(newExecutionTracePatternTargets);
+        elementPatternTargets = ImmutableList.copyOf(newElementPatternTargets);
+    }
+
+    private static final class PatternTarget {
+        private final int position;
+        private final Pattern pattern;
+
+        private PatternTarget(int position, Pattern pattern) {
+            this.position = position;
+            this.pattern = pattern;
+        }
+    }
+
+    private final class IndexVisitor implements RuntimeOverrideTargetVisitor<Void, Integer> {
+        private final List<PatternTarget> newExecutionTracePatternTargets;
+        private final List<PatternTarget> newElementPatternTargets;
+
+        private IndexVisitor(List<PatternTarget> newExecutionTracePatternTargets,
+                List<PatternTarget> newElementPatternTargets) {
+            this.newExecutionTracePatternTargets = newExecutionTracePatternTargets;
+            this.newElementPatternTargets = newElementPatternTargets;
+        }
+
+        @Override
+        @Nullable
+        public Void visitElementTarget(RuntimeElementTarget target, @Nullable Integer position) {
+            assert position != null;
+            elementTargets.put(target.getElement().getQualifiedName(), position);
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public Void visitElementPatternTarget(RuntimeElementPatternTarget target, @Nullable Integer position) {
+            assert position != null;
+            newElementPatternTargets.add(new PatternTarget(position, target.getPattern()));
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public Void visitExecutionTraceTarget(RuntimeExecutionTraceTarget target, @Nullable Integer position) {
+            assert position != null;
+            executionTraceTargets.put(ExecutionTrace.copyOf(target.getExecutionTrace()), position);
+            return null;
+        }
+
+        @Override
+        @Nullable
+        public Void visitExecutionTracePatternTarget(RuntimeExecutionTracePatternTarget target,
+                @Nullable Integer position) {
+            assert position != null;
+            newExecutionTracePatternTargets.add(new PatternTarget(position, target.getPattern()));
+            return null;
+        }
+    }
+
+    /**
+     * Key for memoized annotation lookups. The first component is either an {@link ExecutionTrace} (compared by
+     * equality) or an {@link IElementImpl} (compared by identity).
+     */
+    private static final class CacheKey {
+        private final Object object;
+        private final boolean identity;
+        private final Name annotationTypeName;
+
+        private CacheKey(Object object, boolean identity, Name annotationTypeName) {
+            this.object = object;
+            this.identity = identity;
+            this.annotationTypeName = annotationTypeName;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object otherObject) {
+            if (this == otherObject) {
+                return true;
+            } else if (otherObject == null || getClass() != otherObject.getClass()) {
+                return false;
+            }
+
+            CacheKey other = (CacheKey) otherObject;
+            return identity == other.identity
+                && (identity ? object == other.object : object.equals(other.object))
+                && annotationTypeName.equals(other.annotationTypeName);
+        }
+
+        @Override
+        public int hashCode() {
+            int objectHash = identity
+                ? System.identityHashCode(object)
+                : object.hashCode();
+            return 31 * objectHash + annotationTypeName.hashCode();
+        }
+    }
+
+    ImmutableList<OverrideImpl> getOverrides() {
+        return overrides;
+    }
+
+    private static <K> void putIfNotFull(ConcurrentHashMap<K, Integer> map, K key, int value) {
+        if (map.size() < MAX_CACHE_SIZE) {
+            map.putIfAbsent(key, value);
+        }
+    }
+
+    /**
+     * Returns the position of the latest override with a target matching the given key, or {@link #NO_MATCH} if there
+     * is no such override.
+     */
+    private static <K> int latestMatch(K key, Map<K, Integer> exactTargets, List<PatternTarget> patternTargets) {
+        @Nullable Integer exactMatch = exactTargets.get(key);
+        int latest = exactMatch == null
+            ? NO_MATCH
+            : exactMatch;
+        if (!patternTargets.isEmpty() && patternTargets.get(0).position > latest) {
+            String string = key.toString();
+            for (PatternTarget patternTarget: patternTargets) {
+                if (patternTarget.position <= latest) {
+                    break;
+                } else if (patternTarget.pattern.matcher(string).matches()) {
+                    latest = patternTarget.position;
+                    break;
+                }
+            }
+        }
+        return latest;
+    }
+
+    @Nullable
+    private AnnotationImpl declaredAnnotation(int position, Name annotationTypeName) {
+        return position == NO_MATCH
+            ? null
+            : overrides.get(position).getDeclaredAnnotation(annotationTypeName);
+    }
+
+    /**
+     * Returns the annotation of the given type declared by the latest override that matches the given execution trace
+     * (through an execution-trace target or an execution-trace pattern target), or {@code null} if the latest matching
+     * override does not declare such an annotation or if there is no matching override.
+     */
+    @Nullable
+    AnnotationImpl findAnnotation(ExecutionTrace executionTrace, Name annotationTypeName) {
+        if (overrides.isEmpty()) {
+            return null;
+        }
+        @Nullable Integer position = executionTraceMatches.get(executionTrace);
+        if (position == null) {
+            position = latestMatch(executionTrace, executionTraceTargets, executionTracePatternTargets);
+            putIfNotFull(executionTraceMatches, executionTrace, position);
+        }
+        return declaredAnnotation(position, annotationTypeName);
+    }
+
+    /**
+     * Returns the annotation of the given type declared by the latest override that matches the given qualified name
+     * (through an element target or an element pattern target), or {@code null} if the latest matching override does
+     * not declare such an annotation or if there is no matching override.
+     */
+    @Nullable
+    AnnotationImpl findAnnotation(Name qualifiedName, Name annotationTypeName) {
+        if (overrides.isEmpty()) {
+            return null;
+        }
+        @Nullable Integer position = elementMatches.get(qualifiedName);
+        if (position == null) {
+            position = latestMatch(qualifiedName, elementTargets, elementPatternTargets);
+            putIfNotFull(elementMatches, qualifiedName, position);
+        }
+        return declaredAnnotation(position, annotationTypeName);
+    }
+
+    @Nullable
+    private AnnotationImpl memoize(CacheKey key, Supplier<AnnotationImpl> supplier) {
+        @Nullable Optional<AnnotationImpl> annotation = annotations.get(key);
+        if (annotation == null) {
+            annotation = Optional.ofNullable(supplier.get());
+            if (annotations.size() < MAX_CACHE_SIZE) {
+                annotations.putIfAbsent(key, annotation);
+            }
+        }
+        return annotation.orElse(null);
+    }
+
+    /**
+     * Returns the memoized result of the given supplier for the given execution trace and annotation type.
+     *
+     * <p>Since an override index is shared only by annotated execution traces resolved from the same root, the
+     * execution trace uniquely identifies the element it represents.
+     */
+    @Nullable
+    AnnotationImpl memoizedAnnotation(ExecutionTrace executionTrace, Name annotationTypeName,
+            Supplier<AnnotationImpl> supplier) {
+        return memoize(new CacheKey(executionTrace, false, annotationTypeName), supplier);
+    }
+
+    /**
+     * Returns the memoized result of the given supplier for the given element and annotation type.
+     */
+    @Nullable
+    AnnotationImpl memoizedAnnotation(IElementImpl element, Name annotationTypeName,
+            Supplier<AnnotationImpl> supplier) {
+        return memoize(new CacheKey(element, true, annotationTypeName), supplier);
+    }
+}
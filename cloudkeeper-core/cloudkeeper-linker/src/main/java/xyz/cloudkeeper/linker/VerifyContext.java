@@ -155,7 +155,7 @@ final class VerifyContext {
         // TODO: Rethink use of AnnotatedExecutionTraceImpl. Might break for default arguments in the future.
         AnnotatedExecutionTraceImpl emptyAbsoluteTrace
             = new AnnotatedExecutionTraceImpl(ExecutionTrace.empty(), inputModule,
-                ImmutableList.<OverrideImpl>of(), linker.getDefaultSerializationDeclarations());
+                new OverrideIndex(ImmutableList.of()), linker.getDefaultSerializationDeclarations());
         AnnotatedExecutionTraceImpl portAbsoluteTrace;
 
         // Each port is either an out-port, an in-port, or both. If it's both (that is, an I/O port), it's fine to
@@ -9,6 +9,7 @@ import xyz.cloudkeeper.linker.examples.Memory;
 import xyz.cloudkeeper.model.LinkerException;
 import xyz.cloudkeeper.model.bare.element.BareSimpleNameable;
 import xyz.cloudkeeper.model.beans.element.module.MutableProxyModule;
+import xyz.cloudkeeper.model.beans.execution.MutableExecutionTracePatternTarget;
 import xyz.cloudkeeper.model.beans.execution.MutableExecutionTraceTarget;
 import xyz.cloudkeeper.model.beans.execution.MutableOverride;
 import xyz.cloudkeeper.model.beans.execution.MutableOverrideTarget;
@@ -21,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
 public class AbsoluteExecutionTraceTest {
     private RepositoryImpl fibRepository;
@@ -114,5 +116,54 @@ public class AbsoluteExecutionTraceTest {
             sumTrace.getOutPort();
             Assert.fail();
         } catch (IllegalStateException ignored) { }
+
+        ExecutionTrace sumTraceCopy = ExecutionTrace.copyOf(sumTrace);
+        Assert.assertEquals(sumTraceCopy, ExecutionTrace.valueOf("/loop/sum"));
+        Assert.assertEquals(sumTraceCopy.hashCode(), ExecutionTrace.valueOf("/loop/sum").hashCode());
+        Assert.assertEquals(ExecutionTrace.copyOf(root), ExecutionTrace.empty());
+        Assert.assertEquals(ExecutionTrace.copyOf(root.resolveContent()), ExecutionTrace.empty().resolveContent());
+    }
+
+    private static MutableOverride memoryOverride(MutableOverrideTarget<?> target, int memory) {
+        return new MutableOverride()
+            .setTargets(Collections.<MutableOverrideTarget<?>>singletonList(target))
+            .setDeclaredAnnotations(Collections.singletonList(Memory.Beans.createAnnotation(memory, "MiB")));
+    }
+
+    /**
+     * Verifies that if multiple overrides match an execution trace, the latest one has precedence, irrespective of
+     * whether it matches by execution trace or by pattern.
+     */
+    @Test
+    public void overridePrecedence() throws LinkerException {
+        RuntimeAnnotatedExecutionTrace root = Linker.createAnnotatedExecutionTrace(
+            ExecutionTrace.empty(),
+            new MutableProxyModule()
+                .setDeclaration(Fibonacci.class.getName()),
+            Arrays.asList(
+                memoryOverride(new MutableExecutionTraceTarget().setExecutionTrace("/loop/sum"), 1),
+                memoryOverride(new MutableExecutionTracePatternTarget().setPattern(Pattern.compile(".*/sum")), 2),
+                memoryOverride(new MutableExecutionTraceTarget().setExecutionTrace("/zero"), 3),
+                memoryOverride(new MutableExecutionTracePatternTarget().setPattern(Pattern.compile("/z.*")), 4),
+                memoryOverride(new MutableExecutionTraceTarget().setExecutionTrace("/zero"), 5)
+            ),
+            fibRepository,
+            linkerOptions
+        );
+
+        for (int i = 0; i < 2; ++i) {
+            // Second iteration verifies that memoized results are consistent.
+            RuntimeAnnotatedExecutionTrace sumTrace = root.resolveContent()
+                .resolveModule(SimpleName.identifier("loop")).resolveContent()
+                .resolveModule(SimpleName.identifier("sum"));
+            Assert.assertEquals(sumTrace.getAnnotation(Memory.class).value(), 2);
+
+            RuntimeAnnotatedExecutionTrace zeroTrace
+                = root.resolveContent().resolveModule(SimpleName.identifier("zero"));
+            Assert.assertEquals(zeroTrace.getAnnotation(Memory.class).value(), 5);
+            // The out-port is only matched by the pattern.
+            Assert.assertEquals(zeroTrace.resolveOutPort(SimpleName.identifier("value")).getAnnotation(Memory.class)
+                .value(), 4);
+        }
     }
 }
@@ -12,7 +12,6 @@ import xyz.cloudkeeper.model.api.Marshaler;
 import xyz.cloudkeeper.model.api.MarshalingException;
 import xyz.cloudkeeper.model.immutable.element.Key;
 import xyz.cloudkeeper.model.immutable.element.NoKey;
-import xyz.cloudkeeper.model.util.ImmutableList;
 
 import javax.annotation.Nullable;
 import java.io.FilterOutputStream;
@@ -35,12 +34,14 @@ import java.util.Set;
  *
  * <p>Instances of this marshal context have a list of {@link Marshaler} instances, and when creating a sub-context, the
  * first instance <em>capable of</em> marshaling the object passed to {@link #writeObject(Object, Key)} will be used.
+ * All contexts in a tree of marshal contexts share the same {@link MarshalerDispatcher}, so that the marshaler for each
+ * runtime class is typically determined only once, regardless of the number of objects written.
  */
 public final class DelegatingMarshalContext implements MarshalContext {
     private final Key contextKey;
     private final MarshalTarget marshalTarget;
     private final Set<Key> entries = new HashSet<>();
-    private final ImmutableList<Marshaler<?>> marshalers;
+    private final MarshalerDispatcher marshalerDispatcher;
     private final NodeVisitor nodeVisitor = new NodeVisitor();
 
     private final Marshaler<?> marshaler;
@@ -51,11 +52,11 @@ public final class DelegatingMarshalContext implements MarshalContext {
     private boolean marshalTargetStarted = false;
 
     private DelegatingMarshalContext(Key contextKey, MarshalTarget marshalTarget, Marshaler<?> marshaler,
-            ImmutableList<Marshaler<?>> marshalers, @Nullable DelegatingMarshalContext ancestor) {
+            MarshalerDispatcher marshalerDispatcher, @Nullable DelegatingMarshalContext ancestor) {
         this.contextKey = contextKey;
         this.marshalTarget = marshalTarget;
         this.marshaler = marshaler;
-        this.marshalers = marshalers;
+        this.marshalerDispatcher = marshalerDispatcher;
         this.ancestor = ancestor;
     }
 
@@ -74,11 +75,30 @@ public final class DelegatingMarshalContext implements MarshalContext {
      */
     public static DelegatingMarshalContext create(Marshaler<?> currentMarshaler,
             Collection<? extends Marshaler<?>> marshalers, MarshalTarget marshalTarget) {
-        Objects.requireNonNull(currentMarshaler);
         Objects.requireNonNull(marshalers);
+        return create(currentMarshaler, MarshalerDispatcher.of(marshalers), marshalTarget);
+    }
+
+    /**
+     * Creates a new marshal context that delegates elementary marshal operations to the given marshal target.
+     *
+     * <p>This method is equivalent to {@link #create(Marshaler, Collection, MarshalTarget)}, except that the
+     * marshalers are given by a {@link MarshalerDispatcher}, which may be shared between many marshal operations.
+     *
+     * @param currentMarshaler {@link Marshaler} instance that will receive the returned marshal context as argument to
+     *     {@link Marshaler#put(Object, MarshalContext)}
+     * @param marshalerDispatcher dispatcher that chooses the {@link Marshaler} instance when a marshaler invokes
+     *     {@link MarshalContext#writeObject(Object, Key)} recursively
+     * @param marshalTarget marshal target used for elementary marshal operations
+     * @return the new marshal context
+     */
+    public static DelegatingMarshalContext create(Marshaler<?> currentMarshaler,
+            MarshalerDispatcher marshalerDispatcher, MarshalTarget marshalTarget) {
+        Objects.requireNonNull(currentMarshaler);
+        Objects.requireNonNull(marshalerDispatcher);
         Objects.requireNonNull(marshalTarget);
-        return new DelegatingMarshalContext(NoKey.instance(), marshalTarget, currentMarshaler,
-            ImmutableList.copyOf(marshalers), null);
+        return new DelegatingMarshalContext(NoKey.instance(), marshalTarget, currentMarshaler, marshalerDispatcher,
+            null);
     }
 
     /**
@@ -102,11 +122,30 @@ public final class DelegatingMarshalContext implements MarshalContext {
      */
     public static void marshal(Object object, Collection<? extends Marshaler<?>> marshalers,
             MarshalTarget marshalTarget) throws IOException {
-        Objects.requireNonNull(object);
         Objects.requireNonNull(marshalers);
+        marshal(object, MarshalerDispatcher.of(marshalers), marshalTarget);
+    }
+
+    /**
+     * Marshals an object using the given marshal target.
+     *
+     * <p>This method is equivalent to {@link #marshal(Object, Collection, MarshalTarget)}, except that the marshalers
+     * are given by a {@link MarshalerDispatcher}, which may be shared between many marshal operations.
+     *
+     * @param object object to marshal
+     * @param marshalerDispatcher dispatcher that chooses the {@link Marshaler} instance for the given object and
+     *     whenever a marshaler invokes {@link MarshalContext#writeObject(Object, Key)} recursively
+     * @param marshalTarget marshal target used for elementary marshal operations
+     * @throws MarshalingException if a marshaling error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    public static void marshal(Object object, MarshalerDispatcher marshalerDispatcher, MarshalTarget marshalTarget)
+            throws IOException {
+        Objects.requireNonNull(object);
+        Objects.requireNonNull(marshalerDispatcher);
         Objects.requireNonNull(marshalTarget);
-        Marshaler<?> marshaler = findMarshaler(object, marshalers);
-        try (DelegatingMarshalContext marshalContext = create(marshaler, marshalers, marshalTarget)) {
+        Marshaler<?> marshaler = marshalerDispatcher.findMarshaler(object);
+        try (DelegatingMarshalContext marshalContext = create(marshaler, marshalerDispatcher, marshalTarget)) {
             marshalContext.acceptObject(object);
         }
     }
@@ -136,11 +175,31 @@ public final class DelegatingMarshalContext implements MarshalContext {
      */
     public static void processMarshalingTree(ObjectNode tree, Collection<? extends Marshaler<?>> marshalers,
             MarshalTarget marshalTarget) throws IOException {
-        Objects.requireNonNull(tree);
         Objects.requireNonNull(marshalers);
+        processMarshalingTree(tree, MarshalerDispatcher.of(marshalers), marshalTarget);
+    }
+
+    /**
+     * Writes the given marshaling tree to the given marshal target.
+     *
+     * <p>This method is equivalent to {@link #processMarshalingTree(ObjectNode, Collection, MarshalTarget)}, except
+     * that the marshalers are given by a {@link MarshalerDispatcher}, which may be shared between many marshal
+     * operations.
+     *
+     * @param tree marshaling tree that needs to be transformed and marshaled
+     * @param marshalerDispatcher dispatcher that chooses the {@link Marshaler} instance for raw object nodes and
+     *     whenever a marshaler invokes {@link MarshalContext#writeObject(Object, Key)} recursively
+     * @param marshalTarget marshal target for elementary marshal operations
+     * @throws MarshalingException if a marshaling error occurs
+     * @throws IOException if an I/O error occurs
+     */
+    public static void processMarshalingTree(ObjectNode tree, MarshalerDispatcher marshalerDispatcher,
+            MarshalTarget marshalTarget) throws IOException {
+        Objects.requireNonNull(tree);
+        Objects.requireNonNull(marshalerDispatcher);
         Objects.requireNonNull(marshalTarget);
-        Marshaler<?> marshaler = findMarshalerForObjectNode(tree, marshalers);
-        try (DelegatingMarshalContext marshalContext = create(marshaler, marshalers, marshalTarget)) {
+        Marshaler<?> marshaler = findMarshalerForObjectNode(tree, marshalerDispatcher);
+        try (DelegatingMarshalContext marshalContext = create(marshaler, marshalerDispatcher, marshalTarget)) {
             marshalContext.acceptTree(tree);
         }
     }
@@ -148,6 +207,10 @@ public final class DelegatingMarshalContext implements MarshalContext {
     /**
      * Returns the first marshaler (in iteration order) that is capable of marshaling the given object.
      *
+     * <p>This method calls {@link Marshaler#canHandle(Object)} for each marshaler until a capable one is found. If the
+     * same collection of marshalers is used repeatedly, {@link MarshalerDispatcher#findMarshaler(Object)} is more
+     * efficient.
+     *
      * @param object object that the returned marshaler must be capable of handling
      * @param marshalers collection of marshalers
      * @return the marshaler
@@ -168,11 +231,11 @@ public final class DelegatingMarshalContext implements MarshalContext {
     }
 
     private static Marshaler<?> findMarshalerForObjectNode(ObjectNode objectNode,
-            Collection<? extends Marshaler<?>> marshalers) throws MarshalingException {
+            MarshalerDispatcher marshalerDispatcher) throws MarshalingException {
         @Nullable Marshaler<?> nodeMarshaller = objectNode.getMarshaler();
         assert objectNode instanceof RawObjectNode || nodeMarshaller != null;
         return nodeMarshaller == null
-            ? findMarshaler(((RawObjectNode) objectNode).getObject(), marshalers)
+            ? marshalerDispatcher.findMarshaler(((RawObjectNode) objectNode).getObject())
             : nodeMarshaller;
     }
 
@@ -262,8 +325,12 @@ public final class DelegatingMarshalContext implements MarshalContext {
         @Nullable DelegatingMarshalContext currentContext = this;
         do {
             marshalerChain.addFirst(currentContext.marshaler);
+            if (!(currentContext.contextKey instanceof NoKey)) {
+                // Only marshalers that delegated to the current context with an empty key are part of the chain.
+                break;
+            }
             currentContext = currentContext.ancestor;
-        } while (currentContext != null && currentContext.contextKey instanceof NoKey);
+        } while (currentContext != null);
         marshalTarget.marshalerChain(Collections.unmodifiableList(marshalerChain));
     }
 
@@ -311,9 +378,9 @@ public final class DelegatingMarshalContext implements MarshalContext {
         Objects.requireNonNull(object);
         newKeyForObject(key);
 
-        Marshaler<?> childMarshaler = findMarshaler(object, marshalers);
-        try (DelegatingMarshalContext childContext
-                = new DelegatingMarshalContext(key, marshalTarget.resolve(key), childMarshaler, marshalers, this)) {
+        Marshaler<?> childMarshaler = marshalerDispatcher.findMarshaler(object);
+        try (DelegatingMarshalContext childContext = new DelegatingMarshalContext(
+                key, marshalTarget.resolve(key), childMarshaler, marshalerDispatcher, this)) {
             childContext.acceptObject(object);
         }
     }
@@ -458,8 +525,8 @@ public final class DelegatingMarshalContext implements MarshalContext {
                 DelegatingMarshalContext childContext = new DelegatingMarshalContext(
                     key,
                     marshalTarget.resolve(key),
-                    findMarshalerForObjectNode(objectNode, marshalers),
-                    marshalers,
+                    findMarshalerForObjectNode(objectNode, marshalerDispatcher),
+                    marshalerDispatcher,
                     DelegatingMarshalContext.this
                 )
             ) {
@@ -0,0 +1,147 @@
+package xyz.cloudkeeper.marshaling;
+
+import xyz.cloudkeeper.model.api.Marshaler;
+import xyz.cloudkeeper.model.api.MarshalingException;
+import xyz.cloudkeeper.model.util.ImmutableList;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds, for a given object, the first marshaler in a fixed list of marshalers that is capable of marshaling the
+ * object.
+ *
+ * <p>Instances of this class return the same marshaler as
+ * {@link DelegatingMarshalContext#findMarshaler(Object, Collection)}, but they avoid calling
+ * {@link Marshaler#canHandle(Object)} for every marshaler and every object. Instead, the result of the dispatch is
+ * cached by the runtime class of the object. Caching is only safe for marshalers that do not override
+ * {@link Marshaler#canHandle(Object)}, because the default implementation depends on nothing but the runtime class of
+ * its argument. Marshalers that override {@link Marshaler#canHandle(Object)} may make value-dependent decisions, so
+ * these marshalers are still asked for every object. However, such marshalers are only asked if they precede the first
+ * class-dependent marshaler that is capable of handling the runtime class.
+ *
+ * <p>Instances of this class are thread-safe. They are meant to be shared between all marshal contexts created for the
+ * same list of marshalers; for instance, between all child contexts of a {@link DelegatingMarshalContext}.
+ */
+public final class MarshalerDispatcher {
+    private final ImmutableList<Marshaler<?>> marshalers;
+
+    /**
+     * Array that contains, for each index in {@link #marshalers}, whether the result of
+     * {@link Marshaler#canHandle(Object)} only depends on the runtime class of the argument.
+     */
+    private final boolean[] classDependent;
+
+    private final ConcurrentHashMap<Class<?>, Dispatch> dispatchMap = new ConcurrentHashMap<>();
+
+    /**
+     * Cached dispatch result for a runtime class.
+     */
+    private static final class Dispatch {
+        /**
+         * Marshalers with value-dependent {@link Marshaler#canHandle(Object)} that need to be asked first (in order).
+         */
+        private final Marshaler<?>[] valueDependentCandidates;
+
+        /**
+         * First class-dependent marshaler capable of handling the runtime class, or {@code null} if there is none.
+         */
+        @Nullable private final Marshaler<?> classDependentMarshaler;
+
+        private Dispatch(Marshaler<?>[] valueDependentCandidates, @Nullable Marshaler<?> classDependentMarshaler) {
+            this.valueDependentCandidates = valueDependentCandidates;
+            this.classDependentMarshaler = classDependentMarshaler;
+        }
+    }
+
+    private MarshalerDispatcher(ImmutableList<Marshaler<?>> marshalers) {
+        this.marshalers = marshalers;
+        classDependent = new boolean[marshalers.size()];
+        int index = 0;
+        for (Marshaler<?> marshaler: marshalers) {
+            classDependent[index] = !overridesCanHandle(marshaler);
+            ++index;
+        }
+    }
+
+    /**
+     * Returns a new dispatcher for the given marshalers.
+     *
+     * @param marshalers collection of marshalers, in the order in which they should be considered
+     * @return the new dispatcher
+     */
+    public static MarshalerDispatcher of(Collection<? extends Marshaler<?>> marshalers) {
+        Objects.requireNonNull(marshalers);
+        return new MarshalerDispatcher(ImmutableList.copyOf(marshalers));
+    }
+
+    private static boolean overridesCanHandle(Marshaler<?> marshaler) {
+        try {
+            return marshaler.getClass().getMethod("canHandle", Object.class).getDeclaringClass() != Marshaler.class;
+        } catch (NoSuchMethodException exception) {
+            throw new IllegalStateException(String.format(
+                "Unexpected exception because %s has a public method canHandle(Object).", Marshaler.class
+            ), exception);
+        }
+    }
+
+    /**
+     * Returns the (unmodifiable) list of marshalers this dispatcher chooses from.
+     *
+     * @return list of marshalers
+     */
+    public ImmutableList<Marshaler<?>> getMarshalers() {
+        return marshalers;
+    }
+
+    private Dispatch newDispatch(Object object) {
+        List<Marshaler<?>> valueDependentCandidates = new ArrayList<>();
+        @Nullable Marshaler<?> classDependentMarshaler = null;
+        int index = 0;
+        for (Marshaler<?> marshaler: marshalers) {
+            if (!classDependent[index]) {
+                valueDependentCandidates.add(marshaler);
+            } else if (marshaler.canHandle(object)) {
+                classDependentMarshaler = marshaler;
+                break;
+            }
+            ++index;
+        }
+        return new Dispatch(
+            valueDependentCandidates.toArray(new Marshaler<?>[valueDependentCandidates.size()]),
+            classDependentMarshaler
+        );
+    }
+
+    /**
+     * Returns the first marshaler (in iteration order) that is capable of marshaling the given object.
+     *
+     * @param object object that the returned marshaler must be capable of handling
+     * @return the marshaler
+     * @throws MarshalingException if no marshaler is capable
+     */
+    public Marshaler<?> findMarshaler(Object object) throws MarshalingException {
+        Objects.requireNonNull(object);
+        Dispatch dispatch = dispatchMap.computeIfAbsent(object.getClass(), ignored -> newDispatch(object));
+        for (Marshaler<?> candidate: dispatch.valueDependentCandidates) {
+            if (candidate.canHandle(object)) {
+                return candidate;
+            }
+        }
+        if (dispatch.classDependentMarshaler == null) {
+            throw new MarshalingException(String.format(
+                "None of %s is capable of marshaling instance: %s.", marshalers, object
+            ));
+        }
+        return dispatch.classDependentMarshaler;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("marshaler dispatcher for %s", marshalers);
+    }
+}
@@ -0,0 +1,223 @@
+package xyz.cloudkeeper.marshaling;
+
+import cloudkeeper.serialization.ByteSequenceMarshaler;
+import cloudkeeper.serialization.ChunkedCollectionMarshaler;
+import cloudkeeper.types.ByteSequence;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ByteSequenceNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledReplacementObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ObjectNode;
+import xyz.cloudkeeper.model.api.Marshaler;
+import xyz.cloudkeeper.model.api.MarshalingException;
+import xyz.cloudkeeper.model.util.ByteSequences;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ChunkedCollectionMarshalerTest {
+    private static final ChunkedCollectionMarshaler CHUNKED_COLLECTION_MARSHALER = new ChunkedCollectionMarshaler();
+
+    private static ByteSequence marshal(Object object) throws IOException {
+        List<Marshaler<?>> marshalers = Collections.singletonList(CHUNKED_COLLECTION_MARSHALER);
+        ObjectNode tree = MarshalingTreeBuilder.marshal(object, marshalers, (path, marshaler, marshaledObject) -> true);
+
+        // The entire collection must be represented by a single byte sequence
+        Assert.assertTrue(tree instanceof MarshaledReplacementObjectNode);
+        MarshalingTreeNode child = ((MarshaledReplacementObjectNode) tree).getChild();
+        Assert.assertTrue(child instanceof ByteSequenceNode);
+        return ((ByteSequenceNode) child).getByteSequence();
+    }
+
+    private static Object unmarshal(ByteSequence byteSequence) throws IOException {
+        ObjectNode tree = MarshaledReplacementObjectNode.of(
+            CHUNKED_COLLECTION_MARSHALER, ByteSequenceNode.of(byteSequence));
+        return MarshalingTreeUnmarshalSource.unmarshal(tree, ChunkedCollectionMarshalerTest.class.getClassLoader());
+    }
+
+    private static Object roundTrip(Object object) throws IOException {
+        return unmarshal(marshal(object));
+    }
+
+    private static List<String> newList(int size) {
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            list.add("element " + i);
+        }
+        return list;
+    }
+
+    /**
+     * Byte sequence that is not backed by a file and that counts the number of bytes read or skipped, as well as the
+     * number of streams that are open.
+     */
+    private static final class CountingByteSequence implements ByteSequence {
+        private final byte[] bytes;
+        private final AtomicLong numBytesRead = new AtomicLong();
+        private final AtomicInteger numOpenStreams = new AtomicInteger();
+
+        private CountingByteSequence(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public ByteSequenceMarshaler.Decorator getDecorator() {
+            return ByteSequenceMarshaler.noDecorator();
+        }
+
+        @Override
+        @Nullable
+        public URI getURI() {
+            return null;
+        }
+
+        @Override
+        public boolean isSelfContained() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return bytes.length;
+        }
+
+        @Override
+        public String getContentType() {
+            return DEFAULT_CONTENT_TYPE;
+        }
+
+        @Override
+        public InputStream newInputStream() {
+            numOpenStreams.incrementAndGet();
+            return new FilterInputStream(new ByteArrayInputStream(bytes)) {
+                private boolean closed = false;
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        numOpenStreams.decrementAndGet();
+                    }
+                    super.close();
+                }
+
+                @Override
+                public int read() throws IOException {
+                    int value = super.read();
+                    if (value >= 0) {
+                        numBytesRead.incrementAndGet();
+                    }
+                    return value;
+                }
+
+                @Override
+                public int read(byte[] array, int offset, int length) throws IOException {
+                    int numBytes = super.read(array, offset, length);
+                    if (numBytes > 0) {
+                        numBytesRead.addAndGet(numBytes);
+                    }
+                    return numBytes;
+                }
+
+                @Override
+                public long skip(long numBytes) throws IOException {
+                    long skipped = super.skip(numBytes);
+                    numBytesRead.addAndGet(skipped);
+                    return skipped;
+                }
+            };
+        }
+    }
+
+    @Test
+    public void empty() throws IOException {
+        Assert.assertEquals(roundTrip(Collections.emptyList()), Collections.emptyList());
+    }
+
+    @Test
+    public void multipleChunks() throws IOException {
+        List<String> list = newList(2500);
+        Collection<?> actual = (Collection<?>) roundTrip(list);
+        Assert.assertTrue(actual instanceof List<?>);
+        List<?> actualList = (List<?>) actual;
+        Assert.assertEquals(actualList.size(), list.size());
+
+        // Random access across chunk boundaries
+        Assert.assertEquals(actualList.get(2499), "element 2499");
+        Assert.assertEquals(actualList.get(0), "element 0");
+        Assert.assertEquals(actualList.get(1024), "element 1024");
+        Assert.assertEquals(actualList, list);
+
+        try {
+            actualList.get(2500);
+            Assert.fail("Expected exception.");
+        } catch (IndexOutOfBoundsException ignored) { }
+        try {
+            actualList.remove(0);
+            Assert.fail("Expected exception.");
+        } catch (UnsupportedOperationException ignored) { }
+    }
+
+    @Test
+    public void sequentialStreamAccess() throws IOException {
+        List<String> list = newList(10000);
+        CountingByteSequence byteSequence = new CountingByteSequence(marshal(list).toByteArray());
+        List<?> actualList = (List<?>) unmarshal(byteSequence);
+        Assert.assertEquals(byteSequence.numOpenStreams.get(), 0);
+
+        // Reading only part of the list does not leave a stream open
+        Assert.assertEquals(actualList.get(1500), "element 1500");
+        Assert.assertEquals(byteSequence.numOpenStreams.get(), 0);
+
+        // Iterating reads ahead, so the byte sequence is not read once per chunk (10 chunks)
+        byteSequence.numBytesRead.set(0);
+        Assert.assertEquals(actualList, list);
+        Assert.assertTrue(byteSequence.numBytesRead.get() <= 3L * byteSequence.bytes.length);
+        Assert.assertEquals(byteSequence.numOpenStreams.get(), 0);
+    }
+
+    @Test
+    public void fileBacked() throws IOException {
+        List<String> list = newList(2500);
+        Path file = Files.createTempFile(getClass().getSimpleName(), null);
+        try {
+            Files.write(file, marshal(list).toByteArray());
+            List<?> actualList = (List<?>) unmarshal(ByteSequences.fileBacked(file));
+            Assert.assertEquals(actualList.get(2499), "element 2499");
+            Assert.assertEquals(actualList.get(1024), "element 1024");
+            Assert.assertEquals(actualList, list);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void canHandle() {
+        Assert.assertTrue(CHUNKED_COLLECTION_MARSHALER.canHandle(Collections.singletonList(1)));
+        Assert.assertTrue(CHUNKED_COLLECTION_MARSHALER.canHandle(Collections.singletonList(new Object())));
+        Assert.assertFalse(CHUNKED_COLLECTION_MARSHALER.canHandle("foo"));
+    }
+
+    @Test
+    public void nonSerializableElement() throws IOException {
+        try {
+            marshal(Arrays.asList(1, new Object()));
+            Assert.fail("Expected exception.");
+        } catch (MarshalingException exception) {
+            Assert.assertTrue(exception.getMessage().contains("element 1"));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package xyz.cloudkeeper.marshaling;
+
+import cloudkeeper.serialization.ByteSequenceMarshaler;
+import cloudkeeper.serialization.CollectionMarshaler;
+import cloudkeeper.serialization.IntegerMarshaler;
+import cloudkeeper.serialization.SerializableMarshaler;
+import cloudkeeper.serialization.StringMarshaler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import xyz.cloudkeeper.model.api.Marshaler;
+import xyz.cloudkeeper.model.api.MarshalingException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for finding marshalers while marshaling large nested collections.
+ *
+ * <p>Benchmarks {@link #findMarshalerLinear(Blackhole)} and {@link #findMarshalerCached(Blackhole)} compare the
+ * dispatch alone: the former calls {@link DelegatingMarshalContext#findMarshaler(Object, java.util.Collection)} (which
+ * asks every marshaler until a capable one is found) for every object in the collection, the latter uses a shared
+ * {@link MarshalerDispatcher}. Benchmark {@link #marshal()} measures marshaling the entire collection into a marshaling
+ * tree, where all marshal contexts share a {@link MarshalerDispatcher}.
+ *
+ * <p>This class is only compiled with Maven profile {@code jmh} (for instance, {@code mvn -Pjmh test-compile}). It can
+ * then be run with its {@link #main(String[])} method, using the test class path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class MarshalerDispatchBenchmark {
+    @Param({ "10", "100" })
+    private int size;
+
+    private List<Marshaler<?>> marshalers;
+    private MarshalerDispatcher marshalerDispatcher;
+    private List<List<Object>> collection;
+    private List<Object> flattened;
+
+    @Setup
+    public void setup() {
+        // Same order as typically found in serialization declarations: specific marshalers before generic ones
+        marshalers = Arrays.asList(
+            new ByteSequenceMarshaler(),
+            new StringMarshaler(),
+            new IntegerMarshaler(),
+            new CollectionMarshaler(),
+            new SerializableMarshaler()
+        );
+        marshalerDispatcher = MarshalerDispatcher.of(marshalers);
+
+        collection = new ArrayList<>(size);
+        flattened = new ArrayList<>(size * (size + 1));
+        for (int i = 0; i < size; ++i) {
+            List<Object> inner = new ArrayList<>(size);
+            for (int j = 0; j < size; ++j) {
+                Object element = j % 2 == 0
+                    ? (Object) (i * size + j)
+                    : String.valueOf(i * size + j);
+                inner.add(element);
+                flattened.add(element);
+            }
+            collection.add(inner);
+            flattened.add(inner);
+        }
+    }
+
+    @Benchmark
+    public void findMarshalerLinear(Blackhole blackhole) throws MarshalingException {
+        for (Object object: flattened) {
+            blackhole.consume(DelegatingMarshalContext.findMarshaler(object, marshalers));
+        }
+    }
+
+    @Benchmark
+    public void findMarshalerCached(Blackhole blackhole) throws MarshalingException {
+        for (Object object: flattened) {
+            blackhole.consume(marshalerDispatcher.findMarshaler(object));
+        }
+    }
+
+    @Benchmark
+    public Object marshal() throws IOException {
+        return MarshalingTreeBuilder.marshal(collection, marshalers, (path, marshaler, object) -> true);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(
+            new OptionsBuilder()
+                .include(MarshalerDispatchBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
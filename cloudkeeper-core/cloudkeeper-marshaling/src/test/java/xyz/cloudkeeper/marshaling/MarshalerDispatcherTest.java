@@ -0,0 +1,107 @@
+package xyz.cloudkeeper.marshaling;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.model.api.MarshalContext;
+import xyz.cloudkeeper.model.api.Marshaler;
+import xyz.cloudkeeper.model.api.MarshalingException;
+import xyz.cloudkeeper.model.api.UnmarshalContext;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MarshalerDispatcherTest {
+    private static final IntegerMarshaler INTEGER_MARSHALER = new IntegerMarshaler();
+    private static final StringMarshaler STRING_MARSHALER = new StringMarshaler();
+
+    /**
+     * Marshaler with a value-dependent {@link Marshaler#canHandle(Object)} that only handles negative integers.
+     */
+    private static final class NegativeIntegerMarshaler implements Marshaler<Integer> {
+        private final AtomicInteger numCanHandleCalls = new AtomicInteger();
+
+        @Override
+        public boolean canHandle(Object object) {
+            numCanHandleCalls.incrementAndGet();
+            return object instanceof Integer && (Integer) object < 0;
+        }
+
+        @Override
+        public boolean isImmutable(Integer object) {
+            return true;
+        }
+
+        @Override
+        public void put(Integer object, MarshalContext context) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Integer get(UnmarshalContext context) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    @Test
+    public void findMarshaler() throws MarshalingException {
+        MarshalerDispatcher dispatcher = MarshalerDispatcher.of(Arrays.asList(STRING_MARSHALER, INTEGER_MARSHALER));
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertSame(dispatcher.findMarshaler(i), INTEGER_MARSHALER);
+            Assert.assertSame(dispatcher.findMarshaler("foo" + i), STRING_MARSHALER);
+        }
+        Assert.assertEquals(dispatcher.getMarshalers(), Arrays.asList(STRING_MARSHALER, INTEGER_MARSHALER));
+    }
+
+    @Test
+    public void findMarshalerValueDependent() throws MarshalingException {
+        NegativeIntegerMarshaler negativeIntegerMarshaler = new NegativeIntegerMarshaler();
+        MarshalerDispatcher dispatcher = MarshalerDispatcher.of(
+            Arrays.asList(STRING_MARSHALER, negativeIntegerMarshaler, INTEGER_MARSHALER)
+        );
+        Assert.assertSame(dispatcher.findMarshaler(-1), negativeIntegerMarshaler);
+        Assert.assertSame(dispatcher.findMarshaler(1), INTEGER_MARSHALER);
+        Assert.assertSame(dispatcher.findMarshaler(-2), negativeIntegerMarshaler);
+        Assert.assertEquals(negativeIntegerMarshaler.numCanHandleCalls.get(), 3);
+
+        // The value-dependent marshaler is not asked for runtime classes that a preceding class-dependent marshaler
+        // can handle.
+        Assert.assertSame(dispatcher.findMarshaler("foo"), STRING_MARSHALER);
+        Assert.assertEquals(negativeIntegerMarshaler.numCanHandleCalls.get(), 3);
+    }
+
+    @Test
+    public void findMarshalerNotFound() {
+        NegativeIntegerMarshaler negativeIntegerMarshaler = new NegativeIntegerMarshaler();
+        MarshalerDispatcher dispatcher = MarshalerDispatcher.of(
+            Arrays.asList(STRING_MARSHALER, negativeIntegerMarshaler)
+        );
+        try {
+            dispatcher.findMarshaler(1);
+            Assert.fail();
+        } catch (MarshalingException exception) {
+            Assert.assertTrue(exception.getMessage().startsWith("None of"));
+            Assert.assertTrue(exception.getMessage().contains("is capable of marshaling instance:"));
+        }
+
+        try {
+            dispatcher.findMarshaler(4.0);
+            Assert.fail();
+        } catch (MarshalingException exception) {
+            Assert.assertTrue(exception.getMessage().startsWith("None of"));
+        }
+    }
+
+    @Test
+    public void findMarshalerBadArguments() throws MarshalingException {
+        try {
+            MarshalerDispatcher.of(Arrays.asList(STRING_MARSHALER, INTEGER_MARSHALER)).findMarshaler(null);
+            Assert.fail();
+        } catch (NullPointerException ignored) { }
+
+        try {
+            MarshalerDispatcher.of(null);
+            Assert.fail();
+        } catch (NullPointerException ignored) { }
+    }
+}
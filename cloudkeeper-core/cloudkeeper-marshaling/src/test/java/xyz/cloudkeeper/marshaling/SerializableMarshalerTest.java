@@ -0,0 +1,107 @@
+package xyz.cloudkeeper.marshaling;
+
+import cloudkeeper.serialization.DataSerializable;
+import cloudkeeper.serialization.SerializableMarshaler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ByteSequenceNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.MarshaledReplacementObjectNode;
+import xyz.cloudkeeper.marshaling.MarshalingTreeNode.ObjectNode;
+import xyz.cloudkeeper.model.api.Marshaler;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+public class SerializableMarshalerTest {
+    private static final SerializableMarshaler SERIALIZABLE_MARSHALER = new SerializableMarshaler();
+
+    public static final class Point implements DataSerializable {
+        private static final long serialVersionUID = 7924458165383296713L;
+
+        private int x;
+        private String label;
+
+        public Point() { }
+
+        private Point(int x, String label) {
+            this.x = x;
+            this.label = label;
+        }
+
+        @Override
+        public void writeData(DataOutput output) throws IOException {
+            output.writeInt(x);
+            output.writeUTF(label);
+        }
+
+        @Override
+        public void readData(DataInput input) throws IOException {
+            x = input.readInt();
+            label = input.readUTF();
+        }
+
+        @Override
+        public boolean equals(Object otherObject) {
+            if (this == otherObject) {
+                return true;
+            } else if (otherObject == null || getClass() != otherObject.getClass()) {
+                return false;
+            }
+
+            Point other = (Point) otherObject;
+            return x == other.x && Objects.equals(label, other.label);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * x + Objects.hashCode(label);
+        }
+    }
+
+    private static ByteSequenceNode marshal(Object object) throws IOException {
+        List<Marshaler<?>> marshalers = Collections.singletonList(SERIALIZABLE_MARSHALER);
+        ObjectNode tree = MarshalingTreeBuilder.marshal(object, marshalers, (path, marshaler, marshaledObject) -> true);
+        Assert.assertTrue(tree instanceof MarshaledReplacementObjectNode);
+        Assert.assertTrue(((MarshaledReplacementObjectNode) tree).getChild() instanceof ByteSequenceNode);
+        return (ByteSequenceNode) ((MarshaledReplacementObjectNode) tree).getChild();
+    }
+
+    private static Object roundTrip(Object object) throws IOException {
+        List<Marshaler<?>> marshalers = Collections.singletonList(SERIALIZABLE_MARSHALER);
+        ObjectNode tree = MarshalingTreeBuilder.marshal(object, marshalers, (path, marshaler, marshaledObject) -> true);
+        return MarshalingTreeUnmarshalSource.unmarshal(tree, SerializableMarshalerTest.class.getClassLoader());
+    }
+
+    @Test
+    public void dataSerializable() throws IOException {
+        Point point = new Point(42, "answer");
+        try (DataInputStream inputStream = new DataInputStream(marshal(point).getByteSequence().newInputStream())) {
+            Assert.assertEquals(inputStream.readShort(), SerializableMarshaler.DATA_SERIALIZABLE_MAGIC);
+            Assert.assertEquals(inputStream.readUTF(), Point.class.getName());
+        }
+
+        Object actual = roundTrip(point);
+        Assert.assertNotSame(actual, point);
+        Assert.assertEquals(actual, point);
+    }
+
+    @Test
+    public void javaSerialization() throws IOException {
+        ArrayList<String> list = new ArrayList<>();
+        for (int i = 0; i < 10000; ++i) {
+            list.add("element " + i);
+        }
+        try (InputStream inputStream = marshal(list).getByteSequence().newInputStream()) {
+            Assert.assertEquals(inputStream.read(), 0xAC);
+            Assert.assertEquals(inputStream.read(), 0xED);
+        }
+        Assert.assertEquals(roundTrip(list), list);
+    }
+}
@@ -0,0 +1,30 @@
+package cloudkeeper.annotations;
+
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the annotated simple module is deterministic, so that its out-port values may be reused for any later
+ * execution with equal in-port values.
+ *
+ * <p>A simple module is deterministic if its out-port values are a function of its in-port values alone; that is, the
+ * module has no side effects and does not depend on external state (such as the current time, random numbers, or the
+ * content of external files). A simple-module executor that supports memoization (such as
+ * {@code xyz.cloudkeeper.simple.MemoizingSimpleModuleExecutor}) may then skip the execution altogether and instead
+ * provide out-port values that were computed previously.
+ *
+ * <p>This annotation is a pure CloudKeeper annotation, which can only be used for retrieving annotations using
+ * {@link xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace#getAnnotation(Class)}. This
+ * annotation cannot, however, be added to a Java language element within the Java source code. The
+ * {@link xyz.cloudkeeper.model.CloudKeeperMemoization} annotation must be used instead.
+ */
+@Target({ })
+public @interface CloudKeeperMemoization {
+    /**
+     * Version of the implementation of the annotated module.
+     *
+     * <p>The version is part of the key that identifies memoized results. It therefore needs to be changed whenever
+     * the implementation of the module changes in a way that affects its out-port values, unless the bundle identifier
+     * of the module declaration already changes in this case.
+     */
+    String version() default "";
+}
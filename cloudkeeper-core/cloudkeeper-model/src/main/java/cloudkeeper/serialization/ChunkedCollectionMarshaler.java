@@ -0,0 +1,400 @@
+package cloudkeeper.serialization;
+
+import cloudkeeper.types.ByteSequence;
+import xyz.cloudkeeper.model.api.MarshalContext;
+import xyz.cloudkeeper.model.api.Marshaler;
+import xyz.cloudkeeper.model.api.MarshalingException;
+import xyz.cloudkeeper.model.api.UnmarshalContext;
+import xyz.cloudkeeper.model.immutable.element.NoKey;
+import xyz.cloudkeeper.model.util.ClassLoadingObjectInputStream;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * CloudKeeper serialization class for {@link Collection} instances that stores the entire collection as a single byte
+ * sequence.
+ *
+ * <p>Unlike {@link CollectionMarshaler}, which marshals each element individually (and which thus causes a staging
+ * area to create one or more storage objects per element), this serialization plug-in writes all elements into a
+ * single byte stream. It is intended for large collections of homogeneous, {@link Serializable} elements and needs to
+ * be requested explicitly, by listing it in the {@link xyz.cloudkeeper.model.CloudKeeperSerialization} annotation of a
+ * port or type declaration. This marshaler does not override {@link #canHandle(Object)}, so it accepts any collection
+ * without inspecting the elements. Instead, {@link #put(Collection, MarshalContext)} fails with a
+ * {@link MarshalingException} on the first element that is not serializable.
+ *
+ * <p>Elements are grouped into chunks of {@link #CHUNK_SIZE} consecutive elements. Each chunk is written using a
+ * separate {@link ObjectOutputStream}, so that class descriptors are written only once per chunk. The byte stream has
+ * the following format (all numbers are big-endian, as written by {@link DataOutputStream}):
+ * <ul><li>
+ *     header: magic number {@link #MAGIC} ({@code int}), number of elements ({@code int}), and number of elements per
+ *     chunk ({@code int}),
+ * </li><li>
+ *     chunks: for each chunk, its length in bytes ({@code int}) followed by the chunk itself,
+ * </li><li>
+ *     trailer: for each chunk, the offset of its length prefix relative to the beginning of the stream
+ *     ({@code long}), followed by the offset of the trailer ({@code long}).
+ * </li></ul>
+ *
+ * <p>Method {@link #get(UnmarshalContext)} does not read any chunks. It returns an unmodifiable random-access list that
+ * deserializes chunks on demand, so accessing a single element only requires reading the chunk that contains it (and,
+ * unless the byte sequence is backed by a local file, skipping over the preceding chunks).
+ */
+public final class ChunkedCollectionMarshaler implements Marshaler<Collection<?>> {
+    /**
+     * Magic number at the beginning of the byte stream ({@code "CKCC"} in ASCII).
+     */
+    static final int MAGIC = 0x434b4343;
+
+    /**
+     * Number of elements per chunk.
+     */
+    static final int CHUNK_SIZE = 1024;
+
+    private static final int HEADER_LENGTH = 3 * Integer.BYTES;
+
+    @Override
+    public boolean isImmutable(Collection<?> object) {
+        return false;
+    }
+
+    private static int numberOfChunks(int size, int chunkSize) {
+        return (int) (((long) size + chunkSize - 1) / chunkSize);
+    }
+
+    @Override
+    public void put(Collection<?> collection, MarshalContext context) throws IOException {
+        int size = collection.size();
+        long[] chunkOffsets = new long[numberOfChunks(size, CHUNK_SIZE)];
+        try (DataOutputStream outputStream = new DataOutputStream(
+                new BufferedOutputStream(context.newOutputStream(NoKey.instance())))) {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(size);
+            outputStream.writeInt(CHUNK_SIZE);
+            long position = HEADER_LENGTH;
+
+            ByteArrayOutputStream chunkBuffer = new ByteArrayOutputStream();
+            int count = 0;
+            int chunk = 0;
+            @Nullable ObjectOutputStream chunkStream = null;
+            for (Object element: collection) {
+                if (count == size) {
+                    throw new MarshalingException(String.format(
+                        "Collection reported size %d, but iteration returned more elements.", size
+                    ));
+                } else if (element != null && !(element instanceof Serializable)) {
+                    throw new MarshalingException(String.format(
+                        "Expected serializable elements, but element %d is an instance of %s.",
+                        count, element.getClass().getName()
+                    ));
+                } else if (chunkStream == null) {
+                    chunkBuffer.reset();
+                    chunkStream = new ObjectOutputStream(chunkBuffer);
+                }
+                chunkStream.writeObject(element);
+                ++count;
+                if (count % CHUNK_SIZE == 0 || count == size) {
+                    chunkStream.close();
+                    chunkStream = null;
+                    chunkOffsets[chunk] = position;
+                    ++chunk;
+                    outputStream.writeInt(chunkBuffer.size());
+                    chunkBuffer.writeTo(outputStream);
+                    position += Integer.BYTES + chunkBuffer.size();
+                }
+            }
+            if (count != size) {
+                throw new MarshalingException(String.format(
+                    "Collection reported size %d, but iteration returned %d elements.", size, count
+                ));
+            }
+
+            for (long chunkOffset: chunkOffsets) {
+                outputStream.writeLong(chunkOffset);
+            }
+            outputStream.writeLong(position);
+        }
+    }
+
+    private static void skipFully(InputStream inputStream, long numBytes) throws IOException {
+        long remaining = numBytes;
+        while (remaining > 0) {
+            long skipped = inputStream.skip(remaining);
+            if (skipped <= 0) {
+                if (inputStream.read() < 0) {
+                    throw new EOFException(String.format(
+                        "Unexpected end of stream while skipping %d bytes.", numBytes
+                    ));
+                }
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    /**
+     * Reads exactly the given number of bytes at the given position of the given file channel.
+     */
+    private static ByteBuffer readFully(FileChannel fileChannel, long position, int numBytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(numBytes);
+        while (buffer.hasRemaining()) {
+            if (fileChannel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException(String.format(
+                    "Unexpected end of file while reading %d bytes at position %d.", numBytes, position
+                ));
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void verifyHeader(int magic, int size, int chunkSize) throws MarshalingException {
+        if (magic != MAGIC) {
+            throw new MarshalingException("Byte sequence does not start with expected magic number.");
+        } else if (size < 0 || chunkSize <= 0) {
+            throw new MarshalingException(String.format(
+                "Invalid header (size %d, chunk size %d).", size, chunkSize
+            ));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the byte sequence is backed by a local file (see {@link ByteSequence#newFileChannel()}), this method reads
+     * the header and the trailer with positioned reads, and the returned list reads each chunk with a positioned read,
+     * too. Otherwise, this method only reads the header, and the returned list reads chunks from new streams,
+     * determining the chunk offsets from the length prefixes.
+     */
+    @Override
+    public Collection<?> get(UnmarshalContext context) throws IOException {
+        ByteSequence byteSequence = context.getByteSequence(NoKey.instance());
+        try (@Nullable FileChannel fileChannel = byteSequence.newFileChannel()) {
+            if (fileChannel != null) {
+                ByteBuffer header = readFully(fileChannel, 0, HEADER_LENGTH);
+                int magic = header.getInt();
+                int size = header.getInt();
+                int chunkSize = header.getInt();
+                verifyHeader(magic, size, chunkSize);
+
+                int numChunks = numberOfChunks(size, chunkSize);
+                long contentLength = fileChannel.size();
+                long trailerOffset = contentLength - (long) Long.BYTES * (numChunks + 1);
+                if (trailerOffset < HEADER_LENGTH) {
+                    throw new MarshalingException(String.format(
+                        "Byte sequence of length %d too short for %d chunks.", contentLength, numChunks
+                    ));
+                }
+                ByteBuffer trailer = readFully(fileChannel, trailerOffset, Long.BYTES * (numChunks + 1));
+                long[] chunkOffsets = new long[numChunks];
+                for (int i = 0; i < numChunks; ++i) {
+                    chunkOffsets[i] = trailer.getLong();
+                }
+                if (trailer.getLong() != trailerOffset) {
+                    throw new MarshalingException("Inconsistent trailer offset.");
+                }
+                return new ChunkedList(byteSequence, context.getClassLoader(), size, chunkSize, chunkOffsets,
+                    numChunks, true);
+            }
+        }
+
+        try (DataInputStream inputStream = new DataInputStream(byteSequence.newInputStream())) {
+            int magic = inputStream.readInt();
+            int size = inputStream.readInt();
+            int chunkSize = inputStream.readInt();
+            verifyHeader(magic, size, chunkSize);
+
+            int numChunks = numberOfChunks(size, chunkSize);
+            long[] chunkOffsets = new long[numChunks];
+            int numKnownChunkOffsets = 0;
+            if (numChunks > 0) {
+                chunkOffsets[0] = HEADER_LENGTH;
+                numKnownChunkOffsets = 1;
+            }
+            return new ChunkedList(byteSequence, context.getClassLoader(), size, chunkSize, chunkOffsets,
+                numKnownChunkOffsets, false);
+        }
+    }
+
+    /**
+     * Unmodifiable list that deserializes chunks of elements on demand.
+     *
+     * <p>Up to {@link #MAX_CACHED_CHUNKS} recently accessed chunks are kept in memory. Chunks are read either with
+     * positioned reads from a file channel, or from a new stream for each access. The list does not own any open
+     * resources between accesses, so a consumer may stop reading at any time without closing the list. When reading
+     * from a stream, chunk offsets that are not yet known are determined by skipping over preceding chunks, and up to
+     * {@link #READ_AHEAD_CHUNKS} following chunks are read, too, so that sequential access only opens a new stream for
+     * every few chunks.
+     */
+    private static final class ChunkedList extends AbstractList<Object> implements RandomAccess {
+        /**
+         * Maximum number of deserialized chunks kept in memory.
+         */
+        private static final int MAX_CACHED_CHUNKS = 8;
+
+        /**
+         * Maximum number of chunks read in addition to the requested one when reading from a stream.
+         */
+        private static final int READ_AHEAD_CHUNKS = MAX_CACHED_CHUNKS / 2;
+
+        private final ByteSequence byteSequence;
+        private final ClassLoader classLoader;
+        private final int size;
+        private final int chunkSize;
+        private final boolean fileChannelAvailable;
+
+        private final Object monitor = new Object();
+
+        /**
+         * Offsets of the chunks. Only the first {@link #numKnownChunkOffsets} elements are valid.
+         */
+        private final long[] chunkOffsets;
+        private int numKnownChunkOffsets;
+        private final LinkedHashMap<Integer, Object[]> cachedChunks
+            = new LinkedHashMap<Integer, Object[]>(16, 0.75f, true) {
+                private static final long serialVersionUID = 6113364218420447012L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Object[]> eldest) {
+                    return size() > MAX_CACHED_CHUNKS;
+                }
+            };
+
+        private ChunkedList(ByteSequence byteSequence, ClassLoader classLoader, int size, int chunkSize,
+                long[] chunkOffsets, int numKnownChunkOffsets, boolean fileChannelAvailable) {
+            this.byteSequence = byteSequence;
+            this.classLoader = classLoader;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkOffsets = chunkOffsets;
+            this.numKnownChunkOffsets = numKnownChunkOffsets;
+            this.fileChannelAvailable = fileChannelAvailable;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        private void recordChunkOffset(int chunk, long offset) {
+            if (numKnownChunkOffsets == chunk) {
+                chunkOffsets[chunk] = offset;
+                ++numKnownChunkOffsets;
+            }
+        }
+
+        /**
+         * Reads the given chunk from a new stream, which is closed before this method returns.
+         *
+         * <p>This method also adds up to {@link #READ_AHEAD_CHUNKS} following chunks to the cache, unless they are
+         * cached already.
+         */
+        private Object[] readChunksFromStream(int chunk) throws IOException {
+            int currentChunk = Math.min(chunk, numKnownChunkOffsets - 1);
+            long position = chunkOffsets[currentChunk];
+            try (DataInputStream inputStream
+                    = new DataInputStream(new BufferedInputStream(byteSequence.newInputStream()))) {
+                skipFully(inputStream, position);
+                // Determine missing chunk offsets by skipping over the preceding chunks
+                for (; currentChunk < chunk; ++currentChunk) {
+                    int chunkLength = inputStream.readInt();
+                    skipFully(inputStream, chunkLength);
+                    position += Integer.BYTES + chunkLength;
+                    recordChunkOffset(currentChunk + 1, position);
+                }
+
+                @Nullable Object[] elements = null;
+                int lastChunk = Math.min(chunkOffsets.length - 1, chunk + READ_AHEAD_CHUNKS);
+                for (; currentChunk <= lastChunk; ++currentChunk) {
+                    if (currentChunk > chunk && cachedChunks.containsKey(currentChunk)) {
+                        break;
+                    }
+                    byte[] chunkBytes = new byte[inputStream.readInt()];
+                    inputStream.readFully(chunkBytes);
+                    position += Integer.BYTES + chunkBytes.length;
+                    if (currentChunk + 1 < chunkOffsets.length) {
+                        recordChunkOffset(currentChunk + 1, position);
+                    }
+                    Object[] currentElements = deserializeChunk(currentChunk, chunkBytes);
+                    if (currentChunk == chunk) {
+                        elements = currentElements;
+                    } else {
+                        cachedChunks.put(currentChunk, currentElements);
+                    }
+                }
+                assert elements != null;
+                return elements;
+            }
+        }
+
+        private Object[] deserializeChunk(int chunk, byte[] chunkBytes) throws IOException {
+            int numElements = Math.min(chunkSize, size - chunk * chunkSize);
+            Object[] elements = new Object[numElements];
+            try (ObjectInputStream objectInputStream
+                    = new ClassLoadingObjectInputStream(new ByteArrayInputStream(chunkBytes), classLoader)) {
+                for (int i = 0; i < numElements; ++i) {
+                    elements[i] = objectInputStream.readObject();
+                }
+            } catch (ClassNotFoundException exception) {
+                throw new MarshalingException(exception);
+            }
+            return elements;
+        }
+
+        private Object[] readChunk(int chunk) throws IOException {
+            if (fileChannelAvailable) {
+                try (@Nullable FileChannel fileChannel = byteSequence.newFileChannel()) {
+                    if (fileChannel != null) {
+                        long offset = chunkOffsets[chunk];
+                        int chunkLength = readFully(fileChannel, offset, Integer.BYTES).getInt();
+                        byte[] chunkBytes = readFully(fileChannel, offset + Integer.BYTES, chunkLength).array();
+                        return deserializeChunk(chunk, chunkBytes);
+                    }
+                }
+            }
+            return readChunksFromStream(chunk);
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(String.format("Index %d, size %d.", index, size));
+            }
+
+            int chunk = index / chunkSize;
+            synchronized (monitor) {
+                @Nullable Object[] elements = cachedChunks.get(chunk);
+                if (elements == null) {
+                    try {
+                        elements = readChunk(chunk);
+                    } catch (IOException exception) {
+                        throw new UncheckedIOException(String.format(
+                            "Failed to read chunk %d of %s.", chunk, byteSequence
+                        ), exception);
+                    }
+                    cachedChunks.put(chunk, elements);
+                }
+                return elements[index - chunk * chunkSize];
+            }
+        }
+    }
+}
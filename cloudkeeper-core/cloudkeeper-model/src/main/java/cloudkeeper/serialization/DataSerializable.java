@@ -0,0 +1,38 @@
+package cloudkeeper.serialization;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Serializable object that can write and read its state with {@link DataOutput} and {@link DataInput}, respectively.
+ *
+ * <p>{@link SerializableMarshaler} serializes objects of classes implementing this interface in a compact format that
+ * avoids the overhead of Java object serialization (class descriptors, reflection, and handle tables). Since this
+ * interface extends {@link Serializable}, instances may still be serialized with Java object serialization wherever
+ * this is expected.
+ *
+ * <p>Classes implementing this interface must have a public no-argument constructor. Deserialization creates a new
+ * instance with this constructor and then calls {@link #readData(DataInput)}.
+ */
+public interface DataSerializable extends Serializable {
+    /**
+     * Writes the state of this object to the given output.
+     *
+     * @param output data output
+     * @throws IOException if an I/O error occurs
+     */
+    void writeData(DataOutput output) throws IOException;
+
+    /**
+     * Reads the state of this object from the given input.
+     *
+     * <p>This method is called on a newly created instance, and it must read exactly the bytes previously written by
+     * {@link #writeData(DataOutput)}.
+     *
+     * @param input data input
+     * @throws IOException if an I/O error occurs
+     */
+    void readData(DataInput input) throws IOException;
+}
@@ -6,9 +6,14 @@ import xyz.cloudkeeper.model.api.Marshaler;
 import xyz.cloudkeeper.model.api.MarshalingException;
 import xyz.cloudkeeper.model.api.UnmarshalContext;
 import xyz.cloudkeeper.model.immutable.element.NoKey;
+import xyz.cloudkeeper.model.util.BufferPool;
 import xyz.cloudkeeper.model.util.ClassLoadingObjectInputStream;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
@@ -19,8 +24,21 @@ import java.io.Serializable;
  * <p>This CloudKeeper serialization serializes objects into a single byte stream using
  * {@link ObjectOutputStream#writeObject(Object)}. Likewise, deserialization happens with
  * {@link ObjectInputStream#readObject()}.
+ *
+ * <p>Objects that implement {@link DataSerializable} are instead written in a compact format: the magic number
+ * {@link #DATA_SERIALIZABLE_MAGIC} ({@code short}), the class name (modified UTF-8 string), and finally the output of
+ * {@link DataSerializable#writeData(java.io.DataOutput)}. Since Java object serialization streams always start with
+ * {@link java.io.ObjectStreamConstants#STREAM_MAGIC}, deserialization can tell both formats apart by their first two
+ * bytes.
+ *
+ * <p>In either case, the byte stream is written through a buffer taken from {@link BufferPool#shared()}.
  */
 public final class SerializableMarshaler implements Marshaler<Serializable> {
+    /**
+     * Magic number at the beginning of serialized {@link DataSerializable} objects.
+     */
+    public static final short DATA_SERIALIZABLE_MAGIC = (short) 0xCB01;
+
     @Override
     public boolean isImmutable(Serializable object) {
         return false;
@@ -28,17 +46,53 @@ public final class SerializableMarshaler implements Marshaler<Serializable> {
 
     @Override
     public void put(Serializable object, MarshalContext context) throws IOException {
-        try (ObjectOutputStream objectOutputStream
-                = new ObjectOutputStream(context.newOutputStream(NoKey.instance()))) {
-            objectOutputStream.writeObject(object);
+        if (object instanceof DataSerializable) {
+            try (DataOutputStream dataOutputStream = new DataOutputStream(
+                    BufferPool.shared().newBufferedOutputStream(context.newOutputStream(NoKey.instance())))) {
+                dataOutputStream.writeShort(DATA_SERIALIZABLE_MAGIC);
+                dataOutputStream.writeUTF(object.getClass().getName());
+                ((DataSerializable) object).writeData(dataOutputStream);
+            }
+        } else {
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(
+                    BufferPool.shared().newBufferedOutputStream(context.newOutputStream(NoKey.instance())))) {
+                objectOutputStream.writeObject(object);
+            }
+        }
+    }
+
+    private static DataSerializable newDataSerializable(String className, ClassLoader classLoader)
+            throws MarshalingException {
+        try {
+            Class<?> clazz = Class.forName(className, false, classLoader);
+            if (!DataSerializable.class.isAssignableFrom(clazz)) {
+                throw new MarshalingException(String.format(
+                    "Expected class implementing %s, but got %s.", DataSerializable.class, clazz
+                ));
+            }
+            return (DataSerializable) clazz.newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException exception) {
+            throw new MarshalingException(String.format(
+                "Could not create instance of %s in order to deserialize it.", className
+            ), exception);
         }
     }
 
     @Override
     public Serializable get(UnmarshalContext context) throws IOException {
         ByteSequence byteSequence = context.getByteSequence(NoKey.instance());
-        try (ObjectInputStream objectInputStream
-                = new ClassLoadingObjectInputStream(byteSequence.newInputStream(), context.getClassLoader())) {
+        try (InputStream inputStream = new BufferedInputStream(byteSequence.newInputStream())) {
+            inputStream.mark(2);
+            DataInputStream dataInputStream = new DataInputStream(inputStream);
+            if (dataInputStream.readShort() == DATA_SERIALIZABLE_MAGIC) {
+                DataSerializable object = newDataSerializable(dataInputStream.readUTF(), context.getClassLoader());
+                object.readData(dataInputStream);
+                return object;
+            }
+
+            inputStream.reset();
+            ObjectInputStream objectInputStream
+                = new ClassLoadingObjectInputStream(inputStream, context.getClassLoader());
             return (Serializable) objectInputStream.readObject();
         } catch (ClassNotFoundException exception) {
             throw new MarshalingException(exception);
@@ -4,6 +4,7 @@ import xyz.cloudkeeper.model.api.MarshalContext;
 import xyz.cloudkeeper.model.api.Marshaler;
 import xyz.cloudkeeper.model.api.UnmarshalContext;
 import xyz.cloudkeeper.model.immutable.element.NoKey;
+import xyz.cloudkeeper.model.util.BufferPool;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -18,8 +19,6 @@ import java.nio.charset.StandardCharsets;
  * is enough because {@link String} is a final class.
  */
 public final class StringMarshaler implements Marshaler<String> {
-    private static final int BUFFER_SIZE = 2048;
-
     @Override
     public boolean isImmutable(String object) {
         return true;
@@ -34,13 +33,14 @@ public final class StringMarshaler implements Marshaler<String> {
 
     @Override
     public String get(UnmarshalContext context) throws IOException {
-        StringBuilder stringBuilder = new StringBuilder(BUFFER_SIZE);
-        byte[] buffer = new byte[BUFFER_SIZE];
-        try (InputStream inputStream = context.getByteSequence(NoKey.instance()).newInputStream()) {
-            for (int readCount = inputStream.read(buffer); readCount > 0; readCount = inputStream.read(buffer)) {
-                stringBuilder.append(new String(buffer, 0, readCount, StandardCharsets.UTF_8));
-            }
+        // Decode only once all bytes have been read. Decoding chunk by chunk would garble multi-byte characters that
+        // straddle a chunk boundary.
+        try (
+            InputStream inputStream = context.getByteSequence(NoKey.instance()).newInputStream();
+            BufferPool.GrowableBuffer buffer = BufferPool.shared().newGrowableBuffer()
+        ) {
+            buffer.readFrom(inputStream);
+            return buffer.toString(StandardCharsets.UTF_8);
         }
-        return stringBuilder.toString();
     }
 }
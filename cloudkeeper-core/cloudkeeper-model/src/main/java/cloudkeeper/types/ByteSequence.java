@@ -4,12 +4,13 @@ import cloudkeeper.serialization.ByteSequenceMarshaler;
 import xyz.cloudkeeper.model.CloudKeeperSerialization;
 import xyz.cloudkeeper.model.api.Marshaler;
 import xyz.cloudkeeper.model.api.UnmarshalContext;
+import xyz.cloudkeeper.model.util.BufferPool;
 
 import javax.annotation.Nullable;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 
 /**
  * Byte sequence.
@@ -107,6 +108,30 @@ public interface ByteSequence {
      */
     InputStream newInputStream() throws IOException;
 
+    /**
+     * Returns a new {@link FileChannel} for reading the byte sequence, or {@code null} if this byte sequence is not
+     * backed by a local file.
+     *
+     * <p>Implementations may provide a file channel for optimization purposes, but are not required to. Callers may use
+     * the file channel in order to copy the byte sequence with {@link FileChannel#transferTo(long, long,
+     * java.nio.channels.WritableByteChannel)}, or to map it into memory with
+     * {@link FileChannel#map(FileChannel.MapMode, long, long)}. In either case, the content of the byte sequence does
+     * not need to be passed through buffers on the Java heap. The file channel must be positioned at the beginning of
+     * the byte sequence, and its size must be equal to {@link #getContentLength()}.
+     *
+     * <p>Unlike {@link #getURI()}, this method may return a file channel even if a staging area is configured to never
+     * reveal URIs. The caller is responsible for closing the returned channel. Therefore, this method should only be
+     * called in the header of a try-with-resources statement.
+     *
+     * @return the {@link FileChannel} for reading this byte sequence, or {@code null} if this byte sequence is not
+     *     backed by a local file
+     * @throws IOException if an I/O error occurs
+     */
+    @Nullable
+    default FileChannel newFileChannel() throws IOException {
+        return null;
+    }
+
     /**
      * Returns a byte array with with the content of this byte sequence.
      *
@@ -114,26 +139,12 @@ public interface ByteSequence {
      * @throws IOException if an I/O error occurs
      */
     default byte[] toByteArray() throws IOException {
-        // Same size as the buffer used by java.nio.file.Files#read
-        final int bufferSize = 8192;
         try (
             InputStream inputStream = newInputStream();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bufferSize)
+            BufferPool.GrowableBuffer buffer = BufferPool.shared().newGrowableBuffer()
         ) {
-            byte[] buffer = new byte[bufferSize];
-            while (true) {
-                int numBytesRead = inputStream.read(buffer);
-                if (numBytesRead == -1) {
-                    break;
-                }
-                outputStream.write(buffer, 0, numBytesRead);
-            }
-
-            // From the ByteArrayOutputStream JavaDoc: The methods [...] can be called after the stream has been
-            // closed without generating an IOException. Closing streams is idempotent, so there will not be a
-            // problem at the end of the try-with-resources statement.
-            outputStream.close();
-            return outputStream.toByteArray();
+            buffer.readFrom(inputStream);
+            return buffer.toByteArray();
         }
     }
 }
@@ -0,0 +1,26 @@
+package xyz.cloudkeeper.model;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Indicates that the annotated simple module is deterministic, so that its out-port values may be reused for any later
+ * execution with equal in-port values.
+ *
+ * <p>This annotation is the Java equivalent of {@link cloudkeeper.annotations.CloudKeeperMemoization}.
+ *
+ * @see cloudkeeper.annotations.CloudKeeperMemoization
+ */
+@ModelEquivalent(cloudkeeper.annotations.CloudKeeperMemoization.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface CloudKeeperMemoization {
+    /**
+     * Version of the implementation of the annotated module.
+     *
+     * @see cloudkeeper.annotations.CloudKeeperMemoization#version()
+     */
+    String version() default "";
+}
@@ -1,8 +1,10 @@
 package xyz.cloudkeeper.model.beans;
 
 import cloudkeeper.annotations.CloudKeeperElementReference;
+import cloudkeeper.annotations.CloudKeeperMemoization;
 import cloudkeeper.annotations.CloudKeeperSerialization;
 import cloudkeeper.serialization.ByteSequenceMarshaler;
+import cloudkeeper.serialization.ChunkedCollectionMarshaler;
 import cloudkeeper.serialization.CollectionMarshaler;
 import cloudkeeper.serialization.IntegerMarshaler;
 import cloudkeeper.serialization.SerializableMarshaler;
@@ -87,6 +89,7 @@ public final class SystemBundle {
                     .setQualifiedName("cloudkeeper.annotations")
                     .setDeclarations(Arrays.<MutablePluginDeclaration<?>>asList(
                         MutableAnnotationTypeDeclaration.fromClass(CloudKeeperElementReference.class, copyOptions),
+                        MutableAnnotationTypeDeclaration.fromClass(CloudKeeperMemoization.class, copyOptions),
                         MutableAnnotationTypeDeclaration.fromClass(CloudKeeperSerialization.class, copyOptions)
                     )),
                 new MutablePackage()
@@ -143,6 +146,7 @@ public final class SystemBundle {
                     .setQualifiedName("cloudkeeper.serialization")
                     .setDeclarations(Arrays.<MutablePluginDeclaration<?>>asList(
                         MutableSerializationDeclaration.fromClass(CollectionMarshaler.class, copyOptions),
+                        MutableSerializationDeclaration.fromClass(ChunkedCollectionMarshaler.class, copyOptions),
                         MutableSerializationDeclaration.fromClass(IntegerMarshaler.class, copyOptions),
                         MutableSerializationDeclaration.fromClass(SerializableMarshaler.class, copyOptions),
                         MutableSerializationDeclaration.fromClass(StringMarshaler.class, copyOptions),
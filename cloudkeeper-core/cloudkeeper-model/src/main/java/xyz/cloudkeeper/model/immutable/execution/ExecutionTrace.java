@@ -12,6 +12,8 @@ import xyz.cloudkeeper.model.util.ImmutableList;
 
 import javax.annotation.Nullable;
 import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -55,41 +57,80 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
      * The characters {@code C} and {@code #} represent the terminals {@code content} and {@code array-index}, character
      * {@code F} represents the non-terminal {@code frame}, and character {@code P} represents the non-terminal
      * {@code port}.
+     *
+     * <p>The language described by this regular expression is local: A sequence is valid if and only if each pair of
+     * adjacent characters is valid (see {@link #canFollow(Type, Type)}). Validation therefore never needs to build the
+     * character sequence or run a regular-expression matcher, and appending an element only requires looking at the
+     * previous element.
      */
     private static final String VALIDATE_REGEX = "C?(FC)*(F(P#*)?)?|P#*|#+";
 
-    private enum RegexVisitor implements RuntimeExecutionTraceVisitor<Character, Void> {
-        INSTANCE;
+    /**
+     * Number of cached {@link Type#ITERATION} and {@link Type#ARRAY_INDEX} elements.
+     */
+    private static final int CACHED_INDICES = 256;
 
-        @Override
-        public Character visitContent(RuntimeExecutionTrace executionTrace, Void ignored) {
-            return 'C';
-        }
+    private static final Element CONTENT_ELEMENT = new Element(Type.CONTENT, null);
+    private static final Element[] ITERATION_ELEMENTS = new Element[CACHED_INDICES];
+    private static final Element[] ARRAY_INDEX_ELEMENTS = new Element[CACHED_INDICES];
 
-        @Override
-        public Character visitModule(RuntimeExecutionTrace executionTrace, Void ignored) {
-            return 'F';
+    static {
+        for (int i = 0; i < CACHED_INDICES; ++i) {
+            ITERATION_ELEMENTS[i] = new Element(Type.ITERATION, Index.index(i));
+            ARRAY_INDEX_ELEMENTS[i] = new Element(Type.ARRAY_INDEX, Index.index(i));
         }
+    }
 
-        @Override
-        public Character visitIteration(RuntimeExecutionTrace executionTrace, Void ignored) {
-            return 'F';
+    /**
+     * Returns whether an element of type {@code next} may immediately follow an element of type {@code previous}.
+     *
+     * <p>Content elements may only be followed by frames, frames may be followed by content or port elements, and
+     * port or array-index elements may only be followed by array-index elements.
+     */
+    private static boolean canFollow(Type previous, Type next) {
+        switch (previous) {
+            case CONTENT: return next == Type.MODULE || next == Type.ITERATION;
+            case MODULE: case ITERATION: return next == Type.CONTENT || PORT_TYPES.contains(next);
+            case IN_PORT: case OUT_PORT: case ARRAY_INDEX: return next == Type.ARRAY_INDEX;
+            default: throw new IllegalStateException("Unexpected element type in execution trace.");
         }
+    }
 
-        @Override
-        public Character visitInPort(RuntimeExecutionTrace executionTrace, Void ignored) {
-            return 'P';
+    private static char validationCharacter(Type type) {
+        switch (type) {
+            case CONTENT: return 'C';
+            case MODULE: case ITERATION: return 'F';
+            case IN_PORT: case OUT_PORT: return 'P';
+            case ARRAY_INDEX: return '#';
+            default: throw new IllegalStateException("Unexpected element type in execution trace.");
         }
+    }
 
-        @Override
-        public Character visitOutPort(RuntimeExecutionTrace executionTrace, Void ignored) {
-            return 'P';
+    private static IllegalExecutionTraceException invalidSequence(List<? extends RuntimeExecutionTrace> elements) {
+        StringBuilder stringBuilder = new StringBuilder(elements.size());
+        for (RuntimeExecutionTrace element: elements) {
+            stringBuilder.append(validationCharacter(element.getType()));
         }
+        return new IllegalExecutionTraceException(String.format(
+            "Sequence '%s' does not match regular regular expression '%s'.", stringBuilder, VALIDATE_REGEX
+        ));
+    }
 
-        @Override
-        public Character visitArrayIndex(RuntimeExecutionTrace executionTrace, Void ignored) {
-            return '#';
+    /**
+     * Returns an element of the given type and with the given value, reusing cached instances where possible.
+     */
+    private static Element element(Type type, @Nullable Key value) {
+        if (type == Type.CONTENT) {
+            return CONTENT_ELEMENT;
+        } else if (type == Type.ITERATION || type == Type.ARRAY_INDEX) {
+            int index = ((Index) value).intValue();
+            if (index >= 0 && index < CACHED_INDICES) {
+                return type == Type.ITERATION
+                    ? ITERATION_ELEMENTS[index]
+                    : ARRAY_INDEX_ELEMENTS[index];
+            }
         }
+        return new Element(type, value);
     }
 
     private enum ResolveVisitor implements RuntimeExecutionTraceVisitor<ExecutionTrace, ExecutionTrace> {
@@ -144,8 +185,11 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
      * Returns an execution trace equivalent to the original bare execution trace.
      *
      * <p>If the original object is an instance of this class, the original object is simply returned (this is safe as
-     * it is immutable). Otherwise, this method constructs a new execution trace by calling {@link #valueOf(String)}
-     * on the result of {@link BareExecutionTrace#toString()}.
+     * it is immutable). If the original object is a {@link RuntimeExecutionTrace}, this method constructs a new
+     * execution trace from the list returned by {@link RuntimeExecutionTrace#asElementList()}; if that list only
+     * contains instances of this class (as is the case, for instance, for annotated execution traces), it is reused
+     * without copying. Otherwise, this method constructs a new execution trace by calling {@link #valueOf(String)} on
+     * the result of {@link BareExecutionTrace#toString()}.
      *
      * @param original original bare execution trace
      * @return execution trace equivalent to the original bare execution trace
@@ -153,11 +197,51 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
     public static ExecutionTrace copyOf(BareExecutionTrace original) {
         if (original instanceof ExecutionTrace) {
             return (ExecutionTrace) original;
+        } else if (original instanceof RuntimeExecutionTrace) {
+            return copyOfElements(((RuntimeExecutionTrace) original).asElementList());
         }
 
         return valueOf(original.toString());
     }
 
+    private static ExecutionTrace copyOfElement(RuntimeExecutionTrace element) {
+        if (element instanceof Element) {
+            return (Element) element;
+        } else if (element.getType() == Type.CONTENT) {
+            return CONTENT_ELEMENT;
+        }
+        return element(element.getType(), element.getKey());
+    }
+
+    private static ExecutionTrace copyOfElements(ImmutableList<? extends RuntimeExecutionTrace> elements) {
+        int size = elements.size();
+        if (size == 0) {
+            return EmptyExecutionTrace.INSTANCE;
+        } else if (size == 1) {
+            return copyOfElement(elements.get(0));
+        }
+
+        boolean allElements = true;
+        for (RuntimeExecutionTrace element: elements) {
+            if (!(element instanceof Element)) {
+                allElements = false;
+                break;
+            }
+        }
+
+        if (allElements) {
+            @SuppressWarnings("unchecked")
+            ImmutableList<ExecutionTrace> executionTraceElements = (ImmutableList<ExecutionTrace>) elements;
+            return new ExecutionTraceImpl(executionTraceElements);
+        } else {
+            List<ExecutionTrace> copiedElements = new ArrayList<>(size);
+            for (RuntimeExecutionTrace element: elements) {
+                copiedElements.add(copyOfElement(element));
+            }
+            return new ExecutionTraceImpl(copiedElements);
+        }
+    }
+
     private static ExecutionTrace resolveFrame(ExecutionTrace trace, String tokenString, String fullString) {
         Key key = Key.valueOf(tokenString);
         if (key instanceof SimpleName) {
@@ -328,6 +412,32 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
     @Override
     public abstract ExecutionTrace subtrace(int beginIndex, int endIndex);
 
+    /**
+     * Returns whether this execution trace starts with the given execution trace.
+     *
+     * <p>This method is equivalent to {@code size() >= prefix.size() && subtrace(0, prefix.size()).equals(prefix)},
+     * but it does not create any intermediate objects.
+     *
+     * @param prefix the potential prefix
+     * @return whether this execution trace starts with the given execution trace
+     */
+    public final boolean startsWith(ExecutionTrace prefix) {
+        Objects.requireNonNull(prefix);
+        int prefixSize = prefix.size();
+        if (prefixSize > size()) {
+            return false;
+        }
+
+        List<ExecutionTrace> elements = asElementList();
+        List<ExecutionTrace> prefixElements = prefix.asElementList();
+        for (int i = 0; i < prefixSize; ++i) {
+            if (!elements.get(i).equals(prefixElements.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static void requireValidSubtraceArguments(int beginIndex, int endIndex, int size) {
         if (beginIndex < 0) {
             throw new IndexOutOfBoundsException("fromIndex = " + beginIndex);
@@ -416,32 +526,32 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
 
         @Override
         public ExecutionTrace resolveContent() {
-            return new Element(Type.CONTENT, null);
+            return CONTENT_ELEMENT;
         }
 
         @Override
         public ExecutionTrace resolveModule(SimpleName moduleName) {
-            return new Element(Type.MODULE, moduleName);
+            return new Element(Type.MODULE, Objects.requireNonNull(moduleName));
         }
 
         @Override
         public ExecutionTrace resolveIteration(Index index) {
-            return new Element(Type.ITERATION, index);
+            return element(Type.ITERATION, Objects.requireNonNull(index));
         }
 
         @Override
         public ExecutionTrace resolveInPort(SimpleName inPortName) {
-            return new Element(Type.IN_PORT, inPortName);
+            return new Element(Type.IN_PORT, Objects.requireNonNull(inPortName));
         }
 
         @Override
         public ExecutionTrace resolveOutPort(SimpleName outPortName) {
-            return new Element(Type.OUT_PORT, outPortName);
+            return new Element(Type.OUT_PORT, Objects.requireNonNull(outPortName));
         }
 
         @Override
         public ExecutionTrace resolveArrayIndex(Index index) {
-            return new Element(Type.ARRAY_INDEX, index);
+            return element(Type.ARRAY_INDEX, Objects.requireNonNull(index));
         }
 
         @Override
@@ -476,6 +586,13 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
         private final Type type;
         @Nullable private final Key value;
 
+        /**
+         * Cached hash code, or 0 if not yet computed.
+         *
+         * <p>The hash code is not part of the serialized form because {@link Enum#hashCode()} differs between JVMs.
+         */
+        private transient int hash;
+
         private Element(Type type, @Nullable Key value) {
             assert type == Type.CONTENT || value != null;
 
@@ -483,6 +600,12 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
             this.value = value;
         }
 
+        private Object readResolve() throws ObjectStreamException {
+            return type == Type.CONTENT
+                ? CONTENT_ELEMENT
+                : this;
+        }
+
         @Override
         public boolean equals(Object otherObject) {
             if (this == otherObject) {
@@ -498,7 +621,12 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
 
         @Override
         public int hashCode() {
-            return Objects.hash(type, value);
+            int localHash = hash;
+            if (localHash == 0) {
+                localHash = Objects.hash(type, value);
+                hash = localHash;
+            }
+            return localHash;
         }
 
         @Override
@@ -581,7 +709,7 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
         @Override
         public ExecutionTrace subtrace(int beginIndex, int endIndex) {
             requireValidSubtraceArguments(beginIndex, endIndex, 1);
-            return endIndex == 1
+            return beginIndex == 0 && endIndex == 1
                 ? this
                 : EmptyExecutionTrace.INSTANCE;
         }
@@ -601,40 +729,46 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
             return (Index) value;
         }
 
+        private ExecutionTrace resolve(Element element) {
+            if (!canFollow(type, element.type)) {
+                throw invalidSequence(join(this, element));
+            }
+            return new ExecutionTraceImpl(ImmutableList.copyOf(join(this, element)), false);
+        }
+
         @Override
         public ExecutionTrace resolveContent() {
-            return new ExecutionTraceImpl(join(this, new Element(Type.CONTENT, null)));
+            return resolve(CONTENT_ELEMENT);
         }
 
         @Override
         public ExecutionTrace resolveModule(SimpleName moduleName) {
-            return new ExecutionTraceImpl(join(this, new Element(Type.MODULE, moduleName)));
+            return resolve(new Element(Type.MODULE, Objects.requireNonNull(moduleName)));
         }
 
         @Override
         public ExecutionTrace resolveIteration(Index index) {
-            return new ExecutionTraceImpl(join(this, new Element(Type.ITERATION, index)));
+            return resolve(element(Type.ITERATION, Objects.requireNonNull(index)));
         }
 
         @Override
         public ExecutionTrace resolveInPort(SimpleName inPortName) {
-            return new ExecutionTraceImpl(join(this, new Element(Type.IN_PORT, inPortName)));
+            return resolve(new Element(Type.IN_PORT, Objects.requireNonNull(inPortName)));
         }
 
         @Override
         public ExecutionTrace resolveOutPort(SimpleName outPortName) {
-            return new ExecutionTraceImpl(join(this, new Element(Type.OUT_PORT, outPortName)));
+            return resolve(new Element(Type.OUT_PORT, Objects.requireNonNull(outPortName)));
         }
 
         @Override
         public ExecutionTrace resolveArrayIndex(Index index) {
-            return new ExecutionTraceImpl(join(this, new Element(Type.ARRAY_INDEX, index)));
+            return resolve(element(Type.ARRAY_INDEX, Objects.requireNonNull(index)));
         }
     }
 
     private static final class ExecutionTraceImpl extends ExecutionTrace {
         private static final long serialVersionUID = -2112851616498618765L;
-        private static final Pattern VALID_TRACE_PATTERN = Pattern.compile(VALIDATE_REGEX);
 
         /**
          * Expected length of each element in an execution trace (used inside {@link #toString()}).
@@ -643,8 +777,31 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
 
         private final ImmutableList<ExecutionTrace> elements;
 
+        /**
+         * Cached hash code, or 0 if not yet computed.
+         */
+        private transient int hash;
+
         private ExecutionTraceImpl(List<ExecutionTrace> elements) {
-            this.elements = ImmutableList.copyOf(requireValid(elements));
+            this(ImmutableList.copyOf(elements), true);
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param elements list of elements
+         * @param validate whether the list of elements needs to be validated; if {@code false}, the caller must have
+         *     verified that the list of elements is valid
+         */
+        private ExecutionTraceImpl(ImmutableList<ExecutionTrace> elements, boolean validate) {
+            this.elements = validate
+                ? requireValid(elements)
+                : elements;
+        }
+
+        private void readObject(ObjectInputStream stream) throws IOException, ClassNotFoundException {
+            stream.defaultReadObject();
+            requireValid(elements);
         }
 
         @Override
@@ -660,7 +817,12 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
 
         @Override
         public int hashCode() {
-            return elements.hashCode();
+            int localHash = hash;
+            if (localHash == 0) {
+                localHash = elements.hashCode();
+                hash = localHash;
+            }
+            return localHash;
         }
 
         @Override
@@ -702,16 +864,13 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
                 throw new IllegalArgumentException("Expected at least two elements.");
             }
 
-            StringBuilder stringBuilder = new StringBuilder(elements.size());
-            for (ExecutionTrace element: elements) {
-                stringBuilder.append(element.accept(RegexVisitor.INSTANCE, null));
-            }
-            String sequence = stringBuilder.toString();
-
-            if (!VALID_TRACE_PATTERN.matcher(sequence).matches()) {
-                throw new IllegalExecutionTraceException(String.format(
-                    "Sequence '%s' does not match regular regular expression '%s'.", sequence, VALIDATE_REGEX
-                ));
+            Type previous = elements.get(0).getType();
+            for (int i = 1; i < elements.size(); ++i) {
+                Type current = elements.get(i).getType();
+                if (!canFollow(previous, current)) {
+                    throw invalidSequence(elements);
+                }
+                previous = current;
             }
 
             return elements;
@@ -788,38 +947,51 @@ public abstract class ExecutionTrace implements RuntimeExecutionTrace, Serializa
             } else if (size == elements.size()) {
                 return this;
             } else {
-                return new ExecutionTraceImpl(elements.subList(beginIndex, endIndex));
+                // The language of valid execution traces is closed under taking substrings, so no need to validate.
+                return new ExecutionTraceImpl(ImmutableList.copyOf(elements.subList(beginIndex, endIndex)), false);
+            }
+        }
+
+        /**
+         * Returns a new execution trace with the given element appended.
+         *
+         * <p>Since this execution trace is valid, only the new pair of adjacent elements needs to be validated.
+         */
+        private ExecutionTrace resolve(Element element) {
+            if (!canFollow(getType(), element.type)) {
+                throw invalidSequence(join(elements, element));
             }
+            return new ExecutionTraceImpl(ImmutableList.copyOf(join(elements, element)), false);
         }
 
         @Override
         public ExecutionTrace resolveContent() {
-            return new ExecutionTraceImpl(join(elements, new Element(Type.CONTENT, null)));
+            return resolve(CONTENT_ELEMENT);
         }
 
         @Override
         public ExecutionTrace resolveModule(SimpleName moduleName) {
-            return new ExecutionTraceImpl(join(elements, new Element(Type.MODULE, moduleName)));
+            return resolve(new Element(Type.MODULE, Objects.requireNonNull(moduleName)));
         }
 
         @Override
         public ExecutionTrace resolveIteration(Index index) {
-            return new ExecutionTraceImpl(join(elements, new Element(Type.ITERATION, index)));
+            return resolve(element(Type.ITERATION, Objects.requireNonNull(index)));
         }
 
         @Override
         public ExecutionTrace resolveInPort(SimpleName inPortName) {
-            return new ExecutionTraceImpl(join(elements, new Element(Type.IN_PORT, inPortName)));
+            return resolve(new Element(Type.IN_PORT, Objects.requireNonNull(inPortName)));
         }
 
         @Override
         public ExecutionTrace resolveOutPort(SimpleName outPortName) {
-            return new ExecutionTraceImpl(join(elements, new Element(Type.OUT_PORT, outPortName)));
+            return resolve(new Element(Type.OUT_PORT, Objects.requireNonNull(outPortName)));
         }
 
         @Override
         public ExecutionTrace resolveArrayIndex(Index index) {
-            return new ExecutionTraceImpl(join(elements, new Element(Type.ARRAY_INDEX, index)));
+            return resolve(element(Type.ARRAY_INDEX, Objects.requireNonNull(index)));
         }
     }
 }
@@ -0,0 +1,390 @@
+package xyz.cloudkeeper.model.util;
+
+import javax.annotation.Nullable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of byte arrays.
+ *
+ * <p>Writing many medium-sized values (for instance, port values written by staging areas) typically allocates short-
+ * lived buffers of the same few sizes over and over again. A buffer pool allows these buffers to be reused instead.
+ * Only arrays whose length is a power of two between {@link #MIN_POOLED_SIZE} and {@link #MAX_POOLED_SIZE} (inclusive)
+ * are pooled; for each such size, there is a separate free list. The total number of bytes held by all free lists is
+ * bounded by the limit passed to {@link #BufferPool(long)}. Arrays released while the pool is full are left to the
+ * garbage collector.
+ *
+ * <p>Arrays returned by {@link #acquire(int)} may contain arbitrary data. Callers must not access an array after
+ * passing it to {@link #release(byte[])}, and each array must be released at most once.
+ *
+ * <p>Instances of this class are thread-safe.
+ */
+public final class BufferPool {
+    /**
+     * Minimum length of pooled arrays.
+     */
+    public static final int MIN_POOLED_SIZE = 1 << 8;
+
+    /**
+     * Maximum length of pooled arrays.
+     */
+    public static final int MAX_POOLED_SIZE = 1 << 24;
+
+    /**
+     * Buffer size of streams returned by {@link #newBufferedOutputStream(OutputStream)}.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private static final int MIN_POOLED_SIZE_LOG2 = Integer.numberOfTrailingZeros(MIN_POOLED_SIZE);
+    private static final int MAX_POOLED_SIZE_LOG2 = Integer.numberOfTrailingZeros(MAX_POOLED_SIZE);
+    private static final long DEFAULT_MAX_POOLED_BYTES = 32L << 20;
+
+    private final long maxPooledBytes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final Queue<byte[]>[] freeLists;
+
+    /**
+     * Creates a new buffer pool.
+     *
+     * @param maxPooledBytes maximum total number of bytes that the pool holds on to, must be non-negative
+     */
+    @SuppressWarnings("unchecked")
+    public BufferPool(long maxPooledBytes) {
+        if (maxPooledBytes < 0) {
+            throw new IllegalArgumentException(String.format(
+                "Expected non-negative maximum number of pooled bytes, but got %d.", maxPooledBytes
+            ));
+        }
+        this.maxPooledBytes = maxPooledBytes;
+        freeLists = (Queue<byte[]>[]) new Queue<?>[MAX_POOLED_SIZE_LOG2 - MIN_POOLED_SIZE_LOG2 + 1];
+        for (int i = 0; i < freeLists.length; ++i) {
+            freeLists[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    private static final class Holder {
+        private static final BufferPool SHARED = new BufferPool(DEFAULT_MAX_POOLED_BYTES);
+    }
+
+    /**
+     * Returns the buffer pool that is shared by all CloudKeeper components in the current JVM (unless configured
+     * otherwise).
+     *
+     * @return the shared buffer pool
+     */
+    public static BufferPool shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Returns the index of the free list for arrays of the given length, or -1 if arrays of this length are not
+     * pooled.
+     */
+    private static int freeListIndex(int length) {
+        if (length < MIN_POOLED_SIZE || length > MAX_POOLED_SIZE || Integer.bitCount(length) != 1) {
+            return -1;
+        }
+        return Integer.numberOfTrailingZeros(length) - MIN_POOLED_SIZE_LOG2;
+    }
+
+    /**
+     * Returns a byte array of exactly the given length, taken from the pool if possible.
+     *
+     * @param length length of the array
+     * @return the byte array, which may contain arbitrary data
+     */
+    public byte[] acquire(int length) {
+        if (length < 0) {
+            throw new IllegalArgumentException(String.format("Expected non-negative length, but got %d.", length));
+        }
+
+        int index = freeListIndex(length);
+        if (index >= 0) {
+            byte[] array = freeLists[index].poll();
+            if (array != null) {
+                pooledBytes.addAndGet(-length);
+                return array;
+            }
+        }
+        return new byte[length];
+    }
+
+    /**
+     * Returns the given byte array to the pool.
+     *
+     * <p>If the length of the array is not pooled, or if the pool is full, this method does nothing.
+     *
+     * @param array byte array previously returned by {@link #acquire(int)} or otherwise no longer used
+     */
+    public void release(byte[] array) {
+        Objects.requireNonNull(array);
+        int index = freeListIndex(array.length);
+        if (index < 0) {
+            return;
+        }
+
+        if (pooledBytes.addAndGet(array.length) > maxPooledBytes) {
+            pooledBytes.addAndGet(-array.length);
+        } else {
+            freeLists[index].add(array);
+        }
+    }
+
+    /**
+     * Returns the total number of bytes currently held by this pool.
+     *
+     * @return the total number of bytes currently held by this pool
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * Returns a new buffered output stream that takes its buffer from this pool and returns it when the stream is
+     * closed.
+     *
+     * <p>The returned stream behaves like {@link java.io.BufferedOutputStream} with a buffer size of
+     * {@link #DEFAULT_BUFFER_SIZE}. The buffer is only acquired when data is written for the first time.
+     *
+     * @param outputStream the underlying output stream
+     * @return the new buffered output stream
+     */
+    public OutputStream newBufferedOutputStream(OutputStream outputStream) {
+        return new PooledBufferedOutputStream(outputStream);
+    }
+
+    /**
+     * Returns a new growable in-memory buffer whose backing arrays are taken from this pool.
+     *
+     * <p>The returned buffer is similar to {@link java.io.ByteArrayOutputStream}. However, it gives access to its
+     * content without copying, and its backing array is returned to this pool when the buffer is closed.
+     *
+     * @return the new buffer
+     */
+    public GrowableBuffer newGrowableBuffer() {
+        return new GrowableBuffer();
+    }
+
+    /**
+     * Growable in-memory buffer whose backing arrays are taken from the enclosing pool.
+     *
+     * <p>When the backing array is full, it is replaced by an array of twice the size (which is also taken from the
+     * pool), and the previous array is returned to the pool. Calling {@link #close()} returns the current backing
+     * array to the pool; the buffer must not be used afterward.
+     */
+    public final class GrowableBuffer extends OutputStream {
+        @Nullable private byte[] array;
+        private int count = 0;
+
+        private GrowableBuffer() { }
+
+        private byte[] ensureCapacity(int additionalLength) throws IOException {
+            if (array == null) {
+                array = acquire(MIN_POOLED_SIZE);
+            }
+            int minLength = count + additionalLength;
+            if (minLength < 0) {
+                throw new IOException("Buffer size limit exceeded.");
+            } else if (minLength > array.length) {
+                int newLength = array.length;
+                while (newLength < minLength) {
+                    newLength = newLength << 1 > 0
+                        ? newLength << 1
+                        : Integer.MAX_VALUE;
+                }
+                byte[] newArray = acquire(newLength);
+                System.arraycopy(array, 0, newArray, 0, count);
+                release(array);
+                array = newArray;
+            }
+            return array;
+        }
+
+        @Override
+        public void write(int singleByte) throws IOException {
+            byte[] currentArray = ensureCapacity(1);
+            currentArray[count] = (byte) singleByte;
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) throws IOException {
+            Objects.requireNonNull(source);
+            if (offset < 0 || length < 0 || length > source.length - offset) {
+                throw new IndexOutOfBoundsException(String.format(
+                    "array length = %d, offset = %d, length = %d", source.length, offset, length
+                ));
+            }
+            byte[] currentArray = ensureCapacity(length);
+            System.arraycopy(source, offset, currentArray, count, length);
+            count += length;
+        }
+
+        /**
+         * Reads the given input stream until end-of-stream and appends all bytes to this buffer.
+         *
+         * <p>Bytes are read directly into the backing array, so no intermediate copy buffer is needed.
+         *
+         * @param inputStream input stream
+         * @throws IOException if an I/O error occurs
+         */
+        public void readFrom(InputStream inputStream) throws IOException {
+            while (true) {
+                byte[] currentArray = count == (array == null ? 0 : array.length)
+                    ? ensureCapacity(1)
+                    : array;
+                int numBytesRead = inputStream.read(currentArray, count, currentArray.length - count);
+                if (numBytesRead == -1) {
+                    break;
+                }
+                count += numBytesRead;
+            }
+        }
+
+        /**
+         * Returns the number of bytes written to this buffer.
+         *
+         * @return the number of bytes written to this buffer
+         */
+        public int size() {
+            return count;
+        }
+
+        /**
+         * Writes the content of this buffer to the given output stream.
+         *
+         * @param outputStream output stream
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeTo(OutputStream outputStream) throws IOException {
+            if (array != null) {
+                outputStream.write(array, 0, count);
+            }
+        }
+
+        /**
+         * Returns a newly allocated (and not pooled) byte array with the content of this buffer.
+         *
+         * @return byte array with the content of this buffer
+         */
+        public byte[] toByteArray() {
+            return array == null
+                ? new byte[0]
+                : Arrays.copyOf(array, count);
+        }
+
+        /**
+         * Returns the content of this buffer, decoded using the given charset.
+         *
+         * @param charset charset
+         * @return the decoded string
+         */
+        public String toString(Charset charset) {
+            return array == null
+                ? ""
+                : new String(array, 0, count, charset);
+        }
+
+        @Override
+        public void close() {
+            if (array != null) {
+                release(array);
+                array = null;
+            }
+            count = 0;
+        }
+    }
+
+    private final class PooledBufferedOutputStream extends FilterOutputStream {
+        @Nullable private byte[] buffer;
+        private int count = 0;
+        private boolean closed = false;
+
+        private PooledBufferedOutputStream(OutputStream outputStream) {
+            super(Objects.requireNonNull(outputStream));
+        }
+
+        private byte[] buffer() throws IOException {
+            if (closed) {
+                throw new IOException("Write attempt after stream was closed.");
+            } else if (buffer == null) {
+                buffer = acquire(DEFAULT_BUFFER_SIZE);
+            }
+            return buffer;
+        }
+
+        private void flushBuffer() throws IOException {
+            if (count > 0) {
+                assert buffer != null;
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        @Override
+        public void write(int singleByte) throws IOException {
+            byte[] currentBuffer = buffer();
+            if (count == currentBuffer.length) {
+                flushBuffer();
+            }
+            currentBuffer[count] = (byte) singleByte;
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] array, int offset, int length) throws IOException {
+            Objects.requireNonNull(array);
+            if (offset < 0 || length < 0 || length > array.length - offset) {
+                throw new IndexOutOfBoundsException(String.format(
+                    "array length = %d, offset = %d, length = %d", array.length, offset, length
+                ));
+            }
+
+            byte[] currentBuffer = buffer();
+            if (length >= currentBuffer.length) {
+                // Same as BufferedOutputStream: Large writes bypass the buffer.
+                flushBuffer();
+                out.write(array, offset, length);
+                return;
+            }
+            if (length > currentBuffer.length - count) {
+                flushBuffer();
+            }
+            System.arraycopy(array, offset, currentBuffer, count, length);
+            count += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (buffer != null) {
+                flushBuffer();
+            }
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+
+            try {
+                super.close();
+            } finally {
+                closed = true;
+                if (buffer != null) {
+                    release(buffer);
+                    buffer = null;
+                }
+            }
+        }
+    }
+}
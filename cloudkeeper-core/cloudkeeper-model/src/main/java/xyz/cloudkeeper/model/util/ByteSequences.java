@@ -5,16 +5,18 @@ import cloudkeeper.types.ByteSequence;
 
 import javax.annotation.Nullable;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.CopyOption;
 import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.EnumSet;
 import java.util.LinkedList;
@@ -24,9 +26,13 @@ import java.util.LinkedList;
  */
 public final class ByteSequences {
     /**
-     * Buffer size when copying from one stream to another.
+     * Minimum length of a file-backed byte sequence for {@link #toByteBuffer(ByteSequence)} to map it into memory
+     * instead of reading it into a heap buffer.
+     *
+     * <p>Mapping a file is relatively expensive compared to reading a small number of bytes, so small byte sequences
+     * are simply read.
      */
-    private static final int BUFFER_SIZE = 8192;
+    public static final long MAPPING_THRESHOLD = 1L << 20;
 
     private ByteSequences() {
         throw new AssertionError(String.format("No %s instances for you!", getClass().getName()));
@@ -62,6 +68,58 @@ public final class ByteSequences {
         return new ByteArrayByteSequence(bytes);
     }
 
+    /**
+     * Returns a new {@link ByteSequence} representing the remaining content of the given byte buffer.
+     *
+     * <p>The returned byte sequence will be an undecorated (also called raw or untyped) byte sequence, with default
+     * content type {@link ByteSequence#DEFAULT_CONTENT_TYPE}. Neither the position nor the limit of the given buffer
+     * are modified by the returned byte sequence; however, if the buffer is changed by the caller, the effects on the
+     * byte sequence are undefined.
+     *
+     * <p>This method is useful, for instance, in order to pass (slices of) a {@link java.nio.MappedByteBuffer} to
+     * methods expecting an {@link InputStream}.
+     *
+     * @param byteBuffer the byte buffer
+     * @return the resulting {@link ByteSequence}
+     */
+    public static ByteSequence byteBufferBacked(ByteBuffer byteBuffer) {
+        return new ByteBufferByteSequence(byteBuffer.slice());
+    }
+
+    /**
+     * Returns a read-only {@link ByteBuffer} with the content of the given byte sequence.
+     *
+     * <p>If the byte sequence provides a file channel (see {@link ByteSequence#newFileChannel()}) and its length is at
+     * least {@link #MAPPING_THRESHOLD}, the file is mapped into memory, and the returned buffer is a read-only
+     * {@link java.nio.MappedByteBuffer}. In this case, the content is never copied onto the Java heap. Otherwise, the
+     * content is read into a heap buffer.
+     *
+     * @param byteSequence byte sequence
+     * @return read-only byte buffer with position 0 and limit equal to the length of the byte sequence
+     * @throws IOException if an I/O error occurs, or if the byte sequence is longer than {@link Integer#MAX_VALUE}
+     *     bytes (the maximum capacity of a {@link ByteBuffer})
+     */
+    public static ByteBuffer toByteBuffer(ByteSequence byteSequence) throws IOException {
+        return toByteBuffer(byteSequence, MAPPING_THRESHOLD);
+    }
+
+    static ByteBuffer toByteBuffer(ByteSequence byteSequence, long mappingThreshold) throws IOException {
+        try (@Nullable FileChannel fileChannel = byteSequence.newFileChannel()) {
+            if (fileChannel != null) {
+                long size = fileChannel.size();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException(String.format(
+                        "Cannot map %s into a single byte buffer because it has %d bytes.", byteSequence, size
+                    ));
+                } else if (size >= mappingThreshold) {
+                    // The mapping remains valid after the channel is closed.
+                    return fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+            }
+        }
+        return ByteBuffer.wrap(byteSequence.toByteArray()).asReadOnlyBuffer();
+    }
+
     /**
      * Returns a self-contained {@link ByteSequence} representing the same content as the given byte sequence.
      *
@@ -80,22 +138,10 @@ public final class ByteSequences {
         ByteSequenceMarshaler.Decorator decorator = byteSequence.getDecorator();
         try (
             InputStream inputStream = byteSequence.newInputStream();
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(BUFFER_SIZE)
+            BufferPool.GrowableBuffer buffer = BufferPool.shared().newGrowableBuffer()
         ) {
-            byte[] buffer = new byte[BUFFER_SIZE];
-            while (true) {
-                int numBytesRead = inputStream.read(buffer);
-                if (numBytesRead == -1) {
-                    break;
-                }
-                outputStream.write(buffer, 0, numBytesRead);
-            }
-
-            // From the ByteArrayOutputStream JavaDoc: The methods [...] can be called after the stream has been
-            // closed without generating an IOException. Closing streams is idempotent, so there will not be a
-            // problem at the end of the try-with-resources statement.
-            outputStream.close();
-            return decorator.decorate(arrayBacked(outputStream.toByteArray()));
+            buffer.readFrom(inputStream);
+            return decorator.decorate(arrayBacked(buffer.toByteArray()));
         }
     }
 
@@ -120,9 +166,13 @@ public final class ByteSequences {
      * hard link.
      *
      * <p>If no hard link is performed and if the byte sequence is stored in a file, this method will call
-     * {@link Files#copy(Path, Path, CopyOption...)}. Otherwise, {@link Files#copy(InputStream, Path, CopyOption...)}
-     * will be called. In either case, the copy options passed to this method (except any
-     * {@link CopyOptimizationOption}) will be passed to the respective copy method in {@link Files}.
+     * {@link Files#copy(Path, Path, CopyOption...)}. Otherwise, if the byte sequence provides a file channel (see
+     * {@link ByteSequence#newFileChannel()}), the content is transferred with
+     * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}, which does not pass the
+     * content through the Java heap. In this case, as well as in the last case where
+     * {@link Files#copy(InputStream, Path, CopyOption...)} will be called, only
+     * {@link StandardCopyOption#REPLACE_EXISTING} is supported. In either case, the copy options passed to this method
+     * (except any {@link CopyOptimizationOption}) will be passed to the respective copy method in {@link Files}.
      *
      * @param byteSequence the byte sequence to copy
      * @param target the path to the file
@@ -180,11 +230,49 @@ public final class ByteSequences {
             return Files.copy(sourcePath, target, standardOptionsArray);
         }
 
+        // Third-best case: If the given byte sequence is backed by a file that is not revealed through its URI,
+        // transfer from the file channel
+        try (@Nullable FileChannel sourceChannel = byteSequence.newFileChannel()) {
+            if (sourceChannel != null) {
+                transfer(sourceChannel, target, standardOptionsArray);
+                return target;
+            }
+        }
+
         // Last case: Perform a copy from the input stream
-        Files.copy(byteSequence.newInputStream(), target, standardOptionsArray);
+        try (InputStream inputStream = byteSequence.newInputStream()) {
+            Files.copy(inputStream, target, standardOptionsArray);
+        }
         return target;
     }
 
+    /**
+     * Transfers the entire content of the given file channel to the given target file, with the same semantics as
+     * {@link Files#copy(InputStream, Path, CopyOption...)}.
+     */
+    private static void transfer(FileChannel sourceChannel, Path target, CopyOption[] options) throws IOException {
+        boolean replaceExisting = false;
+        for (CopyOption option: options) {
+            if (option == StandardCopyOption.REPLACE_EXISTING) {
+                replaceExisting = true;
+            } else {
+                throw new UnsupportedOperationException(String.format("Unsupported copy option: %s", option));
+            }
+        }
+
+        if (replaceExisting) {
+            Files.deleteIfExists(target);
+        }
+        try (FileChannel targetChannel
+                = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = sourceChannel.size();
+            long position = 0;
+            while (position < size) {
+                position += sourceChannel.transferTo(position, size - position, targetChannel);
+            }
+        }
+    }
+
     private static final class FileByteSequence implements ByteSequence {
         private final Path path;
 
@@ -222,6 +310,11 @@ public final class ByteSequences {
         public InputStream newInputStream() throws IOException {
             return Files.newInputStream(path);
         }
+
+        @Override
+        public FileChannel newFileChannel() throws IOException {
+            return FileChannel.open(path, StandardOpenOption.READ);
+        }
     }
 
     /**
@@ -274,4 +367,87 @@ public final class ByteSequences {
             return new ByteArrayInputStream(bytes);
         }
     }
+
+    private static final class ByteBufferByteSequence implements ByteSequence {
+        private final ByteBuffer byteBuffer;
+
+        private ByteBufferByteSequence(ByteBuffer byteBuffer) {
+            assert byteBuffer != null;
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public ByteSequenceMarshaler.Decorator getDecorator() {
+            return ByteSequenceMarshaler.noDecorator();
+        }
+
+        @Override
+        public URI getURI() {
+            return null;
+        }
+
+        @Override
+        public boolean isSelfContained() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return byteBuffer.remaining();
+        }
+
+        @Override
+        public String getContentType() {
+            return DEFAULT_CONTENT_TYPE;
+        }
+
+        @Override
+        public InputStream newInputStream() {
+            return new ByteBufferInputStream(byteBuffer.duplicate());
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer byteBuffer;
+
+        private ByteBufferInputStream(ByteBuffer byteBuffer) {
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public int read() {
+            return byteBuffer.hasRemaining()
+                ? byteBuffer.get() & 0xff
+                : -1;
+        }
+
+        @Override
+        public int read(byte[] array, int offset, int length) {
+            if (offset < 0 || length < 0 || length > array.length - offset) {
+                throw new IndexOutOfBoundsException(String.format(
+                    "array length = %d, offset = %d, length = %d", array.length, offset, length
+                ));
+            } else if (length == 0) {
+                return 0;
+            } else if (!byteBuffer.hasRemaining()) {
+                return -1;
+            }
+
+            int numBytesRead = Math.min(length, byteBuffer.remaining());
+            byteBuffer.get(array, offset, numBytesRead);
+            return numBytesRead;
+        }
+
+        @Override
+        public long skip(long count) {
+            int numBytesSkipped = (int) Math.max(0, Math.min(count, byteBuffer.remaining()));
+            byteBuffer.position(byteBuffer.position() + numBytesSkipped);
+            return numBytesSkipped;
+        }
+
+        @Override
+        public int available() {
+            return byteBuffer.remaining();
+        }
+    }
 }
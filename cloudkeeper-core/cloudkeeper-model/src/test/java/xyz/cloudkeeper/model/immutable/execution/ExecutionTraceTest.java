@@ -172,6 +172,41 @@ public class ExecutionTraceTest {
         );
     }
 
+    @Test
+    public void startsWith() {
+        ExecutionTrace trace = ExecutionTrace.valueOf("/foo/1/bar:out:baz:2");
+        Assert.assertTrue(trace.startsWith(ExecutionTrace.empty()));
+        Assert.assertTrue(trace.startsWith(ExecutionTrace.valueOf("/foo")));
+        Assert.assertTrue(trace.startsWith(ExecutionTrace.valueOf("/foo/1/bar")));
+        Assert.assertTrue(trace.startsWith(trace));
+        Assert.assertFalse(trace.startsWith(ExecutionTrace.valueOf("/foo/2")));
+        Assert.assertFalse(trace.startsWith(ExecutionTrace.valueOf("/foo/1/bar:out:baz:2:3")));
+        Assert.assertFalse(trace.startsWith(ExecutionTrace.valueOf(":1")));
+        Assert.assertTrue(ExecutionTrace.empty().startsWith(ExecutionTrace.empty()));
+        Assert.assertFalse(ExecutionTrace.empty().startsWith(ExecutionTrace.valueOf("/foo")));
+    }
+
+    @Test
+    public void sharedElements() {
+        ExecutionTrace first = ExecutionTrace.valueOf("/foo/1:out:bar:2");
+        ExecutionTrace second = ExecutionTrace.empty()
+            .resolveContent()
+            .resolveModule(SimpleName.identifier("foo"))
+            .resolveContent()
+            .resolveIteration(Index.index(1))
+            .resolveOutPort(SimpleName.identifier("bar"))
+            .resolveArrayIndex(Index.index(2));
+        Assert.assertEquals(second, first);
+        Assert.assertEquals(second.hashCode(), first.hashCode());
+        Assert.assertSame(second.asElementList().get(0), first.asElementList().get(0));
+        Assert.assertSame(second.asElementList().get(3), first.asElementList().get(3));
+        Assert.assertSame(second.getIndex(), first.getIndex());
+
+        ExecutionTrace large = ExecutionTrace.valueOf(":100000");
+        Assert.assertEquals(large.getIndex(), Index.index(100000));
+        Assert.assertEquals(large, ExecutionTrace.empty().resolveArrayIndex(Index.index(100000)));
+    }
+
     @Test
     public void callStackTest() {
         Assert.assertEquals(ExecutionTrace.valueOf("/foo:in:bar").getFrames(), ExecutionTrace.valueOf("/foo"));
@@ -192,4 +227,16 @@ public class ExecutionTraceTest {
         Assert.assertEquals(ExecutionTrace.valueOf(":1:2").getFrames(), ExecutionTrace.empty());
         Assert.assertEquals(ExecutionTrace.valueOf(":1:2").getReference(), ExecutionTrace.empty());
     }
+
+    @Test
+    public void subtrace() {
+        ExecutionTrace element = ExecutionTrace.valueOf(":in:foo");
+        Assert.assertEquals(element.subtrace(0, 1), element);
+        Assert.assertEquals(element.subtrace(0, 0), ExecutionTrace.empty());
+        Assert.assertEquals(element.subtrace(1, 1), ExecutionTrace.empty());
+
+        ExecutionTrace trace = ExecutionTrace.valueOf("/foo:in:bar:2");
+        Assert.assertEquals(trace.subtrace(2, 4), ExecutionTrace.valueOf(":in:bar:2"));
+        Assert.assertEquals(trace.subtrace(4, 4), ExecutionTrace.empty());
+    }
 }
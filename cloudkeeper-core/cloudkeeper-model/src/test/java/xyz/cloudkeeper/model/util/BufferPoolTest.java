@@ -0,0 +1,99 @@
+package xyz.cloudkeeper.model.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class BufferPoolTest {
+    private static byte[] bytes(int length) {
+        byte[] array = new byte[length];
+        for (int i = 0; i < length; ++i) {
+            array[i] = (byte) i;
+        }
+        return array;
+    }
+
+    @Test
+    public void acquireRelease() {
+        BufferPool bufferPool = new BufferPool(1024);
+        byte[] first = bufferPool.acquire(512);
+        Assert.assertEquals(first.length, 512);
+        bufferPool.release(first);
+        Assert.assertEquals(bufferPool.getPooledBytes(), 512);
+        Assert.assertSame(bufferPool.acquire(512), first);
+        Assert.assertEquals(bufferPool.getPooledBytes(), 0);
+
+        // Lengths that are not a power of two, or that are too small, are never pooled
+        bufferPool.release(new byte[513]);
+        bufferPool.release(new byte[BufferPool.MIN_POOLED_SIZE / 2]);
+        Assert.assertEquals(bufferPool.getPooledBytes(), 0);
+        Assert.assertEquals(bufferPool.acquire(513).length, 513);
+
+        // The pool does not hold on to more bytes than the limit
+        bufferPool.release(new byte[512]);
+        bufferPool.release(new byte[512]);
+        bufferPool.release(new byte[512]);
+        Assert.assertEquals(bufferPool.getPooledBytes(), 1024);
+    }
+
+    @Test
+    public void bufferedOutputStream() throws IOException {
+        BufferPool bufferPool = new BufferPool(1L << 20);
+        byte[] large = bytes(BufferPool.DEFAULT_BUFFER_SIZE + 1);
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (OutputStream outputStream = bufferPool.newBufferedOutputStream(byteArrayOutputStream)) {
+            outputStream.write(1);
+            outputStream.write(new byte[] {2, 3}, 0, 2);
+            Assert.assertEquals(byteArrayOutputStream.size(), 0);
+            outputStream.write(large);
+        }
+        Assert.assertEquals(bufferPool.getPooledBytes(), BufferPool.DEFAULT_BUFFER_SIZE);
+
+        byte[] actual = byteArrayOutputStream.toByteArray();
+        Assert.assertEquals(Arrays.copyOf(actual, 3), new byte[] {1, 2, 3});
+        Assert.assertEquals(Arrays.copyOfRange(actual, 3, actual.length), large);
+    }
+
+    @Test
+    public void growableBuffer() throws IOException {
+        BufferPool bufferPool = new BufferPool(1L << 20);
+        byte[] expected = bytes(3 * BufferPool.MIN_POOLED_SIZE + 7);
+        try (BufferPool.GrowableBuffer buffer = bufferPool.newGrowableBuffer()) {
+            Assert.assertEquals(buffer.toByteArray(), new byte[0]);
+            buffer.write(expected[0]);
+            buffer.readFrom(new ByteArrayInputStream(expected, 1, expected.length - 1));
+            Assert.assertEquals(buffer.size(), expected.length);
+            Assert.assertEquals(buffer.toByteArray(), expected);
+
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            buffer.writeTo(byteArrayOutputStream);
+            Assert.assertEquals(byteArrayOutputStream.toByteArray(), expected);
+        }
+        // Buffers of all sizes that were used while growing have been returned to the pool.
+        Assert.assertEquals(bufferPool.getPooledBytes(), 7L * BufferPool.MIN_POOLED_SIZE);
+
+        try (BufferPool.GrowableBuffer buffer = bufferPool.newGrowableBuffer()) {
+            buffer.write("Gr\u00fc\u00dfe".getBytes(StandardCharsets.UTF_8));
+            Assert.assertEquals(buffer.toString(StandardCharsets.UTF_8), "Gr\u00fc\u00dfe");
+        }
+    }
+
+    @Test
+    public void badArguments() {
+        try {
+            new BufferPool(-1);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+
+        try {
+            BufferPool.shared().acquire(-1);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+    }
+}
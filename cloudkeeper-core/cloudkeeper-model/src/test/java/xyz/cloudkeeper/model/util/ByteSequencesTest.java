@@ -9,13 +9,77 @@ import org.testng.annotations.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 public class ByteSequencesTest {
     private interface ByteSequenceProvider {
         ByteSequence getByteSequence(byte[] content);
     }
 
+    private static Path tempFile(byte[] content) {
+        try {
+            Path path = Files.createTempFile(ByteSequencesTest.class.getSimpleName(), ".bin");
+            path.toFile().deleteOnExit();
+            return Files.write(path, content);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * File-backed byte sequence that does not reveal its URI, so that only its file channel can be used for
+     * optimizations.
+     */
+    private static final class FileChannelByteSequence implements ByteSequence {
+        private final ByteSequence fileBacked;
+
+        private FileChannelByteSequence(Path path) {
+            fileBacked = ByteSequences.fileBacked(path);
+        }
+
+        @Override
+        public ByteSequenceMarshaler.Decorator getDecorator() {
+            return fileBacked.getDecorator();
+        }
+
+        @Override
+        public URI getURI() {
+            return null;
+        }
+
+        @Override
+        public boolean isSelfContained() {
+            return false;
+        }
+
+        @Override
+        public long getContentLength() throws IOException {
+            return fileBacked.getContentLength();
+        }
+
+        @Override
+        public String getContentType() throws IOException {
+            return fileBacked.getContentType();
+        }
+
+        @Override
+        public InputStream newInputStream() throws IOException {
+            return fileBacked.newInputStream();
+        }
+
+        @Override
+        public FileChannel newFileChannel() throws IOException {
+            return fileBacked.newFileChannel();
+        }
+    }
+
     public static final class ByteSequenceContract implements ITest {
         private final String name;
         private final ByteSequenceProvider provider;
@@ -50,6 +114,24 @@ public class ByteSequencesTest {
                 }
             }
         }
+
+        @Test
+        public void byteBufferAndCopy() throws IOException {
+            byte[] array = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+            ByteSequence byteSequence = provider.getByteSequence(array);
+
+            Assert.assertEquals(ByteSequences.toByteBuffer(byteSequence), ByteBuffer.wrap(array));
+            ByteBuffer mappedIfPossible = ByteSequences.toByteBuffer(byteSequence, 0);
+            Assert.assertEquals(mappedIfPossible, ByteBuffer.wrap(array));
+            Assert.assertTrue(mappedIfPossible.isReadOnly());
+            try (FileChannel fileChannel = byteSequence.newFileChannel()) {
+                Assert.assertEquals(mappedIfPossible instanceof MappedByteBuffer, fileChannel != null);
+            }
+
+            Path target = tempFile(new byte[] { 42 });
+            ByteSequences.copy(byteSequence, target, StandardCopyOption.REPLACE_EXISTING);
+            Assert.assertEquals(Files.readAllBytes(target), array);
+        }
     }
 
     @Factory
@@ -60,6 +142,14 @@ public class ByteSequencesTest {
                 public ByteSequence getByteSequence(byte[] content) {
                     return ByteSequences.arrayBacked(content);
                 }
+            }),
+            new ByteSequenceContract("fileBacked", content -> ByteSequences.fileBacked(tempFile(content))),
+            new ByteSequenceContract("fileChannel", content -> new FileChannelByteSequence(tempFile(content))),
+            new ByteSequenceContract("byteBufferBacked", content -> {
+                ByteBuffer byteBuffer = ByteBuffer.allocate(content.length + 2);
+                byteBuffer.put((byte) -1).put(content).put((byte) -1);
+                byteBuffer.position(1).limit(1 + content.length);
+                return ByteSequences.byteBufferBacked(byteBuffer);
             })
         };
     }
@@ -25,9 +25,13 @@ import xyz.cloudkeeper.model.runtime.element.serialization.RuntimeSerializationR
 import xyz.cloudkeeper.model.runtime.element.serialization.RuntimeSerializedString;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace;
+import xyz.cloudkeeper.staging.StagingIOExecutor.Lane;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -90,6 +94,26 @@ public abstract class AbstractStagingArea implements StagingArea {
      */
     protected abstract <T> CompletableFuture<T> toFuture(IOCheckedSupplier<T> supplier, String format, Object... args);
 
+    /**
+     * Returns a new {@link CompletableFuture} that will be completed with the result of the given {@link Callable},
+     * which performs an operation of the given kind.
+     *
+     * <p>All operations of this class call this method. This implementation ignores the lane and returns the result of
+     * {@link #toFuture(IOCheckedSupplier, String, Object...)}. Subclasses that execute operations asynchronously may
+     * override this method in order to use separate executors for metadata operations and bulk data transfers.
+     *
+     * @param lane kind of operation performed by the computation
+     * @param supplier the computation
+     * @param format format string, see {@link #toFuture(IOCheckedSupplier, String, Object...)}
+     * @param args arguments referenced by the format specifiers in the format string
+     * @param <T> type of the future
+     * @return the new {@link CompletableFuture}
+     */
+    protected <T> CompletableFuture<T> toFuture(Lane lane, IOCheckedSupplier<T> supplier, String format,
+            Object... args) {
+        return toFuture(supplier, format, args);
+    }
+
     @Override
     public final RuntimeAnnotatedExecutionTrace getAnnotatedExecutionTrace() {
         return executionTrace;
@@ -99,8 +123,9 @@ public abstract class AbstractStagingArea implements StagingArea {
      * Deletes all entries with keys that start with the given execution trace (inclusively).
      *
      * <p>This abstract method is called by {@link #delete(RuntimeExecutionTrace)} as well as by
-     * {@link #copy(RuntimeExecutionTrace, RuntimeExecutionTrace)}, {@link #putObject(RuntimeExecutionTrace, Object)},
-     * and {@link #putSerializationTree(RuntimeExecutionTrace, RuntimeSerializationRoot)}. While the signature of this
+     * {@link #copy(RuntimeExecutionTrace, RuntimeExecutionTrace)}, {@link #link(RuntimeExecutionTrace,
+     * RuntimeExecutionTrace)}, {@link #putObject(RuntimeExecutionTrace, Object)}, and
+     * {@link #putSerializationTree(RuntimeExecutionTrace, RuntimeSerializationRoot)}. While the signature of this
      * method is similar, the requirements are less stringent: In particular, this method is not required to verify
      * arguments (the caller is guaranteed to do that).
      *
@@ -119,6 +144,8 @@ public abstract class AbstractStagingArea implements StagingArea {
      * <ul><li>
      *     {@link #copy(RuntimeExecutionTrace, RuntimeExecutionTrace)}
      * </li><li>
+     *     {@link #link(RuntimeExecutionTrace, RuntimeExecutionTrace)}
+     * </li><li>
      *     {@link #putObject(RuntimeExecutionTrace, Object)}
      * </li><li>
      *     {@link #putSerializationTree(RuntimeExecutionTrace, RuntimeSerializationRoot)}
@@ -149,7 +176,7 @@ public abstract class AbstractStagingArea implements StagingArea {
         }
         RuntimeAnnotatedExecutionTrace absolutePrefix = executionTrace.resolveExecutionTrace(prefix);
 
-        return toFuture(() -> {
+        return toFuture(Lane.METADATA, () -> {
             delete(prefix, absolutePrefix);
             return null;
         }, "delete %s", absolutePrefix);
@@ -184,13 +211,56 @@ public abstract class AbstractStagingArea implements StagingArea {
         RuntimeAnnotatedExecutionTrace absoluteSource = executionTrace.resolveExecutionTrace(source);
         RuntimeAnnotatedExecutionTrace absoluteTarget = executionTrace.resolveExecutionTrace(target);
 
-        return toFuture(() -> {
+        return toFuture(Lane.BULK, () -> {
             preWrite(target, absoluteTarget);
             copy(source, target, absoluteSource, absoluteTarget);
             return null;
         }, "copy from %s to %s", absoluteSource, absoluteTarget);
     }
 
+    /**
+     * Makes the object for the given source execution trace available also as object for the given target execution
+     * trace, possibly without duplicating any data.
+     *
+     * <p>This method is called by {@link #link(RuntimeExecutionTrace, RuntimeExecutionTrace)}. While the signature of
+     * this method is similar, the requirements are less stringent: In particular, this method is not required to
+     * verify arguments (the caller is guaranteed to do that).
+     *
+     * <p>It is guaranteed that {@link #preWrite(RuntimeExecutionTrace, RuntimeAnnotatedExecutionTrace)} has been called
+     * immediately before this method.
+     *
+     * <p>The default implementation calls
+     * {@link #copy(RuntimeExecutionTrace, RuntimeExecutionTrace, RuntimeAnnotatedExecutionTrace,
+     * RuntimeAnnotatedExecutionTrace)}. Subclasses that support references should override this method.
+     *
+     * @param source relative source execution trace, {@link RuntimeExecutionTrace#getReference()} is guaranteed
+     *     non-empty
+     * @param target relative target execution trace, {@link RuntimeExecutionTrace#getReference()} is guaranteed
+     *     non-empty
+     * @param absoluteSource the result of {@code getAnnotatedExecutionTrace().resolveExecutionTrace(source)}
+     * @param absoluteTarget the result of {@code getAnnotatedExecutionTrace().resolveExecutionTrace(target)}
+     * @throws IOException if an I/O error occurs
+     */
+    protected void link(RuntimeExecutionTrace source, RuntimeExecutionTrace target,
+            RuntimeAnnotatedExecutionTrace absoluteSource, RuntimeAnnotatedExecutionTrace absoluteTarget)
+            throws IOException {
+        copy(source, target, absoluteSource, absoluteTarget);
+    }
+
+    @Override
+    public final CompletableFuture<Void> link(RuntimeExecutionTrace source, RuntimeExecutionTrace target) {
+        requireRelativeTraceWithReference(source);
+        requireRelativeTraceWithReference(target);
+        RuntimeAnnotatedExecutionTrace absoluteSource = executionTrace.resolveExecutionTrace(source);
+        RuntimeAnnotatedExecutionTrace absoluteTarget = executionTrace.resolveExecutionTrace(target);
+
+        return toFuture(Lane.METADATA, () -> {
+            preWrite(target, absoluteTarget);
+            link(source, target, absoluteSource, absoluteTarget);
+            return null;
+        }, "link from %s to %s", absoluteSource, absoluteTarget);
+    }
+
     /**
      * Writes an object for the given execution trace.
      *
@@ -216,7 +286,7 @@ public abstract class AbstractStagingArea implements StagingArea {
         Objects.requireNonNull(object);
         RuntimeAnnotatedExecutionTrace absoluteTarget = executionTrace.resolveExecutionTrace(target);
 
-        return toFuture(() -> {
+        return toFuture(Lane.BULK, () -> {
             preWrite(target, absoluteTarget);
             putObject(target, absoluteTarget, object);
             return null;
@@ -250,7 +320,7 @@ public abstract class AbstractStagingArea implements StagingArea {
         Objects.requireNonNull(serializationTree);
         RuntimeAnnotatedExecutionTrace absoluteTarget = executionTrace.resolveExecutionTrace(target);
 
-        return toFuture(() -> {
+        return toFuture(Lane.BULK, () -> {
             preWrite(target, absoluteTarget);
             putSerializationTree(target, absoluteTarget, serializationTree);
             return null;
@@ -274,7 +344,7 @@ public abstract class AbstractStagingArea implements StagingArea {
         requireRelativeTraceWithReference(source);
         RuntimeAnnotatedExecutionTrace absoluteSource = executionTrace.resolveExecutionTrace(source);
 
-        return toFuture(() -> getObject(source, absoluteSource), "get object from %s", absoluteSource);
+        return toFuture(Lane.BULK, () -> getObject(source, absoluteSource), "get object from %s", absoluteSource);
     }
 
     /**
@@ -294,7 +364,52 @@ public abstract class AbstractStagingArea implements StagingArea {
         requireRelativeTraceWithReference(source);
         RuntimeAnnotatedExecutionTrace absoluteSource = executionTrace.resolveExecutionTrace(source);
 
-        return toFuture(() -> exists(source, absoluteSource), "determine if %s exists");
+        return toFuture(
+            Lane.METADATA, () -> exists(source, absoluteSource), "determine if %s exists", absoluteSource
+        );
+    }
+
+    /**
+     * Returns which of the given execution traces have a value.
+     *
+     * <p>This method is called by {@link #checkExistence(List)}. The default implementation calls
+     * {@link #exists(RuntimeExecutionTrace, RuntimeAnnotatedExecutionTrace)} for each execution trace. Subclasses
+     * should override this method if the existence of many execution traces can be determined more efficiently.
+     *
+     * @param sources relative source execution traces, {@link RuntimeExecutionTrace#getReference()} is guaranteed
+     *     non-empty for each element
+     * @param absoluteSources list of the same size as {@code sources}, where each element is the result of
+     *     {@code getAnnotatedExecutionTrace().resolveExecutionTrace(source)} for the corresponding element
+     *     {@code source} in {@code sources}
+     * @return set that contains index {@code i} if and only if a value is present at {@code sources.get(i)}
+     * @throws IOException if an I/O error occurs
+     */
+    protected BitSet checkExistence(List<RuntimeExecutionTrace> sources,
+            List<RuntimeAnnotatedExecutionTrace> absoluteSources) throws IOException {
+        BitSet existing = new BitSet(sources.size());
+        for (int i = 0; i < sources.size(); ++i) {
+            if (exists(sources.get(i), absoluteSources.get(i))) {
+                existing.set(i);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public final CompletableFuture<BitSet> checkExistence(List<? extends RuntimeExecutionTrace> sources) {
+        List<RuntimeExecutionTrace> localSources = new ArrayList<>(sources.size());
+        List<RuntimeAnnotatedExecutionTrace> absoluteSources = new ArrayList<>(sources.size());
+        for (RuntimeExecutionTrace source: sources) {
+            requireRelativeTraceWithReference(source);
+            localSources.add(source);
+            absoluteSources.add(executionTrace.resolveExecutionTrace(source));
+        }
+
+        return toFuture(
+            Lane.METADATA,
+            () -> checkExistence(localSources, absoluteSources),
+            "determine which of %d execution traces exist", localSources.size()
+        );
     }
 
     /**
@@ -323,6 +438,7 @@ public abstract class AbstractStagingArea implements StagingArea {
         RuntimeAnnotatedExecutionTrace absoluteTrace = executionTrace.resolveExecutionTrace(trace);
 
         return toFuture(
+            Lane.METADATA,
             () -> getMaximumIndex(trace, absoluteTrace, upperBound), "determine maximum index at %s", absoluteTrace
         );
     }
@@ -368,11 +484,14 @@ public abstract class AbstractStagingArea implements StagingArea {
      */
     protected final void requireValidRequestForProvider() {
         if (!executionTrace.isEmpty()) {
-            // A non-empty empty execution trace is only allowed if the execution trace represents a simple module!
-            if (executionTrace.getType() == RuntimeExecutionTrace.Type.MODULE) {
+            // A non-empty empty execution trace is only allowed if the execution trace represents a simple module, or
+            // a single element of an apply-to-all simple module!
+            RuntimeExecutionTrace.Type type = executionTrace.getType();
+            if (type == RuntimeExecutionTrace.Type.MODULE || type == RuntimeExecutionTrace.Type.ITERATION) {
                 RuntimeModule module = executionTrace.getModule();
                 if (module instanceof RuntimeProxyModule
-                        && ((BareProxyModule) module).getDeclaration() instanceof RuntimeSimpleModuleDeclaration) {
+                        && ((BareProxyModule) module).getDeclaration() instanceof RuntimeSimpleModuleDeclaration
+                        && (type == RuntimeExecutionTrace.Type.MODULE || module.getApplyToAllConnection() != null)) {
                     // OK, all is good.
                     return;
                 }
@@ -6,8 +6,10 @@ import net.florianschoppmann.java.futures.Futures;
 import xyz.cloudkeeper.marshaling.DelegatingMarshalContext;
 import xyz.cloudkeeper.marshaling.DelegatingUnmarshalContext;
 import xyz.cloudkeeper.marshaling.MarshalTarget;
+import xyz.cloudkeeper.marshaling.MarshalerDispatcher;
 import xyz.cloudkeeper.marshaling.UnmarshalSource;
 import xyz.cloudkeeper.model.api.MarshalContext;
+import xyz.cloudkeeper.model.api.ExecutionTraceNotFoundException;
 import xyz.cloudkeeper.model.api.Marshaler;
 import xyz.cloudkeeper.model.api.MarshalingException;
 import xyz.cloudkeeper.model.api.RuntimeContext;
@@ -17,6 +19,7 @@ import xyz.cloudkeeper.model.bare.element.serialization.BareSerializationDeclara
 import xyz.cloudkeeper.model.immutable.element.Key;
 import xyz.cloudkeeper.model.immutable.element.Name;
 import xyz.cloudkeeper.model.immutable.element.NoKey;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
 import xyz.cloudkeeper.model.runtime.element.RuntimeRepository;
 import xyz.cloudkeeper.model.runtime.element.serialization.RuntimeByteSequence;
 import xyz.cloudkeeper.model.runtime.element.serialization.RuntimeSerializationDeclaration;
@@ -27,6 +30,7 @@ import xyz.cloudkeeper.model.runtime.element.serialization.RuntimeSerializedStri
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace;
 import xyz.cloudkeeper.model.util.ImmutableList;
+import xyz.cloudkeeper.staging.StagingIOExecutor.Lane;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -35,9 +39,12 @@ import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import javax.annotation.Nullable;
 
 /**
@@ -45,12 +52,30 @@ import javax.annotation.Nullable;
  *
  * Redirect nodes in the marshaling tree are coalesced, and information about used {@link Marshaler} classes is stored
  * in metadata of class {@link MutableObjectMetadata}.
+ *
+ * <p>Subclasses may support links (see {@link #link(RuntimeExecutionTrace, RuntimeExecutionTrace)}) by overriding
+ * {@link #isLinkSupported()} and {@link #newAbsoluteReadContext(RuntimeExecutionTrace)}. A link is stored as metadata
+ * that contains the absolute execution trace of the linked object (see {@link MutableObjectMetadata#getLink()}), so
+ * creating a link does not read or write any byte sequences. This class transparently follows links when reading
+ * objects. Subclasses are responsible for following links in
+ * {@link #copy(RuntimeExecutionTrace, RuntimeExecutionTrace, RuntimeAnnotatedExecutionTrace,
+ * RuntimeAnnotatedExecutionTrace)} and {@link #exists(RuntimeExecutionTrace, RuntimeAnnotatedExecutionTrace)}, for
+ * which {@link #resolveLink(RuntimeExecutionTrace)} is provided.
  */
 public abstract class ExternalStagingArea extends AbstractStagingArea {
     private final RuntimeContext runtimeContext;
     private final RuntimeSerializationDeclaration stringSerialization;
     private final Executor executor;
 
+    /**
+     * Cache of marshaler dispatchers, one for each list of serialization declarations that objects were written with.
+     *
+     * <p>The number of distinct lists is bounded by the number of ports in the repository, so this map does not need
+     * an eviction policy.
+     */
+    private final ConcurrentHashMap<ImmutableList<RuntimeSerializationDeclaration>, SerializationDispatch>
+        serializationDispatchMap = new ConcurrentHashMap<>();
+
     protected ExternalStagingArea(RuntimeAnnotatedExecutionTrace executionTrace, RuntimeContext runtimeContext,
             Executor executor) {
         super(executionTrace);
@@ -73,7 +98,10 @@ public abstract class ExternalStagingArea extends AbstractStagingArea {
     }
 
     /**
-     * Returns the executor of this staging area
+     * Returns the executor of this staging area.
+     *
+     * <p>If the returned executor is a {@link StagingIOExecutor}, metadata operations and bulk data transfers are
+     * submitted to separate lanes of it.
      *
      * @return the executor of this staging area
      */
@@ -83,7 +111,29 @@ public abstract class ExternalStagingArea extends AbstractStagingArea {
 
     @Override
     protected final <T> CompletableFuture<T> toFuture(IOCheckedSupplier<T> supplier, String format, Object... args) {
-        CompletionStage<T> completionStage = Futures.supplyAsync(supplier, executor);
+        return toFuture(Lane.BULK, supplier, format, args);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the executor of this staging area is a {@link StagingIOExecutor}, the computation is submitted to the
+     * given lane of that executor, where it waits for capacity if necessary. Otherwise, the lane is ignored. If the
+     * executor rejects the computation nonetheless (for instance, because it has been shut down), the returned future
+     * is completed exceptionally.
+     */
+    @Override
+    protected final <T> CompletableFuture<T> toFuture(Lane lane, IOCheckedSupplier<T> supplier, String format,
+            Object... args) {
+        Executor laneExecutor = executor instanceof StagingIOExecutor
+            ? ((StagingIOExecutor) executor).executor(lane)
+            : executor;
+        CompletionStage<T> completionStage;
+        try {
+            completionStage = Futures.supplyAsync(supplier, laneExecutor);
+        } catch (RejectedExecutionException exception) {
+            completionStage = Futures.completedExceptionally(exception);
+        }
         return Futures.translateException(
             completionStage,
             throwable -> new StagingException(
@@ -117,28 +167,136 @@ public abstract class ExternalStagingArea extends AbstractStagingArea {
      */
     protected abstract ReadContext newReadContext(RuntimeExecutionTrace source);
 
+    /**
+     * Returns whether this staging area supports links.
+     *
+     * <p>If this method returns {@code false}, {@link #link(RuntimeExecutionTrace, RuntimeExecutionTrace)} falls back
+     * to {@link #copy(RuntimeExecutionTrace, RuntimeExecutionTrace)}. This implementation returns {@code false}.
+     *
+     * @return whether this staging area supports links
+     */
+    protected boolean isLinkSupported() {
+        return false;
+    }
+
+    /**
+     * Creates a new {@link ReadContext} instance for the given absolute execution trace.
+     *
+     * <p>Unlike {@link #newReadContext(RuntimeExecutionTrace)}, the given execution trace is not relative to the
+     * execution trace of this staging area, and it does not need to be a descendant of it. This method is only called
+     * if {@link #isLinkSupported()} returns {@code true}. This implementation throws an
+     * {@link UnsupportedOperationException}.
+     *
+     * @param absoluteSource absolute execution trace that a value will be deserialized from
+     * @return the new {@link ReadContext} instance
+     */
+    protected ReadContext newAbsoluteReadContext(RuntimeExecutionTrace absoluteSource) {
+        throw new UnsupportedOperationException(String.format(
+            "%s does not support links.", getClass().getName()
+        ));
+    }
+
+    /**
+     * Returns the absolute execution trace of the object that the value at the given execution trace is linked to.
+     *
+     * <p>This method considers the given execution trace and all of its prefixes that still contain the port, starting
+     * with the longest one. For the first of these execution traces for which metadata exists, the metadata is read. If
+     * it contains a link, the linked execution trace followed by the remaining array indices is returned. Otherwise,
+     * the returned {@link Optional} is empty, meaning that the value (if any) is stored without link.
+     *
+     * <p>Since this method requires additional requests to the external storage, subclasses should only call it if
+     * the value at the given execution trace is not physically present.
+     *
+     * @param trace relative execution trace, {@link RuntimeExecutionTrace#getReference()} must be non-empty
+     * @return the absolute execution trace that holds the value for the given execution trace, or an empty
+     *     {@link Optional} if there is no link
+     * @throws IOException if an I/O error occurs
+     */
+    protected final Optional<ExecutionTrace> resolveLink(RuntimeExecutionTrace trace) throws IOException {
+        if (!isLinkSupported()) {
+            return Optional.empty();
+        }
+
+        RuntimeExecutionTrace frames = trace.getFrames();
+        RuntimeExecutionTrace reference = trace.getReference();
+        for (int length = reference.size(); length > 0; --length) {
+            ReadContext readContext = newReadContext(frames.resolveExecutionTrace(reference.subtrace(0, length)));
+            if (readContext.exists()) {
+                @Nullable String link = readContext.getMetadata().getLink();
+                return link == null
+                    ? Optional.empty()
+                    : Optional.of(
+                        ExecutionTrace.valueOf(link).resolveExecutionTrace(reference.subtrace(length, reference.size()))
+                    );
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If {@link #isLinkSupported()} returns {@code true}, this method writes metadata containing the absolute
+     * execution trace of the source object. If the source is itself a link, the new link refers to the same object
+     * (that is, links are never chained). Otherwise, this method calls
+     * {@link #copy(RuntimeExecutionTrace, RuntimeExecutionTrace, RuntimeAnnotatedExecutionTrace,
+     * RuntimeAnnotatedExecutionTrace)}.
+     */
     @Override
-    protected final void putObject(RuntimeExecutionTrace target, RuntimeAnnotatedExecutionTrace absoluteTarget,
-            Object object) throws IOException {
-        ImmutableList<RuntimeSerializationDeclaration> declarations
-            = ImmutableList.copyOf(absoluteTarget.getSerializationDeclarations());
+    protected final void link(RuntimeExecutionTrace source, RuntimeExecutionTrace target,
+            RuntimeAnnotatedExecutionTrace absoluteSource, RuntimeAnnotatedExecutionTrace absoluteTarget)
+            throws IOException {
+        if (!isLinkSupported()) {
+            copy(source, target, absoluteSource, absoluteTarget);
+            return;
+        }
 
-        IdentityHashMap<Marshaler<?>, RuntimeSerializationDeclaration> marshalerMap
-            = new IdentityHashMap<>(declarations.size());
-        List<Marshaler<?>> marshalers = new ArrayList<>(declarations.size());
-        for (RuntimeSerializationDeclaration declaration: declarations) {
-            Marshaler<?> instance = declaration.getInstance();
-            marshalerMap.put(instance, declaration);
-            marshalers.add(instance);
+        ExecutionTrace linkedTrace;
+        Optional<ExecutionTrace> existingLink = resolveLink(source);
+        if (existingLink.isPresent()) {
+            linkedTrace = existingLink.get();
+        } else if (newReadContext(source).exists()) {
+            linkedTrace = ExecutionTrace.copyOf(absoluteSource);
+        } else {
+            throw new ExecutionTraceNotFoundException(ExecutionTrace.copyOf(absoluteSource));
         }
+        newWriteContext(target).putMetadata(new MutableObjectMetadata().setLink(linkedTrace.toString()));
+    }
 
+    @Override
+    protected final void putObject(RuntimeExecutionTrace target, RuntimeAnnotatedExecutionTrace absoluteTarget,
+            Object object) throws IOException {
+        SerializationDispatch serializationDispatch = serializationDispatchMap.computeIfAbsent(
+            ImmutableList.copyOf(absoluteTarget.getSerializationDeclarations()),
+            SerializationDispatch::new
+        );
         DelegatingMarshalContext.marshal(
             object,
-            marshalers,
-            new MarshalTargetImpl(newWriteContext(target), marshalerMap)
+            serializationDispatch.marshalerDispatcher,
+            new MarshalTargetImpl(newWriteContext(target), serializationDispatch.marshalerMap)
         );
     }
 
+    /**
+     * Marshaler dispatcher and map from marshaler instances to serialization declarations, for a list of
+     * serialization declarations.
+     */
+    private static final class SerializationDispatch {
+        private final MarshalerDispatcher marshalerDispatcher;
+        private final IdentityHashMap<Marshaler<?>, RuntimeSerializationDeclaration> marshalerMap;
+
+        private SerializationDispatch(List<RuntimeSerializationDeclaration> declarations) {
+            marshalerMap = new IdentityHashMap<>(declarations.size());
+            List<Marshaler<?>> marshalers = new ArrayList<>(declarations.size());
+            for (RuntimeSerializationDeclaration declaration: declarations) {
+                Marshaler<?> instance = declaration.getInstance();
+                marshalerMap.put(instance, declaration);
+                marshalers.add(instance);
+            }
+            marshalerDispatcher = MarshalerDispatcher.of(marshalers);
+        }
+    }
+
     private final class MarshalerMapBuilderVisitor implements RuntimeSerializationNodeVisitor<Void, Void> {
         private final List<Marshaler<?>> marshalers = new ArrayList<>();
         private final IdentityHashMap<Marshaler<?>, RuntimeSerializationDeclaration> marshalerMap
@@ -189,10 +347,29 @@ public abstract class ExternalStagingArea extends AbstractStagingArea {
     @Override
     protected final Object getObject(RuntimeExecutionTrace source, RuntimeAnnotatedExecutionTrace absoluteSource)
             throws IOException {
-        return DelegatingUnmarshalContext.unmarshal(
-            new UnmarshalSourceImpl(newReadContext(source), runtimeContext.getRepository()),
-            runtimeContext.getClassLoader()
-        );
+        UnmarshalSourceImpl unmarshalSource = new UnmarshalSourceImpl(newReadContext(source));
+        if (isLinkSupported() && source.getReference().size() > 1) {
+            // The source may be an element of a linked collection. Links at the requested execution trace itself are
+            // followed by UnmarshalSourceImpl, without the need for an additional request. Reading the metadata here
+            // is not an additional request either, because UnmarshalSourceImpl keeps the marshalers. Links of
+            // enclosing collections are only resolved if there is no metadata at the requested execution trace.
+            try {
+                unmarshalSource.getMarshaler();
+            } catch (IOException exception) {
+                Optional<ExecutionTrace> link;
+                try {
+                    link = resolveLink(source);
+                } catch (IOException linkException) {
+                    exception.addSuppressed(linkException);
+                    throw exception;
+                }
+                if (!link.isPresent()) {
+                    throw exception;
+                }
+                unmarshalSource = new UnmarshalSourceImpl(newAbsoluteReadContext(link.get()));
+            }
+        }
+        return DelegatingUnmarshalContext.unmarshal(unmarshalSource, runtimeContext.getClassLoader());
     }
 
     /**
@@ -212,6 +389,14 @@ public abstract class ExternalStagingArea extends AbstractStagingArea {
          */
         MutableObjectMetadata getMetadata() throws IOException;
 
+        /**
+         * Returns whether metadata exists for the object represented by this context.
+         *
+         * @return whether metadata exists for the object represented by this context
+         * @throws IOException if an I/O error occurs
+         */
+        boolean exists() throws IOException;
+
         /**
          * Returns the byte sequence identified by the given key.
          *
@@ -290,21 +475,20 @@ public abstract class ExternalStagingArea extends AbstractStagingArea {
         WriteContext resolve(Key key) throws IOException;
     }
 
-    private static final class UnmarshalSourceImpl implements UnmarshalSource {
-        private final ReadContext readContext;
-        private final RuntimeRepository repository;
+    private final class UnmarshalSourceImpl implements UnmarshalSource {
+        private ReadContext readContext;
+        private final RuntimeRepository repository = runtimeContext.getRepository();
         @Nullable private List<Marshaler<?>> marshalers;
         private final int indexOfCurrentMarshaler;
 
-        private UnmarshalSourceImpl(ReadContext readContext, RuntimeRepository repository) throws MarshalingException {
-            this(readContext, repository, null, 0);
+        private UnmarshalSourceImpl(ReadContext readContext) throws MarshalingException {
+            this(readContext, null, 0);
         }
 
-        private UnmarshalSourceImpl(ReadContext readContext, RuntimeRepository repository,
-                @Nullable List<Marshaler<?>> marshalers, int indexOfCurrentMarshaler) throws MarshalingException {
+        private UnmarshalSourceImpl(ReadContext readContext, @Nullable List<Marshaler<?>> marshalers,
+                int indexOfCurrentMarshaler) throws MarshalingException {
             assert marshalers != null || indexOfCurrentMarshaler == 0;
             this.readContext = readContext;
-            this.repository = repository;
             this.marshalers = marshalers;
             this.indexOfCurrentMarshaler = indexOfCurrentMarshaler;
         }
@@ -313,6 +497,17 @@ public abstract class ExternalStagingArea extends AbstractStagingArea {
         public Marshaler<?> getMarshaler() throws IOException {
             if (marshalers == null) {
                 MutableObjectMetadata metadata = readContext.getMetadata();
+                @Nullable String link = metadata.getLink();
+                if (link != null) {
+                    // Links are never chained, so following a single link is sufficient.
+                    readContext = newAbsoluteReadContext(ExecutionTrace.valueOf(link));
+                    metadata = readContext.getMetadata();
+                    if (metadata.getLink() != null) {
+                        throw new MarshalingException(String.format(
+                            "Expected object at linked execution trace '%s', but found another link.", link
+                        ));
+                    }
+                }
                 List<MutableMarshalerIdentifier> marshalerIdentifiers = metadata.getMarshalers();
                 marshalers = new ArrayList<>(marshalerIdentifiers.size());
                 for (MutableMarshalerIdentifier serialization: metadata.getMarshalers()) {
@@ -351,9 +546,9 @@ public abstract class ExternalStagingArea extends AbstractStagingArea {
         @Override
         public UnmarshalSourceImpl resolve(Key key) throws IOException {
             if (key instanceof NoKey) {
-                return new UnmarshalSourceImpl(readContext, repository, marshalers, indexOfCurrentMarshaler + 1);
+                return new UnmarshalSourceImpl(readContext, marshalers, indexOfCurrentMarshaler + 1);
             } else {
-                return new UnmarshalSourceImpl(readContext.resolve(key), repository);
+                return new UnmarshalSourceImpl(readContext.resolve(key));
             }
         }
     }
@@ -12,15 +12,18 @@ import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace;
 
 import java.io.IOException;
-import java.util.AbstractMap;
-import java.util.AbstractSet;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 
 /**
@@ -29,23 +32,37 @@ import javax.annotation.Nullable;
  * <p>This staging-area implementation is particularly useful for debugging and testing because it keeps the entire
  * content of the staging area in a single sorted map. Moreover, this staging area performs all operation synchronously.
  *
- * <p>This implementation is, however, not optimized for performance.
+ * <p>The sorted map is a {@link ConcurrentSkipListMap} that is shared by this staging area and all staging areas
+ * created with {@link #resolveDescendant(RuntimeExecutionTrace)}. Operations that affect all execution traces with a
+ * common prefix (deleting and linking) acquire the write lock of a {@link StampedLock} that is shared as well, so that
+ * they are atomic with respect to each other and to readers. Storing and copying a node affect a single key and
+ * therefore do not acquire any lock. Read operations (retrieving a node, existence checks, and determining the maximum
+ * array index) are optimistic: They validate a stamp after reading and only fall back to the read lock if a prefix
+ * operation interfered. Concurrent workflow executions (for instance, in the same
+ * {@link xyz.cloudkeeper.model.api.CloudKeeperEnvironment}) therefore do not contend for the staging area, and readers
+ * observe either none or all of the execution traces affected by a prefix operation.
  */
 public final class MapStagingArea extends AbstractInMemoryStagingArea {
-    private final Object monitor;
-    private final SortedMap<ExecutionTrace, ObjectNode> objects;
-    private final SynchronizedMap unmodifiableMap;
+    private final ConcurrentNavigableMap<ExecutionTrace, ObjectNode> objects;
+    private final Map<ExecutionTrace, ObjectNode> unmodifiableMap;
+
+    /**
+     * Lock guarding {@link #objects}. The write lock is acquired by operations on a range of keys. Operations on a
+     * single key are atomic by themselves and do not acquire the lock; read operations use optimistic stamps, see
+     * {@link #read(Supplier)}.
+     */
+    private final StampedLock lock;
 
     public MapStagingArea(RuntimeContext runtimeContext, RuntimeAnnotatedExecutionTrace executionTrace) {
-        this(runtimeContext, executionTrace, new Object(), new TreeMap<>());
+        this(runtimeContext, executionTrace, new ConcurrentSkipListMap<>(), new StampedLock());
     }
 
-    private MapStagingArea(RuntimeContext runtimeContext, RuntimeAnnotatedExecutionTrace executionTrace, Object monitor,
-            SortedMap<ExecutionTrace, ObjectNode> objects) {
+    private MapStagingArea(RuntimeContext runtimeContext, RuntimeAnnotatedExecutionTrace executionTrace,
+            ConcurrentNavigableMap<ExecutionTrace, ObjectNode> objects, StampedLock lock) {
         super(runtimeContext, executionTrace);
-        this.monitor = monitor;
         this.objects = objects;
-        unmodifiableMap = new SynchronizedMap();
+        this.lock = lock;
+        unmodifiableMap = Collections.unmodifiableMap(objects);
     }
 
     @Override
@@ -60,26 +77,45 @@ public final class MapStagingArea extends AbstractInMemoryStagingArea {
         }
     }
 
+    /**
+     * Returns the result of the given read operation, which is guaranteed not to have interleaved with an operation
+     * on a range of keys.
+     *
+     * <p>The read operation is first performed without acquiring a lock. Only if the optimistic stamp cannot be
+     * validated afterwards, the read operation is repeated while holding the read lock. Since {@link #objects} is a
+     * concurrent map, the read operation is required to be free of side effects, but it does not need to be prepared
+     * for inconsistent state.
+     */
+    private <T> T read(Supplier<T> readOperation) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            T result = readOperation.get();
+            if (lock.validate(stamp)) {
+                return result;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return readOperation.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
     @Override
     protected void delete(RuntimeExecutionTrace prefix, RuntimeAnnotatedExecutionTrace absoluteAnnotatedPrefix) {
         ExecutionTrace absolutePrefix = ExecutionTrace.copyOf(absoluteAnnotatedPrefix);
-        int absolutePrefixLength = absolutePrefix.size();
-        @Nullable ExecutionTrace lastKey = null;
-
-        synchronized (monitor) {
+        long stamp = lock.writeLock();
+        try {
+            // All keys starting with the prefix form a contiguous range in the sorted map.
             for (ExecutionTrace currentKey: objects.tailMap(absolutePrefix).keySet()) {
-                if (currentKey.size() < absolutePrefixLength
-                        || !currentKey.subtrace(0, absolutePrefixLength).equals(absolutePrefix)) {
-                    lastKey = currentKey;
+                if (!currentKey.startsWith(absolutePrefix)) {
                     break;
                 }
+                objects.remove(currentKey);
             }
-
-            if (lastKey == null) {
-                objects.tailMap(absolutePrefix).clear();
-            } else {
-                objects.subMap(absolutePrefix, lastKey).clear();
-            }
+        } finally {
+            lock.unlockWrite(stamp);
         }
     }
 
@@ -110,16 +146,7 @@ public final class MapStagingArea extends AbstractInMemoryStagingArea {
 
         @Override
         public void storeNode(ObjectNode node) {
-            synchronized (monitor) {
-                objects.put(executionTrace, node);
-            }
-        }
-    }
-
-    @Nullable
-    private ObjectNode internalGetNode(ExecutionTrace absoluteSource) {
-        synchronized (monitor) {
-            return objects.get(absoluteSource);
+            objects.put(executionTrace, node);
         }
     }
 
@@ -127,7 +154,7 @@ public final class MapStagingArea extends AbstractInMemoryStagingArea {
     protected ObjectNode getNode(RuntimeExecutionTrace source, RuntimeAnnotatedExecutionTrace absoluteAnnotatedSource)
             throws ExecutionTraceNotFoundException {
         ExecutionTrace absoluteSource = ExecutionTrace.copyOf(absoluteAnnotatedSource);
-        @Nullable ObjectNode existing = internalGetNode(absoluteSource);
+        @Nullable ObjectNode existing = read(() -> objects.get(absoluteSource));
         if (existing == null) {
             throw new ExecutionTraceNotFoundException(absoluteSource);
         }
@@ -138,14 +165,75 @@ public final class MapStagingArea extends AbstractInMemoryStagingArea {
     protected void copy(RuntimeExecutionTrace source, RuntimeExecutionTrace target,
             RuntimeAnnotatedExecutionTrace absoluteSource, RuntimeAnnotatedExecutionTrace absoluteTarget)
             throws ExecutionTraceNotFoundException {
-        synchronized (monitor) {
-            objects.put(ExecutionTrace.copyOf(absoluteTarget), getNode(source, absoluteSource));
+        ObjectNode node = getNode(source, absoluteSource);
+        objects.put(ExecutionTrace.copyOf(absoluteTarget), node);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Since marshaling-tree nodes are immutable, this method makes the node for the source execution trace, as well
+     * as the nodes for all array indices following it, available under the target execution trace. No node is copied.
+     */
+    @Override
+    protected void link(RuntimeExecutionTrace source, RuntimeExecutionTrace target,
+            RuntimeAnnotatedExecutionTrace absoluteAnnotatedSource, RuntimeAnnotatedExecutionTrace absoluteTarget)
+            throws ExecutionTraceNotFoundException {
+        ExecutionTrace absoluteSource = ExecutionTrace.copyOf(absoluteAnnotatedSource);
+        ExecutionTrace absoluteTargetPrefix = ExecutionTrace.copyOf(absoluteTarget);
+        int sourceSize = absoluteSource.size();
+        long stamp = lock.writeLock();
+        try {
+            if (!objects.containsKey(absoluteSource)) {
+                throw new ExecutionTraceNotFoundException(absoluteSource);
+            }
+            // Collect first, so that the iteration does not see its own insertions in case the target is below the
+            // source.
+            Map<ExecutionTrace, ObjectNode> linkedObjects = new HashMap<>();
+            for (Map.Entry<ExecutionTrace, ObjectNode> entry: objects.tailMap(absoluteSource).entrySet()) {
+                ExecutionTrace currentKey = entry.getKey();
+                if (!currentKey.startsWith(absoluteSource)) {
+                    break;
+                }
+                linkedObjects.put(
+                    absoluteTargetPrefix.resolveExecutionTrace(currentKey.subtrace(sourceSize, currentKey.size())),
+                    entry.getValue()
+                );
+            }
+            objects.putAll(linkedObjects);
+        } finally {
+            lock.unlockWrite(stamp);
         }
     }
 
     @Override
     protected boolean exists(RuntimeExecutionTrace source, RuntimeAnnotatedExecutionTrace absoluteSource) {
-        return internalGetNode(ExecutionTrace.copyOf(absoluteSource)) != null;
+        ExecutionTrace absoluteTrace = ExecutionTrace.copyOf(absoluteSource);
+        return read(() -> objects.containsKey(absoluteTrace));
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This implementation checks all execution traces in a single read operation. Hence, if the given list contains
+     * execution traces affected by the same deletion or linking, either none or all of them are reported as existing.
+     */
+    @Override
+    protected BitSet checkExistence(List<RuntimeExecutionTrace> sources,
+            List<RuntimeAnnotatedExecutionTrace> absoluteSources) {
+        List<ExecutionTrace> absoluteTraces = new ArrayList<>(absoluteSources.size());
+        for (RuntimeAnnotatedExecutionTrace absoluteSource: absoluteSources) {
+            absoluteTraces.add(ExecutionTrace.copyOf(absoluteSource));
+        }
+        return read(() -> {
+            BitSet existing = new BitSet(absoluteTraces.size());
+            for (int i = 0; i < absoluteTraces.size(); ++i) {
+                if (objects.containsKey(absoluteTraces.get(i))) {
+                    existing.set(i);
+                }
+            }
+            return existing;
+        });
     }
 
     @Override
@@ -157,24 +245,24 @@ public final class MapStagingArea extends AbstractInMemoryStagingArea {
             ? Index.index(Integer.MAX_VALUE)
             : upperBound;
         ExecutionTrace last = absoluteTrace.resolveArrayIndex(lastIndex);
-        Optional<Index> optionalIndex;
-        synchronized (monitor) {
+        return read(() -> {
             if (objects.containsKey(last)) {
-                optionalIndex = Optional.of(lastIndex);
-            } else {
-                SortedMap<ExecutionTrace, ObjectNode> searchMap = objects.subMap(first, last);
-                optionalIndex = searchMap.isEmpty()
-                    ? Optional.empty()
-                    : Optional.of(searchMap.lastKey().getIndex());
+                return Optional.of(lastIndex);
             }
-        }
-        return optionalIndex;
+
+            // Unlike SortedMap#lastKey(), ConcurrentNavigableMap#lowerKey(Object) does not throw if there is no such
+            // key.
+            @Nullable ExecutionTrace lowerKey = objects.lowerKey(last);
+            return lowerKey == null || lowerKey.compareTo(first) < 0
+                ? Optional.<Index>empty()
+                : Optional.of(lowerKey.getIndex());
+        });
     }
 
     @Override
     protected AbstractInMemoryStagingArea resolveDescendant(RuntimeExecutionTrace trace,
             RuntimeAnnotatedExecutionTrace absoluteTrace, RuntimeContext runtimeContext) {
-        return new MapStagingArea(runtimeContext, absoluteTrace, monitor, objects);
+        return new MapStagingArea(runtimeContext, absoluteTrace, objects, lock);
     }
 
     @Override
@@ -190,7 +278,8 @@ public final class MapStagingArea extends AbstractInMemoryStagingArea {
      *
      * <p>The returned map provides "read-only" access. Query operations on the returned map "read through", and
      * attempts to modify the returned map, whether direct or via its collection views, result in an
-     * {@link UnsupportedOperationException}.
+     * {@link UnsupportedOperationException}. Iterators of the returned map are weakly consistent, as defined by
+     * {@link ConcurrentSkipListMap}; they never throw {@link java.util.ConcurrentModificationException}.
      *
      * <p>The returned map contains <em>absolute</em> keys. That is, it returns the map initially created when the
      * public constructor {@link #MapStagingArea(RuntimeContext, RuntimeAnnotatedExecutionTrace)} was called. In
@@ -204,49 +293,4 @@ public final class MapStagingArea extends AbstractInMemoryStagingArea {
     public Map<ExecutionTrace, ObjectNode> toUnmodifiableMap() {
         return unmodifiableMap;
     }
-
-    private final class SynchronizedMap extends AbstractMap<ExecutionTrace, ObjectNode> {
-        @Override
-        public Set<Entry<ExecutionTrace, ObjectNode>> entrySet() {
-            return new SynchronizedSet();
-        }
-    }
-
-    private final class SynchronizedSet extends AbstractSet<Map.Entry<ExecutionTrace, ObjectNode>> {
-        @Override
-        public Iterator<Map.Entry<ExecutionTrace, ObjectNode>> iterator() {
-            return new SynchronizedIterator();
-        }
-
-        @Override
-        public int size() {
-            synchronized (monitor) {
-                return objects.size();
-            }
-        }
-    }
-
-    private final class SynchronizedIterator implements Iterator<Map.Entry<ExecutionTrace, ObjectNode>> {
-        private final Iterator<Map.Entry<ExecutionTrace, ObjectNode>> iterator;
-
-        private SynchronizedIterator() {
-            synchronized (monitor) {
-                iterator = objects.entrySet().iterator();
-            }
-        }
-
-        @Override
-        public boolean hasNext() {
-            synchronized (monitor) {
-                return iterator.hasNext();
-            }
-        }
-
-        @Override
-        public Map.Entry<ExecutionTrace, ObjectNode> next() {
-            synchronized (monitor) {
-                return iterator.next();
-            }
-        }
-    }
 }
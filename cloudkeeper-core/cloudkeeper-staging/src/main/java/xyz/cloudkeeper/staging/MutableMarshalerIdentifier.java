@@ -22,6 +22,18 @@ public final class MutableMarshalerIdentifier {
     @Nullable private Name name;
     @Nullable private URI bundleIdentifier;
 
+    /**
+     * Returns a copy of the given marshaler identifier.
+     *
+     * @param original original marshaler identifier
+     * @return the copy
+     */
+    public static MutableMarshalerIdentifier copyOf(MutableMarshalerIdentifier original) {
+        return new MutableMarshalerIdentifier()
+            .setName(original.name)
+            .setBundleIdentifier(original.bundleIdentifier);
+    }
+
     @Override
     public boolean equals(@Nullable Object otherObject) {
         if (this == otherObject) {
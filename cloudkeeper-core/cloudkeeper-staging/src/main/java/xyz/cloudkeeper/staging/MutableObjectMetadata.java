@@ -16,11 +16,31 @@ import java.util.Objects;
  * is invoked and unmarshals into its associated type. Then the next marshaler is invoked unmarshaling into its
  * associated type, etc.
  *
+ * <p>Alternatively, object metadata may consist of a link to another object; that is, the absolute execution trace of
+ * the object that contains the actual value. Metadata that contains a link does not have any marshalers. Links are
+ * created by {@link ExternalStagingArea#link(xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace,
+ * xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace)}.
+ *
  * <p>This class has JAXB annotations. Instances of this class are therefore necessarily mutable.
  */
 @XmlRootElement(name = "object-metadata")
 public final class MutableObjectMetadata {
     private final List<MutableMarshalerIdentifier> marshalers = new ArrayList<>();
+    @Nullable private String link;
+
+    /**
+     * Returns a deep copy of the given metadata.
+     *
+     * @param original original metadata
+     * @return the copy
+     */
+    public static MutableObjectMetadata copyOf(MutableObjectMetadata original) {
+        MutableObjectMetadata copy = new MutableObjectMetadata().setLink(original.link);
+        for (MutableMarshalerIdentifier marshaler: original.marshalers) {
+            copy.marshalers.add(MutableMarshalerIdentifier.copyOf(marshaler));
+        }
+        return copy;
+    }
 
     @Override
     public boolean equals(@Nullable Object otherObject) {
@@ -32,12 +52,13 @@ public final class MutableObjectMetadata {
 
         MutableObjectMetadata other = (MutableObjectMetadata) otherObject;
 
-        return marshalers.equals(other.marshalers);
+        return marshalers.equals(other.marshalers)
+            && Objects.equals(link, other.link);
     }
 
     @Override
     public int hashCode() {
-        return marshalers.hashCode();
+        return 31 * marshalers.hashCode() + Objects.hashCode(link);
     }
 
     @XmlElementWrapper(name = "marshalers")
@@ -59,4 +80,27 @@ public final class MutableObjectMetadata {
         this.marshalers.addAll(backup);
         return this;
     }
+
+    /**
+     * Returns the absolute execution trace (in string representation) of the object that this metadata links to, or
+     * {@code null} if this metadata does not represent a link.
+     *
+     * @return the absolute execution trace of the linked object, or {@code null} if this metadata is not a link
+     */
+    @XmlElement(name = "link")
+    @Nullable
+    public String getLink() {
+        return link;
+    }
+
+    /**
+     * Sets the absolute execution trace (in string representation) of the object that this metadata links to.
+     *
+     * @param link absolute execution trace of the linked object, may be {@code null} if this metadata is not a link
+     * @return this instance
+     */
+    public MutableObjectMetadata setLink(@Nullable String link) {
+        this.link = link;
+        return this;
+    }
 }
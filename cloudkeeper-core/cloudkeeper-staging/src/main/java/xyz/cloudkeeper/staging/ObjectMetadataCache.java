@@ -0,0 +1,179 @@
+package xyz.cloudkeeper.staging;
+
+import javax.annotation.Nullable;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * Bounded cache of {@link MutableObjectMetadata} instances with least-recently-used eviction policy.
+ *
+ * <p>Reading metadata is a fixed per-object cost of external staging areas (a file-system or network request, plus
+ * decoding). Moreover, unmarshaling an object from an external staging area reads the metadata of every level of the
+ * marshaling tree, and resolving links reads the metadata of the link source again. Staging areas may therefore keep
+ * recently read or written metadata in an instance of this class.
+ *
+ * <p>Since instances of {@link MutableObjectMetadata} are mutable, this class only stores and returns copies. A staging
+ * area using this class must invalidate all affected cache entries whenever it deletes or overwrites metadata (see
+ * {@link #invalidate(String)} and {@link #invalidatePrefix(String)}). Changes made by other staging-area instances
+ * that do not share the same cache (for instance, in a different JVM) are not visible while the cache contains a
+ * (stale) entry. This is consistent with the staging-area contract, because CloudKeeper never concurrently reads and
+ * writes the same execution trace.
+ *
+ * <p>Keys are strings (for instance, a path or an S3 key). Besides the access-ordered map used for the
+ * least-recently-used eviction policy, this class keeps the keys in a sorted set. All keys with a common prefix form a
+ * contiguous range in this set, so invalidating a prefix (as needed when deleting or overwriting all objects below an
+ * execution trace) takes time logarithmic in the number of entries plus linear in the number of removed entries.
+ *
+ * <p>Instances of this class are thread-safe.
+ */
+public final class ObjectMetadataCache {
+    /**
+     * Default maximum number of entries.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+    private final int maximumSize;
+    private final LinkedHashMap<String, MutableObjectMetadata> map;
+
+    /**
+     * Keys of {@link #map}, in natural order. Guarded by the monitor of {@link #map}.
+     */
+    private final NavigableSet<String> sortedKeys = new TreeSet<>();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maximumSize maximum number of entries; if 0, the cache never contains any entries
+     */
+    public ObjectMetadataCache(int maximumSize) {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException(String.format(
+                "Expected non-negative maximum size, but got %d.", maximumSize
+            ));
+        }
+        this.maximumSize = maximumSize;
+        map = new LinkedHashMap<String, MutableObjectMetadata>(16, 0.75f, true) {
+            private static final long serialVersionUID = -2405826545218426934L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MutableObjectMetadata> eldest) {
+                boolean remove = size() > ObjectMetadataCache.this.maximumSize;
+                if (remove) {
+                    sortedKeys.remove(eldest.getKey());
+                }
+                return remove;
+            }
+        };
+    }
+
+    /**
+     * Returns the maximum number of entries.
+     *
+     * @return the maximum number of entries
+     */
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns a copy of the cached metadata for the given key, or {@code null} if the cache contains no entry for the
+     * key.
+     *
+     * @param key key
+     * @return copy of the cached metadata, or {@code null} if there is no entry
+     */
+    @Nullable
+    public MutableObjectMetadata get(String key) {
+        Objects.requireNonNull(key);
+        @Nullable MutableObjectMetadata metadata;
+        synchronized (map) {
+            metadata = map.get(key);
+        }
+        return metadata == null
+            ? null
+            : MutableObjectMetadata.copyOf(metadata);
+    }
+
+    /**
+     * Returns whether the cache contains an entry for the given key.
+     *
+     * <p>Unlike {@link #get(String)}, this method does not change the order of the entries.
+     *
+     * @param key key
+     * @return whether the cache contains an entry for the given key
+     */
+    public boolean contains(String key) {
+        Objects.requireNonNull(key);
+        synchronized (map) {
+            return map.containsKey(key);
+        }
+    }
+
+    /**
+     * Stores a copy of the given metadata for the given key.
+     *
+     * @param key key
+     * @param metadata metadata
+     */
+    public void put(String key, MutableObjectMetadata metadata) {
+        Objects.requireNonNull(key);
+        if (maximumSize == 0) {
+            return;
+        }
+        MutableObjectMetadata copy = MutableObjectMetadata.copyOf(metadata);
+        synchronized (map) {
+            sortedKeys.add(key);
+            map.put(key, copy);
+        }
+    }
+
+    /**
+     * Removes the entry for the given key, if any.
+     *
+     * @param key key
+     */
+    public void invalidate(String key) {
+        Objects.requireNonNull(key);
+        synchronized (map) {
+            if (map.remove(key) != null) {
+                sortedKeys.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries whose key starts with the given prefix.
+     *
+     * @param prefix prefix
+     */
+    public void invalidatePrefix(String prefix) {
+        Objects.requireNonNull(prefix);
+        synchronized (map) {
+            // All keys starting with the prefix form a contiguous range in the sorted set.
+            Iterator<String> iterator = sortedKeys.tailSet(prefix).iterator();
+            while (iterator.hasNext()) {
+                String key = iterator.next();
+                if (!key.startsWith(prefix)) {
+                    break;
+                }
+                iterator.remove();
+                map.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the current number of entries.
+     *
+     * @return the current number of entries
+     */
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package xyz.cloudkeeper.staging;
+
+import xyz.cloudkeeper.model.immutable.element.Name;
+
+import javax.annotation.Nullable;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Encoder and decoder for {@link MutableObjectMetadata} instances.
+ *
+ * <p>Metadata is written in one of the formats defined by {@link Format}. When reading, the format is detected
+ * automatically, so metadata written in either format (including metadata written before the binary format was
+ * introduced) can always be read.
+ *
+ * <p>The binary format has the following form (all numbers are big-endian, as written by {@link DataOutputStream}):
+ * magic number {@link #MAGIC} ({@code int}), format version ({@code byte}), the link (boolean flag followed by a
+ * modified UTF-8 string if the flag is {@code true}), the number of marshalers ({@code int}), and finally, for each
+ * marshaler, the name and the bundle identifier (each as boolean flag followed by a modified UTF-8 string if the flag
+ * is {@code true}).
+ *
+ * <p>JAXB marshallers and unmarshallers are not thread-safe, and creating them is relatively expensive. Instances of
+ * this class therefore keep pools of marshallers and unmarshallers, which are reused across calls.
+ *
+ * <p>Instances of this class are thread-safe.
+ */
+public final class ObjectMetadataCodec {
+    /**
+     * Magic number at the beginning of metadata in binary format ({@code "CKOM"} in ASCII).
+     */
+    public static final int MAGIC = 0x434b4f4d;
+
+    private static final byte VERSION = 1;
+
+    /**
+     * Format used for writing metadata.
+     */
+    public enum Format {
+        /**
+         * Compact binary format. This is the default. Staging areas store metadata in this format under a name that
+         * differs from the name used for XML metadata, so binary metadata is never mistaken for XML.
+         */
+        BINARY,
+
+        /**
+         * Formatted XML, as defined by the JAXB annotations of {@link MutableObjectMetadata}. This format is readable
+         * by any (including older) reader.
+         */
+        XML
+    }
+
+    private final Format format;
+    private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<>();
+    private final Queue<Unmarshaller> unmarshallers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a new codec.
+     *
+     * @param format format used for writing metadata
+     */
+    public ObjectMetadataCodec(Format format) {
+        this.format = Objects.requireNonNull(format);
+    }
+
+    private static final class JAXBContextHolder {
+        private static final JAXBContext JAXB_CONTEXT;
+
+        static {
+            try {
+                JAXB_CONTEXT = JAXBContext.newInstance(MutableObjectMetadata.class);
+            } catch (JAXBException exception) {
+                throw new IllegalStateException(
+                    "Exception while constructing JAXB context. This should not happen.", exception);
+            }
+        }
+    }
+
+    /**
+     * Returns the format used for writing metadata.
+     *
+     * @return the format used for writing metadata
+     */
+    public Format getFormat() {
+        return format;
+    }
+
+    private static void writeNullableString(DataOutputStream outputStream, @Nullable String string)
+            throws IOException {
+        outputStream.writeBoolean(string != null);
+        if (string != null) {
+            outputStream.writeUTF(string);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(DataInputStream inputStream) throws IOException {
+        return inputStream.readBoolean()
+            ? inputStream.readUTF()
+            : null;
+    }
+
+    /**
+     * Writes the given metadata to the given output stream.
+     *
+     * <p>The output stream is not closed by this method.
+     *
+     * @param metadata metadata
+     * @param outputStream output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public void write(MutableObjectMetadata metadata, OutputStream outputStream) throws IOException {
+        Objects.requireNonNull(metadata);
+        Objects.requireNonNull(outputStream);
+        if (format == Format.XML) {
+            writeXml(metadata, outputStream);
+            return;
+        }
+
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.writeInt(MAGIC);
+        dataOutputStream.writeByte(VERSION);
+        writeNullableString(dataOutputStream, metadata.getLink());
+        List<MutableMarshalerIdentifier> marshalers = metadata.getMarshalers();
+        dataOutputStream.writeInt(marshalers.size());
+        for (MutableMarshalerIdentifier marshaler: marshalers) {
+            @Nullable Name name = marshaler.getName();
+            @Nullable URI bundleIdentifier = marshaler.getBundleIdentifier();
+            writeNullableString(dataOutputStream, name == null ? null : name.toString());
+            writeNullableString(dataOutputStream, bundleIdentifier == null ? null : bundleIdentifier.toString());
+        }
+        dataOutputStream.flush();
+    }
+
+    private void writeXml(MutableObjectMetadata metadata, OutputStream outputStream) throws IOException {
+        try {
+            @Nullable Marshaller marshaller = marshallers.poll();
+            if (marshaller == null) {
+                marshaller = JAXBContextHolder.JAXB_CONTEXT.createMarshaller();
+                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
+            }
+            marshaller.marshal(metadata, outputStream);
+            marshallers.add(marshaller);
+        } catch (JAXBException exception) {
+            throw new IOException("Failed to marshal object metadata.", exception);
+        }
+    }
+
+    /**
+     * Reads metadata from the given input stream.
+     *
+     * <p>The format is detected automatically. The input stream is not closed by this method.
+     *
+     * @param inputStream input stream
+     * @return the metadata
+     * @throws IOException if an I/O error occurs or if the input stream does not contain valid metadata
+     */
+    public MutableObjectMetadata read(InputStream inputStream) throws IOException {
+        InputStream markableInputStream = inputStream.markSupported()
+            ? inputStream
+            : new BufferedInputStream(inputStream);
+        markableInputStream.mark(Integer.BYTES);
+        DataInputStream dataInputStream = new DataInputStream(markableInputStream);
+        int magic;
+        try {
+            magic = dataInputStream.readInt();
+        } catch (IOException ignored) {
+            // Too short for binary metadata, so it can only be (invalid) XML. Let the unmarshaller report the error.
+            magic = 0;
+        }
+        if (magic != MAGIC) {
+            markableInputStream.reset();
+            return readXml(markableInputStream);
+        }
+
+        byte version = dataInputStream.readByte();
+        if (version != VERSION) {
+            throw new IOException(String.format(
+                "Expected object metadata of version %d, but got version %d.", VERSION, version
+            ));
+        }
+        MutableObjectMetadata metadata = new MutableObjectMetadata()
+            .setLink(readNullableString(dataInputStream));
+        int numMarshalers = dataInputStream.readInt();
+        if (numMarshalers < 0) {
+            throw new IOException(String.format(
+                "Expected non-negative number of marshalers, but got %d.", numMarshalers
+            ));
+        }
+        List<MutableMarshalerIdentifier> marshalers = metadata.getMarshalers();
+        try {
+            for (int i = 0; i < numMarshalers; ++i) {
+                @Nullable String name = readNullableString(dataInputStream);
+                @Nullable String bundleIdentifier = readNullableString(dataInputStream);
+                marshalers.add(
+                    new MutableMarshalerIdentifier()
+                        .setName(name == null ? null : Name.qualifiedName(name))
+                        .setBundleIdentifier(bundleIdentifier == null ? null : new URI(bundleIdentifier))
+                );
+            }
+        } catch (URISyntaxException exception) {
+            throw new IOException("Invalid bundle identifier in object metadata.", exception);
+        }
+        return metadata;
+    }
+
+    private MutableObjectMetadata readXml(InputStream inputStream) throws IOException {
+        try {
+            @Nullable Unmarshaller unmarshaller = unmarshallers.poll();
+            if (unmarshaller == null) {
+                unmarshaller = JAXBContextHolder.JAXB_CONTEXT.createUnmarshaller();
+            }
+            MutableObjectMetadata metadata = (MutableObjectMetadata) unmarshaller.unmarshal(inputStream);
+            unmarshallers.add(unmarshaller);
+            return metadata;
+        } catch (ClassCastException | JAXBException exception) {
+            throw new IOException("Failed to unmarshal object metadata.", exception);
+        }
+    }
+}
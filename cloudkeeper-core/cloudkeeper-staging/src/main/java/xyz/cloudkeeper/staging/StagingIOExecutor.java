@@ -0,0 +1,404 @@
+package xyz.cloudkeeper.staging;
+
+import xyz.cloudkeeper.model.api.staging.InstanceProvider;
+import xyz.cloudkeeper.model.api.staging.InstanceProvisionException;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Executor for the blocking I/O operations of staging areas that bounds how many of these operations may run on the
+ * underlying executor at the same time.
+ *
+ * <p>Staging areas derived from {@link ExternalStagingArea} perform blocking file-system or network I/O in the tasks
+ * passed to their executor. These tasks must therefore not run on a thread pool that also processes actor messages
+ * (such as the default dispatcher of an Akka actor system), as otherwise a burst of large uploads could occupy all
+ * threads and starve the interpreter. By default, an instance of this class therefore runs tasks on its own pool of
+ * daemon threads; see {@link Builder#Builder()}. In addition, tasks are first put into a queue, and only up to a fixed
+ * number of tasks are submitted to the underlying executor at any time. There are separate queues and limits for each
+ * {@link Lane}, so that short metadata operations are not stuck behind bulk data transfers.
+ *
+ * <p>The queues are unbounded: A burst of tasks exceeding the concurrency limit applies back-pressure by waiting in the
+ * queue until capacity frees up, instead of being rejected (which would fail the workflow) or being run by the
+ * submitting thread (which may well be an actor thread). Callers of staging areas wait for the returned futures before
+ * submitting dependent operations, so the number of queued tasks is bounded by the amount of concurrent work in the
+ * workflows.
+ *
+ * <p>Each instance of this class keeps its own limits and metrics. Staging areas created with
+ * {@link AbstractStagingArea#resolveDescendant} share the instance of their parent. In order to limit the I/O
+ * concurrency of an individual staging area (and its descendants) in addition to a global limit, create an instance
+ * whose underlying executor is the shared instance (see {@link Builder#Builder(Executor)}), and pass the new instance
+ * to the staging area. Tasks then first wait for capacity in the lane of the per-staging-area instance, and then for
+ * capacity in the same lane of the shared instance.
+ *
+ * <p>Instances of this class are thread-safe.
+ */
+public final class StagingIOExecutor implements Executor {
+    /**
+     * Number of latency samples kept per lane for computing percentiles.
+     */
+    public static final int LATENCY_SAMPLE_SIZE = 1024;
+
+    private static final String THREAD_NAME_PREFIX = "cloudkeeper-staging-io-";
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Kind of staging-area operation, which determines the queue that a task is put into.
+     */
+    public enum Lane {
+        /**
+         * Operations that only read or write metadata, or that only transfer small amounts of data. Examples are
+         * existence checks, deletion, and links.
+         */
+        METADATA,
+
+        /**
+         * Operations that may transfer large amounts of data, such as reading, writing, or copying objects.
+         */
+        BULK
+    }
+
+    private final Executor delegate;
+    private final EnumMap<Lane, LaneExecutor> laneExecutors = new EnumMap<>(Lane.class);
+
+    private StagingIOExecutor(Builder builder) {
+        delegate = builder.delegate;
+        for (Lane lane: Lane.values()) {
+            // If the underlying executor is itself a staging I/O executor, tasks keep their lane.
+            Executor laneDelegate = delegate instanceof StagingIOExecutor
+                ? ((StagingIOExecutor) delegate).executor(lane)
+                : delegate;
+            laneExecutors.put(lane, new LaneExecutor(laneDelegate, builder.maximumConcurrency.get(lane)));
+        }
+    }
+
+    /**
+     * Builder for {@link StagingIOExecutor} instances.
+     */
+    public static final class Builder {
+        // Staging I/O is typically bound by network latency (for instance, with S3), not by local CPU or disk, so the
+        // limits are high enough to keep many requests in flight.
+        private static final int DEFAULT_METADATA_CONCURRENCY = 64;
+        private static final int DEFAULT_BULK_CONCURRENCY = 16;
+
+        private final Executor delegate;
+        private final Map<Lane, Integer> maximumConcurrency = new EnumMap<>(Lane.class);
+
+        /**
+         * Constructor for a builder of {@link StagingIOExecutor} instances that run tasks on their own thread pool.
+         *
+         * <p>The thread pool consists of daemon threads that are created on demand and that terminate after being idle
+         * for one minute. Hence, it does not need to be shut down. Since the number of tasks submitted at the same time
+         * is bounded by the maximum concurrency of the lanes, so is the number of threads.
+         */
+        public Builder() {
+            this(Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, THREAD_NAME_PREFIX + THREAD_COUNTER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }));
+        }
+
+        /**
+         * Constructor for a builder of {@link StagingIOExecutor} instances that run tasks on the given executor.
+         *
+         * <p>The given executor should be dedicated to blocking I/O (for instance, an Akka dispatcher configured for
+         * that purpose). If the given executor is a {@link StagingIOExecutor}, the tasks of each lane are submitted to
+         * the same lane of the given executor, so the limits of both instances apply.
+         *
+         * @param delegate the underlying executor that tasks will be submitted to
+         */
+        public Builder(Executor delegate) {
+            this.delegate = Objects.requireNonNull(delegate);
+            maximumConcurrency.put(Lane.METADATA, DEFAULT_METADATA_CONCURRENCY);
+            maximumConcurrency.put(Lane.BULK, DEFAULT_BULK_CONCURRENCY);
+        }
+
+        /**
+         * Sets the maximum number of tasks of the given lane that may run on the underlying executor at the same time.
+         *
+         * <p>By default, {@link #build()} will assume a value of {@value #DEFAULT_METADATA_CONCURRENCY} for
+         * {@link Lane#METADATA} and {@value #DEFAULT_BULK_CONCURRENCY} for {@link Lane#BULK}.
+         *
+         * @param lane lane
+         * @param concurrency maximum number of concurrently running tasks, must be positive
+         * @return this builder
+         */
+        public Builder setMaximumConcurrency(Lane lane, int concurrency) {
+            Objects.requireNonNull(lane);
+            if (concurrency <= 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected positive maximum concurrency, but got %d.", concurrency
+                ));
+            }
+            maximumConcurrency.put(lane, concurrency);
+            return this;
+        }
+
+        /**
+         * Returns a new {@link StagingIOExecutor} instance using the attributes of this builder.
+         *
+         * @return the new {@link StagingIOExecutor} instance
+         */
+        public StagingIOExecutor build() {
+            return new StagingIOExecutor(this);
+        }
+    }
+
+    /**
+     * Returns the executor that staging areas should use for I/O operations, as provided by the given instance
+     * provider.
+     *
+     * <p>This method first requests a {@link StagingIOExecutor} instance. If the instance provider is not capable of
+     * providing one, this method falls back to requesting a plain {@link Executor}.
+     *
+     * @param instanceProvider instance provider
+     * @return the executor
+     * @throws InstanceProvisionException if the instance provider can provide neither instance
+     */
+    public static Executor provideExecutor(InstanceProvider instanceProvider) throws InstanceProvisionException {
+        try {
+            return instanceProvider.getInstance(StagingIOExecutor.class);
+        } catch (InstanceProvisionException ignored) {
+            return instanceProvider.getInstance(Executor.class);
+        }
+    }
+
+    /**
+     * Returns the executor that submits tasks to the given lane.
+     *
+     * @param lane lane
+     * @return the executor for the given lane
+     */
+    public Executor executor(Lane lane) {
+        return laneExecutors.get(Objects.requireNonNull(lane));
+    }
+
+    /**
+     * Executes the given task in lane {@link Lane#BULK}.
+     *
+     * <p>This method never blocks, and it never runs the task in the calling thread. If the maximum number of tasks of
+     * the lane are running, the task waits in the queue of the lane.
+     *
+     * @param task the runnable task
+     * @throws RejectedExecutionException if the underlying executor rejects the task (for instance, because it has
+     *     been shut down)
+     */
+    @Override
+    public void execute(Runnable task) {
+        laneExecutors.get(Lane.BULK).execute(task);
+    }
+
+    /**
+     * Returns the current metrics of the given lane.
+     *
+     * @param lane lane
+     * @return the metrics of the given lane
+     */
+    public LaneMetrics getMetrics(Lane lane) {
+        return laneExecutors.get(Objects.requireNonNull(lane)).metrics();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("staging I/O executor (%s) on %s", laneExecutors, delegate);
+    }
+
+    /**
+     * Snapshot of the metrics of a lane.
+     *
+     * <p>Latencies are measured from the time a task is submitted until it finishes, so they include the time spent in
+     * the queue. Percentiles are computed over the most recent {@value #LATENCY_SAMPLE_SIZE} tasks.
+     */
+    public static final class LaneMetrics {
+        private final int queueDepth;
+        private final int runningTasks;
+        private final long completedTasks;
+        private final long[] sortedLatencies;
+
+        private LaneMetrics(int queueDepth, int runningTasks, long completedTasks, long[] sortedLatencies) {
+            this.queueDepth = queueDepth;
+            this.runningTasks = runningTasks;
+            this.completedTasks = completedTasks;
+            this.sortedLatencies = sortedLatencies;
+        }
+
+        /**
+         * Returns the number of tasks waiting for execution.
+         *
+         * @return the number of tasks waiting for execution
+         */
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+
+        /**
+         * Returns the number of tasks currently submitted to the underlying executor.
+         *
+         * @return the number of tasks currently submitted to the underlying executor
+         */
+        public int getRunningTasks() {
+            return runningTasks;
+        }
+
+        /**
+         * Returns the number of tasks that have finished.
+         *
+         * @return the number of tasks that have finished
+         */
+        public long getCompletedTasks() {
+            return completedTasks;
+        }
+
+        /**
+         * Returns the given percentile of the latencies of recently completed tasks, in nanoseconds.
+         *
+         * @param percentile percentile, must be between 0 and 100 (inclusive)
+         * @return the latency percentile in nanoseconds, or 0 if no task has completed yet
+         */
+        public long getLatencyPercentile(double percentile) {
+            if (!(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected percentile between 0 and 100, but got %s.", percentile
+                ));
+            }
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(index, 0)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                "{queueDepth=%d, runningTasks=%d, completedTasks=%d, p50=%dns, p99=%dns}",
+                queueDepth, runningTasks, completedTasks, getLatencyPercentile(50), getLatencyPercentile(99)
+            );
+        }
+    }
+
+    /**
+     * Executor for a single lane.
+     *
+     * <p>Invariant: The number of tasks submitted to {@link #laneDelegate} is at most {@link #maximumConcurrency}.
+     * Each submitted task runs exactly one queued task and then tries to submit the next one.
+     */
+    private final class LaneExecutor implements Executor {
+        private final Executor laneDelegate;
+        private final int maximumConcurrency;
+        private final Queue<TimedTask> queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Number of elements in {@link #queue}, which (unlike {@link ConcurrentLinkedQueue#size()}) is available in
+         * constant time.
+         */
+        private final AtomicInteger queueDepth = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final AtomicLongArray latencies = new AtomicLongArray(LATENCY_SAMPLE_SIZE);
+        private final AtomicInteger numLatencies = new AtomicInteger();
+
+        private LaneExecutor(Executor laneDelegate, int maximumConcurrency) {
+            this.laneDelegate = laneDelegate;
+            this.maximumConcurrency = maximumConcurrency;
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            TimedTask timedTask = new TimedTask(Objects.requireNonNull(task));
+            queueDepth.incrementAndGet();
+            queue.add(timedTask);
+            trySubmit();
+        }
+
+        private void trySubmit() {
+            while (true) {
+                int currentlyRunning = running.get();
+                if (currentlyRunning >= maximumConcurrency || queue.isEmpty()) {
+                    return;
+                } else if (running.compareAndSet(currentlyRunning, currentlyRunning + 1)) {
+                    break;
+                }
+            }
+
+            @Nullable TimedTask timedTask = queue.poll();
+            if (timedTask == null) {
+                // Another thread took the task in the meantime. It may have done so before seeing our increment, so
+                // recheck after giving back the permit.
+                running.decrementAndGet();
+                trySubmit();
+                return;
+            }
+            queueDepth.decrementAndGet();
+
+            try {
+                laneDelegate.execute(() -> {
+                    try {
+                        timedTask.run();
+                    } finally {
+                        running.decrementAndGet();
+                        trySubmit();
+                    }
+                });
+            } catch (RuntimeException exception) {
+                running.decrementAndGet();
+                throw exception;
+            }
+        }
+
+        private void record(long latency) {
+            completed.increment();
+            int sample = numLatencies.getAndIncrement();
+            latencies.set(Math.floorMod(sample, LATENCY_SAMPLE_SIZE), latency);
+        }
+
+        private LaneMetrics metrics() {
+            int numRecorded = numLatencies.get();
+            // The counter overflows after 2^31 tasks, after which the sample array has long been full.
+            int numSamples = numRecorded < 0
+                ? LATENCY_SAMPLE_SIZE
+                : Math.min(numRecorded, LATENCY_SAMPLE_SIZE);
+            long[] sortedLatencies = new long[numSamples];
+            for (int i = 0; i < numSamples; ++i) {
+                sortedLatencies[i] = latencies.get(i);
+            }
+            Arrays.sort(sortedLatencies);
+            return new LaneMetrics(queueDepth.get(), running.get(), completed.sum(), sortedLatencies);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("maximum concurrency %d, queue depth %d", maximumConcurrency, queueDepth.get());
+        }
+
+        private final class TimedTask implements Runnable {
+            private final Runnable task;
+            private final long submissionNanos = System.nanoTime();
+
+            private TimedTask(Runnable task) {
+                this.task = task;
+            }
+
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } finally {
+                    record(System.nanoTime() - submissionNanos);
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,46 @@
 package xyz.cloudkeeper.staging;
 
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
 import xyz.cloudkeeper.contracts.StagingAreaContract;
+import xyz.cloudkeeper.dsl.Module;
+import xyz.cloudkeeper.dsl.ModuleFactory;
+import xyz.cloudkeeper.examples.modules.Fibonacci;
+import xyz.cloudkeeper.examples.repositories.TestKitExecutableProvider;
+import xyz.cloudkeeper.linker.Linker;
+import xyz.cloudkeeper.linker.LinkerOptions;
+import xyz.cloudkeeper.model.LinkerException;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.api.staging.StagingArea;
+import xyz.cloudkeeper.model.bare.element.module.BareModule;
+import xyz.cloudkeeper.model.bare.execution.BareExecutionTrace;
+import xyz.cloudkeeper.model.bare.execution.BareOverride;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
+import xyz.cloudkeeper.model.runtime.element.RuntimeRepository;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
 
 public class MapStagingAreaTest {
+    private static final int NUM_READERS = 4;
+    private static final int NUM_ITERATIONS = 2000;
+
+    @Nullable private RuntimeContext runtimeContext;
+    @Nullable private RuntimeAnnotatedExecutionTrace rootTrace;
+
     @Factory
     public Object[] contractTests() {
         return new Object[] {
@@ -12,4 +49,110 @@ public class MapStagingAreaTest {
             )
         };
     }
+
+    @BeforeClass
+    public void setup() throws Exception {
+        Module<?> module = ModuleFactory.getDefault().create(Fibonacci.class);
+        LinkerOptions linkerOptions = new LinkerOptions.Builder()
+            .setExecutableProvider(TestKitExecutableProvider.getDefault())
+            .build();
+        RuntimeRepository repository = Linker.createRepository(
+            Collections.singletonList(ModuleFactory.getDefault().createBundle(module)), linkerOptions);
+        rootTrace = Linker.createAnnotatedExecutionTrace(
+            ExecutionTrace.empty(), module, Collections.emptyList(), repository, linkerOptions);
+        runtimeContext = new RuntimeContextImpl(repository, linkerOptions);
+    }
+
+    private static final class RuntimeContextImpl implements RuntimeContext {
+        private final RuntimeRepository repository;
+        private final LinkerOptions linkerOptions;
+
+        private RuntimeContextImpl(RuntimeRepository repository, LinkerOptions linkerOptions) {
+            this.repository = repository;
+            this.linkerOptions = linkerOptions;
+        }
+
+        @Override
+        public void close() { }
+
+        @Override
+        public RuntimeRepository getRepository() {
+            return repository;
+        }
+
+        @Override
+        public ClassLoader getClassLoader() {
+            return ClassLoader.getSystemClassLoader();
+        }
+
+        @Override
+        public RuntimeAnnotatedExecutionTrace newAnnotatedExecutionTrace(BareExecutionTrace absoluteTrace,
+                BareModule bareModule, List<? extends BareOverride> overrides) throws LinkerException {
+            return Linker.createAnnotatedExecutionTrace(
+                absoluteTrace, bareModule, overrides, repository, linkerOptions);
+        }
+    }
+
+    /**
+     * Verifies that concurrent readers never observe a partially deleted prefix, and that values outside of the
+     * prefix remain readable while the prefix is repeatedly copied into and deleted.
+     *
+     * <p>The writer stores the value for {@code count} before the value for {@code last}, and both keys share the
+     * prefix {@code /loop}. Since {@code count} precedes {@code last} in the sorted map, a non-atomic deletion would
+     * remove {@code count} first and thus expose a state where only {@code last} exists.
+     */
+    @Test(timeOut = 60000)
+    public void concurrentPrefixDeletion() throws Exception {
+        assert runtimeContext != null && rootTrace != null;
+        StagingArea stagingArea = new MapStagingArea(runtimeContext, rootTrace);
+
+        ExecutionTrace empty = ExecutionTrace.empty();
+        ExecutionTrace rootInPortN = empty.resolveInPort(SimpleName.identifier("n"));
+        ExecutionTrace loop = empty.resolveContent().resolveModule(SimpleName.identifier("loop"));
+        ExecutionTrace loopInPortCount = loop.resolveInPort(SimpleName.identifier("count"));
+        ExecutionTrace loopInPortLast = loop.resolveInPort(SimpleName.identifier("last"));
+        Assert.assertTrue(loopInPortCount.compareTo(loopInPortLast) < 0);
+        stagingArea.putObject(rootInPortN, 5).get();
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService executorService = Executors.newFixedThreadPool(NUM_READERS + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            futures.add(executorService.submit(() -> {
+                try {
+                    for (int i = 0; i < NUM_ITERATIONS; ++i) {
+                        stagingArea.copy(rootInPortN, loopInPortCount).get();
+                        stagingArea.putObject(loopInPortLast, i).get();
+                        stagingArea.delete(loop).get();
+                    }
+                } finally {
+                    done.set(true);
+                }
+                return null;
+            }));
+            for (int reader = 0; reader < NUM_READERS; ++reader) {
+                futures.add(executorService.submit(() -> {
+                    while (!done.get()) {
+                        BitSet existing
+                            = stagingArea.checkExistence(Arrays.asList(loopInPortCount, loopInPortLast)).get();
+                        Assert.assertFalse(existing.get(1) && !existing.get(0),
+                            "Observed a partially deleted prefix.");
+                        Assert.assertEquals(stagingArea.getObject(rootInPortN).get(), 5);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future: futures) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        }
+
+        Assert.assertEquals(
+            stagingArea.checkExistence(Arrays.asList(rootInPortN, loopInPortCount, loopInPortLast)).get(),
+            BitSet.valueOf(new long[] { 1 })
+        );
+    }
 }
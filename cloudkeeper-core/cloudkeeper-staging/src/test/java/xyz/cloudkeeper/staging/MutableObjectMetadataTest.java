@@ -53,4 +53,23 @@ public class MutableObjectMetadataTest {
         Assert.assertEquals(original, deserialized);
         Assert.assertEquals(original.hashCode(), deserialized.hashCode());
     }
+
+    @Test
+    public void xmlSerializationLink() throws JAXBException {
+        assert marshaller != null && unmarshaller != null;
+
+        MutableObjectMetadata original = new MutableObjectMetadata()
+            .setLink("/loop/sum:out:sum");
+
+        StringWriter stringWriter = new StringWriter();
+        marshaller.marshal(original, stringWriter);
+        StringReader stringReader = new StringReader(stringWriter.toString());
+        MutableObjectMetadata deserialized = (MutableObjectMetadata) unmarshaller.unmarshal(stringReader);
+
+        Assert.assertEquals(original, deserialized);
+        Assert.assertEquals(original.hashCode(), deserialized.hashCode());
+        Assert.assertEquals(deserialized.getLink(), "/loop/sum:out:sum");
+        Assert.assertTrue(deserialized.getMarshalers().isEmpty());
+        Assert.assertNotEquals(deserialized, new MutableObjectMetadata());
+    }
 }
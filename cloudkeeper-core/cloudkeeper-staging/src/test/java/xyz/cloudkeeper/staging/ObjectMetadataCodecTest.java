@@ -0,0 +1,124 @@
+package xyz.cloudkeeper.staging;
+
+import cloudkeeper.serialization.IntegerMarshaler;
+import cloudkeeper.serialization.SerializableMarshaler;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class ObjectMetadataCodecTest {
+    private static MutableObjectMetadata metadata() {
+        return new MutableObjectMetadata()
+            .setMarshalers(Arrays.asList(
+                new MutableMarshalerIdentifier()
+                    .setName(IntegerMarshaler.class.getName())
+                    .setBundleIdentifier(URI.create("x-test:cloudkeeper.example.bundle:1.2.3")),
+                new MutableMarshalerIdentifier()
+                    .setName(SerializableMarshaler.class.getName())
+            ));
+    }
+
+    private static MutableObjectMetadata roundTrip(ObjectMetadataCodec codec, MutableObjectMetadata original)
+            throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        codec.write(original, outputStream);
+        return new ObjectMetadataCodec(ObjectMetadataCodec.Format.BINARY)
+            .read(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    @Test
+    public void binary() throws IOException {
+        ObjectMetadataCodec codec = new ObjectMetadataCodec(ObjectMetadataCodec.Format.BINARY);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        codec.write(metadata(), outputStream);
+        Assert.assertEquals(ByteBuffer.wrap(outputStream.toByteArray()).getInt(), ObjectMetadataCodec.MAGIC);
+
+        Assert.assertEquals(roundTrip(codec, metadata()), metadata());
+        MutableObjectMetadata link = new MutableObjectMetadata().setLink("/loop/sum:out:sum");
+        Assert.assertEquals(roundTrip(codec, link), link);
+        Assert.assertEquals(roundTrip(codec, new MutableObjectMetadata()), new MutableObjectMetadata());
+    }
+
+    @Test
+    public void xml() throws IOException {
+        ObjectMetadataCodec codec = new ObjectMetadataCodec(ObjectMetadataCodec.Format.XML);
+        Assert.assertSame(codec.getFormat(), ObjectMetadataCodec.Format.XML);
+        // Repeated calls reuse pooled (un)marshallers
+        for (int i = 0; i < 3; ++i) {
+            Assert.assertEquals(roundTrip(codec, metadata()), metadata());
+        }
+    }
+
+    /**
+     * Verifies that metadata written by JAXB directly (as by previous versions of CloudKeeper) can be read.
+     */
+    @Test
+    public void legacyXml() throws IOException, JAXBException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JAXBContext.newInstance(MutableObjectMetadata.class).createMarshaller().marshal(metadata(), outputStream);
+        MutableObjectMetadata actual = new ObjectMetadataCodec(ObjectMetadataCodec.Format.BINARY)
+            .read(new ByteArrayInputStream(outputStream.toByteArray()));
+        Assert.assertEquals(actual, metadata());
+    }
+
+    @Test
+    public void invalid() {
+        ObjectMetadataCodec codec = new ObjectMetadataCodec(ObjectMetadataCodec.Format.BINARY);
+        for (byte[] bytes: Arrays.asList(new byte[0], new byte[] { 1, 2 }, new byte[] { 0x43, 0x4b, 0x4f, 0x4d, 2 })) {
+            try {
+                codec.read(new ByteArrayInputStream(bytes));
+                Assert.fail();
+            } catch (IOException ignored) { }
+        }
+    }
+
+    @Test
+    public void cache() {
+        ObjectMetadataCache cache = new ObjectMetadataCache(2);
+        MutableObjectMetadata metadata = metadata();
+        cache.put("a/1", metadata);
+        cache.put("a/2", new MutableObjectMetadata().setLink("/foo"));
+
+        // The cache stores and returns copies
+        metadata.setLink("/bar");
+        MutableObjectMetadata cached = cache.get("a/1");
+        Assert.assertEquals(cached, metadata());
+        Assert.assertNotSame(cached, cache.get("a/1"));
+
+        // Least recently used entry ("a/2") is evicted
+        cache.put("b/1", metadata());
+        Assert.assertEquals(cache.size(), 2);
+        Assert.assertTrue(cache.contains("a/1"));
+        Assert.assertFalse(cache.contains("a/2"));
+
+        cache.invalidatePrefix("a/");
+        Assert.assertNull(cache.get("a/1"));
+        Assert.assertTrue(cache.contains("b/1"));
+
+        // Prefix invalidation removes exactly the keys with the given prefix
+        ObjectMetadataCache largeCache = new ObjectMetadataCache(8);
+        for (String key: new String[] {"a", "a/1", "a/1/2", "a0", "a\uffff", "a\uffff\uffff", "b"}) {
+            largeCache.put(key, metadata());
+        }
+        largeCache.invalidatePrefix("a/");
+        Assert.assertEquals(largeCache.size(), 5);
+        Assert.assertTrue(largeCache.contains("a") && largeCache.contains("a0"));
+        largeCache.invalidatePrefix("a\uffff");
+        Assert.assertEquals(largeCache.size(), 3);
+        largeCache.invalidate("a");
+        Assert.assertFalse(largeCache.contains("a"));
+        Assert.assertTrue(largeCache.contains("a0") && largeCache.contains("b"));
+
+        ObjectMetadataCache disabledCache = new ObjectMetadataCache(0);
+        disabledCache.put("a", metadata());
+        Assert.assertNull(disabledCache.get("a"));
+    }
+}
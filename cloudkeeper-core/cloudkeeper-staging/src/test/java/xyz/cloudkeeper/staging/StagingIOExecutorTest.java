@@ -0,0 +1,204 @@
+package xyz.cloudkeeper.staging;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.staging.StagingIOExecutor.Lane;
+import xyz.cloudkeeper.staging.StagingIOExecutor.LaneMetrics;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StagingIOExecutorTest {
+    private ExecutorService executorService;
+
+    @BeforeClass
+    public void setup() {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterClass
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Test
+    public void concurrencyLimit() throws InterruptedException {
+        int numTasks = 20;
+        StagingIOExecutor stagingIOExecutor = new StagingIOExecutor.Builder(executorService)
+            .setMaximumConcurrency(Lane.BULK, 2)
+            .build();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maximumRunning = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(numTasks);
+        for (int i = 0; i < numTasks; ++i) {
+            stagingIOExecutor.execute(() -> {
+                int currentlyRunning = running.incrementAndGet();
+                maximumRunning.accumulateAndGet(currentlyRunning, Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+        Assert.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(maximumRunning.get() <= 2);
+
+        // A task is recorded as completed only after it returned, which may be after the latch was counted down.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stagingIOExecutor.getMetrics(Lane.BULK).getCompletedTasks() < numTasks
+                && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        LaneMetrics metrics = stagingIOExecutor.getMetrics(Lane.BULK);
+        Assert.assertEquals(metrics.getCompletedTasks(), numTasks);
+        Assert.assertEquals(metrics.getQueueDepth(), 0);
+        Assert.assertTrue(metrics.getLatencyPercentile(50) > 0);
+        Assert.assertTrue(metrics.getLatencyPercentile(50) <= metrics.getLatencyPercentile(99));
+        Assert.assertEquals(stagingIOExecutor.getMetrics(Lane.METADATA).getCompletedTasks(), 0);
+    }
+
+    @Test
+    public void separateLanes() throws InterruptedException {
+        StagingIOExecutor stagingIOExecutor = new StagingIOExecutor.Builder(executorService)
+            .setMaximumConcurrency(Lane.BULK, 1)
+            .build();
+        CountDownLatch releaseBulk = new CountDownLatch(1);
+        CountDownLatch metadataFinished = new CountDownLatch(1);
+        stagingIOExecutor.executor(Lane.BULK).execute(() -> {
+            try {
+                releaseBulk.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stagingIOExecutor.executor(Lane.BULK).execute(() -> { });
+        stagingIOExecutor.executor(Lane.METADATA).execute(metadataFinished::countDown);
+
+        // The metadata task must not wait for the blocked bulk transfer.
+        Assert.assertTrue(metadataFinished.await(10, TimeUnit.SECONDS));
+        LaneMetrics bulkMetrics = stagingIOExecutor.getMetrics(Lane.BULK);
+        Assert.assertEquals(bulkMetrics.getRunningTasks(), 1);
+        Assert.assertEquals(bulkMetrics.getQueueDepth(), 1);
+        releaseBulk.countDown();
+    }
+
+    /**
+     * Verifies that a burst of tasks far exceeding the concurrency limit waits in the queue instead of being rejected
+     * or being run by the submitting thread.
+     */
+    @Test
+    public void backPressure() throws InterruptedException {
+        int numTasks = 10000;
+        StagingIOExecutor stagingIOExecutor = new StagingIOExecutor.Builder(executorService)
+            .setMaximumConcurrency(Lane.METADATA, 1)
+            .build();
+        Executor metadataExecutor = stagingIOExecutor.executor(Lane.METADATA);
+        CountDownLatch release = new CountDownLatch(1);
+        metadataExecutor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Thread thread = Thread.currentThread();
+        AtomicInteger callerRuns = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(numTasks);
+        for (int i = 0; i < numTasks; ++i) {
+            metadataExecutor.execute(() -> {
+                if (Thread.currentThread() == thread) {
+                    callerRuns.incrementAndGet();
+                }
+                finished.countDown();
+            });
+        }
+        Assert.assertEquals(stagingIOExecutor.getMetrics(Lane.METADATA).getQueueDepth(), numTasks);
+        Assert.assertEquals(finished.getCount(), numTasks);
+
+        release.countDown();
+        Assert.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(callerRuns.get(), 0);
+    }
+
+    /**
+     * Verifies that the limits of a per-staging-area instance and the limits of the shared instance it is layered on
+     * both apply, and that tasks keep their lane.
+     */
+    @Test
+    public void nestedLimits() throws InterruptedException {
+        int numTasks = 20;
+        StagingIOExecutor shared = new StagingIOExecutor.Builder(executorService)
+            .setMaximumConcurrency(Lane.BULK, 4)
+            .build();
+        StagingIOExecutor perStagingArea = new StagingIOExecutor.Builder(shared)
+            .setMaximumConcurrency(Lane.BULK, 2)
+            .build();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maximumRunning = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(numTasks);
+        for (int i = 0; i < numTasks; ++i) {
+            perStagingArea.executor(Lane.BULK).execute(() -> {
+                int currentlyRunning = running.incrementAndGet();
+                maximumRunning.accumulateAndGet(currentlyRunning, Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                finished.countDown();
+            });
+        }
+        Assert.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(maximumRunning.get() <= 2);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (shared.getMetrics(Lane.BULK).getCompletedTasks() < numTasks && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Assert.assertEquals(shared.getMetrics(Lane.BULK).getCompletedTasks(), numTasks);
+        Assert.assertEquals(shared.getMetrics(Lane.METADATA).getCompletedTasks(), 0);
+    }
+
+    @Test
+    public void dedicatedThreadPool() throws InterruptedException {
+        StagingIOExecutor stagingIOExecutor = new StagingIOExecutor.Builder().build();
+        Thread thread = Thread.currentThread();
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicInteger daemonRuns = new AtomicInteger();
+        stagingIOExecutor.executor(Lane.METADATA).execute(() -> {
+            if (Thread.currentThread() != thread && Thread.currentThread().isDaemon()) {
+                daemonRuns.incrementAndGet();
+            }
+            finished.countDown();
+        });
+        Assert.assertTrue(finished.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(daemonRuns.get(), 1);
+    }
+
+    @Test
+    public void badArguments() {
+        StagingIOExecutor.Builder builder = new StagingIOExecutor.Builder(executorService);
+        try {
+            builder.setMaximumConcurrency(Lane.BULK, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+
+        try {
+            builder.build().getMetrics(Lane.BULK).getLatencyPercentile(101);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+
+        Assert.assertEquals(builder.build().getMetrics(Lane.BULK).getLatencyPercentile(99), 0);
+    }
+}
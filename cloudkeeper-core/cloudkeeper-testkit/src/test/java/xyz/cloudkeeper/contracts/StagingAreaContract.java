@@ -33,7 +33,9 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 
@@ -441,6 +443,94 @@ public final class StagingAreaContract implements ITest {
         Assert.assertFalse(await(stagingArea.exists(sumOutPortSum)));
     }
 
+    @Test
+    public void linkTest() throws Exception {
+        StagingArea stagingArea = fibonacciModuleHelper.createStagingArea("linkTest");
+
+        ExecutionTrace empty = ExecutionTrace.empty();
+        ExecutionTrace rootInPortN = empty.resolveInPort(SimpleName.identifier("n"));
+        await(stagingArea.putObject(rootInPortN, 5));
+
+        ExecutionTrace loop = empty.resolveContent().resolveModule(SimpleName.identifier("loop"));
+        ExecutionTrace loopInPortCount = loop.resolveInPort(SimpleName.identifier("count"));
+        ExecutionTrace loopInPortLast = loop.resolveInPort(SimpleName.identifier("last"));
+        await(stagingArea.link(rootInPortN, loopInPortCount));
+        Assert.assertTrue(await(stagingArea.exists(loopInPortCount)));
+        Assert.assertEquals(await(stagingArea.getObject(loopInPortCount)), 5);
+
+        // Links need to be visible through staging areas for descendant execution traces, and links to links are
+        // possible.
+        StagingArea loopStagingArea = stagingArea.resolveDescendant(loop);
+        ExecutionTrace relativeLoopInPortCount = empty.resolveInPort(SimpleName.identifier("count"));
+        ExecutionTrace relativeLoop0InPortCount
+            = empty.resolveContent().resolveIteration(Index.index(0)).resolveInPort(SimpleName.identifier("count"));
+        Assert.assertEquals(await(loopStagingArea.getObject(relativeLoopInPortCount)), 5);
+        await(loopStagingArea.link(relativeLoopInPortCount, relativeLoop0InPortCount));
+        Assert.assertEquals(await(loopStagingArea.getObject(relativeLoop0InPortCount)), 5);
+
+        // Copies of links are independent of the linked object. Deleting a link does not affect the linked object.
+        await(stagingArea.copy(loopInPortCount, loopInPortLast));
+        await(stagingArea.delete(loopInPortCount));
+        Assert.assertFalse(await(stagingArea.exists(loopInPortCount)));
+        Assert.assertEquals(await(stagingArea.getObject(rootInPortN)), 5);
+        Assert.assertEquals(await(loopStagingArea.getObject(relativeLoop0InPortCount)), 5);
+        await(stagingArea.delete(rootInPortN));
+        Assert.assertEquals(await(stagingArea.getObject(loopInPortLast)), 5);
+    }
+
+    @Test
+    public void checkExistenceTest() throws Exception {
+        StagingArea stagingArea = fibonacciModuleHelper.createStagingArea("checkExistenceTest");
+
+        ExecutionTrace empty = ExecutionTrace.empty();
+        ExecutionTrace rootInPortN = empty.resolveInPort(SimpleName.identifier("n"));
+        ExecutionTrace loop = empty.resolveContent().resolveModule(SimpleName.identifier("loop"));
+        ExecutionTrace loopInPortCount = loop.resolveInPort(SimpleName.identifier("count"));
+        ExecutionTrace loopInPortLast = loop.resolveInPort(SimpleName.identifier("last"));
+        ExecutionTrace loop0 = loop.resolveContent().resolveIteration(Index.index(0));
+        ExecutionTrace loop0InPortLast = loop0.resolveInPort(SimpleName.identifier("last"));
+        ExecutionTrace loop0OutPortLast = loop0.resolveOutPort(SimpleName.identifier("last"));
+
+        Assert.assertTrue(await(stagingArea.checkExistence(Collections.emptyList())).isEmpty());
+
+        await(stagingArea.putObject(rootInPortN, 5));
+        await(stagingArea.link(rootInPortN, loopInPortCount));
+        await(stagingArea.putObject(loop0InPortLast, 1));
+
+        BitSet expected = new BitSet();
+        expected.set(0);
+        expected.set(1);
+        expected.set(3);
+        Assert.assertEquals(
+            await(stagingArea.checkExistence(
+                Arrays.asList(rootInPortN, loopInPortCount, loopInPortLast, loop0InPortLast, loop0OutPortLast)
+            )),
+            expected
+        );
+
+        // Execution traces are relative to the staging area
+        StagingArea loopStagingArea = stagingArea.resolveDescendant(loop);
+        ExecutionTrace relativeLoop0 = empty.resolveContent().resolveIteration(Index.index(0));
+        BitSet expectedRelative = new BitSet();
+        expectedRelative.set(1);
+        expectedRelative.set(2);
+        Assert.assertEquals(
+            await(loopStagingArea.checkExistence(Arrays.asList(
+                empty.resolveInPort(SimpleName.identifier("last")),
+                empty.resolveInPort(SimpleName.identifier("count")),
+                relativeLoop0.resolveInPort(SimpleName.identifier("last")),
+                relativeLoop0.resolveOutPort(SimpleName.identifier("last"))
+            ))),
+            expectedRelative
+        );
+
+        await(stagingArea.delete(loop0));
+        Assert.assertEquals(
+            await(stagingArea.checkExistence(Arrays.asList(loop0InPortLast, rootInPortN))),
+            BitSet.valueOf(new long[] { 2 })
+        );
+    }
+
 
     // Tests involving ByteSequence
 
@@ -448,6 +538,8 @@ public final class StagingAreaContract implements ITest {
     public abstract static class FileModule extends SimpleModule<FileModule> {
         public abstract InPort<ByteSequence> inputFile();
         public abstract OutPort<Collection<ByteSequence>> outputFiles();
+        public abstract InPort<Collection<ByteSequence>> inputFiles();
+        public abstract OutPort<Collection<ByteSequence>> linkedFiles();
     }
 
     @Test(invocationCount = 2)
@@ -550,6 +642,35 @@ public final class StagingAreaContract implements ITest {
         assertEqualByteSequences(LOREM_BYTE_SEQUENCE, actualLoremByteSequence);
     }
 
+    @Test(dependsOnMethods = "getObjectTestCollection")
+    public void linkTestCollection() throws Exception {
+        assert stagingAreaByteSequence != null;
+
+        FileModule module = ModuleFactory.getDefault().create(FileModule.class);
+        ExecutionTrace inputFiles = ExecutionTrace.empty().resolveInPort(module.inputFiles().getSimpleName());
+        ExecutionTrace linkedFiles = ExecutionTrace.empty().resolveOutPort(module.linkedFiles().getSimpleName());
+        await(stagingAreaByteSequence.putObject(inputFiles, Arrays.asList(FOX_BYTE_SEQUENCE, LOREM_BYTE_SEQUENCE)));
+        await(stagingAreaByteSequence.link(inputFiles, linkedFiles));
+
+        // Elements of a linked collection
+        Assert.assertTrue(await(stagingAreaByteSequence.exists(linkedFiles.resolveArrayIndex(Index.index(1)))));
+        Assert.assertFalse(await(stagingAreaByteSequence.exists(linkedFiles.resolveArrayIndex(Index.index(2)))));
+        assertEqualByteSequences(
+            LOREM_BYTE_SEQUENCE,
+            (ByteSequence) await(stagingAreaByteSequence.getObject(linkedFiles.resolveArrayIndex(Index.index(1))))
+        );
+        Assert.assertEquals(((Collection<?>) await(stagingAreaByteSequence.getObject(linkedFiles))).size(), 2);
+
+        // Link to an element of a linked collection
+        ExecutionTrace linkedElement = ExecutionTrace.empty().resolveOutPort(module.outputFiles().getSimpleName())
+            .resolveArrayIndex(Index.index(0));
+        await(stagingAreaByteSequence.link(linkedFiles.resolveArrayIndex(Index.index(0)), linkedElement));
+        assertEqualByteSequences(
+            FOX_BYTE_SEQUENCE,
+            (ByteSequence) await(stagingAreaByteSequence.getObject(linkedElement))
+        );
+    }
+
     private static final class MutableByteSequence implements ByteSequence {
         private ByteSequence byteSequence;
 
@@ -3,6 +3,7 @@ package xyz.cloudkeeper.drm;
 import org.ggf.drmaa.DrmaaException;
 import org.ggf.drmaa.ExitTimeoutException;
 import org.ggf.drmaa.FileTransferMode;
+import org.ggf.drmaa.InvalidJobException;
 import org.ggf.drmaa.JobInfo;
 import org.ggf.drmaa.JobTemplate;
 import org.ggf.drmaa.Session;
@@ -25,26 +26,33 @@ import xyz.cloudkeeper.model.runtime.element.module.RuntimeProxyModule;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import net.florianschoppmann.java.futures.Futures;
 import xyz.cloudkeeper.model.util.ImmutableList;
-import xyz.cloudkeeper.simple.CharacterStreamCommunication.Splitter;
+import xyz.cloudkeeper.simple.BinaryStreamCommunication;
 import xyz.cloudkeeper.simple.SimpleInstanceProvider;
 
 import javax.annotation.Nullable;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.ObjectOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
 /**
@@ -56,9 +64,20 @@ import java.util.regex.Pattern;
  * will be configured (with {@link JobTemplate#setInputPath(String)}) to provide the standard input for the submitted
  * job. The distributed resource manager schedules and executes the configured command so that the standard-out stream
  * of the job is written to the file configured with {@link JobTemplate#setOutputPath(String)}. This executor
- * subsequently deserializes the {@link SimpleModuleExecutorResult} from there. The standard-error stream of the job
- * will (temporarily) be written to a file configured with {@link JobTemplate#setErrorPath(String)}. Subsequently, it
- * will be logged to the standard-error stream of the current process.
+ * subsequently deserializes the {@link SimpleModuleExecutorResult} from there (either embedded in a character stream
+ * or as binary frame, see {@link BinaryStreamCommunication#readFramedOrEmbeddedObject(Class, InputStream)}). The
+ * standard-error stream of the job will (temporarily) be written to a file configured with
+ * {@link JobTemplate#setErrorPath(String)}. Subsequently, it will be logged to the standard-error stream of the current
+ * process.
+ *
+ * <p>If a batch window is configured (see {@link Builder#setBatchWindowMilliseconds(long)}), executions are not
+ * submitted one by one with {@link Session#runJob(JobTemplate)}. Instead, executions that arrive within the batch
+ * window and that have the same job name, command line, and native specification are submitted together as a DRMAA
+ * job array, using {@link Session#runBulkJobs(JobTemplate, int, int, int)}. Each task of the job array has its own
+ * directory for stdin, stdout, and stderr, whose path contains the task index (see
+ * {@link JobTemplate#PARAMETRIC_INDEX}). This reduces the number of submissions (and thus the scheduling overhead) when
+ * many instances of the same simple module are executed in parallel, as is typical for loops and parallel composite
+ * modules. Each task is awaited and processed just like an individually submitted job.
  */
 public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
     /**
@@ -95,6 +114,33 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
      */
     public static final SimpleName EXIT_VALUE = SimpleName.identifier("exitCode");
 
+    /**
+     * Name of property in {@link SimpleModuleExecutorResult} that contains the timestamp (as returned by
+     * {@link System#currentTimeMillis()}) when this executor noticed that the DRMAA job had finished. The difference to
+     * {@link #DRMAA_SUBMISSION_TIME_MILLIS} is the latency of the job as observed by this executor.
+     */
+    public static final SimpleName DRMAA_COMPLETION_TIME_MILLIS = SimpleName.identifier("drmaaCompletionTimeMillis");
+
+    /**
+     * Strategy for detecting that submitted DRMAA jobs have finished.
+     */
+    public enum CompletionTracking {
+        /**
+         * A single long-lived task repeatedly calls {@link Session#wait(String, long)} with
+         * {@link Session#JOB_IDS_SESSION_ANY}, which blocks a thread of the long-lived executor service while jobs are
+         * outstanding.
+         */
+        WAIT_ANY,
+
+        /**
+         * A periodic task calls {@link Session#getJobProgramStatus(String)} for all outstanding jobs and reaps finished
+         * jobs with {@link Session#wait(String, long)} and {@link Session#TIMEOUT_NO_WAIT}, so no thread is blocked.
+         * The poll interval is reset to its minimum whenever a job is submitted or has finished, and doubles (up to
+         * its maximum) after each round in which no job has finished.
+         */
+        POLLING
+    }
+
     private static final Pattern NON_JOB_NAME_CHARACTERS = Pattern.compile("[^A-Za-z0-9_]");
     private static final FileTransferMode TRANSFER_FILES = new FileTransferMode(true, true, true);
 
@@ -109,26 +155,41 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
     private final ScheduledExecutorService longLivedExecutorService;
     private final InstanceProvider instanceProvider;
     private final NativeSpecificationProvider nativeSpecificationProvider;
+    private final long batchWindowMilliseconds;
+    private final int maximumBatchSize;
+    private final CompletionTracking completionTracking;
+    private final long minimumPollIntervalMilliseconds;
+    private final long maximumPollIntervalMilliseconds;
 
     private final Map<String, AwaitedJob> awaitedJobMap = new LinkedHashMap<>();
 
+    /**
+     * Batches that still accept new executions, guarded by the map itself.
+     */
+    private final Map<BatchKey, Batch> pendingBatches = new HashMap<>();
+
     private boolean waitTaskIsRunning = false;
 
     private final WaitForNextJobTask waitForNextJobTask = new WaitForNextJobTask();
 
-    private DrmaaSimpleModuleExecutor(Session drmaaSession, Path jobIOBasePath, CommandProvider commandProvider,
-            NativeSpecificationProvider nativeSpecificationProvider, InstanceProvider instanceProvider,
-            long waitTimeoutSeconds, long errorWaitMilliseconds, Executor shortTasksExecutor,
-            ScheduledExecutorService longLivedExecutorService) {
-        this.drmaaSession = drmaaSession;
-        this.jobIOBasePath = jobIOBasePath;
-        this.commandProvider = commandProvider;
+    private final PollJobsTask pollJobsTask = new PollJobsTask();
+
+    private DrmaaSimpleModuleExecutor(Builder builder, NativeSpecificationProvider nativeSpecificationProvider,
+            InstanceProvider instanceProvider) {
+        drmaaSession = builder.session;
+        jobIOBasePath = builder.jobIOBasePath;
+        commandProvider = builder.commandProvider;
         this.nativeSpecificationProvider = nativeSpecificationProvider;
         this.instanceProvider = instanceProvider;
-        this.waitTimeoutSeconds = waitTimeoutSeconds;
-        this.errorWaitMilliseconds = errorWaitMilliseconds;
-        this.shortTasksExecutor = shortTasksExecutor;
-        this.longLivedExecutorService = longLivedExecutorService;
+        waitTimeoutSeconds = builder.waitTimeoutSeconds;
+        errorWaitMilliseconds = builder.errorWaitMilliseconds;
+        shortTasksExecutor = builder.shortTasksExecutor;
+        longLivedExecutorService = builder.longLivedExecutorService;
+        batchWindowMilliseconds = builder.batchWindowMilliseconds;
+        maximumBatchSize = builder.maximumBatchSize;
+        completionTracking = builder.completionTracking;
+        minimumPollIntervalMilliseconds = builder.minimumPollIntervalMilliseconds;
+        maximumPollIntervalMilliseconds = builder.maximumPollIntervalMilliseconds;
     }
 
     private enum EmptyNativeSpecificationProvider implements NativeSpecificationProvider {
@@ -144,6 +205,8 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
      * This class is used to create DRMAA simple-module executors.
      */
     public static final class Builder {
+        private static final int DEFAULT_MAXIMUM_BATCH_SIZE = 1000;
+
         private final Session session;
         private final Path jobIOBasePath;
         private final CommandProvider commandProvider;
@@ -153,6 +216,11 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
         @Nullable private InstanceProvider instanceProvider = null;
         private long waitTimeoutSeconds = TimeUnit.SECONDS.convert(1, TimeUnit.MINUTES);
         private long errorWaitMilliseconds = TimeUnit.MILLISECONDS.convert(10, TimeUnit.SECONDS);
+        private long batchWindowMilliseconds = 0;
+        private int maximumBatchSize = DEFAULT_MAXIMUM_BATCH_SIZE;
+        private CompletionTracking completionTracking = CompletionTracking.WAIT_ANY;
+        private long minimumPollIntervalMilliseconds = 100;
+        private long maximumPollIntervalMilliseconds = TimeUnit.MILLISECONDS.convert(10, TimeUnit.SECONDS);
 
         /**
          * Constructor.
@@ -233,6 +301,86 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
             return this;
         }
 
+        /**
+         * Sets the time window (in milliseconds) during which executions are collected in order to be submitted as a
+         * single DRMAA job array.
+         *
+         * <p>The window starts when the first execution of a new batch arrives. A value of 0 disables batching, in
+         * which case each execution is submitted immediately with {@link Session#runJob(JobTemplate)}. By default, if
+         * this method is not called, batching is disabled.
+         *
+         * @param batchWindowMilliseconds batch window (in milliseconds), must be non-negative
+         * @return this builder
+         */
+        public Builder setBatchWindowMilliseconds(long batchWindowMilliseconds) {
+            if (batchWindowMilliseconds < 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected non-negative batch window, but got %d.", batchWindowMilliseconds
+                ));
+            }
+            this.batchWindowMilliseconds = batchWindowMilliseconds;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of tasks in a DRMAA job array.
+         *
+         * <p>A batch is submitted as soon as it reaches this size, even if its batch window has not yet elapsed. This
+         * setting has no effect unless batching is enabled with {@link #setBatchWindowMilliseconds(long)}. By default,
+         * if this method is not called, the maximum size will be {@value #DEFAULT_MAXIMUM_BATCH_SIZE}.
+         *
+         * @param maximumBatchSize maximum number of tasks in a job array, must be positive
+         * @return this builder
+         */
+        public Builder setMaximumBatchSize(int maximumBatchSize) {
+            if (maximumBatchSize <= 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected positive maximum batch size, but got %d.", maximumBatchSize
+                ));
+            }
+            this.maximumBatchSize = maximumBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the strategy for detecting that submitted DRMAA jobs have finished.
+         *
+         * <p>By default, if this method is not called, {@link CompletionTracking#WAIT_ANY} will be used.
+         *
+         * @param completionTracking strategy for detecting finished jobs
+         * @return this builder
+         */
+        public Builder setCompletionTracking(CompletionTracking completionTracking) {
+            this.completionTracking = Objects.requireNonNull(completionTracking);
+            return this;
+        }
+
+        /**
+         * Sets the minimum and maximum interval (in milliseconds) between two rounds of polling the status of
+         * outstanding DRMAA jobs.
+         *
+         * <p>This setting has no effect unless {@link CompletionTracking#POLLING} is set with
+         * {@link #setCompletionTracking(CompletionTracking)}. By default, if this method is not called, the minimum
+         * will be 100 ms, and the maximum will be 10 seconds.
+         *
+         * @param minimumPollIntervalMilliseconds minimum poll interval (in milliseconds), must be positive
+         * @param maximumPollIntervalMilliseconds maximum poll interval (in milliseconds), must be at least the minimum
+         * @return this builder
+         */
+        public Builder setPollIntervalMilliseconds(long minimumPollIntervalMilliseconds,
+                long maximumPollIntervalMilliseconds) {
+            if (minimumPollIntervalMilliseconds <= 0
+                    || maximumPollIntervalMilliseconds < minimumPollIntervalMilliseconds) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected 0 < minimum <= maximum poll interval, but got minimum %d and maximum %d.",
+                    minimumPollIntervalMilliseconds, maximumPollIntervalMilliseconds
+                ));
+            }
+            this.minimumPollIntervalMilliseconds = minimumPollIntervalMilliseconds;
+            this.maximumPollIntervalMilliseconds = maximumPollIntervalMilliseconds;
+            return this;
+        }
+
         public DrmaaSimpleModuleExecutor build() {
             NativeSpecificationProvider actualNativeProvider = nativeSpecificationProvider == null
                 ? EmptyNativeSpecificationProvider.INSTANCE
@@ -240,9 +388,7 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
             InstanceProvider actualInstanceProvider = instanceProvider == null
                 ? new SimpleInstanceProvider.Builder(shortTasksExecutor).build()
                 : instanceProvider;
-            return new DrmaaSimpleModuleExecutor(session, jobIOBasePath, commandProvider, actualNativeProvider,
-                actualInstanceProvider, waitTimeoutSeconds, errorWaitMilliseconds, shortTasksExecutor,
-                longLivedExecutorService);
+            return new DrmaaSimpleModuleExecutor(this, actualNativeProvider, actualInstanceProvider);
         }
     }
 
@@ -266,6 +412,7 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
         private final Optional<Integer> exitStatus;
         private final Optional<String> terminatingSignal;
         private final boolean aborted;
+        private final long detectionTimeMillis = System.currentTimeMillis();
 
         private FinishedJob(SubmittedJob submittedJob, Optional<Integer> exitStatus, Optional<String> terminatingSignal,
                 boolean aborted) {
@@ -275,6 +422,16 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
             this.aborted = aborted;
         }
 
+        private static FinishedJob of(SubmittedJob submittedJob, JobInfo jobInfo) throws DrmaaException {
+            Optional<Integer> exitStatus = jobInfo.hasExited()
+                ? Optional.of(jobInfo.getExitStatus())
+                : Optional.empty();
+            Optional<String> terminatingSignal = jobInfo.hasSignaled()
+                ? Optional.of(jobInfo.getTerminatingSignal())
+                : Optional.empty();
+            return new FinishedJob(submittedJob, exitStatus, terminatingSignal, jobInfo.wasAborted());
+        }
+
         private static <T> String optionToString(Optional<T> option) {
             return option.isPresent()
                 ? option.get().toString()
@@ -326,6 +483,7 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
         @Nullable private volatile String nativeArguments = null;
         @Nullable private volatile SubmittedJob submittedJob = null;
         @Nullable private volatile FinishedJob finishedJob = null;
+        @Nullable private volatile Batch batch = null;
 
         private Timing(long submissionTimeMillis) {
             this.submissionTimeMillis = submissionTimeMillis;
@@ -333,6 +491,10 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
     }
 
     private CompletionStage<FinishedJob> waitForJob(SubmittedJob submittedJob) {
+        if (completionTracking == CompletionTracking.POLLING) {
+            return pollJobsTask.waitForJob(submittedJob);
+        }
+
         CompletableFuture<FinishedJob> future = new CompletableFuture<>();
         synchronized (awaitedJobMap) {
             awaitedJobMap.put(submittedJob.drmaaId, new AwaitedJob(submittedJob, future));
@@ -365,8 +527,11 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
             resultBuilder.addProperty(JOB_ID, localSubmittedJob.drmaaId);
         }
         @Nullable FinishedJob localFinishedJob = timing.finishedJob;
-        if (localFinishedJob != null && localFinishedJob.exitStatus.isPresent()) {
-            resultBuilder.addProperty(EXIT_VALUE, (long) localFinishedJob.exitStatus.get());
+        if (localFinishedJob != null) {
+            resultBuilder.addProperty(DRMAA_COMPLETION_TIME_MILLIS, localFinishedJob.detectionTimeMillis);
+            if (localFinishedJob.exitStatus.isPresent()) {
+                resultBuilder.addProperty(EXIT_VALUE, (long) localFinishedJob.exitStatus.get());
+            }
         }
         return resultBuilder;
     }
@@ -407,10 +572,10 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
         logOutput(stderrPath(ioPath), "stderr", finishedJob.submittedJob.drmaaId);
         SimpleModuleExecutorResult.Builder resultBuilder = resultBuilder(timing);
         if (finishedJob.exitStatus.isPresent() && finishedJob.exitStatus.get() == 0) {
-            try (Splitter<SimpleModuleExecutorResult> splitter = new Splitter<>(
-                    SimpleModuleExecutorResult.class, Files.newBufferedReader(stdoutPath(ioPath)))) {
-                splitter.consumeAll();
-                resultBuilder.addExecutionResult(splitter.getResult());
+            try (InputStream inputStream = Files.newInputStream(stdoutPath(ioPath))) {
+                resultBuilder.addExecutionResult(
+                    BinaryStreamCommunication.readFramedOrEmbeddedObject(SimpleModuleExecutorResult.class, inputStream)
+                );
             }
         } else {
             logOutput(stdoutPath(ioPath), "stdout", finishedJob.submittedJob.drmaaId);
@@ -424,14 +589,22 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
             .build();
     }
 
-    private void cleanIODirectory(Timing timing) {
+    private void deleteRecursively(Path path) {
         try {
-            @Nullable Path ioPath = timing.ioPath;
-            if (ioPath != null) {
-                Files.walkFileTree(ioPath, RecursiveDeleteVisitor.getInstance());
-            }
+            Files.walkFileTree(path, RecursiveDeleteVisitor.getInstance());
         } catch (IOException exception) {
-            log.warn(String.format("Ignoring I/O exception while trying to clean '%s'.", timing.ioPath), exception);
+            log.warn(String.format("Ignoring I/O exception while trying to clean '%s'.", path), exception);
+        }
+    }
+
+    private void cleanIODirectory(Timing timing) {
+        @Nullable Path ioPath = timing.ioPath;
+        if (ioPath != null) {
+            deleteRecursively(ioPath);
+        }
+        @Nullable Batch batch = timing.batch;
+        if (batch != null) {
+            batch.taskCleaned();
         }
     }
 
@@ -470,16 +643,248 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
         }
     }
 
+    /**
+     * Key of executions that may be submitted as tasks of the same DRMAA job array, because their job templates would
+     * only differ in the paths of the standard streams.
+     */
+    private static final class BatchKey {
+        private final String jobName;
+        private final ImmutableList<String> command;
+        private final String nativeSpecification;
+
+        private BatchKey(String jobName, ImmutableList<String> command, String nativeSpecification) {
+            this.jobName = jobName;
+            this.command = command;
+            this.nativeSpecification = nativeSpecification;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object otherObject) {
+            if (this == otherObject) {
+                return true;
+            } else if (otherObject == null || getClass() != otherObject.getClass()) {
+                return false;
+            }
+
+            BatchKey other = (BatchKey) otherObject;
+            return jobName.equals(other.jobName)
+                && command.equals(other.command)
+                && nativeSpecification.equals(other.nativeSpecification);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(jobName, command, nativeSpecification);
+        }
+    }
+
+    private static final class BatchMember {
+        private final RuntimeAnnotatedExecutionTrace trace;
+        private final Timing timing;
+        private final CompletableFuture<SubmittedJob> future = new CompletableFuture<>();
+
+        private BatchMember(RuntimeAnnotatedExecutionTrace trace, Timing timing) {
+            this.trace = trace;
+            this.timing = timing;
+        }
+    }
+
+    /**
+     * Executions that will be submitted as one DRMAA job array.
+     *
+     * <p>The task with index {@code i} (starting at 1) uses directory {@code batchPath.resolve(String.valueOf(i))} for
+     * its standard streams. Once a batch is closed, no further members are added, and {@link #members} is no longer
+     * modified.
+     */
+    private final class Batch {
+        private final BatchKey key;
+        private final Path batchPath;
+        private final List<BatchMember> members = new ArrayList<>();
+        private boolean closed = false;
+        private int numUncleanedTasks = 0;
+
+        private Batch(BatchKey key, Path batchPath) {
+            this.key = key;
+            this.batchPath = batchPath;
+        }
+
+        /**
+         * Adds a new member to this batch and writes the serialized runtime-state provider into its stdin file.
+         *
+         * @return whether the member was added; {@code false} if this batch was already closed
+         */
+        private synchronized boolean add(BatchMember member, RuntimeStateProvider runtimeStateProvider)
+                throws IOException {
+            if (closed) {
+                return false;
+            }
+
+            Path ioPath = batchPath.resolve(String.valueOf(members.size() + 1));
+            try {
+                Files.createDirectory(ioPath);
+                try (ObjectOutputStream objectOutputStream
+                        = new ObjectOutputStream(Files.newOutputStream(stdinPath(ioPath)))) {
+                    objectOutputStream.writeObject(runtimeStateProvider);
+                }
+            } catch (IOException exception) {
+                deleteRecursively(ioPath);
+                throw exception;
+            }
+            member.timing.ioPath = ioPath;
+            member.timing.batch = this;
+            members.add(member);
+            ++numUncleanedTasks;
+            if (members.size() >= maximumBatchSize) {
+                closed = true;
+                shortTasksExecutor.execute(() -> submitBatch(this));
+            }
+            return true;
+        }
+
+        /**
+         * Closes this batch.
+         *
+         * @return whether this batch was closed by this method call; {@code false} if it had been closed before
+         */
+        private synchronized boolean close() {
+            boolean wasClosed = closed;
+            closed = true;
+            return !wasClosed;
+        }
+
+        private synchronized void taskCleaned() {
+            --numUncleanedTasks;
+            deleteIfUnused();
+        }
+
+        private synchronized void deleteIfUnused() {
+            if (closed && numUncleanedTasks == 0) {
+                deleteRecursively(batchPath);
+            }
+        }
+    }
+
+    private CompletableFuture<SubmittedJob> enqueueJob(RuntimeStateProvider runtimeStateProvider,
+            RuntimeContext runtimeContext, Timing timing)
+            throws IOException, InstanceProvisionException, LinkerException {
+        RuntimeAnnotatedExecutionTrace executionTrace = runtimeStateProvider.provideExecutionTrace(runtimeContext);
+        RuntimeProxyModule module = (RuntimeProxyModule) executionTrace.getModule();
+        String declarationName = module.getDeclaration().getQualifiedName().toString();
+        ImmutableList<String> command = ImmutableList.copyOf(commandProvider.getCommand(executionTrace));
+        timing.commandLine = command;
+        String nativeSpecification = nativeSpecificationProvider.getNativeSpecification(executionTrace);
+        timing.nativeArguments = nativeSpecification;
+
+        BatchKey key = new BatchKey(getJobName(declarationName), command, nativeSpecification);
+        BatchMember member = new BatchMember(executionTrace, timing);
+        while (true) {
+            @Nullable Batch newBatch = null;
+            Batch batch;
+            synchronized (pendingBatches) {
+                @Nullable Batch existingBatch = pendingBatches.get(key);
+                if (existingBatch == null) {
+                    newBatch = new Batch(key, Files.createTempDirectory(jobIOBasePath, declarationName));
+                    pendingBatches.put(key, newBatch);
+                    batch = newBatch;
+                } else {
+                    batch = existingBatch;
+                }
+            }
+            if (newBatch != null) {
+                Batch scheduledBatch = newBatch;
+                longLivedExecutorService.schedule(
+                    () -> shortTasksExecutor.execute(() -> {
+                        if (scheduledBatch.close()) {
+                            submitBatch(scheduledBatch);
+                        }
+                    }),
+                    batchWindowMilliseconds,
+                    TimeUnit.MILLISECONDS
+                );
+            }
+            if (batch.add(member, runtimeStateProvider)) {
+                return member.future;
+            }
+        }
+    }
+
+    /**
+     * Submits the given (closed) batch as DRMAA job array and completes the futures of all members.
+     */
+    private void submitBatch(Batch batch) {
+        synchronized (pendingBatches) {
+            pendingBatches.remove(batch.key, batch);
+        }
+
+        // The batch is closed, so its members are no longer modified. Synchronization guarantees visibility.
+        List<BatchMember> members;
+        synchronized (batch) {
+            assert batch.closed;
+            members = batch.members;
+        }
+        if (members.isEmpty()) {
+            batch.deleteIfUnused();
+            return;
+        }
+
+        try {
+            JobTemplate jobTemplate = drmaaSession.createJobTemplate();
+            try {
+                ImmutableList<String> command = batch.key.command;
+                Path taskPath = batch.batchPath.resolve(JobTemplate.PARAMETRIC_INDEX);
+                jobTemplate.setJobName(batch.key.jobName);
+                jobTemplate.setRemoteCommand(command.get(0));
+                jobTemplate.setArgs(command.subList(1, command.size()));
+                jobTemplate.setTransferFiles(TRANSFER_FILES);
+                jobTemplate.setInputPath(":" + stdinPath(taskPath));
+                jobTemplate.setOutputPath(":" + stdoutPath(taskPath));
+                jobTemplate.setErrorPath(":" + stderrPath(taskPath));
+                jobTemplate.setNativeSpecification(batch.key.nativeSpecification);
+                long drmaaSubmissionTimeMillis = System.currentTimeMillis();
+                for (BatchMember member: members) {
+                    member.timing.drmaaSubmissionTimeMillis = drmaaSubmissionTimeMillis;
+                }
+                List<?> jobIds = drmaaSession.runBulkJobs(jobTemplate, 1, members.size(), 1);
+                if (jobIds.size() != members.size()) {
+                    throw new IllegalStateException(String.format(
+                        "Expected %d job ids for DRMAA job array, but got %d.", members.size(), jobIds.size()
+                    ));
+                }
+                log.debug("Submitted DRMAA job array with {} tasks, command: {}, native: {}", members.size(), command,
+                    batch.key.nativeSpecification);
+                int index = 0;
+                for (BatchMember member: members) {
+                    SubmittedJob submittedJob = new SubmittedJob(member.trace, (String) jobIds.get(index));
+                    member.timing.submittedJob = submittedJob;
+                    member.future.complete(submittedJob);
+                    ++index;
+                }
+            } finally {
+                drmaaSession.deleteJobTemplate(jobTemplate);
+            }
+        } catch (DrmaaException | RuntimeException exception) {
+            for (BatchMember member: members) {
+                member.future.completeExceptionally(exception);
+            }
+        }
+    }
+
     @Override
     public CompletableFuture<SimpleModuleExecutorResult> submit(RuntimeStateProvider runtimeStateProvider) {
         Timing timing = new Timing(System.currentTimeMillis());
         return Futures.thenComposeWithResource(
             runtimeStateProvider.provideRuntimeContext(instanceProvider),
             runtimeContext -> {
-                CompletionStage<SubmittedJob> submissionStage = Futures.supplyAsync(
-                    () -> submitJob(runtimeStateProvider, runtimeContext, timing),
-                    shortTasksExecutor
-                );
+                CompletionStage<SubmittedJob> submissionStage = batchWindowMilliseconds > 0
+                    ? Futures.supplyAsync(
+                            () -> enqueueJob(runtimeStateProvider, runtimeContext, timing),
+                            shortTasksExecutor
+                        )
+                        .thenCompose(Function.identity())
+                    : Futures.supplyAsync(
+                        () -> submitJob(runtimeStateProvider, runtimeContext, timing),
+                        shortTasksExecutor
+                    );
                 CompletionStage<FinishedJob> jobRunningStage = submissionStage.thenCompose(this::waitForJob);
                 CompletableFuture<SimpleModuleExecutorResult> future = Futures.thenApplyAsync(
                     jobRunningStage,
@@ -520,15 +925,7 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
                 if (awaitedJob == null) {
                     log.warn(String.format("Ignoring event that unknown DRMAA job '%s' finished.", jobId));
                 } else {
-                    Optional<Integer> exitStatus = jobInfo.hasExited()
-                        ? Optional.of(jobInfo.getExitStatus())
-                        : Optional.empty();
-                    Optional<String> terminatingSignal = jobInfo.hasSignaled()
-                        ? Optional.of(jobInfo.getTerminatingSignal())
-                        : Optional.empty();
-                    awaitedJob.completableFuture.complete(new FinishedJob(
-                        awaitedJob.submittedJob, exitStatus, terminatingSignal, jobInfo.wasAborted()
-                    ));
+                    awaitedJob.completableFuture.complete(FinishedJob.of(awaitedJob.submittedJob, jobInfo));
                 }
                 taskState = TaskState.FINISHED;
             } catch (ExitTimeoutException ignored) {
@@ -560,4 +957,82 @@ public final class DrmaaSimpleModuleExecutor implements SimpleModuleExecutor {
             }
         }
     }
+
+    /**
+     * Periodic task that polls the status of all outstanding DRMAA jobs, used with
+     * {@link CompletionTracking#POLLING}.
+     *
+     * <p>At most one instance of this task is scheduled at any time (guarded by {@link #scheduled}). Jobs are added
+     * concurrently by {@link #waitForJob(SubmittedJob)}. A job is removed from {@link #polledJobs} by the task round
+     * that detects it has finished.
+     */
+    private final class PollJobsTask implements Runnable {
+        private final ConcurrentHashMap<String, AwaitedJob> polledJobs = new ConcurrentHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private volatile long pollIntervalMilliseconds = minimumPollIntervalMilliseconds;
+
+        private CompletionStage<FinishedJob> waitForJob(SubmittedJob submittedJob) {
+            CompletableFuture<FinishedJob> future = new CompletableFuture<>();
+            polledJobs.put(submittedJob.drmaaId, new AwaitedJob(submittedJob, future));
+            pollIntervalMilliseconds = minimumPollIntervalMilliseconds;
+            scheduleIfNecessary();
+            return future;
+        }
+
+        private void scheduleIfNecessary() {
+            if (!polledJobs.isEmpty() && scheduled.compareAndSet(false, true)) {
+                longLivedExecutorService.schedule(this, pollIntervalMilliseconds, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * Returns whether the given job has finished, in which case the future of the job is also completed.
+         */
+        private boolean poll(AwaitedJob awaitedJob) {
+            String jobId = awaitedJob.submittedJob.drmaaId;
+            try {
+                int status = drmaaSession.getJobProgramStatus(jobId);
+                if (status != Session.DONE && status != Session.FAILED) {
+                    return false;
+                }
+                JobInfo jobInfo = drmaaSession.wait(jobId, Session.TIMEOUT_NO_WAIT);
+                if (polledJobs.remove(jobId, awaitedJob)) {
+                    awaitedJob.completableFuture.complete(FinishedJob.of(awaitedJob.submittedJob, jobInfo));
+                }
+                return true;
+            } catch (ExitTimeoutException ignored) {
+                // The job has finished, but the DRM does not have the job information yet. Try again next round.
+                return false;
+            } catch (InvalidJobException exception) {
+                // The DRM no longer knows the job. It would never be reported as finished, so give up on it.
+                if (polledJobs.remove(jobId, awaitedJob)) {
+                    awaitedJob.completableFuture.completeExceptionally(exception);
+                }
+                return true;
+            } catch (DrmaaException | RuntimeException exception) {
+                log.warn(String.format(
+                    "Exception while polling the status of %s. Will try again in the next round.",
+                    awaitedJob.submittedJob
+                ), exception);
+                return false;
+            }
+        }
+
+        @Override
+        public void run() {
+            boolean anyFinished = false;
+            try {
+                for (AwaitedJob awaitedJob: polledJobs.values()) {
+                    anyFinished |= poll(awaitedJob);
+                }
+            } finally {
+                pollIntervalMilliseconds = anyFinished
+                    ? minimumPollIntervalMilliseconds
+                    : Math.min(2 * pollIntervalMilliseconds, maximumPollIntervalMilliseconds);
+                // Jobs added after this point will see that no task is scheduled.
+                scheduled.set(false);
+                scheduleIfNecessary();
+            }
+        }
+    }
 }
@@ -1,12 +1,306 @@
 package xyz.cloudkeeper.drm;
 
+import org.ggf.drmaa.DrmaaException;
+import org.ggf.drmaa.ExitTimeoutException;
+import org.ggf.drmaa.FileTransferMode;
+import org.ggf.drmaa.InvalidJobException;
+import org.ggf.drmaa.JobInfo;
+import org.ggf.drmaa.JobTemplate;
+import org.ggf.drmaa.Session;
+import org.ggf.drmaa.SimpleJobTemplate;
+import org.ggf.drmaa.Version;
 import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
+import xyz.cloudkeeper.examples.modules.BinarySum;
+import xyz.cloudkeeper.executors.StagingAreas;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+import xyz.cloudkeeper.model.immutable.element.Name;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class DrmaaSimpleModuleExecutorTest {
+    private static final long AWAIT_DURATION_SEC = 30;
+
+    private Path tempDir;
+    private ScheduledExecutorService executorService;
+
+    @BeforeClass
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory(getClass().getSimpleName());
+        executorService = Executors.newScheduledThreadPool(4);
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        executorService.shutdownNow();
+        Files.walkFileTree(tempDir, RecursiveDeleteVisitor.getInstance());
+    }
+
     @Test
     public void testJobName() {
         Assert.assertEquals(DrmaaSimpleModuleExecutor.getJobName("öäü"), "oau");
         Assert.assertEquals(DrmaaSimpleModuleExecutor.getJobName("fr.ça.va"), "fr_ca_va");
     }
+
+    /**
+     * DRMAA session that does not run any jobs, but lets all submitted jobs fail immediately.
+     */
+    private static final class FailingSession implements Session {
+        private final BlockingQueue<String> finishedJobIds = new LinkedBlockingQueue<>();
+        private final List<Integer> bulkJobSizes = Collections.synchronizedList(new ArrayList<>());
+        private final List<Boolean> stdinFilesPresent = Collections.synchronizedList(new ArrayList<>());
+        private int numJobs = 0;
+
+        @Override
+        public void init(String contact) { }
+
+        @Override
+        public void exit() { }
+
+        @Override
+        public JobTemplate createJobTemplate() {
+            return new SimpleJobTemplate() {
+                private static final long serialVersionUID = -4410914213372733402L;
+
+                @Override
+                public void setTransferFiles(FileTransferMode mode) { }
+            };
+        }
+
+        @Override
+        public void deleteJobTemplate(JobTemplate jobTemplate) { }
+
+        @Override
+        public synchronized String runJob(JobTemplate jobTemplate) {
+            String jobId = String.valueOf(++numJobs);
+            finishedJobIds.add(jobId);
+            return jobId;
+        }
+
+        @Override
+        public synchronized List<String> runBulkJobs(JobTemplate jobTemplate, int start, int end, int incr)
+                throws DrmaaException {
+            String jobId = String.valueOf(++numJobs);
+            List<String> taskIds = new ArrayList<>();
+            for (int i = start; i <= end; i += incr) {
+                // Input path has the form ":<path>", see DrmaaSimpleModuleExecutor
+                String inputPath = jobTemplate.getInputPath().substring(1)
+                    .replace(JobTemplate.PARAMETRIC_INDEX, String.valueOf(i));
+                stdinFilesPresent.add(Files.exists(Paths.get(inputPath)));
+                taskIds.add(jobId + '.' + i);
+            }
+            bulkJobSizes.add(taskIds.size());
+            finishedJobIds.addAll(taskIds);
+            return taskIds;
+        }
+
+        @Override
+        public void control(String jobId, int action) { }
+
+        @Override
+        public void synchronize(List jobIds, long timeout, boolean dispose) { }
+
+        @Override
+        public JobInfo wait(String jobId, long timeout) throws DrmaaException {
+            if (!Session.JOB_IDS_SESSION_ANY.equals(jobId)) {
+                if (!finishedJobIds.remove(jobId)) {
+                    throw new InvalidJobException();
+                }
+                return new FailedJobInfo(jobId);
+            }
+
+            try {
+                String finishedJobId = finishedJobIds.poll(timeout, TimeUnit.SECONDS);
+                if (finishedJobId == null) {
+                    throw new ExitTimeoutException();
+                }
+                return new FailedJobInfo(finishedJobId);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new ExitTimeoutException();
+            }
+        }
+
+        @Override
+        public int getJobProgramStatus(String jobId) {
+            return Session.DONE;
+        }
+
+        @Override
+        public String getContact() {
+            return "";
+        }
+
+        @Override
+        public Version getVersion() {
+            return new Version(1, 0);
+        }
+
+        @Override
+        public String getDrmSystem() {
+            return getClass().getSimpleName();
+        }
+
+        @Override
+        public String getDrmaaImplementation() {
+            return getClass().getSimpleName();
+        }
+    }
+
+    private static final class FailedJobInfo implements JobInfo {
+        private final String jobId;
+
+        private FailedJobInfo(String jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public String getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public Map getResourceUsage() {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public boolean hasExited() {
+            return true;
+        }
+
+        @Override
+        public int getExitStatus() {
+            return 1;
+        }
+
+        @Override
+        public boolean hasSignaled() {
+            return false;
+        }
+
+        @Override
+        public String getTerminatingSignal() {
+            return null;
+        }
+
+        @Override
+        public boolean hasCoreDump() {
+            return false;
+        }
+
+        @Override
+        public boolean wasAborted() {
+            return false;
+        }
+    }
+
+    @Test
+    public void testBatchedSubmission() throws Exception {
+        int numExecutions = 5;
+        FailingSession session = new FailingSession();
+        Path jobIOBasePath = Files.createDirectory(tempDir.resolve("batched"));
+        DrmaaSimpleModuleExecutor executor = new DrmaaSimpleModuleExecutor.Builder(session, jobIOBasePath,
+                executionTrace -> Collections.singletonList("true"), executorService, executorService)
+            .setWaitTimeoutSeconds(1)
+            .setBatchWindowMilliseconds(TimeUnit.MILLISECONDS.convert(AWAIT_DURATION_SEC, TimeUnit.SECONDS))
+            .setMaximumBatchSize(numExecutions)
+            .build();
+
+        List<CompletableFuture<SimpleModuleExecutorResult>> futures = new ArrayList<>(numExecutions);
+        for (int i = 0; i < numExecutions; ++i) {
+            futures.add(executor.submit(
+                StagingAreas.runtimeStateProviderForDSLModule(BinarySum.class, tempDir, executorService)
+            ));
+        }
+
+        // The batch is submitted as soon as it is full, long before the batch window elapses.
+        Name executorName = Name.qualifiedName(DrmaaSimpleModuleExecutor.class.getName());
+        Set<String> jobIds = new HashSet<>();
+        for (CompletableFuture<SimpleModuleExecutorResult> future: futures) {
+            SimpleModuleExecutorResult result = future.get(AWAIT_DURATION_SEC / 2, TimeUnit.SECONDS);
+            Assert.assertNotNull(result.getExecutionException());
+            jobIds.add(result.getProperty(String.class, executorName, DrmaaSimpleModuleExecutor.JOB_ID));
+        }
+        Assert.assertEquals(session.bulkJobSizes, Collections.singletonList(numExecutions));
+        Assert.assertEquals(session.stdinFilesPresent, Collections.nCopies(numExecutions, true));
+        Assert.assertEquals(jobIds.size(), numExecutions);
+    }
+
+    @Test
+    public void testPollingCompletionTracking() throws Exception {
+        int numExecutions = 3;
+        FailingSession session = new FailingSession();
+        Path jobIOBasePath = Files.createDirectory(tempDir.resolve("polling"));
+        DrmaaSimpleModuleExecutor executor = new DrmaaSimpleModuleExecutor.Builder(session, jobIOBasePath,
+                executionTrace -> Collections.singletonList("true"), executorService, executorService)
+            .setCompletionTracking(DrmaaSimpleModuleExecutor.CompletionTracking.POLLING)
+            .setPollIntervalMilliseconds(10, 100)
+            .build();
+
+        List<CompletableFuture<SimpleModuleExecutorResult>> futures = new ArrayList<>(numExecutions);
+        for (int i = 0; i < numExecutions; ++i) {
+            futures.add(executor.submit(
+                StagingAreas.runtimeStateProviderForDSLModule(BinarySum.class, tempDir, executorService)
+            ));
+        }
+
+        Name executorName = Name.qualifiedName(DrmaaSimpleModuleExecutor.class.getName());
+        for (CompletableFuture<SimpleModuleExecutorResult> future: futures) {
+            SimpleModuleExecutorResult result = future.get(AWAIT_DURATION_SEC, TimeUnit.SECONDS);
+            Assert.assertNotNull(result.getExecutionException());
+            Assert.assertEquals(result.getProperty(Long.class, executorName, DrmaaSimpleModuleExecutor.EXIT_VALUE),
+                (Long) 1L);
+            long submissionTime = result.getProperty(
+                Long.class, executorName, DrmaaSimpleModuleExecutor.DRMAA_SUBMISSION_TIME_MILLIS);
+            long completionTime = result.getProperty(
+                Long.class, executorName, DrmaaSimpleModuleExecutor.DRMAA_COMPLETION_TIME_MILLIS);
+            Assert.assertTrue(submissionTime <= completionTime);
+        }
+        // All jobs were reaped individually, none through Session#wait(String, long) with JOB_IDS_SESSION_ANY.
+        Assert.assertTrue(session.finishedJobIds.isEmpty());
+    }
+
+    @Test
+    public void testBuilderArguments() {
+        DrmaaSimpleModuleExecutor.Builder builder = new DrmaaSimpleModuleExecutor.Builder(new FailingSession(),
+            tempDir, executionTrace -> Collections.singletonList("true"), executorService, executorService);
+        try {
+            builder.setBatchWindowMilliseconds(-1);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+
+        try {
+            builder.setMaximumBatchSize(0);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+
+        try {
+            builder.setPollIntervalMilliseconds(0, 1);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+
+        try {
+            builder.setPollIntervalMilliseconds(2, 1);
+            Assert.fail();
+        } catch (IllegalArgumentException ignored) { }
+    }
 }
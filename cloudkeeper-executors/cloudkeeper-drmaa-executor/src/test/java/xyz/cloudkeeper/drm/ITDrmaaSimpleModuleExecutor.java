@@ -15,12 +15,17 @@ import xyz.cloudkeeper.executors.StagingAreas;
 import xyz.cloudkeeper.model.api.RuntimeStateProvider;
 import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
 import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+import xyz.cloudkeeper.model.immutable.element.Name;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -117,4 +122,31 @@ public class ITDrmaaSimpleModuleExecutor {
         // cleaning.
         Thread.sleep(100);
     }
+
+    @Test
+    public void testBatchedDrmaaSubmission() throws Exception {
+        int numExecutions = 3;
+        DrmaaSimpleModuleExecutor batchingExecutor = new DrmaaSimpleModuleExecutor.Builder(drmaaSession, tempDir,
+                DummyCommandProvider.INSTANCE, executorService, executorService)
+            .setBatchWindowMilliseconds(1000)
+            .build();
+        List<CompletableFuture<SimpleModuleExecutorResult>> futures = new ArrayList<>(numExecutions);
+        for (int i = 0; i < numExecutions; ++i) {
+            RuntimeStateProvider runtimeStateProvider
+                = StagingAreas.runtimeStateProviderForDSLModule(BinarySum.class, tempDir, executorService);
+            futures.add(batchingExecutor.submit(runtimeStateProvider));
+        }
+
+        Name executorName = Name.qualifiedName(DrmaaSimpleModuleExecutor.class.getName());
+        Set<String> jobIds = new HashSet<>();
+        for (CompletableFuture<SimpleModuleExecutorResult> future: futures) {
+            SimpleModuleExecutorResult result = future.get(AWAIT_DURATION_MIN, TimeUnit.MINUTES);
+            Assert.assertNotNull(result.getExecutionException());
+            Assert.assertEquals(result.getExecutionException().getMessage(), DummyProcess.EXECUTION_EXCEPTION_MSG);
+            jobIds.add(result.getProperty(String.class, executorName, DrmaaSimpleModuleExecutor.JOB_ID));
+        }
+        // Each task of the job array has its own job id.
+        Assert.assertEquals(jobIds.size(), numExecutions);
+        Thread.sleep(100);
+    }
 }
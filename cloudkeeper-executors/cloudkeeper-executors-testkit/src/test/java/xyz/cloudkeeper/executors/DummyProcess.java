@@ -17,6 +17,7 @@ import xyz.cloudkeeper.model.immutable.element.Name;
 import xyz.cloudkeeper.model.util.ImmutableList;
 import xyz.cloudkeeper.simple.CharacterStreamCommunication;
 import xyz.cloudkeeper.simple.LocalSimpleModuleExecutor;
+import xyz.cloudkeeper.staging.ObjectMetadataCodec;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
@@ -42,6 +43,7 @@ public final class DummyProcess {
                 BareModule.class, // cloudkeeper-model
                 FileStagingArea.Builder.class, // cloudkeeper-file-staging
                 LocalSimpleModuleExecutor.class, // cloudkeeper-basic
+                ObjectMetadataCodec.class, // cloudkeeper-staging
                 StagingAreaProvider.class, // cloudkeeper-api
                 Linker.class, // cloudkeeper-linker
                 AbstractTypes.class, // java-types
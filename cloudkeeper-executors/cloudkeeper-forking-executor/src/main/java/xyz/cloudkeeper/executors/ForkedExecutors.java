@@ -5,8 +5,13 @@ import xyz.cloudkeeper.model.api.RuntimeStateProvider;
 import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutor;
 import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
 import xyz.cloudkeeper.model.immutable.element.Name;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.simple.BinaryStreamCommunication;
 import xyz.cloudkeeper.simple.CharacterStreamCommunication;
 
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
@@ -15,6 +20,7 @@ import java.io.ObjectInputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.PushbackInputStream;
 import java.io.Serializable;
 import java.util.UUID;
 import javax.annotation.Nullable;
@@ -24,6 +30,13 @@ import javax.annotation.Nullable;
  * to an output stream.
  */
 public final class ForkedExecutors {
+    /**
+     * Name of property in {@link SimpleModuleExecutorResult} that contains the number of bytes of heap memory in use
+     * after a simple module has been executed by {@link #runLoop(SimpleModuleExecutor, InputStream, OutputStream)}.
+     * The type of this property is {@link Long}.
+     */
+    public static final SimpleName USED_HEAP_BYTES = SimpleName.identifier("usedHeapBytes");
+
     private ForkedExecutors() {
         throw new AssertionError(String.format("No %s instances for you!", getClass().getName()));
     }
@@ -49,35 +62,168 @@ public final class ForkedExecutors {
      */
     public static void run(SimpleModuleExecutor simpleModuleExecutor, InputStream inputStream,
             OutputStream outputStream) throws IOException {
+        String boundary = writeBoundary(outputStream);
+        SimpleModuleExecutorResult.Builder resultBuilder = newResultBuilder();
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new NonClosingInputStream(inputStream))) {
+            execute(simpleModuleExecutor, objectInputStream, resultBuilder);
+        } catch (IOException exception) {
+            resultBuilder.setException(
+                new ExecutionException("Forked simple-module executor failed to read and deserialize input.", exception)
+            );
+        }
+        writeResult(resultBuilder, outputStream, boundary);
+    }
+
+    /**
+     * Deserializes a {@link RuntimeStateProvider} instance from the given input stream, runs the encoded simple module,
+     * and then writes a {@link SimpleModuleExecutorResult} instance as binary frame to the given result stream.
+     *
+     * <p>This method is equivalent to {@link #run(SimpleModuleExecutor, InputStream, OutputStream)}, except that the
+     * result is written using {@link BinaryStreamCommunication#writeObject(Serializable, OutputStream)}. This avoids
+     * the overhead of base64 encoding, which is significant for large results. However, the result stream must not be
+     * written to by anyone else. If the result stream is standard out, callers should therefore redirect
+     * {@link System#out} first, for instance, using {@link #dedicateStandardOut()}.
+     *
+     * @param inputStream the input stream, will not be closed
+     * @param resultStream the output stream that the result will be written to, will not be closed
+     * @throws IOException if an I/O error occurs
+     */
+    public static void runFramed(SimpleModuleExecutor simpleModuleExecutor, InputStream inputStream,
+            OutputStream resultStream) throws IOException {
+        SimpleModuleExecutorResult.Builder resultBuilder = newResultBuilder();
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new NonClosingInputStream(inputStream))) {
+            execute(simpleModuleExecutor, objectInputStream, resultBuilder);
+        } catch (IOException exception) {
+            resultBuilder.setException(
+                new ExecutionException("Forked simple-module executor failed to read and deserialize input.", exception)
+            );
+        }
+        resultBuilder.addProperty(SimpleModuleExecutor.COMPLETION_TIME_MILLIS, System.currentTimeMillis());
+        BinaryStreamCommunication.writeObject(resultBuilder.build(), resultStream);
+    }
+
+    /**
+     * Repeatedly reads a {@link RuntimeStateProvider} instance from the given input stream, runs the encoded simple
+     * module, and then writes a {@link SimpleModuleExecutorResult} instance to the given result stream, until the end
+     * of the input stream is reached.
+     *
+     * <p>This method is meant to be called by the main method of a long-lived JVM that executes many simple modules,
+     * one after the other (as started by {@link PooledForkingExecutor}). Unlike with
+     * {@link #run(SimpleModuleExecutor, InputStream, OutputStream)}, both the {@link RuntimeStateProvider} instances
+     * read from the input stream and the {@link SimpleModuleExecutorResult} instances written to the result stream
+     * are framed as described in {@link BinaryStreamCommunication}. The end of the input stream is only permitted in
+     * between two frames. If a frame cannot be read (for instance, because of an invalid magic number, length, or
+     * checksum, or because the stream ends within the frame), this method throws an {@link IOException} without
+     * writing a result, because the position of the next frame is unknown. If only the deserialization of a
+     * completely read frame fails, the result written for it contains the failure, and this method continues with the
+     * next frame. As with {@link #runFramed(SimpleModuleExecutor, InputStream, OutputStream)}, the result
+     * stream must not be written to by anyone else.
+     *
+     * <p>In addition, each {@link SimpleModuleExecutorResult} contains property {@link #USED_HEAP_BYTES}, so that the
+     * reading side may decide whether the JVM should be recycled.
+     *
+     * <p>Since all simple modules are executed in the same JVM, the instance provider of the given simple-module
+     * executor should typically provide a {@link xyz.cloudkeeper.simple.CachingRuntimeContextFactory}, so that bundles
+     * are loaded and linked only once instead of for every execution.
+     *
+     * @param inputStream the input stream, will not be closed
+     * @param resultStream the output stream that results will be written to, will not be closed
+     * @throws IOException if an I/O error occurs or if a frame in the input stream is invalid
+     */
+    public static void runLoop(SimpleModuleExecutor simpleModuleExecutor, InputStream inputStream,
+            OutputStream resultStream) throws IOException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream);
+        while (true) {
+            int firstByte = pushbackInputStream.read();
+            if (firstByte < 0) {
+                return;
+            }
+            pushbackInputStream.unread(firstByte);
+
+            SimpleModuleExecutorResult.Builder resultBuilder = newResultBuilder();
+            try {
+                RuntimeStateProvider runtimeStateProvider
+                    = BinaryStreamCommunication.readObject(RuntimeStateProvider.class, pushbackInputStream);
+                execute(simpleModuleExecutor, runtimeStateProvider, resultBuilder);
+            } catch (BinaryStreamCommunication.DeserializationException exception) {
+                // The frame was consumed entirely, so the stream is still positioned at a frame boundary. Any other
+                // IOException means that framing is lost; it is propagated so that the loop (and the process) ends.
+                resultBuilder.setException(new ExecutionException(
+                    "Forked simple-module executor failed to deserialize input.", exception
+                ));
+            }
+            Runtime runtime = Runtime.getRuntime();
+            resultBuilder
+                .addProperty(USED_HEAP_BYTES, runtime.totalMemory() - runtime.freeMemory())
+                .addProperty(SimpleModuleExecutor.COMPLETION_TIME_MILLIS, System.currentTimeMillis());
+            BinaryStreamCommunication.writeObject(resultBuilder.build(), resultStream);
+        }
+    }
+
+    /**
+     * Redirects {@link System#out} to {@link System#err}, and returns an output stream that writes to the original
+     * standard out of the current process.
+     *
+     * <p>This method is meant to be called by the main method of a forked JVM, before calling
+     * {@link #runFramed(SimpleModuleExecutor, InputStream, OutputStream)} or
+     * {@link #runLoop(SimpleModuleExecutor, InputStream, OutputStream)}, so that output of simple modules does not
+     * interfere with the binary result stream.
+     *
+     * @return output stream that writes to the original standard out
+     */
+    public static OutputStream dedicateStandardOut() {
+        System.out.flush();
+        System.setOut(System.err);
+        return new BufferedOutputStream(new FileOutputStream(FileDescriptor.out));
+    }
+
+    private static String writeBoundary(OutputStream outputStream) throws IOException {
         String boundary = UUID.randomUUID().toString();
         try (PrintWriter printWriter
                 = new PrintWriter(new OutputStreamWriter(new NonClosingOutputStream(outputStream)))) {
             CharacterStreamCommunication.writeBoundary(boundary, printWriter);
         }
+        return boundary;
+    }
 
-        SimpleModuleExecutorResult.Builder resultBuilder
-            = new SimpleModuleExecutorResult.Builder(Name.qualifiedName(ForkedExecutors.class.getName()))
-                .addProperty(SimpleModuleExecutor.SUBMISSION_TIME_MILLIS, System.currentTimeMillis());
-        try (ObjectInputStream objectInputStream = new ObjectInputStream(new NonClosingInputStream(inputStream))) {
-            RuntimeStateProvider runtimeStateProvider = (RuntimeStateProvider) objectInputStream.readObject();
+    private static SimpleModuleExecutorResult.Builder newResultBuilder() {
+        return new SimpleModuleExecutorResult.Builder(Name.qualifiedName(ForkedExecutors.class.getName()))
+            .addProperty(SimpleModuleExecutor.SUBMISSION_TIME_MILLIS, System.currentTimeMillis());
+    }
+
+    private static void execute(SimpleModuleExecutor simpleModuleExecutor, ObjectInputStream objectInputStream,
+            SimpleModuleExecutorResult.Builder resultBuilder) throws IOException {
+        RuntimeStateProvider runtimeStateProvider;
+        try {
+            runtimeStateProvider = (RuntimeStateProvider) objectInputStream.readObject();
+        } catch (ClassNotFoundException exception) {
+            resultBuilder.setException(
+                new ExecutionException("Forked simple-module executor failed to read and deserialize input.", exception)
+            );
+            return;
+        }
+        execute(simpleModuleExecutor, runtimeStateProvider, resultBuilder);
+    }
 
+    private static void execute(SimpleModuleExecutor simpleModuleExecutor, RuntimeStateProvider runtimeStateProvider,
+            SimpleModuleExecutorResult.Builder resultBuilder) {
+        try {
             SimpleModuleExecutorResult executorResult = simpleModuleExecutor.submit(runtimeStateProvider).get();
             @Nullable ExecutionException exception = executorResult.getExecutionException();
             resultBuilder.addExecutionResult(executorResult);
             if (exception != null) {
                 resultBuilder.setException(exception.toImmunizedException());
             }
-        } catch (IOException | ClassNotFoundException exception) {
-            resultBuilder.setException(
-                new ExecutionException("Forked simple-module executor failed to read and deserialize input.", exception)
-            );
         } catch (InterruptedException | java.util.concurrent.ExecutionException exception) {
             ExecutionException executionException = new ExecutionException(
                 "Unexpected exception in forked simple-module executor.", exception);
             resultBuilder.setException(executionException.toImmunizedException());
         }
-        resultBuilder.addProperty(SimpleModuleExecutor.COMPLETION_TIME_MILLIS, System.currentTimeMillis());
+    }
 
+    private static void writeResult(SimpleModuleExecutorResult.Builder resultBuilder, OutputStream outputStream,
+            String boundary) throws IOException {
+        resultBuilder.addProperty(SimpleModuleExecutor.COMPLETION_TIME_MILLIS, System.currentTimeMillis());
         try (PrintWriter printWriter
                 = new PrintWriter(new OutputStreamWriter(new NonClosingOutputStream(outputStream)))) {
             CharacterStreamCommunication.writeObject(resultBuilder.build(), printWriter, boundary);
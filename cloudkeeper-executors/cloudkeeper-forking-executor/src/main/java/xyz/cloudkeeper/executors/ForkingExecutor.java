@@ -12,12 +12,11 @@ import xyz.cloudkeeper.model.immutable.element.Name;
 import xyz.cloudkeeper.model.immutable.element.SimpleName;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.model.util.ImmutableList;
-import xyz.cloudkeeper.simple.CharacterStreamCommunication.Splitter;
+import xyz.cloudkeeper.simple.BinaryStreamCommunication;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
 import java.io.ObjectOutputStream;
 import java.util.List;
 import java.util.Objects;
@@ -35,6 +34,11 @@ import java.util.concurrent.Executor;
  * serialized representation to the new process. Subsequently it reads the {@link SimpleModuleExecutorResult}, which the
  * process is expected to write to standard out. The standard-error stream of the forked process is redirected to the
  * standard error of this process.
+ *
+ * <p>The process may either write its result embedded in a character stream (as done by
+ * {@link ForkedExecutors#run(SimpleModuleExecutor, java.io.InputStream, java.io.OutputStream)}), or as binary frame
+ * (as done by {@link ForkedExecutors#runFramed(SimpleModuleExecutor, java.io.InputStream, java.io.OutputStream)}). The
+ * latter is more efficient for large results.
  */
 public final class ForkingExecutor implements SimpleModuleExecutor {
     /**
@@ -111,14 +115,9 @@ public final class ForkingExecutor implements SimpleModuleExecutor {
             objectOutputStream.writeObject(runtimeStateProvider);
         }
         // In a new try-with-resources block because we want to flush the output stream.
-        try (
-            Splitter<SimpleModuleExecutorResult> splitter = new Splitter<>(
-                SimpleModuleExecutorResult.class,
-                new BufferedReader(new InputStreamReader(process.getInputStream()))
-            )
-        ) {
-            splitter.consumeAll();
-            moduleExecutionResult = splitter.getResult();
+        try (InputStream inputStream = process.getInputStream()) {
+            moduleExecutionResult
+                = BinaryStreamCommunication.readFramedOrEmbeddedObject(SimpleModuleExecutorResult.class, inputStream);
         }
         intermediateResults.exitValue = process.waitFor();
         return resultBuilder(intermediateResults)
@@ -0,0 +1,465 @@
+package xyz.cloudkeeper.executors;
+
+import net.florianschoppmann.java.futures.Futures;
+import xyz.cloudkeeper.model.LinkerException;
+import xyz.cloudkeeper.model.api.ExecutionException;
+import xyz.cloudkeeper.model.api.RuntimeContext;
+import xyz.cloudkeeper.model.api.RuntimeStateProvider;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutor;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
+import xyz.cloudkeeper.model.api.staging.InstanceProvider;
+import xyz.cloudkeeper.model.immutable.element.Name;
+import xyz.cloudkeeper.model.immutable.element.SimpleName;
+import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+import xyz.cloudkeeper.model.util.ImmutableList;
+import xyz.cloudkeeper.simple.BinaryStreamCommunication;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Simple-module executor implementation that executes simple modules in a pool of long-lived separate JVMs.
+ *
+ * <p>Like {@link ForkingExecutor}, this executor starts new {@link Process} instances using the command-line returned
+ * by the configured {@link CommandProvider}. However, a process (a <em>worker</em>) is not started for every simple
+ * module. Instead, the command is expected to run
+ * {@link ForkedExecutors#runLoop(SimpleModuleExecutor, InputStream, OutputStream)}, and a worker is kept alive after it
+ * has executed a simple module, so that it can be reused for the next simple module with the same command line. This
+ * avoids paying the cost of JVM startup (and the cost of creating a new runtime context, if the worker caches runtime
+ * contexts) for every simple module, while still executing simple modules in a JVM separate from the current one.
+ *
+ * <p>Workers are replaced as follows:
+ * <ul><li>
+ *     A worker is recycled (that is, its standard input is closed so that it terminates) after it has executed the
+ *     number of simple modules set with {@link Builder#setMaximumTasksPerWorker(int)}, or if it reports more heap usage
+ *     than set with {@link Builder#setMaximumUsedHeapBytes(long)}.
+ * </li><li>
+ *     Before a worker is reused, it is checked whether its process is still alive. A worker that failed to return a
+ *     result is destroyed.
+ * </li><li>
+ *     If the future returned by {@link #submit(RuntimeStateProvider)} is cancelled, the worker is destroyed. A new
+ *     worker will be started once it is needed.
+ * </li></ul>
+ *
+ * <p>At most {@link Builder#setMaximumWorkers(int)} simple modules are executed concurrently, and at most as many
+ * workers are alive at the same time. Threads of the executor passed to {@link Builder#Builder(Executor,
+ * CommandProvider, InstanceProvider)} may therefore be blocked while waiting for a worker to become available.
+ *
+ * <p>Instances of this class must be closed in order to destroy all workers.
+ */
+public final class PooledForkingExecutor implements SimpleModuleExecutor, AutoCloseable {
+    /**
+     * Name of property in {@link SimpleModuleExecutorResult} that contains the number of simple modules that the worker
+     * has executed so far, including the current one. The type of this property is {@link Long}.
+     */
+    public static final SimpleName WORKER_TASK_COUNT = SimpleName.identifier("workerTaskCount");
+
+    private static final Name FORKED_EXECUTORS_NAME = Name.qualifiedName(ForkedExecutors.class.getName());
+
+    private final Executor executor;
+    private final CommandProvider commandProvider;
+    private final InstanceProvider instanceProvider;
+    private final int maximumWorkers;
+    private final int maximumTasksPerWorker;
+    private final long maximumUsedHeapBytes;
+    private final int maximumFrameLength;
+
+    /**
+     * Permits for executing simple modules. The number of permits is {@link #maximumWorkers}.
+     */
+    private final Semaphore permits;
+
+    /**
+     * Monitor that guards {@link #idleWorkers}, {@link #allWorkers}, and {@link #closed}.
+     */
+    private final Object monitor = new Object();
+    private final Map<ImmutableList<String>, Deque<Worker>> idleWorkers = new HashMap<>();
+    private final Set<Worker> allWorkers = new HashSet<>();
+    private boolean closed = false;
+
+    private PooledForkingExecutor(Builder builder) {
+        executor = builder.executor;
+        commandProvider = builder.commandProvider;
+        instanceProvider = builder.instanceProvider;
+        maximumWorkers = builder.maximumWorkers;
+        maximumTasksPerWorker = builder.maximumTasksPerWorker;
+        maximumUsedHeapBytes = builder.maximumUsedHeapBytes;
+        maximumFrameLength = builder.maximumFrameLength;
+        permits = new Semaphore(maximumWorkers, true);
+    }
+
+    /**
+     * This class is used to create {@link PooledForkingExecutor} instances.
+     */
+    public static final class Builder {
+        private static final int DEFAULT_MAXIMUM_TASKS_PER_WORKER = 100;
+
+        private final Executor executor;
+        private final CommandProvider commandProvider;
+        private final InstanceProvider instanceProvider;
+        private int maximumWorkers = Runtime.getRuntime().availableProcessors();
+        private int maximumTasksPerWorker = DEFAULT_MAXIMUM_TASKS_PER_WORKER;
+        private long maximumUsedHeapBytes = Long.MAX_VALUE;
+        private int maximumFrameLength = BinaryStreamCommunication.DEFAULT_MAXIMUM_FRAME_LENGTH;
+
+        /**
+         * Constructor.
+         *
+         * @param executor executor for running long-lived tasks (used for communicating with workers)
+         * @param commandProvider Provider of the commands that will be passed to
+         *     {@link ProcessBuilder#ProcessBuilder(List)}. Each command is expected to start a JVM that runs
+         *     {@link ForkedExecutors#runLoop(SimpleModuleExecutor, InputStream, OutputStream)} with standard in and
+         *     (dedicated) standard out, for instance, as returned by {@link ForkedExecutors#dedicateStandardOut()}.
+         * @param instanceProvider instance provider (used to pass to
+         *     {@link RuntimeStateProvider#provideRuntimeContext(InstanceProvider)})
+         */
+        public Builder(Executor executor, CommandProvider commandProvider, InstanceProvider instanceProvider) {
+            this.executor = Objects.requireNonNull(executor);
+            this.commandProvider = Objects.requireNonNull(commandProvider);
+            this.instanceProvider = Objects.requireNonNull(instanceProvider);
+        }
+
+        /**
+         * Sets the maximum number of workers (and thus also the maximum number of simple modules executed
+         * concurrently).
+         *
+         * <p>By default, this is the number of available processors.
+         *
+         * @param maximumWorkers maximum number of workers, must be positive
+         * @return this builder
+         */
+        public Builder setMaximumWorkers(int maximumWorkers) {
+            if (maximumWorkers <= 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected positive number of workers, but got %d.", maximumWorkers
+                ));
+            }
+            this.maximumWorkers = maximumWorkers;
+            return this;
+        }
+
+        /**
+         * Sets the number of simple modules after which a worker is recycled.
+         *
+         * <p>By default, a worker is recycled after 100 simple modules.
+         *
+         * @param maximumTasksPerWorker maximum number of simple modules per worker, must be positive
+         * @return this builder
+         */
+        public Builder setMaximumTasksPerWorker(int maximumTasksPerWorker) {
+            if (maximumTasksPerWorker <= 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected positive number of tasks per worker, but got %d.", maximumTasksPerWorker
+                ));
+            }
+            this.maximumTasksPerWorker = maximumTasksPerWorker;
+            return this;
+        }
+
+        /**
+         * Sets the heap usage above which a worker is recycled.
+         *
+         * <p>The heap usage is reported by the worker after each simple module, as property
+         * {@link ForkedExecutors#USED_HEAP_BYTES}. By default, workers are not recycled because of their heap usage.
+         *
+         * @param maximumUsedHeapBytes maximum heap usage in bytes, must be positive
+         * @return this builder
+         */
+        public Builder setMaximumUsedHeapBytes(long maximumUsedHeapBytes) {
+            if (maximumUsedHeapBytes <= 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected positive heap usage, but got %d.", maximumUsedHeapBytes
+                ));
+            }
+            this.maximumUsedHeapBytes = maximumUsedHeapBytes;
+            return this;
+        }
+
+        /**
+         * Sets the maximum length of a serialized result received from a worker.
+         *
+         * <p>A longer frame (for instance, because the standard out of a worker was corrupted) causes the simple
+         * module to fail and the worker to be destroyed. By default, this is
+         * {@link BinaryStreamCommunication#DEFAULT_MAXIMUM_FRAME_LENGTH}.
+         *
+         * @param maximumFrameLength maximum length of a serialized result in bytes, must be positive
+         * @return this builder
+         */
+        public Builder setMaximumFrameLength(int maximumFrameLength) {
+            if (maximumFrameLength <= 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected positive maximum frame length, but got %d.", maximumFrameLength
+                ));
+            }
+            this.maximumFrameLength = maximumFrameLength;
+            return this;
+        }
+
+        public PooledForkingExecutor build() {
+            return new PooledForkingExecutor(this);
+        }
+    }
+
+    /**
+     * Destroys all workers.
+     *
+     * <p>Simple modules that are currently being executed will fail.
+     */
+    @Override
+    public void close() {
+        List<Worker> workers;
+        synchronized (monitor) {
+            closed = true;
+            workers = new ArrayList<>(allWorkers);
+            allWorkers.clear();
+            idleWorkers.clear();
+        }
+        for (Worker worker: workers) {
+            worker.destroy();
+        }
+    }
+
+    /**
+     * Returns an idle worker for the given command line, or starts a new one.
+     *
+     * <p>This method must only be called while holding a permit.
+     */
+    private Worker acquireWorker(ImmutableList<String> commandLine) throws IOException {
+        List<Worker> evictedWorkers = new ArrayList<>();
+        try {
+            synchronized (monitor) {
+                if (closed) {
+                    throw new IllegalStateException(String.format("%s was closed.", this));
+                }
+
+                @Nullable Deque<Worker> idle = idleWorkers.get(commandLine);
+                while (idle != null && !idle.isEmpty()) {
+                    Worker worker = idle.removeFirst();
+                    if (worker.process.isAlive()) {
+                        return worker;
+                    }
+                    allWorkers.remove(worker);
+                    evictedWorkers.add(worker);
+                }
+
+                // Make room for a new worker by evicting idle workers for other command lines. Since the caller holds
+                // a permit, there is at least one idle worker if the maximum number of workers is reached.
+                Iterator<Deque<Worker>> it = idleWorkers.values().iterator();
+                while (allWorkers.size() >= maximumWorkers && it.hasNext()) {
+                    Deque<Worker> otherIdle = it.next();
+                    while (allWorkers.size() >= maximumWorkers && !otherIdle.isEmpty()) {
+                        Worker worker = otherIdle.removeFirst();
+                        allWorkers.remove(worker);
+                        evictedWorkers.add(worker);
+                    }
+                }
+
+                Worker worker = new Worker(commandLine, maximumFrameLength);
+                allWorkers.add(worker);
+                return worker;
+            }
+        } finally {
+            for (Worker worker: evictedWorkers) {
+                worker.recycle();
+            }
+        }
+    }
+
+    /**
+     * Returns the given worker to the pool of idle workers, unless it needs to be replaced.
+     */
+    private void releaseWorker(Worker worker, boolean healthy, @Nullable Long usedHeapBytes) {
+        boolean reuse = healthy
+            && worker.taskCount < maximumTasksPerWorker
+            && (usedHeapBytes == null || usedHeapBytes <= maximumUsedHeapBytes);
+        synchronized (monitor) {
+            if (reuse && !closed) {
+                idleWorkers.computeIfAbsent(worker.commandLine, ignored -> new ArrayDeque<>()).addFirst(worker);
+                return;
+            }
+            allWorkers.remove(worker);
+        }
+        if (healthy) {
+            worker.recycle();
+        } else {
+            worker.destroy();
+        }
+    }
+
+    private static SimpleModuleExecutorResult.Builder resultBuilder(IntermediateResults intermediateResults) {
+        SimpleModuleExecutorResult.Builder resultBuilder
+            = new SimpleModuleExecutorResult.Builder(Name.qualifiedName(PooledForkingExecutor.class.getName()))
+                .addProperty(SUBMISSION_TIME_MILLIS, intermediateResults.submissionTime);
+        @Nullable ImmutableList<String> commandLine = intermediateResults.commandLine;
+        if (commandLine != null) {
+            resultBuilder.addProperty(ForkingExecutor.COMMAND_LINE, CommandLines.escape(commandLine));
+        }
+        @Nullable Integer exitValue = intermediateResults.exitValue;
+        if (exitValue != null) {
+            resultBuilder.addProperty(ForkingExecutor.EXIT_VALUE, (long) (int) exitValue);
+        }
+        return resultBuilder;
+    }
+
+    /**
+     * Synchronously waits for a worker, pipes the {@link RuntimeStateProvider} to it, and reads the result from the
+     * worker's output.
+     */
+    private SimpleModuleExecutorResult execute(RuntimeStateProvider runtimeStateProvider,
+            CompletableFuture<?> future, IntermediateResults intermediateResults, RuntimeContext runtimeContext)
+            throws LinkerException, IOException, InterruptedException {
+        RuntimeAnnotatedExecutionTrace trace = runtimeStateProvider.provideExecutionTrace(runtimeContext);
+        ImmutableList<String> commandLine = ImmutableList.copyOf(commandProvider.getCommand(trace));
+        intermediateResults.commandLine = commandLine;
+
+        permits.acquire();
+        try {
+            if (future.isCancelled()) {
+                throw new CancellationException();
+            }
+            Worker worker = acquireWorker(commandLine);
+            // The cancellation hook remains registered after the worker has been returned to the pool. It may
+            // therefore only destroy the worker while this lease is active.
+            AtomicBoolean leased = new AtomicBoolean(true);
+            boolean healthy = false;
+            @Nullable Long usedHeapBytes = null;
+            try {
+                future.whenComplete((result, failure) -> {
+                    if (failure instanceof CancellationException && leased.compareAndSet(true, false)) {
+                        worker.destroy();
+                    }
+                });
+                SimpleModuleExecutorResult moduleExecutionResult = worker.execute(runtimeStateProvider);
+                healthy = true;
+                usedHeapBytes = moduleExecutionResult.getProperty(
+                    Long.class, FORKED_EXECUTORS_NAME, ForkedExecutors.USED_HEAP_BYTES);
+                return resultBuilder(intermediateResults)
+                    .addExecutionResult(moduleExecutionResult)
+                    .addProperty(WORKER_TASK_COUNT, (long) worker.taskCount)
+                    .addProperty(COMPLETION_TIME_MILLIS, System.currentTimeMillis())
+                    .build();
+            } finally {
+                if (!leased.compareAndSet(true, false)) {
+                    // Cancelled concurrently, so the worker has been destroyed.
+                    healthy = false;
+                }
+                if (!healthy && !worker.process.isAlive()) {
+                    intermediateResults.exitValue = worker.process.exitValue();
+                }
+                releaseWorker(worker, healthy, usedHeapBytes);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The serialized {@link RuntimeStateProvider} instance will be provided to a worker process through
+     * standard-in, and a serialized {@link SimpleModuleExecutorResult} will be read from its stdout. Both are framed as
+     * described in {@link BinaryStreamCommunication}.
+     */
+    @Override
+    public CompletableFuture<SimpleModuleExecutorResult> submit(RuntimeStateProvider runtimeStateProvider) {
+        Objects.requireNonNull(runtimeStateProvider);
+        CompletableFuture<SimpleModuleExecutorResult> future = new CompletableFuture<>();
+        IntermediateResults intermediateResults = new IntermediateResults(System.currentTimeMillis());
+
+        CompletionStage<SimpleModuleExecutorResult> resultStage = Futures.thenApplyWithResourceAsync(
+            runtimeStateProvider.provideRuntimeContext(instanceProvider),
+            runtimeContext -> execute(runtimeStateProvider, future, intermediateResults, runtimeContext),
+            executor
+        );
+        CompletionStage<SimpleModuleExecutorResult> recoveryStage = resultStage.exceptionally(
+            failure -> resultBuilder(intermediateResults)
+                .setException(new ExecutionException(
+                    "Exception while trying to execute simple module in a pooled forked JVM.",
+                    Futures.unwrapCompletionException(failure)
+                ))
+                .addProperty(COMPLETION_TIME_MILLIS, System.currentTimeMillis())
+                .build()
+        );
+        Futures.completeWith(future, recoveryStage);
+        return future;
+    }
+
+    /**
+     * Long-lived process that executes simple modules one after the other.
+     *
+     * <p>Only one thread at a time may call {@link #execute(RuntimeStateProvider)}, which is guaranteed by the pool.
+     */
+    private static final class Worker {
+        private final ImmutableList<String> commandLine;
+        private final Process process;
+        private final OutputStream toWorker;
+        private final InputStream fromWorker;
+        private final int maximumFrameLength;
+        private int taskCount = 0;
+
+        private Worker(ImmutableList<String> commandLine, int maximumFrameLength) throws IOException {
+            this.commandLine = commandLine;
+            this.maximumFrameLength = maximumFrameLength;
+            process = new ProcessBuilder(commandLine)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+            toWorker = new BufferedOutputStream(process.getOutputStream());
+            fromWorker = new BufferedInputStream(process.getInputStream());
+        }
+
+        private SimpleModuleExecutorResult execute(RuntimeStateProvider runtimeStateProvider) throws IOException {
+            BinaryStreamCommunication.writeObject(runtimeStateProvider, toWorker);
+            SimpleModuleExecutorResult result = BinaryStreamCommunication.readObject(
+                SimpleModuleExecutorResult.class, fromWorker, maximumFrameLength);
+            ++taskCount;
+            return result;
+        }
+
+        /**
+         * Closes the standard input of this worker, which causes it to terminate once it has finished its current
+         * simple module (if any).
+         */
+        private void recycle() {
+            try {
+                toWorker.close();
+            } catch (IOException ignored) {
+                // If closing standard in fails, the process will be destroyed instead.
+                process.destroyForcibly();
+            }
+        }
+
+        private void destroy() {
+            process.destroyForcibly();
+        }
+    }
+
+    private static final class IntermediateResults {
+        private final long submissionTime;
+        @Nullable private volatile ImmutableList<String> commandLine;
+        @Nullable private volatile Integer exitValue;
+
+        IntermediateResults(long submissionTime) {
+            this.submissionTime = submissionTime;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package xyz.cloudkeeper.executors;
+
+import xyz.cloudkeeper.model.api.ExecutionException;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutor;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
+import xyz.cloudkeeper.model.immutable.element.Name;
+import xyz.cloudkeeper.model.util.ImmutableList;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Long-lived process that runs {@link ForkedExecutors#runLoop}, using a simple-module executor that always fails with
+ * {@link DummyProcess#EXECUTION_EXCEPTION_MSG}.
+ */
+final class DummyWorkerProcess {
+    private DummyWorkerProcess() { }
+
+    /**
+     * Returns the command that can be passed to {@link ProcessBuilder} in order to run {@link #main(String[])} in a
+     * fresh JVM.
+     *
+     * <p>The new JVM uses the same classpath as the current JVM.
+     */
+    static ImmutableList<String> command() {
+        Path javaPath = Paths.get(System.getProperty("java.home")).resolve("bin").resolve("java");
+        return ImmutableList.copyOf(Arrays.asList(
+            javaPath.toString(),
+            "-enableassertions",
+            "-classpath",
+            System.getProperty("java.class.path"),
+            DummyWorkerProcess.class.getName()
+        ));
+    }
+
+    public static void main(String[] args) throws IOException {
+        SimpleModuleExecutor simpleModuleExecutor = runtimeStateProvider -> CompletableFuture.completedFuture(
+            new SimpleModuleExecutorResult.Builder(Name.qualifiedName(DummyWorkerProcess.class.getName()))
+                .setException(new ExecutionException(DummyProcess.EXECUTION_EXCEPTION_MSG))
+                .build()
+        );
+        ForkedExecutors.runLoop(simpleModuleExecutor, System.in, ForkedExecutors.dedicateStandardOut());
+    }
+}
@@ -20,18 +20,16 @@ import xyz.cloudkeeper.model.beans.element.module.MutableProxyModule;
 import xyz.cloudkeeper.model.immutable.element.SimpleName;
 import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
-import xyz.cloudkeeper.simple.CharacterStreamCommunication.Splitter;
+import xyz.cloudkeeper.simple.BinaryStreamCommunication;
 import xyz.cloudkeeper.simple.DSLRuntimeContextFactory;
 import xyz.cloudkeeper.simple.LocalSimpleModuleExecutor;
 import xyz.cloudkeeper.simple.PrefetchingModuleConnectorProvider;
 import xyz.cloudkeeper.simple.SimpleInstanceProvider;
 
 import javax.annotation.Nullable;
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.io.ObjectOutputStream;
 import java.net.URI;
 import java.nio.file.Files;
@@ -62,7 +60,7 @@ public class ITForkedExecutors {
     }
 
     private static SimpleModuleExecutorResult run(SimpleModuleExecutor simpleModuleExecutor,
-            RuntimeStateProvider runtimeStateProvider) throws IOException {
+            RuntimeStateProvider runtimeStateProvider, boolean framed) throws IOException {
         byte[] serializedStagingArea;
         try (
             ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
@@ -77,18 +75,16 @@ public class ITForkedExecutors {
             ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(serializedStagingArea);
             ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream()
         ) {
-            ForkedExecutors.run(simpleModuleExecutor, byteArrayInputStream, byteArrayOutputStream);
+            if (framed) {
+                ForkedExecutors.runFramed(simpleModuleExecutor, byteArrayInputStream, byteArrayOutputStream);
+            } else {
+                ForkedExecutors.run(simpleModuleExecutor, byteArrayInputStream, byteArrayOutputStream);
+            }
             serializedExecutionResult = byteArrayOutputStream.toByteArray();
         }
 
-        try (
-            Splitter<SimpleModuleExecutorResult> splitter = new Splitter<>(
-                SimpleModuleExecutorResult.class,
-                new BufferedReader(new InputStreamReader(new ByteArrayInputStream(serializedExecutionResult)))
-            )
-        ) {
-            splitter.consumeAll();
-            return splitter.getResult();
+        try (ByteArrayInputStream inputStream = new ByteArrayInputStream(serializedExecutionResult)) {
+            return BinaryStreamCommunication.readFramedOrEmbeddedObject(SimpleModuleExecutorResult.class, inputStream);
         }
     }
 
@@ -98,7 +94,16 @@ public class ITForkedExecutors {
 
     @Test
     public void testExecution() throws Exception {
-        assert executorService != null;
+        testExecution(false);
+    }
+
+    @Test
+    public void testExecutionFramed() throws Exception {
+        testExecution(true);
+    }
+
+    private void testExecution(boolean framed) throws Exception {
+        assert tempDir != null && executorService != null;
 
         DSLRuntimeContextFactory runtimeContextFactory = new DSLRuntimeContextFactory.Builder(executorService).build();
         URI bundleURI = new URI(Module.URI_SCHEME, Decrease.class.getName(), null);
@@ -110,7 +115,7 @@ public class ITForkedExecutors {
                 Collections.<BareOverride>emptyList()
             );
 
-            Path stagingAreaBasePath = Files.createDirectory(tempDir.resolve("staging-area"));
+            Path stagingAreaBasePath = Files.createTempDirectory(tempDir, "staging-area");
             StagingArea stagingArea = new FileStagingArea.Builder(runtimeContext, rootTrace,
                     stagingAreaBasePath, executorService)
                 .build();
@@ -128,7 +133,7 @@ public class ITForkedExecutors {
                 .build();
 
             // Finally, run the simple module
-            SimpleModuleExecutorResult result = run(simpleModuleExecutor, runtimeStateProvider);
+            SimpleModuleExecutorResult result = run(simpleModuleExecutor, runtimeStateProvider, framed);
             Assert.assertNull(result.getExecutionException(), "Module execution failed.");
 
             // Sanity check that the correct out-port value was produced
@@ -0,0 +1,69 @@
+package xyz.cloudkeeper.executors;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.examples.modules.BinarySum;
+import xyz.cloudkeeper.model.api.RuntimeStateProvider;
+import xyz.cloudkeeper.model.api.executor.SimpleModuleExecutorResult;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+import xyz.cloudkeeper.model.immutable.element.Name;
+import xyz.cloudkeeper.simple.SimpleInstanceProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class ITPooledForkingExecutor {
+    private static final long AWAIT_DURATION_MILLIS = 30_000;
+    private static final Name EXECUTOR_NAME = Name.qualifiedName(PooledForkingExecutor.class.getName());
+
+    private Path tempDir;
+    private ExecutorService executorService;
+    private PooledForkingExecutor pooledForkingExecutor;
+
+    @BeforeClass
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory(getClass().getSimpleName());
+        executorService = Executors.newFixedThreadPool(2);
+        pooledForkingExecutor = new PooledForkingExecutor.Builder(
+                executorService,
+                executionTrace -> DummyWorkerProcess.command(),
+                new SimpleInstanceProvider.Builder(executorService).build()
+            )
+            .setMaximumWorkers(1)
+            .setMaximumTasksPerWorker(2)
+            .build();
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        pooledForkingExecutor.close();
+        executorService.shutdownNow();
+        Files.walkFileTree(tempDir, RecursiveDeleteVisitor.getInstance());
+    }
+
+    @Test
+    public void testReuseAndRecycling() throws Exception {
+        RuntimeStateProvider runtimeStateProvider
+            = StagingAreas.runtimeStateProviderForDSLModule(BinarySum.class, tempDir, executorService);
+        long[] expectedTaskCounts = {1, 2, 1};
+        for (long expectedTaskCount: expectedTaskCounts) {
+            SimpleModuleExecutorResult result = pooledForkingExecutor.submit(runtimeStateProvider)
+                .get(AWAIT_DURATION_MILLIS, TimeUnit.MILLISECONDS);
+
+            Assert.assertNotNull(result.getExecutionException());
+            Assert.assertEquals(result.getExecutionException().getMessage(), DummyProcess.EXECUTION_EXCEPTION_MSG);
+            Assert.assertEquals(
+                result.getProperty(Long.class, EXECUTOR_NAME, PooledForkingExecutor.WORKER_TASK_COUNT),
+                (Long) expectedTaskCount
+            );
+            Assert.assertNotNull(result.getProperty(
+                Long.class, Name.qualifiedName(ForkedExecutors.class.getName()), ForkedExecutors.USED_HEAP_BYTES));
+        }
+    }
+}
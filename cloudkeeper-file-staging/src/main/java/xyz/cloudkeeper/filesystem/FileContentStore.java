@@ -0,0 +1,306 @@
+package xyz.cloudkeeper.filesystem;
+
+import xyz.cloudkeeper.model.util.BufferPool;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Objects;
+
+/**
+ * Content-addressed store of byte sequences, used by {@link FileStagingArea} to store identical content only once.
+ *
+ * <p>Each distinct content is stored exactly once as a <em>blob</em>, which is a file whose name is the hexadecimal
+ * SHA-256 digest of the content. The digest is computed while the content is written, so no separate pass over the
+ * content is needed. The path in a staging area that corresponds to an execution trace (and key) does not hold its own
+ * copy of the content. Instead, it is a hard link to the blob. Consequently:
+ * <ul><li>
+ *     Reading from a staging area is unaffected by the content-addressed layout.
+ * </li><li>
+ *     Writing content that is already present (for instance, identical inputs fanned out across many executions) only
+ *     creates a hard link. If the content is given as a file, it is only read once in order to compute the digest.
+ * </li><li>
+ *     The link count maintained by the file system is the reference count of a blob. Removing a value from a staging
+ *     area only removes a reference. A blob is unreferenced once its link count drops to one (the blob file itself),
+ *     and it can then be reclaimed by {@link #collectGarbage()}.
+ * </li></ul>
+ *
+ * <p>The content store needs to be located in the same {@link java.nio.file.FileStore} as all staging areas using it.
+ * For performance reasons, and because any file-system operation is potentially blocking, this is not verified by
+ * the constructor of this class.
+ *
+ * <p>Instances of this class are thread-safe. Moreover, multiple instances (possibly in different JVMs) may use the
+ * same path concurrently. In particular, {@link #collectGarbage()} may run concurrently with staging areas writing to
+ * the content store: Since a blob is only removed by deleting its name, content that was linked by a concurrent write
+ * remains intact. At worst, such content is no longer deduplicated with later writes.
+ */
+public final class FileContentStore {
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final String TEMPORARY_DIRECTORY = "tmp";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String LINK_COUNT_ATTRIBUTE = "unix:nlink";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Minimum age of temporary files before they are removed by {@link #collectGarbage()}. Temporary files are only
+     * left behind if a JVM terminates while writing.
+     */
+    private static final Duration TEMPORARY_FILE_RETENTION = Duration.ofDays(1);
+
+    private final Path path;
+
+    /**
+     * Constructs a new content store located at the given path.
+     *
+     * <p>The directory at the given path will be created once it is needed.
+     *
+     * @param path path of the content store in the file system
+     */
+    public FileContentStore(Path path) {
+        this.path = Objects.requireNonNull(path);
+    }
+
+    /**
+     * Returns the path of this content store in the file system.
+     *
+     * @return the path of this content store
+     */
+    public Path getPath() {
+        return path;
+    }
+
+    private Path blobPath(String digest) {
+        return path.resolve(BLOB_DIRECTORY).resolve(digest.substring(0, 2)).resolve(digest);
+    }
+
+    private Path newTemporaryFile() throws IOException {
+        Path temporaryDirectory = Files.createDirectories(path.resolve(TEMPORARY_DIRECTORY));
+        return Files.createTempFile(temporaryDirectory, null, null);
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            // Every Java platform is required to support SHA-256.
+            throw new AssertionError(String.format("Missing %s implementation.", DIGEST_ALGORITHM), exception);
+        }
+    }
+
+    private static String toHexString(byte[] bytes) {
+        StringBuilder stringBuilder = new StringBuilder(2 * bytes.length);
+        for (byte currentByte: bytes) {
+            stringBuilder.append(String.format("%02x", currentByte));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Makes the given target path a reference to the blob with the given digest, creating the blob from the given
+     * candidate file if it does not exist yet.
+     *
+     * <p>The candidate file must contain the content with the given digest. If the blob is created from the candidate
+     * file, the candidate file and the blob are the same file (that is, the candidate file is hard linked). While this
+     * method creates the blob, the link count of the blob is therefore always at least two, so the blob is never
+     * reclaimed by a concurrent garbage collection.
+     */
+    private void link(Path target, String digest, Path candidate) throws IOException {
+        Path blob = blobPath(digest);
+        while (true) {
+            try {
+                Files.createLink(target, blob);
+                return;
+            } catch (NoSuchFileException ignored) {
+                // The blob does not exist (yet).
+            }
+
+            Files.createDirectories(blob.getParent());
+            try {
+                Files.createLink(blob, candidate);
+            } catch (FileAlreadyExistsException ignored) {
+                // A concurrent write created the blob in the meantime. Link to it in the next iteration.
+                continue;
+            }
+            Files.createLink(target, candidate);
+            return;
+        }
+    }
+
+    /**
+     * Output stream that writes into a temporary file and links the target path to the blob once closed.
+     */
+    private final class BlobOutputStream extends FilterOutputStream {
+        private final Path target;
+        private final Path temporaryFile;
+        private final MessageDigest digest;
+        private boolean closed = false;
+
+        private BlobOutputStream(Path target, Path temporaryFile, MessageDigest digest) throws IOException {
+            super(BufferPool.shared().newBufferedOutputStream(
+                new DigestOutputStream(Files.newOutputStream(temporaryFile), digest)
+            ));
+            this.target = target;
+            this.temporaryFile = temporaryFile;
+            this.digest = digest;
+        }
+
+        @Override
+        public void write(byte[] array, int offset, int length) throws IOException {
+            out.write(array, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            try {
+                super.close();
+                link(target, toHexString(digest.digest()), temporaryFile);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        }
+    }
+
+    /**
+     * Returns a new output stream for writing the content of the given target path.
+     *
+     * <p>The content is first written to a temporary file. Only once the returned stream is closed, the target path is
+     * created as reference to the blob with the written content.
+     *
+     * @param target target path, which must not exist, but whose parent directory must exist
+     * @return the output stream
+     * @throws IOException if an I/O error occurs
+     */
+    OutputStream newOutputStream(Path target) throws IOException {
+        return new BlobOutputStream(target, newTemporaryFile(), newMessageDigest());
+    }
+
+    /**
+     * Creates the given target path as reference to a blob with the same content as the given source file.
+     *
+     * <p>The source file is read once in order to compute the digest of its content. It is only copied if there is no
+     * blob with the same content yet.
+     *
+     * @param source source file
+     * @param target target path, which must not exist, but whose parent directory must exist
+     * @param hardLinkEnabled whether the source file may be hard linked instead of copied (in which case the source
+     *     file becomes the blob, and it must therefore not be modified afterwards)
+     * @throws IOException if an I/O error occurs
+     */
+    void putFile(Path source, Path target, boolean hardLinkEnabled) throws IOException {
+        MessageDigest digest = newMessageDigest();
+        byte[] buffer = BufferPool.shared().acquire(BUFFER_SIZE);
+        try (InputStream inputStream = Files.newInputStream(source)) {
+            int numBytes;
+            while ((numBytes = inputStream.read(buffer)) >= 0) {
+                digest.update(buffer, 0, numBytes);
+            }
+        } finally {
+            BufferPool.shared().release(buffer);
+        }
+        String hexDigest = toHexString(digest.digest());
+
+        try {
+            Files.createLink(target, blobPath(hexDigest));
+            return;
+        } catch (NoSuchFileException ignored) {
+            // The blob does not exist (yet).
+        }
+
+        if (hardLinkEnabled) {
+            link(target, hexDigest, source);
+        } else {
+            Path temporaryFile = newTemporaryFile();
+            try {
+                Files.copy(source, temporaryFile, StandardCopyOption.REPLACE_EXISTING);
+                link(target, hexDigest, temporaryFile);
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        }
+    }
+
+    private static boolean isOlderThan(Path file, Instant instant) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(instant);
+        } catch (NoSuchFileException ignored) {
+            return false;
+        }
+    }
+
+    /**
+     * Removes all blobs that are no longer referenced by any staging area, as well as stale temporary files.
+     *
+     * <p>A blob is unreferenced if its link count is one. This method therefore requires that the file system supports
+     * the {@code "unix"} file-attribute view.
+     *
+     * @return the number of removed blobs
+     * @throws UnsupportedOperationException if the file system does not support the {@code "unix"} file-attribute
+     *     view
+     * @throws IOException if an I/O error occurs
+     */
+    public long collectGarbage() throws IOException {
+        Path blobDirectory = path.resolve(BLOB_DIRECTORY);
+        long numRemovedBlobs = 0;
+        if (Files.isDirectory(blobDirectory)) {
+            if (!Files.getFileStore(blobDirectory).supportsFileAttributeView("unix")) {
+                throw new UnsupportedOperationException(String.format(
+                    "Expected file store of %s to support the unix file-attribute view, but it does not.", path
+                ));
+            }
+
+            try (DirectoryStream<Path> prefixDirectories = Files.newDirectoryStream(blobDirectory)) {
+                for (Path prefixDirectory: prefixDirectories) {
+                    try (DirectoryStream<Path> blobs = Files.newDirectoryStream(prefixDirectory)) {
+                        for (Path blob: blobs) {
+                            int linkCount;
+                            try {
+                                linkCount = (Integer) Files.getAttribute(blob, LINK_COUNT_ATTRIBUTE);
+                            } catch (NoSuchFileException ignored) {
+                                // Removed concurrently
+                                continue;
+                            }
+                            if (linkCount <= 1 && Files.deleteIfExists(blob)) {
+                                ++numRemovedBlobs;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        Path temporaryDirectory = path.resolve(TEMPORARY_DIRECTORY);
+        if (Files.isDirectory(temporaryDirectory)) {
+            Instant threshold = Instant.now().minus(TEMPORARY_FILE_RETENTION);
+            try (DirectoryStream<Path> temporaryFiles = Files.newDirectoryStream(temporaryDirectory)) {
+                for (Path temporaryFile: temporaryFiles) {
+                    if (isOlderThan(temporaryFile, threshold)) {
+                        Files.deleteIfExists(temporaryFile);
+                    }
+                }
+            }
+        }
+        return numRemovedBlobs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("content store at %s", path);
+    }
+}
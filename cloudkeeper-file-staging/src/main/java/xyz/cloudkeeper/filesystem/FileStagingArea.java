@@ -9,43 +9,68 @@ import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
 import xyz.cloudkeeper.model.immutable.element.Index;
 import xyz.cloudkeeper.model.immutable.element.Key;
 import xyz.cloudkeeper.model.immutable.element.NoKey;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTraceVisitor;
+import xyz.cloudkeeper.model.util.BufferPool;
 import xyz.cloudkeeper.model.util.ByteSequences;
 import xyz.cloudkeeper.model.util.ImmutableList;
 import xyz.cloudkeeper.staging.ExternalStagingArea;
 import xyz.cloudkeeper.staging.MutableObjectMetadata;
+import xyz.cloudkeeper.staging.ObjectMetadataCache;
+import xyz.cloudkeeper.staging.ObjectMetadataCodec;
 
 import javax.annotation.Nullable;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
-import java.io.BufferedOutputStream;
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Executor;
 
 /**
  * File-based staging area.
+ *
+ * <p>Object metadata is stored next to the object, in a file with suffix {@code .meta} if written in the (default)
+ * compact binary format, or with suffix {@code .meta.xml} if written as XML. Metadata in either file is read,
+ * independently of the configured format, so staging areas written by earlier versions (which always wrote
+ * {@code .meta.xml} files) remain readable. Metadata that was recently read or written is kept in a cache that is
+ * shared by this staging area and all staging areas created with {@link #resolveDescendant(RuntimeExecutionTrace)}.
+ * Existence checks always consult the file system, so that objects deleted by other processes are not reported as
+ * existing.
+ *
+ * <p>Optionally, byte sequences are stored in a content-addressed layout, where each distinct content is stored only
+ * once in a {@link FileContentStore}, and the paths in the staging area are references (hard links) to the stored
+ * content.
+ *
+ * @see Builder#setMetadataFormat(ObjectMetadataCodec.Format)
+ * @see Builder#setMetadataCacheSize(int)
+ * @see Builder#setContentStore(FileContentStore)
  */
 public final class FileStagingArea extends ExternalStagingArea {
     private static final String CONTENT_DIRECTORY = "content";
     private static final String INPUT_DIRECTORY = "input";
     private static final String OUTPUT_DIRECTORY = "output";
-    private static final String METADATA_SUFFIX = ".meta.xml";
+    private static final String METADATA_SUFFIX = ".meta";
+    private static final String XML_METADATA_SUFFIX = ".meta.xml";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
 
     /**
      * Monitor (mutex) for accessing parts of the file system that are potentially touched by multiple
@@ -56,18 +81,39 @@ public final class FileStagingArea extends ExternalStagingArea {
      * particular, no synchronization across JVMs is necessary.
      */
     private final Object monitor;
-    private final JAXBContext jaxbContext;
+    private final ObjectMetadataCodec metadataCodec;
+
+    /**
+     * Cache of object metadata, with the string representation of the (absolute) path of the object as key.
+     */
+    private final ObjectMetadataCache metadataCache;
     private final Path basePath;
+
+    /**
+     * Path that corresponds to the empty execution trace, or {@code null} if the base path does not have sufficiently
+     * many ancestors (in which case links are not supported).
+     */
+    @Nullable private final Path rootPath;
     private final ImmutableList<Path> hardLinkEnabledPaths;
 
+    /**
+     * Content store for the content-addressed layout, or {@code null} if byte sequences are stored at the paths
+     * corresponding to execution traces.
+     */
+    @Nullable private final FileContentStore contentStore;
+
     private FileStagingArea(RuntimeAnnotatedExecutionTrace executionTrace, RuntimeContext runtimeContext,
-            Executor executor, Object monitor, JAXBContext jaxbContext, Path basePath,
-            ImmutableList<Path> hardLinkEnabledPaths) {
+            Executor executor, Object monitor, ObjectMetadataCodec metadataCodec,
+            ObjectMetadataCache metadataCache, Path basePath, @Nullable Path rootPath,
+            ImmutableList<Path> hardLinkEnabledPaths, @Nullable FileContentStore contentStore) {
         super(executionTrace, runtimeContext, executor);
         this.monitor = monitor;
-        this.jaxbContext = jaxbContext;
+        this.metadataCodec = metadataCodec;
+        this.metadataCache = metadataCache;
         this.basePath = basePath;
+        this.rootPath = rootPath;
         this.hardLinkEnabledPaths = hardLinkEnabledPaths;
+        this.contentStore = contentStore;
     }
 
     private static final class TraceElementVisitor implements RuntimeExecutionTraceVisitor<Path, Path> {
@@ -117,7 +163,7 @@ public final class FileStagingArea extends ExternalStagingArea {
      *     {@link RuntimeExecutionTrace.Type#OUT_PORT}, or {@link RuntimeExecutionTrace.Type#ARRAY_INDEX}
      * @return the path
      */
-    private Path toPath(RuntimeExecutionTrace trace) {
+    private static Path toPath(Path basePath, RuntimeExecutionTrace trace) {
         @Nullable Path currentPath = basePath;
         for (RuntimeExecutionTrace element: trace.asElementList()) {
             currentPath = element.accept(TraceElementVisitor.INSTANCE, currentPath);
@@ -126,12 +172,46 @@ public final class FileStagingArea extends ExternalStagingArea {
         return currentPath;
     }
 
+    private Path toPath(RuntimeExecutionTrace trace) {
+        return toPath(basePath, trace);
+    }
+
+    /**
+     * Returns the path that corresponds to the given absolute execution trace.
+     */
+    private Path toAbsolutePath(RuntimeExecutionTrace absoluteTrace) {
+        assert rootPath != null;
+        return toPath(rootPath, absoluteTrace);
+    }
+
+    /**
+     * Returns the path that corresponds to the empty execution trace, given the base path for the given absolute
+     * execution trace.
+     *
+     * <p>Every element of an execution trace that does not contain a value reference corresponds to exactly one path
+     * component. The root path is therefore obtained by removing as many trailing components from the base path as
+     * there are elements in the execution trace.
+     *
+     * @return the root path, or {@code null} if the base path does not have sufficiently many components
+     */
+    @Nullable
+    private static Path rootPath(Path basePath, RuntimeExecutionTrace absoluteTrace) {
+        @Nullable Path currentPath = basePath;
+        for (int i = 0; i < absoluteTrace.size() && currentPath != null; ++i) {
+            currentPath = currentPath.getParent();
+        }
+        return currentPath;
+    }
+
     @Override
     protected void delete(RuntimeExecutionTrace prefix, RuntimeAnnotatedExecutionTrace absolutePrefix)
             throws IOException {
         Path tracePath = toPath(prefix);
+        invalidateMetadataCache(tracePath);
         if (!prefix.getReference().isEmpty()) {
-            Files.deleteIfExists(metadataPath(tracePath));
+            for (ObjectMetadataCodec.Format format: ObjectMetadataCodec.Format.values()) {
+                Files.deleteIfExists(metadataPath(tracePath, format));
+            }
         }
 
         synchronized (monitor) {
@@ -148,6 +228,15 @@ public final class FileStagingArea extends ExternalStagingArea {
         }
     }
 
+    /**
+     * Removes the cached metadata of the object at the given path and of all objects below it.
+     */
+    private void invalidateMetadataCache(Path path) {
+        String key = path.toString();
+        metadataCache.invalidate(key);
+        metadataCache.invalidatePrefix(key + path.getFileSystem().getSeparator());
+    }
+
     @Override
     protected void preWrite(RuntimeExecutionTrace prefix, RuntimeAnnotatedExecutionTrace absolutePrefix)
             throws IOException {
@@ -199,22 +288,102 @@ public final class FileStagingArea extends ExternalStagingArea {
     protected void copy(RuntimeExecutionTrace source, RuntimeExecutionTrace target,
             RuntimeAnnotatedExecutionTrace absoluteSource, RuntimeAnnotatedExecutionTrace absoluteTarget)
             throws IOException {
+        Path sourcePath = toPath(source);
+        if (Files.notExists(sourcePath)) {
+            // If the source is a link, only its metadata is present. In this case, copy the linked object instead.
+            Optional<ExecutionTrace> link = resolveLink(source);
+            if (link.isPresent()) {
+                sourcePath = toAbsolutePath(link.get());
+            }
+        }
+
         Path targetPath = toPath(target);
+        invalidateMetadataCache(targetPath);
         synchronized (monitor) {
             // See JavaDoc for monitor
             Files.createDirectories(targetPath.getParent());
         }
-        Files.walkFileTree(toPath(source), new HardLinkVisitor(targetPath));
-        Files.createLink(
-            metadataPath(targetPath),
-            metadataPath(toPath(source))
-        );
+        Files.walkFileTree(sourcePath, new HardLinkVisitor(targetPath));
+        // The metadata file keeps its format (and therefore its suffix).
+        Path sourceMetadataPath = metadataPath(sourcePath);
+        ObjectMetadataCodec.Format sourceFormat = metadataCodec.getFormat();
+        if (Files.notExists(sourceMetadataPath)) {
+            sourceFormat = otherFormat(sourceFormat);
+            sourceMetadataPath = metadataPath(sourcePath, sourceFormat);
+        }
+        Files.createLink(metadataPath(targetPath, sourceFormat), sourceMetadataPath);
+    }
+
+    private static ObjectMetadataCodec.Format otherFormat(ObjectMetadataCodec.Format format) {
+        return format == ObjectMetadataCodec.Format.BINARY
+            ? ObjectMetadataCodec.Format.XML
+            : ObjectMetadataCodec.Format.BINARY;
+    }
+
+    /**
+     * Returns whether a metadata file (in any format) exists for the object at the given path.
+     */
+    private boolean metadataExists(Path path) {
+        return Files.exists(metadataPath(path))
+            || Files.exists(metadataPath(path, otherFormat(metadataCodec.getFormat())));
     }
 
     @Override
-    protected boolean exists(RuntimeExecutionTrace source, RuntimeAnnotatedExecutionTrace absoluteSource) {
+    protected boolean exists(RuntimeExecutionTrace source, RuntimeAnnotatedExecutionTrace absoluteSource)
+            throws IOException {
         Path tracePath = toPath(source);
-        return Files.exists(metadataPath(tracePath));
+        if (metadataExists(tracePath)) {
+            return true;
+        } else if (source.getReference().size() > 1) {
+            // The source may be an element of a linked collection.
+            Optional<ExecutionTrace> link = resolveLink(source);
+            return link.isPresent() && metadataExists(toAbsolutePath(link.get()));
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This method groups the metadata files of the given execution traces by their parent directory, and then
+     * lists each parent directory only once. For instance, the existence of all in-ports of a module is determined
+     * with a single directory listing. Execution traces without a metadata file that may be elements of a linked
+     * collection are checked individually.
+     */
+    @Override
+    protected BitSet checkExistence(List<RuntimeExecutionTrace> sources,
+            List<RuntimeAnnotatedExecutionTrace> absoluteSources) throws IOException {
+        Map<Path, Set<String>> directoryListings = new HashMap<>();
+        BitSet existing = new BitSet(sources.size());
+        for (int i = 0; i < sources.size(); ++i) {
+            RuntimeExecutionTrace source = sources.get(i);
+            Path path = toPath(source);
+            Path directory = path.getParent();
+            @Nullable Set<String> fileNames = directoryListings.get(directory);
+            if (fileNames == null) {
+                fileNames = listFileNames(directory);
+                directoryListings.put(directory, fileNames);
+            }
+
+            String fileName = path.getFileName().toString();
+            if (fileNames.contains(fileName + METADATA_SUFFIX) || fileNames.contains(fileName + XML_METADATA_SUFFIX)
+                    || (source.getReference().size() > 1 && exists(source, absoluteSources.get(i)))) {
+                existing.set(i);
+            }
+        }
+        return existing;
+    }
+
+    private static Set<String> listFileNames(Path directory) throws IOException {
+        Set<String> fileNames = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path: stream) {
+                fileNames.add(path.getFileName().toString());
+            }
+        } catch (NoSuchFileException ignored) {
+            // No execution trace in the directory has a value.
+        }
+        return fileNames;
     }
 
     @Override
@@ -248,7 +417,7 @@ public final class FileStagingArea extends ExternalStagingArea {
     protected FileStagingArea resolveDescendant(RuntimeExecutionTrace trace,
             RuntimeAnnotatedExecutionTrace absoluteTrace) {
         return new FileStagingArea(absoluteTrace, getRuntimeContext(), getExecutor(), monitor,
-            jaxbContext, toPath(trace), hardLinkEnabledPaths);
+            metadataCodec, metadataCache, toPath(trace), rootPath, hardLinkEnabledPaths, contentStore);
     }
 
     /**
@@ -266,7 +435,8 @@ public final class FileStagingArea extends ExternalStagingArea {
     @Override
     public StagingAreaProvider getStagingAreaProvider() {
         requireValidRequestForProvider();
-        return new StagingAreaProviderImpl(basePath, hardLinkEnabledPaths);
+        return new StagingAreaProviderImpl(basePath, hardLinkEnabledPaths, contentStore, metadataCodec.getFormat(),
+            metadataCache.getMaximumSize());
     }
 
     @Override
@@ -274,6 +444,16 @@ public final class FileStagingArea extends ExternalStagingArea {
         return new ReadContextImpl(toPath(source));
     }
 
+    @Override
+    protected boolean isLinkSupported() {
+        return rootPath != null;
+    }
+
+    @Override
+    protected ReadContext newAbsoluteReadContext(RuntimeExecutionTrace absoluteSource) {
+        return new ReadContextImpl(toAbsolutePath(absoluteSource));
+    }
+
     @Override
     public WriteContext newWriteContext(RuntimeExecutionTrace target) {
         return new WriteContextImpl(toPath(target));
@@ -288,14 +468,37 @@ public final class FileStagingArea extends ExternalStagingArea {
 
         @Override
         public MutableObjectMetadata getMetadata() throws IOException {
+            @Nullable MutableObjectMetadata cachedMetadata = metadataCache.get(path.toString());
+            if (cachedMetadata != null) {
+                return cachedMetadata;
+            }
+
+            MutableObjectMetadata metadata;
+            Path metadataPath = metadataPath(path);
             try {
-                Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-                return (MutableObjectMetadata) unmarshaller.unmarshal(metadataPath(path).toFile());
-            } catch (JAXBException exception) {
+                InputStream fileInputStream;
+                try {
+                    fileInputStream = Files.newInputStream(metadataPath);
+                } catch (NoSuchFileException exception) {
+                    // The metadata may have been written in the other format, for instance, by an earlier version.
+                    metadataPath = metadataPath(path, otherFormat(metadataCodec.getFormat()));
+                    fileInputStream = Files.newInputStream(metadataPath);
+                }
+                try (InputStream inputStream = new BufferedInputStream(fileInputStream)) {
+                    metadata = metadataCodec.read(inputStream);
+                }
+            } catch (IOException exception) {
                 throw new StagingException(String.format(
-                    "Failed to unmarshal object metadata from path '%s'.", metadataPath(path)
+                    "Failed to unmarshal object metadata from path '%s'.", metadataPath
                 ), exception);
             }
+            metadataCache.put(path.toString(), metadata);
+            return metadata;
+        }
+
+        @Override
+        public boolean exists() {
+            return metadataExists(path);
         }
 
         @Override
@@ -324,15 +527,17 @@ public final class FileStagingArea extends ExternalStagingArea {
 
         @Override
         public void putMetadata(MutableObjectMetadata metadata) throws IOException {
-            try {
-                Marshaller marshaller = jaxbContext.createMarshaller();
-                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-                marshaller.marshal(metadata, metadataPath(path).toFile());
-            } catch (JAXBException exception) {
+            Files.createDirectories(path.getParent());
+            metadataCache.invalidate(path.toString());
+            try (OutputStream outputStream
+                    = BufferPool.shared().newBufferedOutputStream(Files.newOutputStream(metadataPath(path)))) {
+                metadataCodec.write(metadata, outputStream);
+            } catch (IOException exception) {
                 throw new StagingException(String.format(
                     "Failed to marshal object metadata to path '%s'.", metadataPath(path)
                 ), exception);
             }
+            metadataCache.put(path.toString(), metadata);
         }
 
         private Path targetPath(Key key) throws IOException {
@@ -347,13 +552,59 @@ public final class FileStagingArea extends ExternalStagingArea {
 
         @Override
         public OutputStream newOutputStream(Key key, @Nullable MutableObjectMetadata metadata) throws IOException {
-            return new BufferedOutputStream(Files.newOutputStream(targetPath(key)));
+            return contentStore == null
+                ? BufferPool.shared().newBufferedOutputStream(Files.newOutputStream(targetPath(key)))
+                : contentStore.newOutputStream(targetPath(key));
+        }
+
+        private boolean isHardLinkEnabled(Path sourcePath) {
+            for (Path hardLinkEnabledPath: hardLinkEnabledPaths) {
+                if (sourcePath.startsWith(hardLinkEnabledPath)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Stores the given byte sequence in the content store.
+         *
+         * <p>If the byte sequence is a file, its content is only read in order to compute the digest, and it is copied
+         * (or hard linked, if in one of the hard-link enabled paths) only if not yet present in the content store.
+         */
+        private void putByteSequenceInContentStore(FileContentStore actualContentStore, ByteSequence byteSequence,
+                Key key) throws IOException {
+            @Nullable URI uri = byteSequence.getURI();
+            if (uri != null && "file".equals(uri.getScheme())) {
+                Path sourcePath = Paths.get(uri);
+                actualContentStore.putFile(sourcePath, targetPath(key), isHardLinkEnabled(sourcePath));
+            } else {
+                try (
+                    InputStream inputStream = byteSequence.newInputStream();
+                    OutputStream outputStream = actualContentStore.newOutputStream(targetPath(key))
+                ) {
+                    byte[] buffer = BufferPool.shared().acquire(COPY_BUFFER_SIZE);
+                    try {
+                        int numBytes;
+                        while ((numBytes = inputStream.read(buffer)) >= 0) {
+                            outputStream.write(buffer, 0, numBytes);
+                        }
+                    } finally {
+                        BufferPool.shared().release(buffer);
+                    }
+                }
+            }
         }
 
         @Override
         public void putByteSequence(ByteSequence byteSequence, Key key, @Nullable MutableObjectMetadata metadata)
             throws IOException {
 
+            if (contentStore != null) {
+                putByteSequenceInContentStore(contentStore, byteSequence, key);
+                return;
+            }
+
             boolean wroteByteSequence = false;
             @Nullable URI uri = byteSequence.getURI();
             if (uri != null && "file".equals(uri.getScheme())) {
@@ -374,9 +625,10 @@ public final class FileStagingArea extends ExternalStagingArea {
                 }
             }
 
-            // Last case: Perform a copy from the input stream
+            // Last case: Transfer from the file channel if the byte sequence is backed by a file (without revealing its
+            // URI), or perform a copy from the input stream otherwise
             if (!wroteByteSequence) {
-                Files.copy(byteSequence.newInputStream(), targetPath(key));
+                ByteSequences.copy(byteSequence, targetPath(key));
             }
         }
 
@@ -388,9 +640,23 @@ public final class FileStagingArea extends ExternalStagingArea {
         }
     }
 
-    static Path metadataPath(Path path) {
+    /**
+     * Returns the path of the metadata file for the object at the given path, given the format of the metadata.
+     */
+    private static Path metadataPath(Path path, ObjectMetadataCodec.Format format) {
         assert path.getNameCount() > 0;
-        return path.getParent().resolve(path.getFileName() + METADATA_SUFFIX);
+        String suffix = format == ObjectMetadataCodec.Format.BINARY
+            ? METADATA_SUFFIX
+            : XML_METADATA_SUFFIX;
+        return path.getParent().resolve(path.getFileName() + suffix);
+    }
+
+    /**
+     * Returns the path of the metadata file for the object at the given path, in the format that this staging area
+     * writes.
+     */
+    private Path metadataPath(Path path) {
+        return metadataPath(path, metadataCodec.getFormat());
     }
 
     /**
@@ -402,6 +668,9 @@ public final class FileStagingArea extends ExternalStagingArea {
         private final RuntimeContext runtimeContext;
         private final Executor executor;
         private ImmutableList<Path> hardLinkEnabledPaths = ImmutableList.of();
+        private ObjectMetadataCodec.Format metadataFormat = ObjectMetadataCodec.Format.BINARY;
+        private int metadataCacheSize = ObjectMetadataCache.DEFAULT_MAXIMUM_SIZE;
+        @Nullable private FileContentStore contentStore;
 
         /**
          * Constructs a builder with the specified arguments.
@@ -409,7 +678,9 @@ public final class FileStagingArea extends ExternalStagingArea {
          * @param runtimeContext runtime context including the CloudKeeper repository and the Java class loader
          * @param executionTrace the absolute execution trace that will correspond to the base path of this staging area
          * @param basePath base path of the new staging area in the file system
-         * @param executor executor that file-system tasks will be submitted to
+         * @param executor executor that file-system tasks will be submitted to; if this is a
+         *     {@link xyz.cloudkeeper.staging.StagingIOExecutor}, metadata operations and bulk transfers use separate
+         *     lanes
          */
         public Builder(RuntimeContext runtimeContext, RuntimeAnnotatedExecutionTrace executionTrace,
                 Path basePath, Executor executor) {
@@ -448,13 +719,58 @@ public final class FileStagingArea extends ExternalStagingArea {
             return this;
         }
 
-        private static JAXBContext jaxbContext() {
-            try {
-                return JAXBContext.newInstance(MutableObjectMetadata.class);
-            } catch (JAXBException exception) {
-                throw new IllegalStateException(
-                    "Exception while constructing JAXB context. This should not happen.", exception);
+        /**
+         * Sets the format in which object metadata is written.
+         *
+         * <p>Object metadata in either format can always be read, independently of this setting. By default,
+         * {@link #build()} will assume {@link ObjectMetadataCodec.Format#BINARY}. Choose
+         * {@link ObjectMetadataCodec.Format#XML} if the staging area also needs to be readable by earlier versions.
+         *
+         * @param metadataFormat format in which object metadata is written
+         * @return this builder
+         */
+        public Builder setMetadataFormat(ObjectMetadataCodec.Format metadataFormat) {
+            this.metadataFormat = Objects.requireNonNull(metadataFormat);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of object-metadata entries kept in memory.
+         *
+         * <p>By default, {@link #build()} will assume {@link ObjectMetadataCache#DEFAULT_MAXIMUM_SIZE}. A value of 0
+         * disables caching.
+         *
+         * @param metadataCacheSize maximum number of cached object-metadata entries, must be non-negative
+         * @return this builder
+         */
+        public Builder setMetadataCacheSize(int metadataCacheSize) {
+            if (metadataCacheSize < 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected non-negative cache size, but got %d.", metadataCacheSize
+                ));
             }
+            this.metadataCacheSize = metadataCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets the content store, which enables the content-addressed layout.
+         *
+         * <p>With the content-addressed layout, each distinct byte sequence is stored only once in the given content
+         * store, and the paths in the staging area are hard links to the stored content. See {@link FileContentStore}
+         * for details, including how unreferenced content is reclaimed. The content store must be located in the same
+         * {@link java.nio.file.FileStore} as the base path of the staging area. Like for
+         * {@link #setHardLinkEnabledPaths(List)}, this is not verified.
+         *
+         * <p>By default, {@link #build()} will assume no content store; that is, byte sequences are stored at the paths
+         * in the staging area.
+         *
+         * @param contentStore content store
+         * @return this builder
+         */
+        public Builder setContentStore(FileContentStore contentStore) {
+            this.contentStore = Objects.requireNonNull(contentStore);
+            return this;
         }
 
         /**
@@ -464,7 +780,8 @@ public final class FileStagingArea extends ExternalStagingArea {
          */
         public FileStagingArea build() {
             return new FileStagingArea(absoluteTrace, runtimeContext, executor, new Object(),
-                jaxbContext(), basePath, hardLinkEnabledPaths);
+                new ObjectMetadataCodec(metadataFormat), new ObjectMetadataCache(metadataCacheSize), basePath,
+                rootPath(basePath, absoluteTrace), hardLinkEnabledPaths, contentStore);
         }
     }
 }
@@ -6,12 +6,16 @@ import xyz.cloudkeeper.model.api.staging.InstanceProvisionException;
 import xyz.cloudkeeper.model.api.staging.StagingArea;
 import xyz.cloudkeeper.model.api.staging.StagingAreaProvider;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+import xyz.cloudkeeper.staging.ObjectMetadataCodec;
+import xyz.cloudkeeper.staging.StagingIOExecutor;
 
+import javax.annotation.Nullable;
 import java.net.URI;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
@@ -20,25 +24,40 @@ final class StagingAreaProviderImpl implements StagingAreaProvider {
 
     private final URI baseURI;
     private final ArrayList<URI> hardlinkEnabledURIs;
+    @Nullable private final URI contentStoreURI;
+    private final ObjectMetadataCodec.Format metadataFormat;
+    private final int metadataCacheSize;
 
-    StagingAreaProviderImpl(Path basePath, List<Path> hardlinkEnabledPaths) {
+    StagingAreaProviderImpl(Path basePath, List<Path> hardlinkEnabledPaths, @Nullable FileContentStore contentStore,
+            ObjectMetadataCodec.Format metadataFormat, int metadataCacheSize) {
         baseURI = basePath.toUri();
         hardlinkEnabledURIs = hardlinkEnabledPaths.stream()
             .map(Path::toUri)
             .collect(Collectors.toCollection(ArrayList::new));
+        contentStoreURI = contentStore == null
+            ? null
+            : contentStore.getPath().toUri();
+        this.metadataFormat = Objects.requireNonNull(metadataFormat);
+        this.metadataCacheSize = metadataCacheSize;
     }
 
     @Override
     public StagingArea provideStaging(RuntimeContext runtimeContext, RuntimeAnnotatedExecutionTrace executionTrace,
             InstanceProvider instanceProvider) throws InstanceProvisionException {
-        Executor executor = instanceProvider.getInstance(Executor.class);
+        Executor executor = StagingIOExecutor.provideExecutor(instanceProvider);
         Path basePath = Paths.get(baseURI);
         List<Path> hardlinkEnabledPaths = hardlinkEnabledURIs
             .stream()
             .map(Paths::get)
             .collect(Collectors.toList());
-        return new FileStagingArea.Builder(runtimeContext, executionTrace, basePath, executor)
-            .setHardLinkEnabledPaths(hardlinkEnabledPaths)
-            .build();
+        FileStagingArea.Builder builder
+            = new FileStagingArea.Builder(runtimeContext, executionTrace, basePath, executor)
+                .setHardLinkEnabledPaths(hardlinkEnabledPaths)
+                .setMetadataFormat(metadataFormat)
+                .setMetadataCacheSize(metadataCacheSize);
+        if (contentStoreURI != null) {
+            builder.setContentStore(new FileContentStore(Paths.get(contentStoreURI)));
+        }
+        return builder.build();
     }
 }
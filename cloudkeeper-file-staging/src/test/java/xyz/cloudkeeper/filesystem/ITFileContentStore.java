@@ -0,0 +1,79 @@
+package xyz.cloudkeeper.filesystem;
+
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ITFileContentStore {
+    private static final byte[] CONTENT = "Hello World!".getBytes(StandardCharsets.UTF_8);
+
+    @Nullable private Path tempDir;
+
+    @BeforeClass
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory(getClass().getSimpleName());
+        if (!Files.getFileStore(tempDir).supportsFileAttributeView("unix")) {
+            throw new SkipException("Content-addressed layout requires the unix file-attribute view.");
+        }
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        assert tempDir != null;
+        Files.walkFileTree(tempDir, RecursiveDeleteVisitor.getInstance());
+    }
+
+    private static int linkCount(Path path) throws IOException {
+        return (Integer) Files.getAttribute(path, "unix:nlink");
+    }
+
+    @Test
+    public void deduplicationAndGarbageCollection() throws IOException {
+        assert tempDir != null;
+        Path directory = Files.createDirectories(tempDir.resolve("deduplication"));
+        FileContentStore contentStore = new FileContentStore(directory.resolve("store"));
+
+        Path first = directory.resolve("first");
+        try (OutputStream outputStream = contentStore.newOutputStream(first)) {
+            outputStream.write(CONTENT);
+        }
+        Path second = directory.resolve("second");
+        try (OutputStream outputStream = contentStore.newOutputStream(second)) {
+            outputStream.write(CONTENT);
+        }
+        Path source = Files.write(directory.resolve("source"), CONTENT);
+        Path third = directory.resolve("third");
+        contentStore.putFile(source, third, false);
+
+        // All references share the blob, which was written only once
+        Assert.assertTrue(Files.isSameFile(first, second));
+        Assert.assertTrue(Files.isSameFile(first, third));
+        Assert.assertFalse(Files.isSameFile(first, source));
+        Assert.assertEquals(linkCount(first), 4);
+        Assert.assertEquals(Files.readAllBytes(third), CONTENT);
+
+        Assert.assertEquals(contentStore.collectGarbage(), 0);
+        Files.delete(first);
+        Files.delete(second);
+        Assert.assertEquals(contentStore.collectGarbage(), 0);
+        Assert.assertEquals(Files.readAllBytes(third), CONTENT);
+        Files.delete(third);
+        Assert.assertEquals(contentStore.collectGarbage(), 1);
+
+        // After garbage collection, the same content is stored again
+        Path fourth = directory.resolve("fourth");
+        contentStore.putFile(source, fourth, true);
+        Assert.assertTrue(Files.isSameFile(fourth, source));
+        Assert.assertEquals(linkCount(fourth), 3);
+    }
+}
@@ -13,6 +13,7 @@ import xyz.cloudkeeper.model.api.staging.InstanceProvisionException;
 import xyz.cloudkeeper.model.api.staging.StagingArea;
 import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
+import xyz.cloudkeeper.staging.ObjectMetadataCodec;
 import xyz.cloudkeeper.testkit.CallingThreadExecutor;
 
 import javax.annotation.Nullable;
@@ -41,14 +42,28 @@ public class ITFileStagingArea {
 
     @Factory
     public Object[] contractTests() {
-        ProviderImpl stagingAreaProvider = new ProviderImpl();
+        ProviderImpl stagingAreaProvider = new ProviderImpl(false, ObjectMetadataCodec.Format.BINARY);
+        ProviderImpl contentAddressedProvider = new ProviderImpl(true, ObjectMetadataCodec.Format.BINARY);
+        ProviderImpl xmlMetadataProvider = new ProviderImpl(false, ObjectMetadataCodec.Format.XML);
         return new Object[] {
             new StagingAreaContract(stagingAreaProvider),
-            new RemoteStagingAreaContract(stagingAreaProvider, instanceProvider)
+            new RemoteStagingAreaContract(stagingAreaProvider, instanceProvider),
+            new StagingAreaContract(contentAddressedProvider),
+            new RemoteStagingAreaContract(contentAddressedProvider, instanceProvider),
+            new StagingAreaContract(xmlMetadataProvider),
+            new RemoteStagingAreaContract(xmlMetadataProvider, instanceProvider)
         };
     }
 
-    private class ProviderImpl implements StagingAreaContractProvider {
+    private final class ProviderImpl implements StagingAreaContractProvider {
+        private final boolean contentAddressed;
+        private final ObjectMetadataCodec.Format metadataFormat;
+
+        private ProviderImpl(boolean contentAddressed, ObjectMetadataCodec.Format metadataFormat) {
+            this.contentAddressed = contentAddressed;
+            this.metadataFormat = metadataFormat;
+        }
+
         @Override
         public StagingArea getStagingArea(String identifier, RuntimeContext runtimeContext,
                 RuntimeAnnotatedExecutionTrace executionTrace) {
@@ -65,7 +80,13 @@ public class ITFileStagingArea {
                 // The following statement is only necessary to make the compiler happy.
                 return null;
             }
-            return new FileStagingArea.Builder(runtimeContext, executionTrace, rootPath, executor).build();
+            FileStagingArea.Builder builder
+                = new FileStagingArea.Builder(runtimeContext, executionTrace, rootPath, executor)
+                    .setMetadataFormat(metadataFormat);
+            if (contentAddressed) {
+                builder.setContentStore(new FileContentStore(tempDir.resolve("content-store")));
+            }
+            return builder.build();
         }
 
         @Override
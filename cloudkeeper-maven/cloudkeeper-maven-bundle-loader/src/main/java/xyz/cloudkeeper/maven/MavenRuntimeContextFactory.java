@@ -65,6 +65,10 @@ import java.util.stream.Stream;
  * factory optionally resolves all JAR files and their transitive dependencies corresponding to the bundle artifacts.
  * These JAR files are used to create a {@link URLClassLoader}, which is used as the new repository's class loader.
  *
+ * <p>If a bundle artifact has a usable snapshot (see {@link BundleSnapshots}), for instance, because the snapshot was
+ * installed together with the bundle artifact, the bundle is deserialized from the snapshot instead of being parsed as
+ * XML.
+ *
  * <p>Memory-consistency guarantees: Instances of this class contain a {@link RepositorySystem} instance from the
  * Eclipse Aether project. Unfortunately, this class is mutable. This class does guarantee that all invocations of
  * {@link RepositorySystem} methods <em>happen-after</em> the respective call to {@link #newRuntimeContext(List)}.
@@ -310,7 +314,7 @@ public abstract class MavenRuntimeContextFactory implements RuntimeContextFactor
             List<MutableBundle> bundles = new ArrayList<>(bundleArtifacts.size());
             for (Artifact bundleArtifact : bundleArtifacts) {
                 if (Bundles.ARTIFACT_TYPE.equals(bundleArtifact.getExtension())) {
-                    bundles.add(Bundles.loadBundle(jaxbContext, xmlInputFactory, bundleArtifact));
+                    bundles.add(BundleSnapshots.loadBundle(jaxbContext, xmlInputFactory, bundleArtifact));
                 }
             }
 
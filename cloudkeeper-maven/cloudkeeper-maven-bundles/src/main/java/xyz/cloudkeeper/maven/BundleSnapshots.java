@@ -0,0 +1,229 @@
+package xyz.cloudkeeper.maven;
+
+import org.eclipse.aether.artifact.Artifact;
+import xyz.cloudkeeper.model.beans.element.MutableBundle;
+import xyz.cloudkeeper.model.util.BuildInformation;
+
+import javax.annotation.Nullable;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * This class consists of static methods for writing and reading binary snapshots of CloudKeeper bundles.
+ *
+ * <p>A bundle snapshot is a precompiled binary representation of a CloudKeeper bundle artifact (an XML file of type
+ * {@link Bundles#ARTIFACT_TYPE}). Reading a snapshot avoids XML parsing and JAXB unmarshalling, which dominate the time
+ * needed to load large bundles. Snapshots are stored next to the bundle artifact, with the same file name except for
+ * the extension {@link #ARTIFACT_TYPE}. For instance, when a bundle artifact is installed into a local Maven
+ * repository as {@code artifact-1.0.ckbundle}, its snapshot is installed as {@code artifact-1.0.cksnapshot}.
+ *
+ * <p>A snapshot has the following format (all numbers are big-endian, as written by {@link DataOutputStream}):
+ * magic number {@link #MAGIC} ({@code int}), the CloudKeeper version that wrote the snapshot (modified UTF-8 string),
+ * the SHA-256 digest of the bundle artifact that the snapshot corresponds to ({@code short} length followed by the
+ * digest), the length of the serialized bundle in bytes ({@code int}), the CRC-32 checksum of the serialized bundle
+ * ({@code int}), and finally the bundle serialized with {@link ObjectOutputStream}.
+ *
+ * <p>A snapshot is only used if it was written by the current CloudKeeper version (because Java serialization of
+ * {@link MutableBundle} is not stable across versions), if the digest matches the current bundle artifact, and if the
+ * checksum matches. Otherwise, the bundle artifact is loaded from XML, as if there was no snapshot.
+ */
+public final class BundleSnapshots {
+    /**
+     * Artifact type (extension) of bundle snapshots.
+     */
+    public static final String ARTIFACT_TYPE = "cksnapshot";
+
+    /**
+     * Magic number at the beginning of each snapshot ({@code "CKBS"} in ASCII).
+     */
+    public static final int MAGIC = 0x434b4253;
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 8192;
+
+    private BundleSnapshots() {
+        throw new AssertionError(String.format("No %s instances for you!", getClass().getName()));
+    }
+
+    /**
+     * Returns the path of the snapshot corresponding to the given bundle artifact file.
+     *
+     * @param bundleFile path of bundle artifact file
+     * @return path of the snapshot, which is a sibling of the bundle artifact file
+     */
+    public static Path snapshotPath(Path bundleFile) {
+        String fileName = bundleFile.getFileName().toString();
+        String bundleSuffix = '.' + Bundles.ARTIFACT_TYPE;
+        String baseName = fileName.endsWith(bundleSuffix)
+            ? fileName.substring(0, fileName.length() - bundleSuffix.length())
+            : fileName;
+        return bundleFile.resolveSibling(baseName + '.' + ARTIFACT_TYPE);
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(String.format(
+                "Unexpected exception because %s is guaranteed to be supported.", DIGEST_ALGORITHM
+            ), exception);
+        }
+    }
+
+    private static byte[] digest(Path file) throws IOException {
+        MessageDigest messageDigest = newMessageDigest();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            int bytesRead;
+            while ((bytesRead = inputStream.read(buffer)) >= 0) {
+                messageDigest.update(buffer, 0, bytesRead);
+            }
+        }
+        return messageDigest.digest();
+    }
+
+    private static int crc32(byte[] bytes) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        return (int) crc32.getValue();
+    }
+
+    /**
+     * Writes a snapshot of the given bundle.
+     *
+     * <p>The given bundle must be equivalent to the bundle contained in the given bundle artifact file, which must
+     * already have been written.
+     *
+     * @param bundle bundle
+     * @param bundleFile path of the bundle artifact file (an XML file) containing the given bundle
+     * @param snapshotFile path of the snapshot that will be written
+     * @throws IOException if an I/O error occurs
+     */
+    public static void writeSnapshot(MutableBundle bundle, Path bundleFile, Path snapshotFile) throws IOException {
+        Objects.requireNonNull(bundle);
+        Objects.requireNonNull(snapshotFile);
+        byte[] digest = digest(bundleFile);
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(bundle);
+        }
+        byte[] serializedBundle = byteArrayOutputStream.toByteArray();
+
+        try (DataOutputStream dataOutputStream
+                = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(snapshotFile)))) {
+            dataOutputStream.writeInt(MAGIC);
+            dataOutputStream.writeUTF(BuildInformation.PROJECT_VERSION.toString());
+            dataOutputStream.writeShort(digest.length);
+            dataOutputStream.write(digest);
+            dataOutputStream.writeInt(serializedBundle.length);
+            dataOutputStream.writeInt(crc32(serializedBundle));
+            dataOutputStream.write(serializedBundle);
+        }
+    }
+
+    /**
+     * Returns the bundle contained in the snapshot corresponding to the given bundle artifact file, or an empty
+     * {@link Optional} if there is no usable snapshot.
+     *
+     * <p>A snapshot is not usable if it does not exist, if it was written by a different CloudKeeper version, if it
+     * belongs to a different bundle artifact file, or if it is corrupt.
+     *
+     * @param bundleFile path of the bundle artifact file (an XML file)
+     * @return the bundle if there is a usable snapshot, or an empty {@link Optional} otherwise
+     */
+    public static Optional<MutableBundle> readSnapshot(Path bundleFile) {
+        Path snapshotFile = snapshotPath(bundleFile);
+        try (DataInputStream dataInputStream
+                = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (dataInputStream.readInt() != MAGIC
+                    || !BuildInformation.PROJECT_VERSION.toString().equals(dataInputStream.readUTF())) {
+                return Optional.empty();
+            }
+
+            byte[] expectedDigest = new byte[dataInputStream.readUnsignedShort()];
+            dataInputStream.readFully(expectedDigest);
+            if (!Arrays.equals(expectedDigest, digest(bundleFile))) {
+                return Optional.empty();
+            }
+
+            int length = dataInputStream.readInt();
+            int expectedChecksum = dataInputStream.readInt();
+            if (length < 0) {
+                return Optional.empty();
+            }
+            byte[] serializedBundle = new byte[length];
+            dataInputStream.readFully(serializedBundle);
+            if (crc32(serializedBundle) != expectedChecksum) {
+                return Optional.empty();
+            }
+
+            try (ObjectInputStream objectInputStream
+                    = new ObjectInputStream(new ByteArrayInputStream(serializedBundle))) {
+                return Optional.of((MutableBundle) objectInputStream.readObject());
+            }
+        } catch (ClassCastException | ClassNotFoundException | IOException ignored) {
+            // A missing, corrupt, or incompatible snapshot is never an error. The bundle artifact itself is the
+            // authoritative source.
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns a new {@link MutableBundle} instance, deserialized from the snapshot of the given (resolved) artifact if
+     * there is a usable snapshot, or from the artifact itself otherwise.
+     *
+     * <p>This method behaves like {@link Bundles#loadBundle(JAXBContext, XMLInputFactory, Artifact)}, except that XML
+     * parsing is skipped whenever possible.
+     *
+     * @param jaxbContext The JAXB context. This should be the result of {@link JAXBContext#newInstance(Class[])} where
+     *     {@code MutableBundle.class} was passed as argument.
+     * @param xmlInputFactory XML input factory. This is typically the result of {@link XMLInputFactory#newFactory()}.
+     * @param bundleArtifact the (resolved) artifact (of type {@link Bundles#ARTIFACT_TYPE}) that should be loaded
+     * @return the CloudKeeper bundle corresponding to the artifact
+     * @throws NullPointerException if an argument is null
+     * @throws IllegalArgumentException if {@code bundleArtifact} is not a resolved artifact of type
+     *     {@link Bundles#ARTIFACT_TYPE}
+     * @see Bundles#loadBundle(JAXBContext, XMLInputFactory, Artifact)
+     */
+    public static MutableBundle loadBundle(JAXBContext jaxbContext, XMLInputFactory xmlInputFactory,
+            Artifact bundleArtifact) throws JAXBException, XMLStreamException {
+        Objects.requireNonNull(jaxbContext);
+        Objects.requireNonNull(xmlInputFactory);
+        Objects.requireNonNull(bundleArtifact);
+        @Nullable File file = bundleArtifact.getFile();
+        if (file == null || !Bundles.ARTIFACT_TYPE.equals(bundleArtifact.getExtension())) {
+            throw new IllegalArgumentException(String.format(
+                "Expected resolved artifact of type %s, but got %s.", Bundles.ARTIFACT_TYPE, bundleArtifact
+            ));
+        }
+
+        Optional<MutableBundle> snapshot = readSnapshot(file.toPath());
+        if (snapshot.isPresent()) {
+            return Bundles.setBundleIdentifier(snapshot.get(), bundleArtifact);
+        } else {
+            return Bundles.loadBundle(jaxbContext, xmlInputFactory, bundleArtifact);
+        }
+    }
+}
@@ -111,14 +111,21 @@ public final class Bundles {
         try {
             unmarshaller.setListener(new SourceCodeLocationListener(streamReader));
             MutableBundle dependencyBundle = (MutableBundle) unmarshaller.unmarshal(streamReader);
-            dependencyBundle.setBundleIdentifier(bundleIdentifierFromMaven(
-                bundleArtifact.getGroupId(),
-                bundleArtifact.getArtifactId(),
-                Version.valueOf(bundleArtifact.getVersion())
-            ));
-            return dependencyBundle;
+            return setBundleIdentifier(dependencyBundle, bundleArtifact);
         } finally {
             streamReader.close();
         }
     }
+
+    /**
+     * Sets the bundle identifier of the given bundle to the one inferred from the given Maven artifact, and returns
+     * the bundle.
+     */
+    static MutableBundle setBundleIdentifier(MutableBundle bundle, Artifact bundleArtifact) {
+        return bundle.setBundleIdentifier(bundleIdentifierFromMaven(
+            bundleArtifact.getGroupId(),
+            bundleArtifact.getArtifactId(),
+            Version.valueOf(bundleArtifact.getVersion())
+        ));
+    }
 }
@@ -19,8 +19,10 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 public class ITBundles {
     private Path tempDir;
@@ -61,4 +63,40 @@ public class ITBundles {
 
         Assert.assertEquals(MutableBundle.copyOf(deserializedBundle, StandardCopyOption.STRIP_LOCATION), systemBundle);
     }
+
+    @Test
+    public void testLoadBundleSnapshot() throws IOException, JAXBException, XMLStreamException {
+        JAXBContext jaxbContext = JAXBContext.newInstance(MutableBundle.class);
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
+
+        MutableBundle systemBundle = SystemBundle.newSystemBundle().setBundleIdentifier(null);
+        Path bundleFile = tempDir.resolve("snapshot-1.0." + Bundles.ARTIFACT_TYPE);
+        Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.marshal(systemBundle, bundleFile.toFile());
+        Path snapshotFile = BundleSnapshots.snapshotPath(bundleFile);
+        Assert.assertEquals(snapshotFile.getFileName().toString(), "snapshot-1.0." + BundleSnapshots.ARTIFACT_TYPE);
+        Assert.assertFalse(BundleSnapshots.readSnapshot(bundleFile).isPresent());
+
+        BundleSnapshots.writeSnapshot(systemBundle, bundleFile, snapshotFile);
+        Assert.assertEquals(BundleSnapshots.readSnapshot(bundleFile).get(), systemBundle);
+
+        Artifact resolvedArtifact
+            = new DefaultArtifact("foo", "snapshot", Bundles.ARTIFACT_TYPE, "1.0").setFile(bundleFile.toFile());
+        MutableBundle loadedBundle = BundleSnapshots.loadBundle(jaxbContext, xmlInputFactory, resolvedArtifact);
+        Assert.assertEquals(loadedBundle.getBundleIdentifier(),
+            Bundles.bundleIdentifierFromMaven("foo", "snapshot", Version.valueOf("1.0")));
+        // The bundle was deserialized from the snapshot, so it has no source-code locations from XML parsing.
+        Assert.assertEquals(loadedBundle, systemBundle.setBundleIdentifier(loadedBundle.getBundleIdentifier()));
+
+        // A snapshot whose digest no longer matches the bundle file is ignored.
+        Files.write(bundleFile, "\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        Assert.assertFalse(BundleSnapshots.readSnapshot(bundleFile).isPresent());
+
+        // A corrupt snapshot is ignored.
+        BundleSnapshots.writeSnapshot(systemBundle, bundleFile, snapshotFile);
+        byte[] bytes = Files.readAllBytes(snapshotFile);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshotFile, bytes);
+        Assert.assertFalse(BundleSnapshots.readSnapshot(bundleFile).isPresent());
+    }
 }
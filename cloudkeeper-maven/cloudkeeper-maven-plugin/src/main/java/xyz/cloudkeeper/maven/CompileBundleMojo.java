@@ -75,6 +75,9 @@ import java.util.Optional;
 /**
  * Scans the build output directory for CloudKeeper plug-in declarations, creates a CloudKeeper bundle, verifies and
  * links the content, and writes out the bundle as XML.
+ *
+ * <p>In addition to the XML bundle, this mojo writes a binary snapshot of the bundle (see {@link BundleSnapshots}).
+ * Both are attached as artifacts of the current project.
  */
 @Mojo(name = "compile", defaultPhase = LifecyclePhase.PACKAGE)
 public final class CompileBundleMojo extends AbstractMojo {
@@ -213,7 +216,7 @@ public final class CompileBundleMojo extends AbstractMojo {
 
     /**
      * Scans the build output directory for CloudKeeper plug-in declarations, creates a CloudKeeper bundle, verifies and
-     * links the content, and writes out the bundle as XML.
+     * links the content, and writes out the bundle as XML and as binary snapshot.
      *
      * @throws MojoExecutionException If an unexpected problem occurs. This exception causes a "BUILD ERROR" message to
      *     be displayed.
@@ -260,6 +263,13 @@ public final class CompileBundleMojo extends AbstractMojo {
 
             log.debug("Attaching '{}' as artifact of type {}...", bundleArtifactFile, Bundles.ARTIFACT_TYPE);
             projectHelper.attachArtifact(project, Bundles.ARTIFACT_TYPE, bundleArtifactFile);
+
+            Path snapshotPath = BundleSnapshots.snapshotPath(bundleArtifactFile.toPath());
+            log.debug("Writing binary snapshot of CloudKeeper bundle to '{}'...", snapshotPath);
+            BundleSnapshots.writeSnapshot(bundle, bundleArtifactFile.toPath(), snapshotPath);
+
+            log.debug("Attaching '{}' as artifact of type {}...", snapshotPath, BundleSnapshots.ARTIFACT_TYPE);
+            projectHelper.attachArtifact(project, BundleSnapshots.ARTIFACT_TYPE, snapshotPath.toFile());
         } catch (LinkerException exception) {
             throw new MojoFailureException("The CloudKeeper bundle could not be linked.", exception);
         } catch (ClassNotFoundException | DependencyResolutionException | IOException | JAXBException
@@ -342,7 +352,7 @@ public final class CompileBundleMojo extends AbstractMojo {
         XMLInputFactory xmlInputFactory = XMLInputFactory.newFactory();
         List<MutableBundle> bundles = new ArrayList<>();
         for (Artifact bundleArtifact: bundleArtifacts) {
-            bundles.add(Bundles.loadBundle(jaxbContext, xmlInputFactory, bundleArtifact));
+            bundles.add(BundleSnapshots.loadBundle(jaxbContext, xmlInputFactory, bundleArtifact));
         }
         return bundles;
     }
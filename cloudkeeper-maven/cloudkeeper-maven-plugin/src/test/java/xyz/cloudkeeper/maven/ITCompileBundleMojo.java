@@ -8,6 +8,7 @@ import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.DefaultArtifact;
+import org.eclipse.aether.installation.InstallRequest;
 import org.junit.Assert;
 import xyz.cloudkeeper.examples.modules.BinarySum;
 import xyz.cloudkeeper.examples.modules.Decrease;
@@ -116,9 +117,18 @@ public class ITCompileBundleMojo extends AbstractMojoTestCase {
         MavenProject project = mojo.getProject();
         Artifact pomArtifact = new DefaultArtifact(project.getGroupId(), project.getArtifactId(), null, "pom",
             project.getVersion(), null, new File(getClass().getResource("successful.pom.xml").toURI()));
-        Assert.assertEquals(project.getAttachedArtifacts().size(), 1);
+        Assert.assertEquals(project.getAttachedArtifacts().size(), 2);
         Artifact bundleArtifact = mavenToAetherArtifact(project.getAttachedArtifacts().get(0));
+        Artifact snapshotArtifact = mavenToAetherArtifact(project.getAttachedArtifacts().get(1));
+        Assert.assertEquals(bundleArtifact.getExtension(), Bundles.ARTIFACT_TYPE);
+        Assert.assertEquals(snapshotArtifact.getExtension(), BundleSnapshots.ARTIFACT_TYPE);
+        MutableBundle snapshotBundle = BundleSnapshots.readSnapshot(bundleFile).get();
+        Assert.assertEquals(bundle.getCreationTime(), snapshotBundle.getCreationTime());
+        Assert.assertEquals(SumMinusTwo.class.getSimpleName(),
+            snapshotBundle.getPackages().get(0).getDeclarations().get(0).getSimpleName().toString());
         aetherRepository.installBundleWithJar(pomArtifact, bundleArtifact, Collections.emptyList());
+        aetherRepository.getRepositorySystem().install(
+            aetherRepository.getRepositorySystemSession(), new InstallRequest().addArtifact(snapshotArtifact));
 
         // Load the bundle with a bundle URI
         MavenRuntimeContextFactory runtimeContextFactory = new MavenRuntimeContextFactory.Builder(
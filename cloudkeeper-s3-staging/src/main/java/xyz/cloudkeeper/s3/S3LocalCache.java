@@ -0,0 +1,598 @@
+package xyz.cloudkeeper.s3;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Bounded local-disk cache of S3 objects with least-recently-used eviction policy, used by {@link S3StagingArea} as
+ * a tier in front of Amazon S3.
+ *
+ * <p>If an S3 staging area is configured with a local cache (see {@link S3StagingArea.Builder#setLocalCache}), byte
+ * sequences that are uploaded are kept in the cache. Reading a byte sequence is served from the cache if possible;
+ * otherwise, the S3 object is downloaded into the cache first. Modules on the same node that chain large intermediate
+ * results therefore do not download what was just uploaded.
+ *
+ * <p>Each entry is identified by both its cache key and the ETag of the S3 object. A staging area therefore only
+ * serves an entry if the S3 object still has the ETag that the cached content was uploaded or downloaded with. Objects
+ * that were deleted or overwritten (also by staging areas in other JVMs) are never served from the cache.
+ *
+ * <p>The cache directory has the following layout:
+ * <ul><li>
+ *     {@code .cloudkeeper-s3-cache}: Empty marker file identifying the directory as a local cache. The constructor of
+ *     this class only creates the marker file in an empty directory, and it refuses to use a non-empty directory
+ *     without marker file. This ensures that eviction never deletes files not created by this class.
+ * </li><li>
+ *     {@code entries/}: One file per entry. The file name is the hexadecimal SHA-256 digest of the cache key and the
+ *     ETag, so any instance of this class using the same directory finds the entry. Entry files are immutable: They
+ *     are written as temporary files and then atomically moved into this directory.
+ * </li><li>
+ *     {@code tmp/}: Temporary files that are being written.
+ * </li></ul>
+ *
+ * <p>Multiple instances (possibly in different JVMs, for instance, executors on the same node) may use the same
+ * directory concurrently and share its entries. Each instance keeps an in-memory index of the entries it knows of:
+ * those present when the instance was constructed, and those it added or found since. The cache is bounded by the
+ * total size (in bytes) of the known entries. Once this size is exceeded, the least-recently-used known entries are
+ * deleted. An instance that finds an entry to have been deleted by another instance simply drops it from its index.
+ * Since the index is only an approximation of the directory content, the directory may temporarily occupy more than
+ * the maximum size if multiple instances add entries concurrently.
+ *
+ * <p>Instances of this class are thread-safe.
+ */
+public final class S3LocalCache implements AutoCloseable {
+    private static final String MARKER_FILE = ".cloudkeeper-s3-cache";
+    private static final String ENTRY_DIRECTORY = "entries";
+    private static final String TEMPORARY_DIRECTORY = "tmp";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * Minimum age of temporary files before they are removed by the constructor. Temporary files are only left behind
+     * if a JVM terminates while writing.
+     */
+    private static final Duration TEMPORARY_FILE_RETENTION = Duration.ofDays(1);
+
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final Path directory;
+    private final Path entryDirectory;
+    private final Path temporaryDirectory;
+    private final long maximumSize;
+
+    /**
+     * Map from entry file name to entry, in access order.
+     *
+     * <p>All accesses (including to the other mutable fields) must be synchronized on this map.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Map from cache key to the file names of all entries with that key, sorted by cache key, so that all entries with
+     * keys starting with a common prefix can be found without iterating over all entries.
+     *
+     * <p>Entries without a key are not contained. All accesses must be synchronized on {@link #entries}.
+     */
+    private final NavigableMap<String, Set<String>> fileNamesByKey = new TreeMap<>();
+    private long size = 0;
+    private boolean closed = false;
+
+    private static final class Entry {
+        /**
+         * Cache key, or {@code null} if the entry was found in the cache directory when this instance was constructed.
+         */
+        @Nullable private final String key;
+        private final Path file;
+        private final long size;
+
+        private Entry(@Nullable String key, Path file, long size) {
+            this.key = key;
+            this.file = file;
+            this.size = size;
+        }
+    }
+
+    /**
+     * Constructs a new local cache.
+     *
+     * <p>This constructor creates the directory at the given path if necessary, and it indexes the entries already
+     * present in the directory. The least-recently modified entries are deleted if they exceed the maximum size.
+     *
+     * @param directory path of the cache directory in the file system
+     * @param maximumSize maximum total size (in bytes) of all cached files, must be non-negative
+     * @throws IllegalArgumentException if the maximum size is negative
+     * @throws IOException if the directory is not empty and has not previously been used as local cache, or if an
+     *     I/O error occurs
+     */
+    public S3LocalCache(Path directory, long maximumSize) throws IOException {
+        if (maximumSize < 0) {
+            throw new IllegalArgumentException(String.format(
+                "Expected non-negative maximum size, but got %d.", maximumSize
+            ));
+        }
+        this.directory = Objects.requireNonNull(directory);
+        entryDirectory = directory.resolve(ENTRY_DIRECTORY);
+        temporaryDirectory = directory.resolve(TEMPORARY_DIRECTORY);
+        this.maximumSize = maximumSize;
+
+        claimDirectory();
+        Files.createDirectories(entryDirectory);
+        Files.createDirectories(temporaryDirectory);
+        deleteStaleTemporaryFiles();
+        indexEntries();
+    }
+
+    /**
+     * Creates the marker file if the cache directory is empty, or verifies that the marker file exists otherwise.
+     *
+     * <p>Concurrent instances may create the marker file at the same time. Since the marker file is created before any
+     * other file, a directory that contains any file besides the marker file also contains the marker file.
+     */
+    private void claimDirectory() throws IOException {
+        Files.createDirectories(directory);
+        Path markerFile = directory.resolve(MARKER_FILE);
+        if (Files.exists(markerFile)) {
+            return;
+        }
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory)) {
+            for (Path path: directoryStream) {
+                if (!path.getFileName().toString().equals(MARKER_FILE)) {
+                    throw new IOException(String.format(
+                        "Refusing to use non-empty directory '%s' as local cache, because it does not contain the "
+                            + "marker file '%s'.", directory, MARKER_FILE
+                    ));
+                }
+            }
+        }
+        try {
+            Files.createFile(markerFile);
+        } catch (FileAlreadyExistsException ignored) {
+            // Created concurrently by another instance
+        }
+    }
+
+    private void deleteStaleTemporaryFiles() throws IOException {
+        FileTime threshold = FileTime.from(Instant.now().minus(TEMPORARY_FILE_RETENTION));
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(temporaryDirectory)) {
+            for (Path file: directoryStream) {
+                try {
+                    if (Files.getLastModifiedTime(file).compareTo(threshold) < 0) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException ignored) {
+                    // Moved or deleted concurrently
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds all entry files to the index, in the order of their last-modified time.
+     *
+     * <p>The last-modified time of an entry file is updated whenever it is read, so it approximates the last access
+     * across all instances using the cache directory.
+     */
+    private void indexEntries() throws IOException {
+        final class ExistingFile {
+            private final Path file;
+            private final long size;
+            private final FileTime lastModifiedTime;
+
+            private ExistingFile(Path file, long size, FileTime lastModifiedTime) {
+                this.file = file;
+                this.size = size;
+                this.lastModifiedTime = lastModifiedTime;
+            }
+        }
+
+        List<ExistingFile> existingFiles = new ArrayList<>();
+        try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(entryDirectory)) {
+            for (Path file: directoryStream) {
+                try {
+                    existingFiles.add(new ExistingFile(file, Files.size(file), Files.getLastModifiedTime(file)));
+                } catch (NoSuchFileException ignored) {
+                    // Evicted concurrently by another instance
+                }
+            }
+        }
+        existingFiles.sort(Comparator.comparing(existingFile -> existingFile.lastModifiedTime));
+
+        List<Path> obsoleteFiles = new ArrayList<>();
+        synchronized (entries) {
+            for (ExistingFile existingFile: existingFiles) {
+                entries.put(
+                    existingFile.file.getFileName().toString(),
+                    new Entry(null, existingFile.file, existingFile.size)
+                );
+                size += existingFile.size;
+            }
+            evict(obsoleteFiles);
+        }
+        deleteFiles(obsoleteFiles);
+    }
+
+    /**
+     * Clears the in-memory index and stops adding new entries.
+     *
+     * <p>Cached files are not deleted, because other instances may share the cache directory. Once closed, the cache
+     * no longer returns any entries, and new entries are discarded immediately.
+     */
+    @Override
+    public void close() {
+        synchronized (entries) {
+            closed = true;
+            entries.clear();
+            fileNamesByKey.clear();
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the path of the cache directory.
+     *
+     * @return the path of the cache directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the maximum total size (in bytes) of all cached files.
+     *
+     * @return the maximum total size of all cached files
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns the current total size (in bytes) of all cached files known to this instance.
+     *
+     * @return the current total size of all cached files known to this instance
+     */
+    public long size() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    private static MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM);
+        } catch (NoSuchAlgorithmException exception) {
+            // Every Java platform is required to support SHA-256.
+            throw new AssertionError(String.format("Missing %s implementation.", DIGEST_ALGORITHM), exception);
+        }
+    }
+
+    private static String toHexString(byte[] bytes) {
+        StringBuilder stringBuilder = new StringBuilder(2 * bytes.length);
+        for (byte currentByte: bytes) {
+            stringBuilder.append(String.format("%02x", currentByte));
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Returns the name of the entry file for the given cache key and ETag.
+     *
+     * <p>Depending on the request, Amazon S3 ETags may or may not be enclosed in double quotes. The quotes are not
+     * significant and therefore removed before computing the digest.
+     */
+    private static String entryFileName(String key, String eTag) {
+        String unquotedETag = eTag.length() >= 2 && eTag.startsWith("\"") && eTag.endsWith("\"")
+            ? eTag.substring(1, eTag.length() - 1)
+            : eTag;
+        MessageDigest messageDigest = newMessageDigest();
+        messageDigest.update(key.getBytes(StandardCharsets.UTF_8));
+        messageDigest.update((byte) 0);
+        messageDigest.update(unquotedETag.getBytes(StandardCharsets.UTF_8));
+        return toHexString(messageDigest.digest());
+    }
+
+    /**
+     * Returns a new empty file in the cache directory, which may be passed to {@link #put(String, String, Path)} once
+     * it has been written.
+     *
+     * @return the new file
+     * @throws IOException if an I/O error occurs
+     */
+    Path newTemporaryFile() throws IOException {
+        return Files.createTempFile(Files.createDirectories(temporaryDirectory), null, null);
+    }
+
+    /**
+     * Returns a new file channel for reading the cached file for the given key and ETag, or {@code null} if the cache
+     * does not contain a (complete) entry for the key and ETag.
+     *
+     * <p>If the entry is not in the in-memory index, but another instance added it to the cache directory, the entry
+     * is added to the index.
+     *
+     * @param key cache key
+     * @param eTag ETag of the S3 object
+     * @param length length of the S3 object, in bytes
+     * @return file channel positioned at the beginning of the cached file, or {@code null} if there is no entry
+     * @throws IOException if an I/O error occurs
+     */
+    @Nullable
+    FileChannel open(String key, String eTag, long length) throws IOException {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(eTag);
+        String fileName = entryFileName(key, eTag);
+        Path file = entryDirectory.resolve(fileName);
+        synchronized (entries) {
+            if (closed) {
+                return null;
+            }
+        }
+
+        FileChannel fileChannel;
+        try {
+            fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException ignored) {
+            // Not cached, or evicted (possibly by another instance)
+            remove(fileName);
+            return null;
+        }
+        boolean success = false;
+        try {
+            if (fileChannel.size() != length) {
+                return null;
+            }
+            touch(file);
+            List<Path> obsoleteFiles = new ArrayList<>();
+            synchronized (entries) {
+                if (entries.get(fileName) == null && !closed) {
+                    addEntry(fileName, new Entry(key, file, length));
+                    evict(obsoleteFiles);
+                }
+            }
+            deleteFiles(obsoleteFiles);
+            success = true;
+            return fileChannel;
+        } finally {
+            if (!success) {
+                fileChannel.close();
+            }
+        }
+    }
+
+    /**
+     * Updates the last-modified time of the given entry file, which is used to order entries when an instance is
+     * constructed.
+     */
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now()));
+        } catch (IOException exception) {
+            log.debug(String.format("Failed to update last-modified time of '%s' in %s.", file, this), exception);
+        }
+    }
+
+    /**
+     * Adds the given file as entry for the given key and ETag, and evicts least-recently-used entries if the maximum
+     * size is exceeded.
+     *
+     * <p>This method transfers ownership of the given file to this cache: The file is moved into the cache directory,
+     * where it may be deleted at any time after this method has been called. Readers that already opened the file are
+     * not affected on file systems that allow moving and deleting open files.
+     *
+     * @param key cache key
+     * @param eTag ETag of the S3 object with the content of the given file
+     * @param file file previously returned by {@link #newTemporaryFile()}
+     * @throws IOException if an I/O error occurs
+     */
+    void put(String key, String eTag, Path file) throws IOException {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(eTag);
+        String fileName = entryFileName(key, eTag);
+        long fileSize = Files.size(file);
+        boolean discard;
+        synchronized (entries) {
+            discard = closed || fileSize > maximumSize;
+        }
+        if (discard) {
+            Files.deleteIfExists(file);
+            return;
+        }
+
+        Path entryFile = entryDirectory.resolve(fileName);
+        try {
+            Files.move(file, entryFile, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException ignored) {
+            // Added concurrently by another instance. Since entries are identified by key and ETag, the existing file
+            // has the same content.
+            Files.deleteIfExists(file);
+        }
+
+        List<Path> obsoleteFiles = new ArrayList<>();
+        synchronized (entries) {
+            if (closed) {
+                return;
+            }
+            removeEntry(fileName);
+            addEntry(fileName, new Entry(key, entryFile, fileSize));
+            evict(obsoleteFiles);
+        }
+        deleteFiles(obsoleteFiles);
+    }
+
+    /**
+     * Adds a copy of the content of the given file channel as entry for the given key and ETag, unless the content is
+     * larger than the maximum size.
+     *
+     * <p>The file channel is not closed by this method, and its position is not changed.
+     *
+     * @param key cache key
+     * @param eTag ETag of the S3 object with the content of the given file channel
+     * @param fileChannel file channel whose entire content will be copied
+     * @throws IOException if an I/O error occurs
+     */
+    void putCopy(String key, String eTag, FileChannel fileChannel) throws IOException {
+        long fileSize = fileChannel.size();
+        if (fileSize > maximumSize) {
+            return;
+        }
+
+        Path file = newTemporaryFile();
+        boolean success = false;
+        try {
+            try (FileChannel targetChannel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                long position = 0;
+                while (position < fileSize) {
+                    position += fileChannel.transferTo(position, fileSize - position, targetChannel);
+                }
+            }
+            put(key, eTag, file);
+            success = true;
+        } finally {
+            if (!success) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Evicts least-recently-used entries until the maximum size is no longer exceeded, and adds the files of the
+     * evicted entries to the given list.
+     *
+     * <p>This method must only be called while holding the lock on {@link #entries}.
+     */
+    private void evict(List<Path> obsoleteFiles) {
+        assert Thread.holdsLock(entries);
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (size > maximumSize) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            iterator.remove();
+            unindex(eldest.getKey(), eldest.getValue());
+            obsoleteFiles.add(eldest.getValue().file);
+        }
+    }
+
+    /**
+     * Adds the given entry, which must not yet be present.
+     *
+     * <p>This method must only be called while holding the lock on {@link #entries}.
+     */
+    private void addEntry(String fileName, Entry entry) {
+        assert Thread.holdsLock(entries);
+        entries.put(fileName, entry);
+        size += entry.size;
+        if (entry.key != null) {
+            fileNamesByKey.computeIfAbsent(entry.key, ignored -> new HashSet<>()).add(fileName);
+        }
+    }
+
+    /**
+     * Updates {@link #size} and {@link #fileNamesByKey} after the given entry has been removed from {@link #entries}.
+     */
+    private void unindex(String fileName, Entry entry) {
+        assert Thread.holdsLock(entries);
+        size -= entry.size;
+        if (entry.key != null) {
+            @Nullable Set<String> fileNames = fileNamesByKey.get(entry.key);
+            if (fileNames != null && fileNames.remove(fileName) && fileNames.isEmpty()) {
+                fileNamesByKey.remove(entry.key);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry with the given file name, if any.
+     *
+     * <p>This method must only be called while holding the lock on {@link #entries}.
+     */
+    private void removeEntry(String fileName) {
+        assert Thread.holdsLock(entries);
+        @Nullable Entry entry = entries.remove(fileName);
+        if (entry != null) {
+            unindex(fileName, entry);
+        }
+    }
+
+    private void remove(String fileName) {
+        synchronized (entries) {
+            removeEntry(fileName);
+        }
+    }
+
+    /**
+     * Removes all entries whose key starts with the given prefix.
+     *
+     * <p>Since entries are identified by both key and ETag, invalidation is not required for correctness. It only frees
+     * space early. Entries indexed when this instance was constructed are not affected, because their key is unknown.
+     *
+     * @param keyPrefix key prefix
+     */
+    void invalidatePrefix(String keyPrefix) {
+        Objects.requireNonNull(keyPrefix);
+        List<Path> obsoleteFiles = new ArrayList<>();
+        synchronized (entries) {
+            // All keys starting with the prefix form a contiguous range in the sorted map.
+            Iterator<Map.Entry<String, Set<String>>> iterator = fileNamesByKey.tailMap(keyPrefix).entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Set<String>> keyEntry = iterator.next();
+                if (!keyEntry.getKey().startsWith(keyPrefix)) {
+                    break;
+                }
+                iterator.remove();
+                for (String fileName: keyEntry.getValue()) {
+                    @Nullable Entry entry = entries.remove(fileName);
+                    if (entry != null) {
+                        size -= entry.size;
+                        obsoleteFiles.add(entry.file);
+                    }
+                }
+            }
+        }
+        deleteFiles(obsoleteFiles);
+    }
+
+    /**
+     * Deletes the given files, which are no longer referenced by any entry.
+     *
+     * <p>Failing to delete a file is not an error, because the file would be indexed (and possibly evicted) by the next
+     * instance using the cache directory. However, the file then temporarily occupies space not accounted for by the
+     * cache.
+     */
+    private void deleteFiles(List<Path> files) {
+        for (Path file: files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException exception) {
+                log.warn(String.format("Failed to delete evicted file '%s' from %s.", file, this), exception);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("local cache at %s", directory);
+    }
+}
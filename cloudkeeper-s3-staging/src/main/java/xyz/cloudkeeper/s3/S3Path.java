@@ -1,5 +1,7 @@
 package xyz.cloudkeeper.s3;
 
+import xyz.cloudkeeper.staging.ObjectMetadataCodec;
+
 import java.io.Serializable;
 import java.util.Objects;
 
@@ -58,15 +60,20 @@ final class S3Path implements Serializable {
     }
 
     /**
-     * Returns the key of the S3 object that contains the metadata for this path.
+     * Returns the key of the S3 object that contains the metadata for this path, given the format of the metadata.
      *
-     * <p>This is always the S3 key appended with the separator and {@code serialization.xml}.
+     * <p>This is always the S3 key appended with the separator and either {@code .meta} (binary format) or
+     * {@code meta.xml} (XML format). Like {@code .value} (see {@link #resolveDefaultKey()}), the former cannot clash
+     * with a serialization key, because serialization keys never start with a dot.
      */
-    public String getMetadataKey() {
+    public String getMetadataKey(ObjectMetadataCodec.Format format) {
         if (isFinal) {
             throw new IllegalStateException("Tried to get metadata key on S3 path that is final.");
         }
-        return prefix + path + SEPARATOR + "meta.xml";
+        String name = format == ObjectMetadataCodec.Format.BINARY
+            ? ".meta"
+            : "meta.xml";
+        return prefix + path + SEPARATOR + name;
     }
 
     /**
@@ -6,8 +6,10 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3URI;
 import com.amazonaws.services.s3.iterable.S3Objects;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,29 +19,62 @@ import xyz.cloudkeeper.model.api.staging.StagingException;
 import xyz.cloudkeeper.model.immutable.element.Index;
 import xyz.cloudkeeper.model.immutable.element.Key;
 import xyz.cloudkeeper.model.immutable.element.NoKey;
+import xyz.cloudkeeper.model.immutable.execution.ExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTrace;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeExecutionTraceVisitor;
+import xyz.cloudkeeper.model.util.BufferPool;
 import xyz.cloudkeeper.s3.io.S3Connection;
 import xyz.cloudkeeper.staging.ExternalStagingArea;
 import xyz.cloudkeeper.staging.MutableObjectMetadata;
+import xyz.cloudkeeper.staging.ObjectMetadataCache;
+import xyz.cloudkeeper.staging.ObjectMetadataCodec;
 
 import javax.annotation.Nullable;
-import javax.xml.bind.JAXBContext;
-import javax.xml.bind.JAXBException;
-import javax.xml.bind.Marshaller;
-import javax.xml.bind.Unmarshaller;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 
 /**
  * S3-based staging area.
+ *
+ * <p>Object metadata is stored in S3 objects with key suffix {@code .meta} if written in the (default) compact binary
+ * format, or with key suffix {@code meta.xml} if written as XML. Metadata in either object is read, independently of
+ * the configured format, so staging areas written by earlier versions (which always wrote {@code meta.xml} objects)
+ * remain readable. Metadata that was recently read or written is kept in a cache
+ * that is shared by this staging area and all staging areas created with
+ * {@link #resolveDescendant(RuntimeExecutionTrace)}, in order to avoid get-object requests. Existence checks always
+ * consult S3, so that objects deleted by other processes are not reported as existing.
+ *
+ * <p>Optionally, an S3 staging area may use a bounded local-disk cache as a tier in front of S3. Byte sequences are
+ * then kept in the local cache once uploaded, and byte sequences that are not in the local cache are downloaded into
+ * it when first read. Byte sequences backed by a local file are uploaded directly from that file and copied into the
+ * local cache afterwards. Cached content is only used while the S3 object has the ETag that it was cached with. The
+ * local cache is shared by this staging area and all staging areas created with
+ * {@link #resolveDescendant(RuntimeExecutionTrace)}, and possibly by staging areas in other JVMs on the same node.
+ *
+ * @see Builder#setMetadataFormat(ObjectMetadataCodec.Format)
+ * @see Builder#setMetadataCacheSize(int)
+ * @see Builder#setLocalCache(S3LocalCache)
  */
 public final class S3StagingArea extends ExternalStagingArea {
     /**
@@ -54,7 +89,15 @@ public final class S3StagingArea extends ExternalStagingArea {
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
-    private final JAXBContext jaxbContext;
+    private final ObjectMetadataCodec metadataCodec;
+
+    /**
+     * Cache of object metadata, with the key prefix for the children of the object (see
+     * {@link S3Path#getPrefixForChildren()}) as key. Unlike the key of the metadata object, the prefix does not depend
+     * on the metadata format.
+     */
+    private final ObjectMetadataCache metadataCache;
+    @Nullable private final S3LocalCache localCache;
     private final S3Connection s3Connection;
     private final AmazonS3 s3Client;
     private final String bucketName;
@@ -62,10 +105,13 @@ public final class S3StagingArea extends ExternalStagingArea {
     private final int maxStagingAreaPrefixLength;
 
     private S3StagingArea(RuntimeAnnotatedExecutionTrace executionTrace, RuntimeContext runtimeContext,
-            Executor executor, JAXBContext jaxbContext, S3Connection s3Connection, AmazonS3 s3Client,
-            String bucketName, S3Path s3BaseKey, int maxStagingAreaPrefixLength) {
+            Executor executor, ObjectMetadataCodec metadataCodec, ObjectMetadataCache metadataCache,
+            @Nullable S3LocalCache localCache, S3Connection s3Connection, AmazonS3 s3Client, String bucketName,
+            S3Path s3BaseKey, int maxStagingAreaPrefixLength) {
         super(executionTrace, runtimeContext, executor);
-        this.jaxbContext = jaxbContext;
+        this.metadataCodec = metadataCodec;
+        this.metadataCache = metadataCache;
+        this.localCache = localCache;
         this.s3Connection = s3Connection;
         this.s3Client = s3Client;
         this.bucketName = bucketName;
@@ -134,6 +180,49 @@ public final class S3StagingArea extends ExternalStagingArea {
         return toS3Path(s3BaseKey, trace);
     }
 
+    /**
+     * Returns the S3 key that corresponds to the given absolute execution trace.
+     */
+    private S3Path toAbsoluteS3Path(RuntimeExecutionTrace absoluteTrace) {
+        return toS3Path(S3Path.empty(s3BaseKey.getPrefix()), absoluteTrace);
+    }
+
+    /**
+     * Returns the key of the given S3 object in the local cache.
+     *
+     * <p>Since bucket names cannot contain slashes, cache keys are unique even if the local cache is shared by staging
+     * areas with different buckets.
+     */
+    private static String localCacheKey(String bucketName, String key) {
+        return bucketName + S3Path.SEPARATOR + key;
+    }
+
+    /**
+     * Returns the key of the metadata object for the given S3 path, in the format that this staging area writes.
+     */
+    private String metadataKey(S3Path s3Path) {
+        return s3Path.getMetadataKey(metadataCodec.getFormat());
+    }
+
+    /**
+     * Returns the key of the metadata object for the given S3 path, in the format that this staging area does not
+     * write.
+     */
+    private String otherMetadataKey(S3Path s3Path) {
+        return s3Path.getMetadataKey(
+            metadataCodec.getFormat() == ObjectMetadataCodec.Format.BINARY
+                ? ObjectMetadataCodec.Format.XML
+                : ObjectMetadataCodec.Format.BINARY
+        );
+    }
+
+    private void invalidateCaches(String keyPrefix) {
+        metadataCache.invalidatePrefix(keyPrefix);
+        if (localCache != null) {
+            localCache.invalidatePrefix(localCacheKey(bucketName, keyPrefix));
+        }
+    }
+
     @Override
     public WriteContext newWriteContext(RuntimeExecutionTrace target) {
         return new WriteContextImpl(toS3Path(target));
@@ -144,11 +233,22 @@ public final class S3StagingArea extends ExternalStagingArea {
         return new ReadContextImpl(toS3Path(source));
     }
 
+    @Override
+    protected boolean isLinkSupported() {
+        return true;
+    }
+
+    @Override
+    protected ReadContext newAbsoluteReadContext(RuntimeExecutionTrace absoluteSource) {
+        return new ReadContextImpl(toAbsoluteS3Path(absoluteSource));
+    }
+
     @Override
     protected void delete(RuntimeExecutionTrace prefix, RuntimeAnnotatedExecutionTrace absolutePrefix)
             throws IOException {
         String keyPrefix = toS3Path(prefix).getPrefixForChildren();
-        S3Utilities.deletePrefix(s3Connection.getS3Client(), bucketName, keyPrefix);
+        invalidateCaches(keyPrefix);
+        S3Utilities.deletePrefix(s3Connection, bucketName, keyPrefix);
     }
 
     @Override
@@ -159,16 +259,63 @@ public final class S3StagingArea extends ExternalStagingArea {
         delete(prefix, absolutePrefix);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This method performs a server-side copy for each key with the source prefix. Up to
+     * {@link S3Connection#getParallelConnectionsPerRequest()} copy operations are active at the same time, and large
+     * objects are copied with multi-part copies (see
+     * {@link S3Connection#copyObject(String, String, String, String, long)}). The metadata object is copied last.
+     *
+     * <p>If the source is a link (or an element of a linked collection), the linked object is copied instead.
+     */
     @Override
     protected void copy(RuntimeExecutionTrace source, RuntimeExecutionTrace target,
             RuntimeAnnotatedExecutionTrace absoluteSource, RuntimeAnnotatedExecutionTrace absoluteTarget)
             throws IOException {
-        String sourcePrefix = toS3Path(source).getPrefixForChildren();
-        String targetPrefix = toS3Path(target).getPrefixForChildren();
+        copy(toS3Path(source), toS3Path(target), source);
+    }
+
+    /**
+     * Copies all objects with the given source prefix.
+     *
+     * @param sourcePath source S3 path
+     * @param targetPath target S3 path
+     * @param source relative source execution trace if links are to be followed, or {@code null} if not
+     * @throws IOException if an I/O error occurs
+     */
+    private void copy(S3Path sourcePath, S3Path targetPath, @Nullable RuntimeExecutionTrace source)
+            throws IOException {
+        String sourcePrefix = sourcePath.getPrefixForChildren();
+        String targetPrefix = targetPath.getPrefixForChildren();
+        invalidateCaches(targetPrefix);
+        String sourceMetadataKey = metadataKey(sourcePath);
+        String otherSourceMetadataKey = otherMetadataKey(sourcePath);
+        @Nullable S3ObjectSummary metadataSummary = null;
+        Semaphore semaphore = new Semaphore(Math.max(1, s3Connection.getParallelConnectionsPerRequest()));
+        List<CompletableFuture<Void>> copyFutures = new ArrayList<>();
         for (S3ObjectSummary summary: S3Objects.withPrefix(s3Client, bucketName, sourcePrefix)) {
-            if (summary.getKey().startsWith(sourcePrefix)) {
+            if (summary.getKey().equals(sourceMetadataKey) || summary.getKey().equals(otherSourceMetadataKey)) {
+                metadataSummary = summary;
+            } else if (summary.getKey().startsWith(sourcePrefix)) {
                 String relativeKey = summary.getKey().substring(sourcePrefix.length());
-                s3Client.copyObject(bucketName, summary.getKey(), bucketName, targetPrefix + relativeKey);
+                try {
+                    semaphore.acquire();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new S3StagingException(String.format(
+                        "Interrupted while copying 's3://%s/%s' to 's3://%s/%s'.",
+                        bucketName, sourcePrefix, bucketName, targetPrefix
+                    ), exception);
+                }
+                CompletableFuture<Void> copyFuture = s3Connection.copyObject(
+                    bucketName, summary.getKey(), bucketName, targetPrefix + relativeKey, summary.getSize());
+                copyFuture.whenComplete((ignored, throwable) -> semaphore.release());
+                copyFutures.add(copyFuture);
+                if (copyFuture.isCompletedExceptionally()) {
+                    // No need to continue; awaitAll() will throw.
+                    break;
+                }
             } else {
                 log.error(String.format(
                     "S3Objects.withPrefix() returned unexpected key '%s' when asked for prefix '%s'.",
@@ -176,18 +323,131 @@ public final class S3StagingArea extends ExternalStagingArea {
                 ));
             }
         }
+        S3Utilities.awaitAll(copyFutures, "copy 's3://%s/%s' to 's3://%s/%s'",
+            bucketName, sourcePrefix, bucketName, targetPrefix);
+
+        if (copyFutures.isEmpty() && source != null) {
+            // Without any byte sequences, the source may be a link (only metadata is present), or an element of a
+            // linked collection (nothing is present).
+            Optional<ExecutionTrace> link = resolveLink(source);
+            if (link.isPresent()) {
+                copy(toAbsoluteS3Path(link.get()), targetPath, null);
+                return;
+            }
+        }
+        if (metadataSummary != null) {
+            // The metadata object keeps its format (and therefore its key suffix).
+            String metadataKey = metadataSummary.getKey();
+            String targetMetadataKey = targetPrefix + metadataKey.substring(sourcePrefix.length());
+            S3Utilities.awaitAll(
+                Collections.singletonList(s3Connection.copyObject(
+                    bucketName, metadataKey, bucketName, targetMetadataKey, metadataSummary.getSize()
+                )),
+                "copy 's3://%s/%s' to 's3://%s/%s'",
+                bucketName, metadataKey, bucketName, targetMetadataKey
+            );
+        }
+    }
+
+    private boolean objectExists(String key) {
+        ObjectListing listing = s3Client.listObjects(
+            new ListObjectsRequest()
+                .withBucketName(bucketName)
+                .withPrefix(key)
+                .withMaxKeys(1)
+        );
+        return !listing.getCommonPrefixes().isEmpty() || !listing.getObjectSummaries().isEmpty();
+    }
+
+    private boolean metadataExists(S3Path s3Path) {
+        return objectExists(metadataKey(s3Path)) || objectExists(otherMetadataKey(s3Path));
     }
 
     @Override
     protected boolean exists(RuntimeExecutionTrace source, RuntimeAnnotatedExecutionTrace absoluteSource)
             throws IOException {
+        if (metadataExists(toS3Path(source))) {
+            return true;
+        } else if (source.getReference().size() > 1) {
+            // The source may be an element of a linked collection.
+            Optional<ExecutionTrace> link = resolveLink(source);
+            return link.isPresent() && metadataExists(toAbsoluteS3Path(link.get()));
+        }
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This method lists the longest common key prefix of the metadata objects of all given execution traces, and
+     * thus typically needs only a single paginated listing instead of one request per execution trace. Since the
+     * common prefix may contain many unrelated objects, the listing is abandoned once it has issued as many requests
+     * as there are execution traces; remaining execution traces are then checked individually. Execution traces
+     * without a metadata object that may be elements of a linked collection are also checked individually.
+     */
+    @Override
+    protected BitSet checkExistence(List<RuntimeExecutionTrace> sources,
+            List<RuntimeAnnotatedExecutionTrace> absoluteSources) throws IOException {
+        BitSet existing = new BitSet(sources.size());
+        if (sources.isEmpty()) {
+            return existing;
+        }
+
+        // Map from metadata key (in either format) to the indices of all execution traces with that key
+        Map<String, List<Integer>> pendingKeys = new HashMap<>();
+        @Nullable String commonPrefix = null;
+        for (int i = 0; i < sources.size(); ++i) {
+            S3Path s3Path = toS3Path(sources.get(i));
+            String metadataKey = metadataKey(s3Path);
+            pendingKeys.computeIfAbsent(metadataKey, ignored -> new ArrayList<>()).add(i);
+            pendingKeys.computeIfAbsent(otherMetadataKey(s3Path), ignored -> new ArrayList<>()).add(i);
+            commonPrefix = commonPrefix == null
+                ? metadataKey
+                : commonPrefix.substring(0, commonPrefixLength(commonPrefix, metadataKey));
+        }
+        assert commonPrefix != null;
+        // Both metadata keys of an execution trace share the key prefix up to (and including) the last separator.
+        commonPrefix = commonPrefix.substring(0, commonPrefix.lastIndexOf(S3Path.SEPARATOR) + 1);
+
+        int remainingRequests = pendingKeys.size() / 2;
         ObjectListing listing = s3Client.listObjects(
             new ListObjectsRequest()
                 .withBucketName(bucketName)
-                .withPrefix(toS3Path(source).getMetadataKey())
-                .withMaxKeys(1)
+                .withPrefix(commonPrefix)
         );
-        return !listing.getCommonPrefixes().isEmpty() || !listing.getObjectSummaries().isEmpty();
+        --remainingRequests;
+        while (true) {
+            for (S3ObjectSummary summary: listing.getObjectSummaries()) {
+                @Nullable List<Integer> indices = pendingKeys.remove(summary.getKey());
+                if (indices != null) {
+                    indices.forEach(existing::set);
+                }
+            }
+            if (existing.cardinality() == sources.size() || !listing.isTruncated() || remainingRequests <= 0) {
+                break;
+            }
+            listing = s3Client.listNextBatchOfObjects(listing);
+            --remainingRequests;
+        }
+
+        boolean listingComplete = !listing.isTruncated();
+        for (int index = existing.nextClearBit(0); index < sources.size(); index = existing.nextClearBit(index + 1)) {
+            RuntimeExecutionTrace source = sources.get(index);
+            if ((!listingComplete || source.getReference().size() > 1)
+                    && exists(source, absoluteSources.get(index))) {
+                existing.set(index);
+            }
+        }
+        return existing;
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        int maxLength = Math.min(first.length(), second.length());
+        int length = 0;
+        while (length < maxLength && first.charAt(length) == second.charAt(length)) {
+            ++length;
+        }
+        return length;
     }
 
     @Override
@@ -236,8 +496,8 @@ public final class S3StagingArea extends ExternalStagingArea {
     @Override
     protected S3StagingArea resolveDescendant(RuntimeExecutionTrace trace,
             RuntimeAnnotatedExecutionTrace absoluteTrace) {
-        return new S3StagingArea(absoluteTrace, getRuntimeContext(), getExecutor(),
-            jaxbContext, s3Connection, s3Client, bucketName, toS3Path(trace), maxStagingAreaPrefixLength);
+        return new S3StagingArea(absoluteTrace, getRuntimeContext(), getExecutor(), metadataCodec, metadataCache,
+            localCache, s3Connection, s3Client, bucketName, toS3Path(trace), maxStagingAreaPrefixLength);
     }
 
     /**
@@ -248,25 +508,37 @@ public final class S3StagingArea extends ExternalStagingArea {
      * {@link StagingAreaProvider#provideStaging(RuntimeContext, RuntimeAnnotatedExecutionTrace, xyz.cloudkeeper.model.api.staging.InstanceProvider)}
      * needs to be able to provide instances of the following classes:
      * <ul><li>
-     *     {@link Executor}: The execution context will be used to execute the futures created by the staging area.
+     *     {@link xyz.cloudkeeper.staging.StagingIOExecutor} or, if not available, {@link Executor}: The execution
+     *     context will be used to execute the futures created by the staging area.
      * </li><li>
      *     {@link S3Connection}: An established connection to S3.
+     * </li><li>
+     *     {@link S3LocalCache} (only if this staging area uses a local cache): The local cache of the node. If not
+     *     available, the reconstructed staging area does not use a local cache.
      * </li></ul>
      */
     @Override
     public StagingAreaProvider getStagingAreaProvider() {
-        return new StagingAreaProviderImpl(bucketName, s3BaseKey.getPrefix(), maxStagingAreaPrefixLength);
+        return new StagingAreaProviderImpl(bucketName, s3BaseKey.getPrefix(), maxStagingAreaPrefixLength,
+            localCache != null, metadataCodec.getFormat(), metadataCache.getMaximumSize());
     }
 
     private static final class S3ByteSequence implements ByteSequence {
         private final S3Connection s3Connection;
         private final URI uri;
+        @Nullable private final S3LocalCache localCache;
         private final Object mutex = new Object();
-        private volatile long contentLength = -1;
 
-        private S3ByteSequence(S3Connection s3Connection, URI uri) {
+        /**
+         * Metadata of the S3 object, or {@code null} if not yet retrieved. Once retrieved, the metadata is never
+         * modified.
+         */
+        @Nullable private volatile ObjectMetadata objectMetadata = null;
+
+        private S3ByteSequence(S3Connection s3Connection, URI uri, @Nullable S3LocalCache localCache) {
             this.s3Connection = s3Connection;
             this.uri = uri;
+            this.localCache = localCache;
         }
 
         @Override
@@ -295,33 +567,42 @@ public final class S3StagingArea extends ExternalStagingArea {
             return uri.getPath().substring(1);
         }
 
-        @Override
-        public long getContentLength() throws IOException {
-            long length = contentLength;
-            if (length == -1) {
+        /**
+         * Returns the metadata of the S3 object, retrieving it with a single request the first time this method is
+         * called.
+         *
+         * <p>The ETag in the metadata identifies the content that entries in the local cache must match.
+         */
+        private ObjectMetadata getObjectMetadata() throws IOException {
+            @Nullable ObjectMetadata metadata = objectMetadata;
+            if (metadata == null) {
                 synchronized (mutex) {
-                    length = contentLength;
-                    if (length == -1) {
+                    metadata = objectMetadata;
+                    if (metadata == null) {
                         try {
-                            length = s3Connection.getS3Client()
-                                .getObjectMetadata(uri.getAuthority(), keyFromUri(uri))
-                                .getInstanceLength();
+                            metadata = s3Connection.getS3Client()
+                                .getObjectMetadata(uri.getAuthority(), keyFromUri(uri));
                         } catch (AmazonClientException exception) {
                             throw new S3StagingException(String.format(
-                                "Failed to determine content length for '%s'.", uri
+                                "Failed to retrieve metadata for '%s'.", uri
                             ), exception);
                         }
-                        if (length < 0) {
+                        if (metadata.getInstanceLength() < 0) {
                             throw new S3StagingException(String.format(
                                 "Failed to determine content length for '%s', because Amazon S3 returned length %d.",
-                                uri, length
+                                uri, metadata.getInstanceLength()
                             ));
                         }
-                        contentLength = length;
+                        objectMetadata = metadata;
                     }
                 }
             }
-            return length;
+            return metadata;
+        }
+
+        @Override
+        public long getContentLength() throws IOException {
+            return getObjectMetadata().getInstanceLength();
         }
 
         @Override
@@ -331,7 +612,75 @@ public final class S3StagingArea extends ExternalStagingArea {
 
         @Override
         public InputStream newInputStream() throws IOException {
-            return s3Connection.newBufferedInputStream(uri.getAuthority(), keyFromUri(uri), 0);
+            @Nullable FileChannel fileChannel = newFileChannel();
+            return fileChannel == null
+                ? s3Connection.newBufferedInputStream(uri.getAuthority(), keyFromUri(uri), 0)
+                : Channels.newInputStream(fileChannel);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * <p>If the staging area uses a local cache, this method returns a file channel for the cached file. The
+         * cached file is only used if it has the same ETag and length as the S3 object. If the local cache does not
+         * contain such a file yet, the S3 object is downloaded into the cache first (unless it is larger than the
+         * cache). Otherwise, this method returns {@code null}.
+         */
+        @Override
+        @Nullable
+        public FileChannel newFileChannel() throws IOException {
+            if (localCache == null) {
+                return null;
+            }
+
+            ObjectMetadata metadata = getObjectMetadata();
+            long length = metadata.getInstanceLength();
+            String eTag = metadata.getETag();
+            if (length > localCache.getMaximumSize()) {
+                return null;
+            }
+
+            String bucketName = uri.getAuthority();
+            String key = keyFromUri(uri);
+            String cacheKey = localCacheKey(bucketName, key);
+            @Nullable FileChannel fileChannel = localCache.open(cacheKey, eTag, length);
+            if (fileChannel != null) {
+                return fileChannel;
+            }
+
+            Path file = localCache.newTemporaryFile();
+            boolean success = false;
+            try {
+                // The ETag constraint guarantees that the downloaded content matches the metadata retrieved earlier.
+                @Nullable ObjectMetadata downloadedMetadata;
+                try {
+                    downloadedMetadata = s3Connection.getS3Client().getObject(
+                        new GetObjectRequest(bucketName, key).withMatchingETagConstraint(eTag),
+                        file.toFile()
+                    );
+                } catch (AmazonClientException exception) {
+                    throw new S3StagingException(String.format(
+                        "Failed to download '%s' into %s.", uri, localCache
+                    ), exception);
+                }
+                if (downloadedMetadata == null) {
+                    throw new S3StagingException(String.format(
+                        "Failed to download '%s', because it was modified after its metadata had been retrieved.", uri
+                    ));
+                }
+                // Open the file before adding it to the cache, so that it cannot be evicted in the meantime.
+                fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+                localCache.put(cacheKey, eTag, file);
+                success = true;
+                return fileChannel;
+            } finally {
+                if (!success) {
+                    if (fileChannel != null) {
+                        fileChannel.close();
+                    }
+                    Files.deleteIfExists(file);
+                }
+            }
         }
     }
 
@@ -354,23 +703,53 @@ public final class S3StagingArea extends ExternalStagingArea {
 
         @Override
         public MutableObjectMetadata getMetadata() throws IOException {
-            try (InputStream inputStream
-                    = s3Connection.newBufferedInputStream(bucketName, s3Path.getMetadataKey(), 0)) {
-                Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
-                return (MutableObjectMetadata) unmarshaller.unmarshal(inputStream);
-            } catch (JAXBException exception) {
-                throw new StagingException(String.format(
-                    "Failed to unmarshal object metadata from '%s'.", createS3Uri(s3Path)
-                ), exception);
+            String cacheKey = s3Path.getPrefixForChildren();
+            @Nullable MutableObjectMetadata cachedMetadata = metadataCache.get(cacheKey);
+            if (cachedMetadata != null) {
+                return cachedMetadata;
+            }
+
+            MutableObjectMetadata metadata;
+            try {
+                metadata = readMetadata(metadataKey(s3Path));
+            } catch (IOException exception) {
+                // The metadata may have been written in the other format, for instance, by an earlier version. Only
+                // then, an additional request is necessary.
+                String otherMetadataKey = otherMetadataKey(s3Path);
+                if (!objectExists(otherMetadataKey)) {
+                    throw new StagingException(String.format(
+                        "Failed to unmarshal object metadata from '%s'.", createS3Uri(s3Path)
+                    ), exception);
+                }
+                try {
+                    metadata = readMetadata(otherMetadataKey);
+                } catch (IOException otherException) {
+                    throw new StagingException(String.format(
+                        "Failed to unmarshal object metadata from '%s'.", createS3Uri(s3Path)
+                    ), otherException);
+                }
+            }
+            metadataCache.put(cacheKey, metadata);
+            return metadata;
+        }
+
+        private MutableObjectMetadata readMetadata(String metadataKey) throws IOException {
+            try (InputStream inputStream = s3Connection.newBufferedInputStream(bucketName, metadataKey, 0)) {
+                return metadataCodec.read(inputStream);
             }
         }
 
+        @Override
+        public boolean exists() {
+            return metadataExists(s3Path);
+        }
+
         @Override
         public ByteSequence getByteSequence(Key key) throws IOException {
             S3Path byteSequencePath = key instanceof NoKey
                 ? s3Path.resolveDefaultKey()
                 : s3Path.resolve(key.toString());
-            return new S3ByteSequence(s3Connection, createS3Uri(byteSequencePath));
+            return new S3ByteSequence(s3Connection, createS3Uri(byteSequencePath), localCache);
         }
 
         @Override
@@ -396,23 +775,25 @@ public final class S3StagingArea extends ExternalStagingArea {
 
         @Override
         public OutputStream newOutputStream(Key key, @Nullable MutableObjectMetadata metadata) throws IOException {
-            return s3Connection.newBufferedOutputStream(bucketName, targetPath(key).toString());
+            String s3Key = targetPath(key).toString();
+            return localCache == null
+                ? s3Connection.newBufferedOutputStream(bucketName, s3Key)
+                : new LocalCacheOutputStream(localCache, s3Key);
         }
 
         @Override
         public void putMetadata(MutableObjectMetadata metadata) throws IOException {
-            try (
-                OutputStream outputStream
-                    = s3Connection.newBufferedOutputStream(bucketName, s3Path.getMetadataKey())
-            ) {
-                Marshaller marshaller = jaxbContext.createMarshaller();
-                marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-                marshaller.marshal(metadata, outputStream);
-            } catch (JAXBException exception) {
+            String metadataKey = metadataKey(s3Path);
+            String cacheKey = s3Path.getPrefixForChildren();
+            metadataCache.invalidate(cacheKey);
+            try (OutputStream outputStream = s3Connection.newBufferedOutputStream(bucketName, metadataKey)) {
+                metadataCodec.write(metadata, outputStream);
+            } catch (IOException exception) {
                 throw new StagingException(String.format(
                     "Failed to marshal object metadata to '%s'.", createS3Uri(s3Path)
                 ), exception);
             }
+            metadataCache.put(cacheKey, metadata);
         }
 
         private void copy(InputStream inputStream, OutputStream outputStream) throws IOException {
@@ -450,6 +831,23 @@ public final class S3StagingArea extends ExternalStagingArea {
             }
         }
 
+        /**
+         * Adds a copy of the given (already uploaded) file to the local cache.
+         *
+         * <p>The copy is made only after the upload, so that the upload is not delayed. A hard link is not an option,
+         * because the owner of the original file may modify it later. Failing to populate the cache is not an error.
+         */
+        private void putCopyIntoLocalCache(S3LocalCache localCache, String s3Key, String eTag,
+                FileChannel fileChannel) {
+            try {
+                localCache.putCopy(localCacheKey(bucketName, s3Key), eTag, fileChannel);
+            } catch (IOException exception) {
+                log.warn(String.format(
+                    "Failed to add copy of 's3://%s/%s' to %s.", bucketName, s3Key, localCache
+                ), exception);
+            }
+        }
+
         @Override
         public void putByteSequence(ByteSequence byteSequence, Key key, @Nullable MutableObjectMetadata metadata)
                 throws IOException {
@@ -488,6 +886,33 @@ public final class S3StagingArea extends ExternalStagingArea {
                 }
             }
 
+            if (!wroteByteSequence) {
+                // Second-best case: If the byte sequence is backed by a local file, upload directly from the file
+                try (@Nullable FileChannel fileChannel = byteSequence.newFileChannel()) {
+                    if (fileChannel != null) {
+                        String s3Key = targetPath(key).toString();
+                        String eTag = S3Utilities.uploadFileChannel(s3Connection, bucketName, s3Key, fileChannel);
+                        wroteByteSequence = true;
+                        if (localCache != null) {
+                            putCopyIntoLocalCache(localCache, s3Key, eTag, fileChannel);
+                        }
+                    }
+                }
+            }
+
+            if (!wroteByteSequence && localCache != null
+                    && byteSequence.getContentLength() <= localCache.getMaximumSize()) {
+                // With a local cache, write the byte sequence into the cache first, and upload from there
+                try (
+                    InputStream inputStream = byteSequence.newInputStream();
+                    OutputStream outputStream = new LocalCacheOutputStream(localCache, targetPath(key).toString())
+                ) {
+                    copy(inputStream, outputStream);
+                }
+                wroteByteSequence = true;
+            }
+
+            // Last case: Perform a copy from the input stream
             if (!wroteByteSequence) {
                 try (
                     InputStream inputStream = byteSequence.newInputStream();
@@ -507,6 +932,58 @@ public final class S3StagingArea extends ExternalStagingArea {
         }
     }
 
+    /**
+     * Output stream that writes into a new file in the local cache, and uploads the file once closed.
+     *
+     * <p>The upload is complete once {@link #close()} returns, so the staging-area contract is not weakened by the
+     * local cache. The file is added to the local cache only after a successful upload.
+     */
+    private final class LocalCacheOutputStream extends FilterOutputStream {
+        private final S3LocalCache localCache;
+        private final String key;
+        private final Path file;
+        private boolean closed = false;
+
+        private LocalCacheOutputStream(S3LocalCache localCache, String key) throws IOException {
+            this(localCache, key, localCache.newTemporaryFile());
+        }
+
+        private LocalCacheOutputStream(S3LocalCache localCache, String key, Path file) throws IOException {
+            super(BufferPool.shared().newBufferedOutputStream(Files.newOutputStream(file)));
+            this.localCache = localCache;
+            this.key = key;
+            this.file = file;
+        }
+
+        @Override
+        public void write(byte[] array, int offset, int length) throws IOException {
+            out.write(array, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            boolean success = false;
+            try {
+                super.close();
+                String eTag;
+                try (FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    eTag = S3Utilities.uploadFileChannel(s3Connection, bucketName, key, fileChannel);
+                }
+                localCache.put(localCacheKey(bucketName, key), eTag, file);
+                success = true;
+            } finally {
+                if (!success) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
     /**
      * This class is used to create S3-based staging areas.
      */
@@ -520,6 +997,9 @@ public final class S3StagingArea extends ExternalStagingArea {
         private final Executor executor;
         private String keyPrefix = "";
         private int maxStagingAreaPrefixLength = DEFAULT_MAX_STAGING_AREA_PREFIX_LENGTH;
+        private ObjectMetadataCodec.Format metadataFormat = ObjectMetadataCodec.Format.BINARY;
+        private int metadataCacheSize = ObjectMetadataCache.DEFAULT_MAXIMUM_SIZE;
+        @Nullable private S3LocalCache localCache = null;
 
         /**
          * Constructs a builder with the specified arguments.
@@ -527,7 +1007,9 @@ public final class S3StagingArea extends ExternalStagingArea {
          * @param absoluteTrace absolute execution trace that will correspond to the base path of this staging area
          * @param s3Connection connection to Amazon S3
          * @param s3Bucket S3 bucket for the new staging area
-         * @param executor executor that S3-related tasks will be submitted to
+         * @param executor executor that S3-related tasks will be submitted to; if this is a
+         *     {@link xyz.cloudkeeper.staging.StagingIOExecutor}, metadata operations and bulk transfers use separate
+         *     lanes
          * @param runtimeContext runtime context consisting of CloudKeeper plug-in declarations and Java class loader,
          *     both needed during deserialization
          */
@@ -569,13 +1051,52 @@ public final class S3StagingArea extends ExternalStagingArea {
             return this;
         }
 
-        private static JAXBContext jaxbContext() {
-            try {
-                return JAXBContext.newInstance(MutableObjectMetadata.class);
-            } catch (JAXBException exception) {
-                throw new IllegalStateException(
-                    "Exception while constructing JAXB context. This should not happen.", exception);
+        /**
+         * Sets the format in which object metadata is written.
+         *
+         * <p>Object metadata in either format can always be read, independently of this setting. By default,
+         * {@link #build()} will assume {@link ObjectMetadataCodec.Format#BINARY}. Choose
+         * {@link ObjectMetadataCodec.Format#XML} if the staging area also needs to be readable by earlier versions.
+         *
+         * @param metadataFormat format in which object metadata is written
+         * @return this builder
+         */
+        public Builder setMetadataFormat(ObjectMetadataCodec.Format metadataFormat) {
+            this.metadataFormat = Objects.requireNonNull(metadataFormat);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of object-metadata entries kept in memory.
+         *
+         * <p>By default, {@link #build()} will assume {@link ObjectMetadataCache#DEFAULT_MAXIMUM_SIZE}. A value of 0
+         * disables caching.
+         *
+         * @param metadataCacheSize maximum number of cached object-metadata entries, must be non-negative
+         * @return this builder
+         */
+        public Builder setMetadataCacheSize(int metadataCacheSize) {
+            if (metadataCacheSize < 0) {
+                throw new IllegalArgumentException(String.format(
+                    "Expected non-negative cache size, but got %d.", metadataCacheSize
+                ));
             }
+            this.metadataCacheSize = metadataCacheSize;
+            return this;
+        }
+
+        /**
+         * Sets the local cache that the staging area uses as a tier in front of S3.
+         *
+         * <p>The local cache may be shared by multiple staging areas. By default, {@link #build()} will assume no local
+         * cache; that is, all byte sequences are read from and written to S3 directly.
+         *
+         * @param localCache local cache, or {@code null} to disable the local cache
+         * @return this builder
+         */
+        public Builder setLocalCache(@Nullable S3LocalCache localCache) {
+            this.localCache = localCache;
+            return this;
         }
 
         /**
@@ -584,9 +1105,9 @@ public final class S3StagingArea extends ExternalStagingArea {
          * @return the new staging area
          */
         public ExternalStagingArea build() {
-            return new S3StagingArea(absoluteTrace, runtimeContext, executor, jaxbContext(), s3Connection,
-                s3Connection.getS3Client(), s3Bucket, toS3Path(S3Path.empty(keyPrefix), absoluteTrace),
-                maxStagingAreaPrefixLength);
+            return new S3StagingArea(absoluteTrace, runtimeContext, executor, new ObjectMetadataCodec(metadataFormat),
+                new ObjectMetadataCache(metadataCacheSize), localCache, s3Connection, s3Connection.getS3Client(),
+                s3Bucket, toS3Path(S3Path.empty(keyPrefix), absoluteTrace), maxStagingAreaPrefixLength);
         }
     }
 }
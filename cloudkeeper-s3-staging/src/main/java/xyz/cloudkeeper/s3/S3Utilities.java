@@ -1,39 +1,164 @@
 package xyz.cloudkeeper.s3;
 
-import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.iterable.S3Objects;
-import com.amazonaws.services.s3.model.DeleteObjectsRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import net.florianschoppmann.java.futures.Futures;
+import xyz.cloudkeeper.model.util.ByteSequences;
+import xyz.cloudkeeper.s3.io.S3Connection;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
 
 final class S3Utilities {
     /**
-     * Maximum number of keys that will be deleted together.
-     *
-     * <p>{@link DeleteObjectsRequest} specifies that at most 1000 keys can be deleted at once.
+     * Maximum number of parts of a multi-part upload, as defined by Amazon S3.
      */
-    private static final int BULK_DELETE_SIZE = 1000;
+    private static final int MAXIMUM_PARTS_PER_UPLOAD = 10000;
 
     private S3Utilities() {
         throw new AssertionError(String.format("No %s instances for you!", getClass().getName()));
     }
 
-    static void deletePrefix(AmazonS3 s3Client, String bucketName, String prefix) {
-        List<DeleteObjectsRequest.KeyVersion> trashKeys = new ArrayList<>();
-        DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(bucketName);
-        for (S3ObjectSummary summary: S3Objects.withPrefix(s3Client, bucketName, prefix)) {
-            trashKeys.add(new DeleteObjectsRequest.KeyVersion(summary.getKey()));
-            if (trashKeys.size() == BULK_DELETE_SIZE) {
-                deleteObjectsRequest.setKeys(trashKeys);
-                s3Client.deleteObjects(deleteObjectsRequest);
-                trashKeys.clear();
+    /**
+     * Waits until all of the given futures have been completed, or until one of them has been completed exceptionally.
+     *
+     * @param futures futures to wait for
+     * @param format format string describing the operation, used in exception messages
+     * @param args arguments referenced by the format specifiers in the format string
+     * @throws S3StagingException if one of the futures was completed exceptionally, or if the current thread was
+     *     interrupted while waiting
+     */
+    static void awaitAll(Collection<? extends CompletableFuture<?>> futures, String format, Object... args)
+            throws S3StagingException {
+        try {
+            Futures.shortCircuitCollect(futures).get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new S3StagingException(String.format(
+                "Interrupted while waiting to %s.", String.format(format, args)
+            ), exception);
+        } catch (ExecutionException exception) {
+            throw new S3StagingException(
+                String.format("Failed to %s.", String.format(format, args)), exception.getCause()
+            );
+        }
+    }
+
+    /**
+     * Deletes all objects whose key starts with the given prefix.
+     *
+     * <p>Keys are deleted with multi-object delete requests of up to
+     * {@link S3Connection#MAXIMUM_KEYS_PER_DELETE_REQUEST} keys each. Each request is sent as soon as the corresponding
+     * keys have been listed, so deleting and listing overlap.
+     */
+    static void deletePrefix(S3Connection s3Connection, String bucketName, String prefix) throws IOException {
+        List<CompletableFuture<Void>> deleteFutures = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (S3ObjectSummary summary: S3Objects.withPrefix(s3Connection.getS3Client(), bucketName, prefix)) {
+            keys.add(summary.getKey());
+            if (keys.size() == S3Connection.MAXIMUM_KEYS_PER_DELETE_REQUEST) {
+                deleteFutures.add(s3Connection.deleteObjects(bucketName, keys));
+                keys = new ArrayList<>();
             }
         }
-        if (!trashKeys.isEmpty()) {
-            deleteObjectsRequest.setKeys(trashKeys);
-            s3Client.deleteObjects(deleteObjectsRequest);
+        if (!keys.isEmpty()) {
+            deleteFutures.add(s3Connection.deleteObjects(bucketName, keys));
+        }
+        awaitAll(deleteFutures, "delete keys with prefix 's3://%s/%s'", bucketName, prefix);
+    }
+
+    private static InputStream mappedInputStream(FileChannel fileChannel, long position, long size) throws IOException {
+        ByteBuffer mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        return ByteSequences.byteBufferBacked(mappedBuffer).newInputStream();
+    }
+
+    /**
+     * Uploads the entire content of the given file channel to S3.
+     *
+     * <p>Unlike writing to a stream returned by {@link S3Connection#newBufferedOutputStream(String, String)}, this
+     * method does not copy the content into buffers on the Java heap. Instead, each part of the (multi-part) upload is
+     * read from a read-only memory mapping of the file. Parts have size {@link S3Connection#getBufferSize()} (unless
+     * the file is so large that this would exceed the maximum number of parts), and up to
+     * {@link S3Connection#getParallelConnectionsPerRequest()} part uploads may be active at the same time.
+     *
+     * @return the ETag of the uploaded S3 object
+     */
+    static String uploadFileChannel(S3Connection s3Connection, String bucketName, String key,
+            FileChannel fileChannel) throws IOException {
+        long size = fileChannel.size();
+        long partSize = Math.max(
+            s3Connection.getBufferSize(),
+            (size + MAXIMUM_PARTS_PER_UPLOAD - 1) / MAXIMUM_PARTS_PER_UPLOAD
+        );
+        if (size <= partSize) {
+            CompletableFuture<PutObjectResult> putObjectFuture
+                = s3Connection.putObject(bucketName, key, mappedInputStream(fileChannel, 0, size), (int) size);
+            awaitAll(Collections.singletonList(putObjectFuture), "upload to 's3://%s/%s'", bucketName, key);
+            return putObjectFuture.join().getETag();
+        }
+
+        CompletableFuture<String> uploadIdFuture = s3Connection.initiateMultipartUpload(bucketName, key)
+            .thenApply(result -> result.getUploadId());
+        awaitAll(Collections.singletonList(uploadIdFuture), "initiate multi-part upload to 's3://%s/%s'",
+            bucketName, key);
+        String uploadId = uploadIdFuture.join();
+
+        boolean success = false;
+        try {
+            Semaphore semaphore = new Semaphore(Math.max(1, s3Connection.getParallelConnectionsPerRequest()));
+            List<CompletableFuture<PartETag>> partETagFutures = new ArrayList<>();
+            int partNumber = 1;
+            for (long position = 0; position < size; position += partSize) {
+                try {
+                    semaphore.acquire();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                    throw new S3StagingException(String.format(
+                        "Interrupted while uploading to 's3://%s/%s'.", bucketName, key
+                    ), exception);
+                }
+                int currentPartSize = (int) Math.min(partSize, size - position);
+                CompletableFuture<PartETag> partETagFuture = s3Connection
+                    .uploadPart(bucketName, key, uploadId, partNumber,
+                        mappedInputStream(fileChannel, position, currentPartSize), currentPartSize)
+                    .thenApply(result -> result.getPartETag());
+                partETagFuture.whenComplete((ignored, throwable) -> semaphore.release());
+                partETagFutures.add(partETagFuture);
+                if (partETagFuture.isCompletedExceptionally()) {
+                    // No need to continue; awaitAll() will throw.
+                    break;
+                }
+                ++partNumber;
+            }
+            awaitAll(partETagFutures, "upload parts to 's3://%s/%s'", bucketName, key);
+
+            List<PartETag> partETags = new ArrayList<>(partETagFutures.size());
+            for (CompletableFuture<PartETag> partETagFuture: partETagFutures) {
+                partETags.add(partETagFuture.join());
+            }
+            CompletableFuture<CompleteMultipartUploadResult> completeFuture
+                = s3Connection.completeMultipartUpload(bucketName, key, uploadId, partETags);
+            awaitAll(Collections.singletonList(completeFuture), "complete multi-part upload to 's3://%s/%s'",
+                bucketName, key);
+            success = true;
+            return completeFuture.join().getETag();
+        } finally {
+            if (!success) {
+                // Best effort only. Incomplete multi-part uploads would otherwise incur storage cost.
+                s3Connection.abortMultipartUpload(bucketName, key, uploadId);
+            }
         }
     }
 }
@@ -7,7 +7,10 @@ import xyz.cloudkeeper.model.api.staging.StagingArea;
 import xyz.cloudkeeper.model.api.staging.StagingAreaProvider;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.s3.io.S3Connection;
+import xyz.cloudkeeper.staging.ObjectMetadataCodec;
+import xyz.cloudkeeper.staging.StagingIOExecutor;
 
+import javax.annotation.Nullable;
 import java.util.Objects;
 import java.util.concurrent.Executor;
 
@@ -17,21 +20,44 @@ final class StagingAreaProviderImpl implements StagingAreaProvider {
     private final String s3Bucket;
     private final String s3KeyPrefix;
     private final int maxStagingAreaPrefixLength;
+    private final boolean localCacheEnabled;
+    private final ObjectMetadataCodec.Format metadataFormat;
+    private final int metadataCacheSize;
 
-    StagingAreaProviderImpl(String s3Bucket, String s3KeyPrefix, int maxStagingAreaPrefixLength) {
+    StagingAreaProviderImpl(String s3Bucket, String s3KeyPrefix, int maxStagingAreaPrefixLength,
+            boolean localCacheEnabled, ObjectMetadataCodec.Format metadataFormat, int metadataCacheSize) {
         this.s3Bucket = Objects.requireNonNull(s3Bucket);
         this.s3KeyPrefix = Objects.requireNonNull(s3KeyPrefix);
         this.maxStagingAreaPrefixLength = maxStagingAreaPrefixLength;
+        this.localCacheEnabled = localCacheEnabled;
+        this.metadataFormat = Objects.requireNonNull(metadataFormat);
+        this.metadataCacheSize = metadataCacheSize;
+    }
+
+    @Nullable
+    private S3LocalCache provideLocalCache(InstanceProvider instanceProvider) {
+        if (!localCacheEnabled) {
+            return null;
+        }
+        try {
+            return instanceProvider.getInstance(S3LocalCache.class);
+        } catch (InstanceProvisionException ignored) {
+            // The local cache is an optimization only.
+            return null;
+        }
     }
 
     @Override
     public StagingArea provideStaging(RuntimeContext runtimeContext, RuntimeAnnotatedExecutionTrace executionTrace,
             InstanceProvider instanceProvider) throws InstanceProvisionException {
-        Executor executor = instanceProvider.getInstance(Executor.class);
+        Executor executor = StagingIOExecutor.provideExecutor(instanceProvider);
         S3Connection s3Connection = instanceProvider.getInstance(S3Connection.class);
         return new S3StagingArea.Builder(executionTrace, s3Connection, s3Bucket, executor, runtimeContext)
             .setKeyPrefix(s3KeyPrefix)
             .setMaxStagingAreaPrefixLength(maxStagingAreaPrefixLength)
+            .setLocalCache(provideLocalCache(instanceProvider))
+            .setMetadataFormat(metadataFormat)
+            .setMetadataCacheSize(metadataCacheSize)
             .build();
     }
 }
@@ -1,5 +1,8 @@
 package xyz.cloudkeeper.s3.io;
 
+import xyz.cloudkeeper.model.util.BufferPool;
+
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -35,10 +38,14 @@ import java.util.Objects;
  * <p>As an edge case, this class also replicates the functionality of {@link java.io.ByteArrayOutputStream}. The
  * single-argument constructor {@link #QueuingOutputStream(byte[])} may be used in this case.
  *
+ * <p>If a {@link BufferPool} is passed to the constructor {@link #QueuingOutputStream(int, int, BufferPool)}, buffers
+ * are taken from the pool, and {@link #release()} returns them once the bytes are no longer needed.
+ *
  * @author Florian Schoppmann
  */
 public final class QueuingOutputStream extends OutputStream {
     private final byte[][] byteBuffers;
+    @Nullable private final BufferPool bufferPool;
     private final int maxNumberOfBytes;
     private final int sizeOfFirstBuffer;
     private final int sizeOfLastBuffer;
@@ -52,6 +59,7 @@ public final class QueuingOutputStream extends OutputStream {
      */
     public QueuingOutputStream(byte[] buffer) {
         byteBuffers = new byte[][] {buffer};
+        bufferPool = null;
         maxNumberOfBytes = buffer.length;
         sizeOfFirstBuffer = buffer.length;
         sizeOfLastBuffer = buffer.length;
@@ -66,6 +74,20 @@ public final class QueuingOutputStream extends OutputStream {
      *     more than this many bytes will cause an exception.
      */
     public QueuingOutputStream(int minSize, int maxNumberOfBytes) {
+        this(minSize, maxNumberOfBytes, null);
+    }
+
+    /**
+     * Constructor for instance with incremental buffer sizes, where buffers are taken from the given pool.
+     *
+     * @param minSize Minimum size (in bytes) that should be allocated for the first buffer. Must be > 0. It is
+     *     recommended but not necessary that the size is a power of 2.
+     * @param maxNumberOfBytes Maximum number of bytes that will be written to this input stream. Must be >= 0. Writing
+     *     more than this many bytes will cause an exception.
+     * @param bufferPool Pool that buffers are taken from, or {@code null} if buffers are to be allocated. If non-null,
+     *     {@link #release()} should be called once the bytes written to this stream are no longer needed.
+     */
+    public QueuingOutputStream(int minSize, int maxNumberOfBytes, @Nullable BufferPool bufferPool) {
         if (minSize <= 0) {
             throw new IllegalArgumentException(String.format("Expected minSize > 0, but got %d.", minSize));
         } else if (maxNumberOfBytes < 0) {
@@ -75,6 +97,7 @@ public final class QueuingOutputStream extends OutputStream {
         }
 
         this.maxNumberOfBytes = maxNumberOfBytes;
+        this.bufferPool = bufferPool;
 
         // sizeOfFirstBuffer will contain the size of the first buffer. Each subsequent buffer will be twice the size of
         // its preceding buffer (except for the last buffer, which will simply consume the difference between
@@ -132,7 +155,9 @@ public final class QueuingOutputStream extends OutputStream {
             } else {
                 newSize = 2 * byteBuffers[currentWriteBuffer - 1].length;
             }
-            byteBuffers[currentWriteBuffer] = new byte[newSize];
+            byteBuffers[currentWriteBuffer] = bufferPool == null
+                ? new byte[newSize]
+                : bufferPool.acquire(newSize);
             posInCurrentWriteBuffer = 0;
         }
     }
@@ -208,6 +233,24 @@ public final class QueuingOutputStream extends OutputStream {
         return byteBuffers;
     }
 
+    /**
+     * Returns all buffers of this stream to the buffer pool passed to the constructor.
+     *
+     * <p>After this method has been called, neither this stream nor any input stream previously returned by
+     * {@link #toInputStream()} must be used any more. If no buffer pool was passed to the constructor, this method does
+     * nothing.
+     */
+    public void release() {
+        if (bufferPool == null) {
+            return;
+        }
+
+        for (int i = 0; i < byteBuffers.length && byteBuffers[i] != null; ++i) {
+            bufferPool.release(byteBuffers[i]);
+            byteBuffers[i] = null;
+        }
+    }
+
     private final class ByteArraysInputStream extends InputStream {
         private final int size = getTotalBytesWritten();
         private int markedReadBuffer = 0;
@@ -7,6 +7,7 @@ import com.amazonaws.services.s3.model.UploadPartResult;
 import net.florianschoppmann.java.futures.Futures;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import xyz.cloudkeeper.model.util.BufferPool;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
@@ -33,7 +34,9 @@ import java.util.concurrent.Executor;
  * {@link S3Connection#getParallelConnectionsPerRequest()} and
  * {@link S3Connection#getBufferSize()}. However, this class will use a
  * {@link QueuingOutputStream} for buffering the first {@link S3Connection#getBufferSize()}
- * bytes. Hence, this class is memory-efficient also for writing many small files to S3.
+ * bytes. Hence, this class is memory-efficient also for writing many small files to S3. The buffers of this
+ * {@link QueuingOutputStream} are taken from {@link BufferPool#shared()} and returned once the bytes have been
+ * transferred, so writing many small or medium-sized files does not allocate new buffers for every file.
  *
  * <p>An output stream of this class will split the upload into multiple parts (using Amazon S3 multi-part uploads). It
  * is therefore crucial that this stream will be closed, that is, the {@link #close()} will be called eventually.
@@ -132,7 +135,7 @@ final class S3BufferedOutputStream extends OutputStream {
 
         numBuffers = s3Connection.getParallelConnectionsPerRequest();
         availableBuffers = new ArrayBlockingQueue<>(numBuffers);
-        currentBuffer = new QueuingOutputStream(INITIAL_BUFFER_SIZE, bufferSize);
+        currentBuffer = new QueuingOutputStream(INITIAL_BUFFER_SIZE, bufferSize, BufferPool.shared());
     }
 
     /**
@@ -225,6 +228,9 @@ final class S3BufferedOutputStream extends OutputStream {
                     if (bufferArrays.length == 1 && bufferArrays[0].length == bufferSize) {
                         // Reuse the buffer if it was backed by a single array of the correct size.
                         availableBuffers.add(new QueuingOutputStream(bufferArrays[0]));
+                    } else {
+                        // The part upload has finished, so nobody reads from the buffer any more.
+                        buffer.release();
                     }
                 },
                 executorService
@@ -384,11 +390,17 @@ final class S3BufferedOutputStream extends OutputStream {
 
             try {
                 completionFuture.get();
+                if (uploadIdFuture == null && currentBuffer != null) {
+                    // The (single) upload has finished, so nobody reads from the buffer any more. In case of an
+                    // exception, the buffer is simply left to the garbage collector.
+                    currentBuffer.release();
+                }
             } catch (ExecutionException | InterruptedException exception) {
                 throw mapException(exception);
             } finally {
                 // Release references and let garbage collector do its work
                 partETagFutures = null;
+                currentBuffer = null;
                 availableBuffers.clear();
             }
         }
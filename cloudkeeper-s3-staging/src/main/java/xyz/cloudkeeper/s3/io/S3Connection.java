@@ -37,6 +37,14 @@ public interface S3Connection {
      */
     int MINIMUM_PART_SIZE = 5 * 1024 * 1024;
 
+    /**
+     * Maximum number of keys in a single multi-object delete request.
+     *
+     * @see <a href="http://docs.aws.amazon.com/AmazonS3/latest/API/multiobjectdeleteapi.html">Amazon Simple Storage
+     * Service: Delete Multiple Objects</a>
+     */
+    int MAXIMUM_KEYS_PER_DELETE_REQUEST = 1000;
+
     /**
      * Returns the Amazon S3 client configuration.
      *
@@ -89,6 +97,11 @@ public interface S3Connection {
      */
     int getBufferSize();
 
+    /**
+     * Returns the counters for the requests sent through this connection.
+     */
+    S3RequestMetrics getRequestMetrics();
+
     /**
      * Returns a listing of objects with the given prefix.
      *
@@ -194,6 +207,42 @@ public interface S3Connection {
      */
     CompletableFuture<Void> moveObject(String fromBucketName, String fromKey, String toBucketName, String toKey);
 
+    /**
+     * Copies the given key to another key, using a server-side copy.
+     *
+     * <p>If {@code size} is at least {@link #getMultipartCopyThreshold()}, the object is copied with a multi-part
+     * upload, where each part is copied on the server side with a copy-part request. Parts have size
+     * {@link #getMultipartCopyThreshold()} (except for the last part), and up to
+     * {@link #getParallelConnectionsPerRequest()} copy-part requests may be active at the same time.
+     *
+     * @param size size of the source object (in bytes)
+     * @return Future that will be completed with {@code null} on success, and an
+     *     {@link com.amazonaws.AmazonClientException} in case of transmission failure. The future may also be completed
+     *     with another runtime time exception; however, this indicates a logical bug (programming error).
+     * @see AmazonS3#copyObject(com.amazonaws.services.s3.model.CopyObjectRequest)
+     * @see AmazonS3#copyPart(com.amazonaws.services.s3.model.CopyPartRequest)
+     */
+    CompletableFuture<Void> copyObject(String fromBucketName, String fromKey, String toBucketName, String toKey,
+        long size);
+
+    /**
+     * Returns the minimum object size (in bytes) for which {@link #copyObject(String, String, String, String, long)}
+     * uses a multi-part copy. This is also the part size of a multi-part copy.
+     */
+    long getMultipartCopyThreshold();
+
+    /**
+     * Deletes the given keys with a single multi-object delete request.
+     *
+     * @param keys keys to delete, at most {@link #MAXIMUM_KEYS_PER_DELETE_REQUEST}
+     * @return Future that will be completed with {@code null} on success, and an
+     *     {@link com.amazonaws.AmazonClientException} in case of transmission failure. The future may also be completed
+     *     with another runtime time exception; however, this indicates a logical bug (programming error).
+     * @throws IllegalArgumentException if more than {@link #MAXIMUM_KEYS_PER_DELETE_REQUEST} keys are given
+     * @see AmazonS3#deleteObjects(com.amazonaws.services.s3.model.DeleteObjectsRequest)
+     */
+    CompletableFuture<Void> deleteObjects(String bucketName, List<String> keys);
+
     /**
      * Deletes the given key.
      *
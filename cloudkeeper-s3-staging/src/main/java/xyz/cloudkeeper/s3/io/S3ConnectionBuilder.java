@@ -11,11 +11,17 @@ import java.util.concurrent.ScheduledExecutorService;
  * Builder for an {@link S3Connection} instance.
  */
 public final class S3ConnectionBuilder {
+    /**
+     * Default minimum object size for multi-part copies, 128 MiB.
+     */
+    private static final long DEFAULT_MULTIPART_COPY_THRESHOLD = 128L * 1024 * 1024;
+
     private final AmazonS3 s3Client;
     private final ScheduledExecutorService executorService;
     @Nullable private ClientConfiguration s3ClientConfiguration;
     private int parallelConnectionsPerRequest = 2;
     private int bufferSize = S3Connection.MINIMUM_PART_SIZE;
+    private long multipartCopyThreshold = DEFAULT_MULTIPART_COPY_THRESHOLD;
     private boolean serverSideEncryption = true;
 
     /**
@@ -79,6 +85,18 @@ public final class S3ConnectionBuilder {
         return this;
     }
 
+    /**
+     * Sets the minimum object size for which server-side copies are performed as multi-part copies.
+     *
+     * The default value is 128 MiB.
+     *
+     * @see S3Connection#getMultipartCopyThreshold()
+     */
+    public S3ConnectionBuilder setMultipartCopyThreshold(long multipartCopyThreshold) {
+        this.multipartCopyThreshold = multipartCopyThreshold;
+        return this;
+    }
+
     /**
      * Sets whether data transferred to S3 will be encrypted on the server side.
      *
@@ -102,6 +120,6 @@ public final class S3ConnectionBuilder {
             : new ClientConfiguration();
 
         return new S3ConnectionImpl(actualClientConfiguration, s3Client, executorService, parallelConnectionsPerRequest,
-            bufferSize, serverSideEncryption);
+            bufferSize, multipartCopyThreshold, serverSideEncryption);
     }
 }
@@ -8,7 +8,9 @@ import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.CopyObjectRequest;
+import com.amazonaws.services.s3.model.CopyPartRequest;
 import com.amazonaws.services.s3.model.DeleteObjectRequest;
+import com.amazonaws.services.s3.model.DeleteObjectsRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
@@ -22,13 +24,16 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.s3.model.UploadPartRequest;
 import com.amazonaws.services.s3.model.UploadPartResult;
+import net.florianschoppmann.java.futures.Futures;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import xyz.cloudkeeper.s3.io.S3RequestMetrics.RequestType;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -45,6 +50,11 @@ final class S3ConnectionImpl implements S3Connection {
      */
     private static final int LOG_2_MEBI = 20;
 
+    /**
+     * Maximum size of an object (and thus of a part in a multi-part copy) that can be copied with a single request.
+     */
+    private static final long MAXIMUM_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final ClientConfiguration s3ClientConfiguration;
@@ -52,7 +62,9 @@ final class S3ConnectionImpl implements S3Connection {
     private final ScheduledExecutorService executorService;
     private final int parallelConnectionsPerRequest;
     private final int bufferSize;
+    private final long multipartCopyThreshold;
     private final boolean serverSideEncrypted;
+    private final S3RequestMetrics requestMetrics = new S3RequestMetrics();
 
     /**
      * Constructor.
@@ -66,6 +78,9 @@ final class S3ConnectionImpl implements S3Connection {
      * @param bufferSize Size of in-memory buffers (in bytes) for routing between SFTP and S3 input/output streams. The
      *     buffer size must be at least the minimum size of a part in a multi-part S3 upload
      *     ({@link #MINIMUM_PART_SIZE}).
+     * @param multipartCopyThreshold Minimum size (in bytes) of objects that are copied with a multi-part copy, and
+     *     size of each part in a multi-part copy. The value must be at least {@link #MINIMUM_PART_SIZE} and at most
+     *     5 GiB.
      * @param serverSideEncrypted Whether any data uploaded to S3 will be encrypted on the server side.
      *
      * @throws NullPointerException if any argument is null
@@ -73,7 +88,7 @@ final class S3ConnectionImpl implements S3Connection {
      */
     S3ConnectionImpl(ClientConfiguration s3ClientConfiguration, AmazonS3 s3Client,
             ScheduledExecutorService executorService, int parallelConnectionsPerRequest,
-            int bufferSize, boolean serverSideEncrypted) {
+            int bufferSize, long multipartCopyThreshold, boolean serverSideEncrypted) {
         this.s3ClientConfiguration = new ClientConfiguration(Objects.requireNonNull(s3ClientConfiguration));
         this.s3Client = Objects.requireNonNull(s3Client);
         this.executorService = Objects.requireNonNull(executorService);
@@ -84,8 +99,16 @@ final class S3ConnectionImpl implements S3Connection {
             ));
         }
 
+        if (multipartCopyThreshold < MINIMUM_PART_SIZE || multipartCopyThreshold > MAXIMUM_COPY_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                "Expected multi-part copy threshold between %d MiB and %d MiB, but got %d B.",
+                MINIMUM_PART_SIZE / (1 << LOG_2_MEBI), MAXIMUM_COPY_SIZE / (1 << LOG_2_MEBI), multipartCopyThreshold
+            ));
+        }
+
         this.parallelConnectionsPerRequest = parallelConnectionsPerRequest;
         this.bufferSize = bufferSize;
+        this.multipartCopyThreshold = multipartCopyThreshold;
         this.serverSideEncrypted = serverSideEncrypted;
     }
 
@@ -119,6 +142,16 @@ final class S3ConnectionImpl implements S3Connection {
         return executorService;
     }
 
+    @Override
+    public S3RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    @Override
+    public long getMultipartCopyThreshold() {
+        return multipartCopyThreshold;
+    }
+
     @Override
     public CompletableFuture<ObjectListing> listObjects(String bucketName, String prefix, String separator,
         Integer maxKeys) {
@@ -126,13 +159,22 @@ final class S3ConnectionImpl implements S3Connection {
         final ListObjectsRequest listObjectsRequest
             = new ListObjectsRequest(bucketName, prefix, null, separator, maxKeys);
 
-        return CompletableFuture.supplyAsync(() -> s3Client.listObjects(listObjectsRequest), executorService);
+        return CompletableFuture.supplyAsync(
+            () -> {
+                requestMetrics.increment(RequestType.LIST_OBJECTS);
+                return s3Client.listObjects(listObjectsRequest);
+            },
+            executorService
+        );
     }
 
     @Override
     public CompletableFuture<ObjectListing> listNextBatchOfObjects(final ObjectListing previousObjectListing) {
         return CompletableFuture.supplyAsync(
-            () -> s3Client.listNextBatchOfObjects(previousObjectListing),
+            () -> {
+                requestMetrics.increment(RequestType.LIST_OBJECTS);
+                return s3Client.listNextBatchOfObjects(previousObjectListing);
+            },
             executorService
         );
     }
@@ -262,6 +304,7 @@ final class S3ConnectionImpl implements S3Connection {
 
             // getObject() may return null if some constraints of the request cannot be met. Thanks to JDK-7020047,
             // the try-with-resources statement protects the automatic call to close() with a non-null check.
+            requestMetrics.increment(RequestType.GET_OBJECT);
             try (@Nullable S3Object s3Object = s3Client.getObject(getObjectRequest)) {
                 long totalSize = readS3Object(s3Object, getObjectRequest);
                 promise.complete(totalSize);
@@ -313,13 +356,136 @@ final class S3ConnectionImpl implements S3Connection {
             objectMetadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
         }
         PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, key, inputStream, objectMetadata);
-        return CompletableFuture.supplyAsync(() -> s3Client.putObject(putObjectRequest), executorService);
+        return CompletableFuture.supplyAsync(
+            () -> {
+                requestMetrics.increment(RequestType.PUT_OBJECT);
+                return s3Client.putObject(putObjectRequest);
+            },
+            executorService
+        );
     }
 
     @Override
     public CompletableFuture<Void> deleteObject(String bucketName, String key) {
         DeleteObjectRequest deleteObjectRequest = new DeleteObjectRequest(bucketName, key);
-        return CompletableFuture.runAsync(() -> s3Client.deleteObject(deleteObjectRequest), executorService);
+        return CompletableFuture.runAsync(
+            () -> {
+                requestMetrics.increment(RequestType.DELETE_OBJECT);
+                s3Client.deleteObject(deleteObjectRequest);
+            },
+            executorService
+        );
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteObjects(String bucketName, List<String> keys) {
+        if (keys.size() > MAXIMUM_KEYS_PER_DELETE_REQUEST) {
+            throw new IllegalArgumentException(String.format(
+                "Expected at most %d keys, but got %d.", MAXIMUM_KEYS_PER_DELETE_REQUEST, keys.size()
+            ));
+        }
+
+        List<DeleteObjectsRequest.KeyVersion> keyVersions = new ArrayList<>(keys.size());
+        for (String key: keys) {
+            keyVersions.add(new DeleteObjectsRequest.KeyVersion(key));
+        }
+        DeleteObjectsRequest deleteObjectsRequest = new DeleteObjectsRequest(bucketName)
+            .withKeys(keyVersions)
+            .withQuiet(true);
+        return CompletableFuture.runAsync(
+            () -> {
+                requestMetrics.increment(RequestType.DELETE_OBJECTS);
+                s3Client.deleteObjects(deleteObjectsRequest);
+            },
+            executorService
+        );
+    }
+
+    @Override
+    public CompletableFuture<Void> copyObject(String fromBucketName, String fromKey, String toBucketName, String toKey,
+            long size) {
+        if (size < multipartCopyThreshold) {
+            CopyObjectRequest copyObjectRequest = new CopyObjectRequest(fromBucketName, fromKey, toBucketName, toKey);
+            if (serverSideEncrypted) {
+                ObjectMetadata objectMetadata = new ObjectMetadata();
+                objectMetadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
+                copyObjectRequest.setNewObjectMetadata(objectMetadata);
+            }
+            return CompletableFuture.runAsync(
+                () -> {
+                    requestMetrics.increment(RequestType.COPY_OBJECT);
+                    s3Client.copyObject(copyObjectRequest);
+                },
+                executorService
+            );
+        }
+
+        return initiateMultipartUpload(toBucketName, toKey)
+            .thenCompose(initiateResult -> {
+                String uploadId = initiateResult.getUploadId();
+                CompletableFuture<CompleteMultipartUploadResult> completionFuture
+                    = copyParts(fromBucketName, fromKey, toBucketName, toKey, uploadId, size)
+                        .thenCompose(partETags -> completeMultipartUpload(toBucketName, toKey, uploadId, partETags));
+                completionFuture.whenComplete((ignoredResult, throwable) -> {
+                    if (throwable != null) {
+                        abortMultipartUpload(toBucketName, toKey, uploadId).whenComplete(
+                            (ignoredVoid, abortThrowable) -> {
+                                if (abortThrowable != null) {
+                                    log.error(String.format(
+                                        "Failed to abort multi-part copy for key '%s'. MANUAL CLEAN-UP REQUIRED!",
+                                        toKey
+                                    ), abortThrowable);
+                                }
+                            }
+                        );
+                    }
+                });
+                return completionFuture.thenApply(ignoredResult -> (Void) null);
+            });
+    }
+
+    /**
+     * Copies all parts of a multi-part copy.
+     *
+     * <p>Parts are distributed round-robin among {@link #parallelConnectionsPerRequest} lanes, and the parts within a
+     * lane are copied sequentially. Hence, at most {@link #parallelConnectionsPerRequest} copy-part requests are active
+     * at the same time.
+     *
+     * @return Future that will be completed with the list of part ETags, ordered by part number
+     */
+    private CompletableFuture<List<PartETag>> copyParts(String fromBucketName, String fromKey, String toBucketName,
+            String toKey, String uploadId, long size) {
+        int numParts = (int) ((size + multipartCopyThreshold - 1) / multipartCopyThreshold);
+        PartETag[] partETags = new PartETag[numParts];
+        int numLanes = Math.max(1, Math.min(parallelConnectionsPerRequest, numParts));
+        List<CompletableFuture<Void>> laneFutures = new ArrayList<>(numLanes);
+        for (int lane = 0; lane < numLanes; ++lane) {
+            CompletableFuture<Void> laneFuture = CompletableFuture.completedFuture(null);
+            for (int partIndex = lane; partIndex < numParts; partIndex += numLanes) {
+                long firstByte = partIndex * multipartCopyThreshold;
+                CopyPartRequest copyPartRequest = new CopyPartRequest()
+                    .withSourceBucketName(fromBucketName)
+                    .withSourceKey(fromKey)
+                    .withDestinationBucketName(toBucketName)
+                    .withDestinationKey(toKey)
+                    .withUploadId(uploadId)
+                    .withPartNumber(partIndex + 1)
+                    .withFirstByte(firstByte)
+                    .withLastByte(Math.min(firstByte + multipartCopyThreshold, size) - 1);
+                int finalPartIndex = partIndex;
+                laneFuture = laneFuture.thenRunAsync(
+                    () -> {
+                        requestMetrics.increment(RequestType.COPY_PART);
+                        partETags[finalPartIndex] = s3Client.copyPart(copyPartRequest).getPartETag();
+                    },
+                    executorService
+                );
+            }
+            laneFutures.add(laneFuture);
+        }
+        // Memory consistency: The writes to partETags happen-before the completion of the lane futures.
+        return Futures.shortCircuitCollect(laneFutures)
+            .thenApply(ignoredList -> Arrays.asList(partETags));
     }
 
     @Override
@@ -330,7 +496,9 @@ final class S3ConnectionImpl implements S3Connection {
         DeleteObjectRequest deleteObjectRequest = new DeleteObjectRequest(fromBucketName, fromKey);
         return CompletableFuture.runAsync(
             () -> {
+                requestMetrics.increment(RequestType.COPY_OBJECT);
                 s3Client.copyObject(copyObjectResult);
+                requestMetrics.increment(RequestType.DELETE_OBJECT);
                 s3Client.deleteObject(deleteObjectRequest);
             },
             executorService
@@ -345,7 +513,13 @@ final class S3ConnectionImpl implements S3Connection {
             objectMetadata.setSSEAlgorithm(ObjectMetadata.AES_256_SERVER_SIDE_ENCRYPTION);
             request.setObjectMetadata(objectMetadata);
         }
-        return CompletableFuture.supplyAsync(() -> s3Client.initiateMultipartUpload(request), executorService);
+        return CompletableFuture.supplyAsync(
+            () -> {
+                requestMetrics.increment(RequestType.INITIATE_MULTIPART_UPLOAD);
+                return s3Client.initiateMultipartUpload(request);
+            },
+            executorService
+        );
     }
 
     @Override
@@ -358,7 +532,13 @@ final class S3ConnectionImpl implements S3Connection {
             .withPartNumber(partNumber)
             .withInputStream(inputStream)
             .withPartSize(length);
-        return CompletableFuture.supplyAsync(() -> s3Client.uploadPart(request), executorService);
+        return CompletableFuture.supplyAsync(
+            () -> {
+                requestMetrics.increment(RequestType.UPLOAD_PART);
+                return s3Client.uploadPart(request);
+            },
+            executorService
+        );
     }
 
     @Override
@@ -366,13 +546,25 @@ final class S3ConnectionImpl implements S3Connection {
             String uploadId, List<PartETag> partETags) {
         CompleteMultipartUploadRequest request
             = new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags);
-        return CompletableFuture.supplyAsync(() -> s3Client.completeMultipartUpload(request), executorService);
+        return CompletableFuture.supplyAsync(
+            () -> {
+                requestMetrics.increment(RequestType.COMPLETE_MULTIPART_UPLOAD);
+                return s3Client.completeMultipartUpload(request);
+            },
+            executorService
+        );
     }
 
     @Override
     public CompletableFuture<Void> abortMultipartUpload(String bucketName, String key, String uploadId) {
         AbortMultipartUploadRequest request = new AbortMultipartUploadRequest(bucketName, key, uploadId);
-        return CompletableFuture.runAsync(() -> s3Client.abortMultipartUpload(request), executorService);
+        return CompletableFuture.runAsync(
+            () -> {
+                requestMetrics.increment(RequestType.ABORT_MULTIPART_UPLOAD);
+                s3Client.abortMultipartUpload(request);
+            },
+            executorService
+        );
     }
 
     @Override
@@ -0,0 +1,79 @@
+package xyz.cloudkeeper.s3.io;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for the requests that an {@link S3Connection} has sent to Amazon S3.
+ *
+ * <p>Each attempt counts as a request; that is, if a request is retried, it is counted multiple times. Only requests
+ * sent through the methods of {@link S3Connection} are counted, but not requests sent directly through the client
+ * returned by {@link S3Connection#getS3Client()}.
+ *
+ * <p>This class is thread-safe. Counters are updated with little contention overhead, so reading the counters while
+ * requests are in progress may return slightly outdated values.
+ */
+public final class S3RequestMetrics {
+    /**
+     * Type of Amazon S3 request.
+     */
+    public enum RequestType {
+        LIST_OBJECTS,
+        GET_OBJECT,
+        PUT_OBJECT,
+        COPY_OBJECT,
+        DELETE_OBJECT,
+        DELETE_OBJECTS,
+        INITIATE_MULTIPART_UPLOAD,
+        UPLOAD_PART,
+        COPY_PART,
+        COMPLETE_MULTIPART_UPLOAD,
+        ABORT_MULTIPART_UPLOAD
+    }
+
+    private final LongAdder[] requestCounts = new LongAdder[RequestType.values().length];
+
+    S3RequestMetrics() {
+        for (int i = 0; i < requestCounts.length; ++i) {
+            requestCounts[i] = new LongAdder();
+        }
+    }
+
+    void increment(RequestType requestType) {
+        requestCounts[requestType.ordinal()].increment();
+    }
+
+    /**
+     * Returns the number of requests of the given type.
+     *
+     * @param requestType type of request
+     * @return the number of requests of the given type
+     */
+    public long getRequestCount(RequestType requestType) {
+        return requestCounts[requestType.ordinal()].sum();
+    }
+
+    /**
+     * Returns the total number of requests, across all request types.
+     *
+     * @return the total number of requests
+     */
+    public long getTotalRequestCount() {
+        long total = 0;
+        for (LongAdder requestCount: requestCounts) {
+            total += requestCount.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder(256).append('{');
+        for (RequestType requestType: RequestType.values()) {
+            if (requestType.ordinal() > 0) {
+                stringBuilder.append(", ");
+            }
+            stringBuilder.append(requestType).append('=').append(getRequestCount(requestType));
+        }
+        return stringBuilder.append('}').toString();
+    }
+}
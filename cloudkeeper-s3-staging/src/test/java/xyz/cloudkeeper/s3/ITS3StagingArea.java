@@ -15,11 +15,15 @@ import xyz.cloudkeeper.contracts.StagingAreaContractProvider;
 import xyz.cloudkeeper.model.api.RuntimeContext;
 import xyz.cloudkeeper.model.api.staging.InstanceProvider;
 import xyz.cloudkeeper.model.api.staging.StagingArea;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
 import xyz.cloudkeeper.model.runtime.execution.RuntimeAnnotatedExecutionTrace;
 import xyz.cloudkeeper.s3.io.S3Connection;
 import xyz.cloudkeeper.s3.io.S3ConnectionBuilder;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
@@ -47,6 +51,7 @@ public class ITS3StagingArea {
     private static final String KEY_PREFIX = ITS3StagingArea.class.getName() + '/';
 
     private static final long AWAIT_DURATION_MILLIS = 1000;
+    private static final long LOCAL_CACHE_SIZE = 64L * 1024 * 1024;
 
     private final InstanceProvider instanceProvider = new InstanceProviderImpl();
     @Nullable private AmazonClientException credentialsException = null;
@@ -54,6 +59,8 @@ public class ITS3StagingArea {
     @Nullable private S3Connection s3Connection = null;
     @Nullable private String s3Bucket;
     @Nullable private ScheduledExecutorService executorService;
+    @Nullable private Path localCacheDirectory;
+    @Nullable private S3LocalCache localCache;
 
     public void setup() {
         AWSCredentialsProvider awsCredentialsProvider = new DefaultAWSCredentialsProviderChain();
@@ -67,6 +74,8 @@ public class ITS3StagingArea {
 
             if (s3Bucket != null) {
                 executorService = Executors.newScheduledThreadPool(4);
+                localCacheDirectory = Files.createTempDirectory(getClass().getSimpleName());
+                localCache = new S3LocalCache(localCacheDirectory, LOCAL_CACHE_SIZE);
 
                 AmazonS3 s3Client = new AmazonS3Client(awsCredentialsProvider);
                 s3Connection = new S3ConnectionBuilder(s3Client, executorService).build();
@@ -76,6 +85,8 @@ public class ITS3StagingArea {
             }
         } catch (AmazonClientException exception) {
             credentialsException = exception;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to create local cache directory.", exception);
         }
     }
 
@@ -83,29 +94,51 @@ public class ITS3StagingArea {
     public void tearDown() {
         if (!skipTest) {
             if (s3Connection != null) {
-                assert s3Bucket != null && executorService != null : "must have been initialized in setup()";
+                assert s3Bucket != null && executorService != null && localCache != null && localCacheDirectory != null
+                    : "must have been initialized in setup()";
                 cleanS3(s3Connection, s3Bucket);
                 executorService.shutdownNow();
+                try {
+                    localCache.close();
+                    Files.walkFileTree(localCacheDirectory, RecursiveDeleteVisitor.getInstance());
+                } catch (IOException exception) {
+                    throw new IllegalStateException("Failed to delete local cache directory.", exception);
+                }
             }
         }
     }
 
     private static void cleanS3(S3Connection s3Connection, String s3Bucket) {
-        S3Utilities.deletePrefix(s3Connection.getS3Client(), s3Bucket, KEY_PREFIX);
+        try {
+            S3Utilities.deletePrefix(s3Connection, s3Bucket, KEY_PREFIX);
+        } catch (IOException exception) {
+            throw new IllegalStateException(String.format(
+                "Failed to clean up S3 bucket '%s'.", s3Bucket
+            ), exception);
+        }
     }
 
     @Factory
     public Object[] contractTests() {
         setup();
 
-        ProviderImpl provider = new ProviderImpl();
+        ProviderImpl provider = new ProviderImpl(false);
+        ProviderImpl localCacheProvider = new ProviderImpl(true);
         return new Object[] {
             new StagingAreaContract(provider),
-            new RemoteStagingAreaContract(provider, instanceProvider)
+            new RemoteStagingAreaContract(provider, instanceProvider),
+            new StagingAreaContract(localCacheProvider),
+            new RemoteStagingAreaContract(localCacheProvider, instanceProvider)
         };
     }
 
-    private class ProviderImpl implements StagingAreaContractProvider {
+    private final class ProviderImpl implements StagingAreaContractProvider {
+        private final boolean localCacheEnabled;
+
+        private ProviderImpl(boolean localCacheEnabled) {
+            this.localCacheEnabled = localCacheEnabled;
+        }
+
         @Override
         public void preContract() {
             if (credentialsException != null) {
@@ -125,6 +158,7 @@ public class ITS3StagingArea {
             assert s3Connection != null && s3Bucket != null && executorService != null;
             return new S3StagingArea.Builder(executionTrace, s3Connection, s3Bucket, executorService, runtimeContext)
                 .setKeyPrefix(KEY_PREFIX)
+                .setLocalCache(localCacheEnabled ? localCache : null)
                 .build();
         }
 
@@ -147,6 +181,9 @@ public class ITS3StagingArea {
                 return (T) executorService;
             } else if (S3Connection.class.equals(requestedClass)) {
                 return (T) s3Connection;
+            } else if (S3LocalCache.class.equals(requestedClass)) {
+                assert localCache != null;
+                return (T) localCache;
             } else {
                 Assert.fail(String.format("Instance provider ask for unexpected %s.", requestedClass));
                 return null;
@@ -0,0 +1,151 @@
+package xyz.cloudkeeper.s3;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import xyz.cloudkeeper.model.api.util.RecursiveDeleteVisitor;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+public class S3LocalCacheTest {
+    @Nullable private Path tempDir;
+
+    @BeforeClass
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory(getClass().getSimpleName());
+    }
+
+    @AfterClass
+    public void tearDown() throws IOException {
+        assert tempDir != null;
+        Files.walkFileTree(tempDir, RecursiveDeleteVisitor.getInstance());
+    }
+
+    private static void put(S3LocalCache localCache, String key, int size) throws IOException {
+        Path file = localCache.newTemporaryFile();
+        Files.write(file, new byte[size]);
+        localCache.put(key, eTag(size), file);
+    }
+
+    private static String eTag(int size) {
+        return "etag-" + size;
+    }
+
+    private static boolean contains(S3LocalCache localCache, String key, int size) throws IOException {
+        try (@Nullable FileChannel fileChannel = localCache.open(key, eTag(size), size)) {
+            return fileChannel != null;
+        }
+    }
+
+    private static long numFiles(Path directory) throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream.count();
+        }
+    }
+
+    @Test
+    public void eviction() throws IOException {
+        assert tempDir != null;
+        Path directory = tempDir.resolve("eviction");
+        Path entryDirectory = directory.resolve("entries");
+
+        S3LocalCache localCache = new S3LocalCache(directory, 10);
+        put(localCache, "bucket/a", 4);
+        put(localCache, "bucket/b", 4);
+        Assert.assertEquals(localCache.size(), 8);
+
+        // Accessing "a" makes "b" the least-recently-used entry.
+        Assert.assertTrue(contains(localCache, "bucket/a", 4));
+        put(localCache, "bucket/c", 4);
+        Assert.assertEquals(localCache.size(), 8);
+        Assert.assertTrue(contains(localCache, "bucket/a", 4));
+        Assert.assertFalse(contains(localCache, "bucket/b", 4));
+        Assert.assertTrue(contains(localCache, "bucket/c", 4));
+
+        // Entries larger than the cache are never added.
+        put(localCache, "bucket/d", 11);
+        Assert.assertFalse(contains(localCache, "bucket/d", 11));
+        Assert.assertEquals(localCache.size(), 8);
+
+        // Entries are identified by key and ETag, so a changed S3 object is not served from the cache. The previous
+        // entry is only removed once it is evicted or invalidated.
+        put(localCache, "bucket/a", 2);
+        Assert.assertFalse(contains(localCache, "bucket/a", 3));
+        Assert.assertEquals(localCache.size(), 10);
+        try (@Nullable FileChannel fileChannel = localCache.open("bucket/a", eTag(2), 2)) {
+            assert fileChannel != null;
+            Assert.assertEquals(fileChannel.read(ByteBuffer.allocate(4)), 2);
+        }
+
+        localCache.invalidatePrefix("bucket/c");
+        Assert.assertFalse(contains(localCache, "bucket/c", 4));
+        Assert.assertEquals(localCache.size(), 6);
+        Assert.assertEquals(numFiles(entryDirectory), 2);
+
+        // Invalidating a prefix removes the entries for all ETags of all keys with that prefix.
+        put(localCache, "bucket/ab", 1);
+        localCache.invalidatePrefix("bucket/a");
+        Assert.assertEquals(localCache.size(), 0);
+        Assert.assertEquals(numFiles(entryDirectory), 0);
+        put(localCache, "bucket/f", 1);
+
+        // Closing does not delete any files, because they may be shared with other instances.
+        localCache.close();
+        Assert.assertFalse(contains(localCache, "bucket/f", 1));
+        Assert.assertEquals(localCache.size(), 0);
+        put(localCache, "bucket/e", 1);
+        Assert.assertEquals(numFiles(entryDirectory), 1);
+    }
+
+    @Test
+    public void sharedDirectory() throws IOException {
+        assert tempDir != null;
+        Path directory = tempDir.resolve("shared");
+
+        S3LocalCache first = new S3LocalCache(directory, 10);
+        put(first, "bucket/a", 4);
+
+        // Entries present when an instance is constructed are indexed.
+        S3LocalCache second = new S3LocalCache(directory, 10);
+        Assert.assertEquals(second.size(), 4);
+        Assert.assertTrue(contains(second, "bucket/a", 4));
+
+        // Entries added by another instance later are found, too.
+        put(first, "bucket/b", 4);
+        Assert.assertTrue(contains(second, "bucket/b", 4));
+        Assert.assertEquals(second.size(), 8);
+
+        // Entries evicted by another instance are dropped from the index.
+        put(first, "bucket/c", 4);
+        Assert.assertFalse(contains(second, "bucket/a", 4));
+        Assert.assertEquals(second.size(), 4);
+
+        // An instance whose maximum size is exceeded by the existing entries evicts them.
+        S3LocalCache third = new S3LocalCache(directory, 5);
+        Assert.assertEquals(third.size(), 4);
+        Assert.assertEquals(numFiles(directory.resolve("entries")), 1);
+    }
+
+    @Test
+    public void foreignDirectory() throws IOException {
+        assert tempDir != null;
+        Path directory = tempDir.resolve("foreign");
+        Files.createDirectories(directory);
+        Path foreignFile = Files.write(directory.resolve("foreign"), new byte[1]);
+
+        try {
+            new S3LocalCache(directory, 10);
+            Assert.fail();
+        } catch (IOException ignored) {
+            // Expected
+        }
+        Assert.assertTrue(Files.exists(foreignFile));
+    }
+}